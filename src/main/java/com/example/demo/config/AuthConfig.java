@@ -49,6 +49,10 @@ public class AuthConfig {
                                 .requestMatchers(HttpMethod.GET, "/products/**", "/reviews/**",
                                         "/v3/api-docs", "/v3/api-docs/**", "/swagger-ui/**")
                                 .permitAll()
+                                .requestMatchers(HttpMethod.GET, "/actuator/health")
+                                .permitAll()
+                                .requestMatchers("/actuator/**")
+                                .hasAuthority("Admin")
                                 .anyRequest().authenticated()
                 )
                 .addFilterBefore(filterToken, UsernamePasswordAuthenticationFilter.class)
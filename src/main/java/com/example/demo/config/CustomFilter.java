@@ -23,6 +23,9 @@ public class CustomFilter extends OncePerRequestFilter {
     private final RequestMatcher productMatcher =
             new AntPathRequestMatcher("/products", HttpMethod.POST.name());
 
+    private final RequestMatcher productImportMatcher =
+            new AntPathRequestMatcher("/products/import", HttpMethod.POST.name());
+
     private final RequestMatcher paymentMatcher =
             new AntPathRequestMatcher("/payment", HttpMethod.POST.name());
 
@@ -42,9 +45,11 @@ public class CustomFilter extends OncePerRequestFilter {
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
         RequestMatcher productRequestMatcher = new NegatedRequestMatcher(productMatcher);
+        RequestMatcher productImportRequestMatcher = new NegatedRequestMatcher(productImportMatcher);
         RequestMatcher paymentRequestMatcher = new NegatedRequestMatcher(paymentMatcher);
 
-        return productRequestMatcher.matches(request) && paymentRequestMatcher.matches(request);
+        return productRequestMatcher.matches(request) && productImportRequestMatcher.matches(request)
+                && paymentRequestMatcher.matches(request);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.example.demo.config;
+
+import com.example.demo.enums.ProductCategory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the PostgreSQL-only schema objects that Hibernate's ddl-auto cannot describe.
+ * Every statement is idempotent so it can run on each startup; the data fixes run only until the schema
+ * object they precede exists or, for plain backfills, once per database as recorded in schema_backfills.
+ * Requires PostgreSQL 12 or later for the generated search column.
+ */
+@Component
+public class PostgresSchemaInitializer implements ApplicationRunner {
+
+    private static final String[] STATEMENTS = {
+            categoryCodeMigration(),
+            // Merges duplicate cart lines added before an order could hold only one item per product.
+            "DO $$ BEGIN " +
+                    "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_order_items_order_product') " +
+                    "THEN " +
+                    "WITH merged AS (SELECT (array_agg(id ORDER BY id))[1] AS id, sum(quantity) AS quantity " +
+                    "FROM order_items GROUP BY order_id, product_id HAVING count(*) > 1), " +
+                    "kept AS (UPDATE order_items i SET quantity = m.quantity FROM merged m WHERE i.id = m.id " +
+                    "RETURNING i.id, i.order_id, i.product_id) " +
+                    "DELETE FROM order_items i USING kept k " +
+                    "WHERE i.order_id = k.order_id AND i.product_id = k.product_id AND i.id <> k.id; " +
+                    "ALTER TABLE order_items ADD CONSTRAINT uk_order_items_order_product " +
+                    "UNIQUE (order_id, product_id); " +
+                    "END IF; END $$",
+            "CREATE TABLE IF NOT EXISTS schema_backfills (name varchar(100) PRIMARY KEY, " +
+                    "applied_at timestamp NOT NULL DEFAULT now())",
+            // Backfills unit prices and order totals for carts filled before they were persisted.
+            once("order_item_unit_prices", "UPDATE order_items i SET unit_price = p.price FROM products p " +
+                    "WHERE p.id = i.product_id AND i.unit_price = 0"),
+            once("order_totals", "UPDATE orders o SET total_amount = t.total_amount, item_count = t.item_count " +
+                    "FROM (SELECT order_id, sum(unit_price * quantity) AS total_amount, sum(quantity) AS item_count " +
+                    "FROM order_items GROUP BY order_id) t " +
+                    "WHERE o.id = t.order_id AND o.item_count = 0"),
+            // Folds duplicate Active orders created before the index below into each customer's oldest one.
+            "DO $$ BEGIN " +
+                    "IF to_regclass('uk_orders_active_customer') IS NULL THEN " +
+                    "CREATE TEMP TABLE duplicate_active_orders AS " +
+                    "SELECT id, keep_id FROM (SELECT id, first_value(id) OVER (PARTITION BY customer_id " +
+                    "ORDER BY order_date, id) AS keep_id FROM orders WHERE status = 'Active') ranked " +
+                    "WHERE id <> keep_id; " +
+                    "INSERT INTO order_items (id, order_id, product_id, quantity, unit_price) " +
+                    "SELECT md5(random()::text || clock_timestamp()::text)::uuid, d.keep_id, i.product_id, " +
+                    "sum(i.quantity), max(i.unit_price) " +
+                    "FROM order_items i JOIN duplicate_active_orders d ON i.order_id = d.id " +
+                    "GROUP BY d.keep_id, i.product_id " +
+                    "ON CONFLICT (order_id, product_id) " +
+                    "DO UPDATE SET quantity = order_items.quantity + EXCLUDED.quantity; " +
+                    "DELETE FROM order_items i USING duplicate_active_orders d WHERE i.order_id = d.id; " +
+                    "DELETE FROM orders o USING duplicate_active_orders d WHERE o.id = d.id; " +
+                    "UPDATE orders o SET total_amount = t.total_amount, item_count = t.item_count " +
+                    "FROM (SELECT order_id, sum(unit_price * quantity) AS total_amount, " +
+                    "sum(quantity) AS item_count FROM order_items " +
+                    "WHERE order_id IN (SELECT keep_id FROM duplicate_active_orders) GROUP BY order_id) t " +
+                    "WHERE o.id = t.order_id; " +
+                    "DROP TABLE duplicate_active_orders; " +
+                    "CREATE UNIQUE INDEX uk_orders_active_customer ON orders (customer_id) " +
+                    "WHERE status = 'Active'; " +
+                    "END IF; END $$",
+            "ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                    "GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('english', coalesce(name, '')), 'A') || " +
+                    "setweight(to_tsvector('english', coalesce(description, '')), 'B')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)",
+            // Backfills rating aggregates for products reviewed before the columns existed.
+            once("product_ratings", "UPDATE products p SET rating_count = r.rating_count, " +
+                    "rating_sum = r.rating_sum, average_rating = r.rating_sum::double precision / r.rating_count " +
+                    "FROM (SELECT product_id, count(*) AS rating_count, sum(rating) AS rating_sum " +
+                    "FROM reviews GROUP BY product_id) r " +
+                    "WHERE p.id = r.product_id AND p.rating_count = 0")
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String statement : STATEMENTS) {
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    private static String once(String name, String sql) {
+        return "DO $$ BEGIN " +
+                "INSERT INTO schema_backfills (name) VALUES ('" + name + "') ON CONFLICT DO NOTHING; " +
+                "IF FOUND THEN " + sql + "; END IF; END $$";
+    }
+
+    /**
+     * Converts a category column still holding constant names to the pinned smallint codes. Rewriting
+     * the column also rebuilds the indexes on it.
+     */
+    private static String categoryCodeMigration() {
+        StringBuilder codes = new StringBuilder();
+        for (ProductCategory category : ProductCategory.values()) {
+            codes.append("WHEN '").append(category.name()).append("' THEN ").append(category.getCode()).append(' ');
+        }
+        return "DO $$ BEGIN " +
+                "IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema() " +
+                "AND table_name = 'products' AND column_name = 'category' AND data_type <> 'smallint') THEN " +
+                "ALTER TABLE products DROP CONSTRAINT IF EXISTS products_category_check; " +
+                "ALTER TABLE products ALTER COLUMN category TYPE smallint USING CASE category " + codes +
+                "END; " +
+                "END IF; END $$";
+    }
+}
@@ -3,7 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.entities.OrderHistory;
 import com.example.demo.services.OrderHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -26,15 +26,17 @@ public class OrderHistoryController {
 
     @PreAuthorize("hasAuthority('Customer')")
     @GetMapping(value = "/user")
-    public ResponseEntity<Page<OrderHistory>> findByCurrentUser(
+    public ResponseEntity<Slice<OrderHistory>> findByCurrentUser(
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "5") Integer pageSize,
             @RequestParam(defaultValue = "asc") String sortDirection,
-            @RequestParam(defaultValue = "paymentDate") String sortBy
+            @RequestParam(defaultValue = "paymentDate") String sortBy,
+            @RequestParam(defaultValue = "true") Boolean includeTotal
     ) {
         Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
-        Page<OrderHistory> orderHistoryPage =
-                orderHistoryService.findByCurrentUser(pageNo, pageSize, sortOrder, sortBy);
+        Slice<OrderHistory> orderHistoryPage = includeTotal
+                ? orderHistoryService.findByCurrentUser(pageNo, pageSize, sortOrder, sortBy)
+                : orderHistoryService.findSliceByCurrentUser(pageNo, pageSize, sortOrder, sortBy);
         return ResponseEntity.ok().body(orderHistoryPage);
     }
 }
@@ -1,6 +1,8 @@
 package com.example.demo.controller;
 
+import com.example.demo.dtos.CartUpdateDTO;
 import com.example.demo.dtos.OrderItemDTO;
+import com.example.demo.entities.Order;
 import com.example.demo.entities.OrderItem;
 import com.example.demo.services.OrderItemService;
 import jakarta.validation.Valid;
@@ -33,6 +35,12 @@ public class OrderItemController {
         return ResponseEntity.created(uri).body(orderItem);
     }
 
+    @PreAuthorize("hasAuthority('Customer')")
+    @PatchMapping(value = "/cart")
+    public ResponseEntity<Order> updateCart(@Valid @RequestBody CartUpdateDTO cartUpdateDTO) {
+        return ResponseEntity.ok().body(orderItemService.applyCartOperations(cartUpdateDTO.getOperations()));
+    }
+
     @PreAuthorize("hasAuthority('Admin')")
     @GetMapping
     public ResponseEntity<List<OrderItem>> findAll() {
@@ -1,19 +1,58 @@
 package com.example.demo.controller;
 
+import com.example.demo.dtos.CategoryRepriceDTO;
+import com.example.demo.dtos.CategoryStatisticsDTO;
+import com.example.demo.dtos.CursorPageDTO;
+import com.example.demo.dtos.EntityVersionDTO;
+import com.example.demo.dtos.ProductBatchDTO;
+import com.example.demo.dtos.ProductChangeFeedDTO;
 import com.example.demo.dtos.ProductDTO;
+import com.example.demo.dtos.ProductDetailDTO;
+import com.example.demo.dtos.ProductFacetsDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductImportReportDTO;
+import com.example.demo.dtos.ProductRepriceDTO;
+import com.example.demo.dtos.ProductRepriceReportDTO;
+import com.example.demo.dtos.ProductSuggestionDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
 import com.example.demo.entities.Product;
+import com.example.demo.enums.PriceBucket;
 import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductFileFormat;
+import com.example.demo.services.ProductCatalogService;
+import com.example.demo.services.ProductChangeService;
+import com.example.demo.services.ProductDetailService;
+import com.example.demo.services.ProductExportService;
+import com.example.demo.services.ProductImportService;
 import com.example.demo.services.ProductService;
+import com.example.demo.services.ProductSuggestionService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -23,6 +62,27 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductSuggestionService productSuggestionService;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private ProductDetailService productDetailService;
+
+    @Value("${product.export.timeout:30m}")
+    private Duration exportTimeout;
+
     @PreAuthorize("hasAuthority('Seller')")
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody ProductDTO productDTO) {
@@ -35,64 +95,251 @@ public class ProductController {
         return ResponseEntity.created(uri).body(product);
     }
 
+    @PreAuthorize("hasAuthority('Seller')")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ProductImportReportDTO> importProducts(
+            InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType
+    ) throws IOException {
+        ProductFileFormat format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ProductFileFormat.NDJSON
+                : ProductFileFormat.CSV;
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        ProductImportReportDTO report = productImportService.importProducts(
+                new BufferedReader(new InputStreamReader(body, charset)), format);
+        return ResponseEntity.ok().body(report);
+    }
+
     @GetMapping
-    public ResponseEntity<Page<Product>> findAll(
+    public ResponseEntity<Slice<ProductSummaryDTO>> findAll(
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "5") Integer pageSize,
             @RequestParam(defaultValue = "asc") String sortDirection,
-            @RequestParam(defaultValue = "name") String sortBy
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "true") Boolean includeTotal
     ) {
         Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
-        Page<Product> productPage = productService.findAll(pageNo, pageSize, sortOrder, sortBy);
+        Slice<ProductSummaryDTO> productPage = includeTotal
+                ? productService.findAll(pageNo, pageSize, sortOrder, sortBy)
+                : productService.findSliceAll(pageNo, pageSize, sortOrder, sortBy);
         return ResponseEntity.ok().body(productPage);
     }
 
     @GetMapping(value = "/category")
-    public ResponseEntity<Page<Product>> findByCategory(
+    public ResponseEntity<Slice<ProductSummaryDTO>> findByCategory(
             @RequestParam ProductCategory productCategory,
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "5") Integer pageSize,
             @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "true") Boolean includeTotal
+    ) {
+        Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
+        Slice<ProductSummaryDTO> productPage = includeTotal
+                ? productService.findByCategory(productCategory, pageNo, pageSize, sortOrder, sortBy)
+                : productService.findSliceByCategory(productCategory, pageNo, pageSize, sortOrder, sortBy);
+        return ResponseEntity.ok().body(productPage);
+    }
+
+    @GetMapping(value = "/category/statistics")
+    public ResponseEntity<List<CategoryStatisticsDTO>> categoryStatistics() {
+        List<CategoryStatisticsDTO> statistics = productCatalogService.categoryStatistics();
+        return ResponseEntity.ok().body(statistics);
+    }
+
+    @GetMapping(value = "/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "5") Integer pageSize,
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "name") String sortBy
+    ) {
+        Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
+        CursorPageDTO<ProductSummaryDTO> productPage = productService.scrollAll(cursor, pageSize, sortOrder, sortBy);
+        return ResponseEntity.ok().body(productPage);
+    }
+
+    @GetMapping(value = "/category/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollByCategory(
+            @RequestParam ProductCategory productCategory,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "5") Integer pageSize,
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "name") String sortBy
+    ) {
+        Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
+        CursorPageDTO<ProductSummaryDTO> productPage = productService.scrollByCategory
+                (productCategory, cursor, pageSize, sortOrder, sortBy);
+        return ResponseEntity.ok().body(productPage);
+    }
+
+    @GetMapping(value = "/filter")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> filter(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Set<ProductCategory> productCategory,
+            @RequestParam(required = false) UUID sellerId,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "5") Integer pageSize,
+            @RequestParam(defaultValue = "asc") String sortDirection,
             @RequestParam(defaultValue = "name") String sortBy
     ) {
         Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
-        Page<Product> productPage = productService.findByCategory
-                (productCategory, pageNo, pageSize, sortOrder, sortBy);
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .categories(productCategory)
+                .sellerId(sellerId)
+                .minRating(minRating)
+                .build();
+        CursorPageDTO<ProductSummaryDTO> productPage =
+                productService.scrollByFilter(filter, cursor, pageSize, sortOrder, sortBy);
+        return ResponseEntity.ok().body(productPage);
+    }
+
+    @GetMapping(value = "/facets")
+    public ResponseEntity<ProductFacetsDTO> facets(
+            @RequestParam(required = false) Set<ProductCategory> productCategory,
+            @RequestParam(required = false) UUID sellerId,
+            @RequestParam(required = false) Set<PriceBucket> priceBucket
+    ) {
+        ProductFacetsDTO facets = productCatalogService.facets(productCategory, sellerId, priceBucket);
+        return ResponseEntity.ok().body(facets);
+    }
+
+    @GetMapping(value = "/search")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> search(
+            @RequestParam String query,
+            @RequestParam(required = false) ProductCategory productCategory,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "5") Integer pageSize
+    ) {
+        CursorPageDTO<ProductSummaryDTO> productPage =
+                productService.search(query, productCategory, cursor, pageSize);
         return ResponseEntity.ok().body(productPage);
     }
 
+    @GetMapping(value = "/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") Integer limit
+    ) {
+        return ResponseEntity.ok().body(productSuggestionService.suggest(prefix, limit));
+    }
+
+    /**
+     * Streams the export on an async thread. A full catalog takes far longer than the default async
+     * request timeout, so the export alone runs under {@code product.export.timeout}.
+     */
+    @GetMapping(value = "/export")
+    public WebAsyncTask<Void> export(
+            @RequestParam(required = false) ProductCategory productCategory,
+            @RequestParam(required = false) UUID sellerId,
+            @RequestParam(defaultValue = "NDJSON") ProductFileFormat format,
+            HttpServletResponse response
+    ) {
+        StreamingResponseBody body = productExportService.export(productCategory, sellerId, format);
+        MediaType contentType = format == ProductFileFormat.NDJSON
+                ? MediaType.APPLICATION_NDJSON
+                : new MediaType("text", "csv", StandardCharsets.UTF_8);
+        String fileName = "products." + format.name().toLowerCase();
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    @GetMapping(value = "/changes")
+    public ResponseEntity<ProductChangeFeedDTO> findChanges(
+            @RequestParam(defaultValue = "0") Long since,
+            @RequestParam(defaultValue = "100") Integer limit
+    ) {
+        return ResponseEntity.ok().body(productChangeService.findSince(since, limit));
+    }
+
+    @GetMapping(value = "/batch")
+    public ResponseEntity<ProductBatchDTO> findAllByIds(@RequestParam List<UUID> ids) {
+        ProductBatchDTO productBatch = productService.findAllByIds(ids);
+        return ResponseEntity.ok().body(productBatch);
+    }
+
+    @GetMapping(value = "/{id}/detail")
+    public ResponseEntity<ProductDetailDTO> findDetailById(@PathVariable UUID id) {
+        return ResponseEntity.ok().body(productDetailService.findById(id));
+    }
+
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Product> findById(@PathVariable UUID id) {
+    public ResponseEntity<Product> findById(@PathVariable UUID id, WebRequest request) {
+        EntityVersionDTO version = productService.findVersionById(id);
+        if (request.checkNotModified(version.toETag(), version.toLastModified())) {
+            return null;
+        }
         return ResponseEntity.ok().body(productService.findById(id));
     }
 
     @PreAuthorize("hasAuthority('Seller')")
     @GetMapping(value = "/user")
-    public ResponseEntity<Page<Product>> findByCurrentUser(
+    public ResponseEntity<Slice<ProductSummaryDTO>> findByCurrentUser(
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "5") Integer pageSize,
             @RequestParam(defaultValue = "asc") String sortDirection,
-            @RequestParam(defaultValue = "name") String sortBy
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "true") Boolean includeTotal
     ) {
         Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
-        Page<Product> productPage = productService.findByCurrentUser(pageNo, pageSize, sortOrder, sortBy);
+        Slice<ProductSummaryDTO> productPage = includeTotal
+                ? productService.findByCurrentUser(pageNo, pageSize, sortOrder, sortBy)
+                : productService.findSliceByCurrentUser(pageNo, pageSize, sortOrder, sortBy);
         return ResponseEntity.ok().body(productPage);
     }
 
     @GetMapping(value = "/seller/{sellerId}")
-    public ResponseEntity<Page<Product>> findBySellerId(
+    public ResponseEntity<Slice<ProductSummaryDTO>> findBySellerId(
             @PathVariable UUID sellerId,
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "5") Integer pageSize,
             @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "true") Boolean includeTotal
+    ) {
+        Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
+        Slice<ProductSummaryDTO> productPage = includeTotal
+                ? productService.findAllBySeller(sellerId, pageNo, pageSize, sortOrder, sortBy)
+                : productService.findSliceBySeller(sellerId, pageNo, pageSize, sortOrder, sortBy);
+        return ResponseEntity.ok().body(productPage);
+    }
+
+    @GetMapping(value = "/seller/{sellerId}/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryDTO>> scrollBySellerId(
+            @PathVariable UUID sellerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "5") Integer pageSize,
+            @RequestParam(defaultValue = "asc") String sortDirection,
             @RequestParam(defaultValue = "name") String sortBy
     ) {
         Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
-        Page<Product> productPage =
-                productService.findAllBySeller(sellerId, pageNo, pageSize, sortOrder, sortBy);
+        CursorPageDTO<ProductSummaryDTO> productPage =
+                productService.scrollBySeller(sellerId, cursor, pageSize, sortOrder, sortBy);
         return ResponseEntity.ok().body(productPage);
     }
 
+    @PreAuthorize("hasAuthority('Seller')")
+    @PatchMapping(value = "/prices")
+    public ResponseEntity<ProductRepriceReportDTO> reprice(@Valid @RequestBody ProductRepriceDTO productRepriceDTO) {
+        return ResponseEntity.ok().body(productService.reprice(productRepriceDTO.getPrices()));
+    }
+
+    @PreAuthorize("hasAuthority('Seller')")
+    @PatchMapping(value = "/prices/category")
+    public ResponseEntity<ProductRepriceReportDTO> repriceCategory(
+            @Valid @RequestBody CategoryRepriceDTO categoryRepriceDTO) {
+        return ResponseEntity.ok().body(productService.repriceCategory(categoryRepriceDTO));
+    }
+
     @PreAuthorize("hasAuthority('Seller')")
     @PatchMapping(value = "/{id}")
     public ResponseEntity<Product> update(@PathVariable UUID id,
@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.dtos.EntityVersionDTO;
 import com.example.demo.dtos.ReviewDTO;
 import com.example.demo.dtos.UpdateReviewDTO;
 import com.example.demo.entities.Review;
@@ -7,10 +8,12 @@ import com.example.demo.services.ReviewService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
@@ -49,35 +52,48 @@ public class ReviewController {
     }
 
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Review> findById(@PathVariable UUID id) {
+    public ResponseEntity<Review> findById(@PathVariable UUID id, WebRequest request) {
+        EntityVersionDTO version = reviewService.findVersionById(id);
+        if (request.checkNotModified(version.toETag(), version.toLastModified())) {
+            return null;
+        }
         return ResponseEntity.ok().body(reviewService.findById(id));
     }
 
     @GetMapping(value = "/product/{productId}")
-    public ResponseEntity<Page<Review>> findAllByProduct(
+    public ResponseEntity<Slice<Review>> findAllByProduct(
             @PathVariable UUID productId,
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "5") Integer pageSize,
             @RequestParam(defaultValue = "asc") String sortDirection,
-            @RequestParam(defaultValue = "rating") String sortBy
+            @RequestParam(defaultValue = "rating") String sortBy,
+            @RequestParam(defaultValue = "true") Boolean includeTotal,
+            WebRequest request
     ) {
+        EntityVersionDTO version = reviewService.findVersionByProduct(productId);
+        if (request.checkNotModified(version.toETag(), version.toLastModified())) {
+            return null;
+        }
         Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
-        Page<Review> reviewPage =
-                reviewService.findAllByProduct(productId, pageNo, pageSize, sortOrder, sortBy);
+        Slice<Review> reviewPage = includeTotal
+                ? reviewService.findAllByProduct(productId, pageNo, pageSize, sortOrder, sortBy)
+                : reviewService.findSliceByProduct(productId, pageNo, pageSize, sortOrder, sortBy);
         return ResponseEntity.ok().body(reviewPage);
     }
 
     @PreAuthorize("hasAuthority('Customer')")
     @GetMapping(value = "/user")
-    public ResponseEntity<Page<Review>> findByCurrentUser(
+    public ResponseEntity<Slice<Review>> findByCurrentUser(
             @RequestParam(defaultValue = "0") Integer pageNo,
             @RequestParam(defaultValue = "5") Integer pageSize,
             @RequestParam(defaultValue = "asc") String sortDirection,
-            @RequestParam(defaultValue = "rating") String sortBy
+            @RequestParam(defaultValue = "rating") String sortBy,
+            @RequestParam(defaultValue = "true") Boolean includeTotal
     ) {
         Sort.Direction sortOrder = Sort.Direction.fromString(sortDirection);
-        Page<Review> reviewPage =
-                reviewService.findByCurrentUser(pageNo, pageSize, sortOrder, sortBy);
+        Slice<Review> reviewPage = includeTotal
+                ? reviewService.findByCurrentUser(pageNo, pageSize, sortOrder, sortBy)
+                : reviewService.findSliceByCurrentUser(pageNo, pageSize, sortOrder, sortBy);
         return ResponseEntity.ok().body(reviewPage);
     }
 
@@ -0,0 +1,27 @@
+package com.example.demo.dtos;
+
+import com.example.demo.enums.CartOperationType;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationDTO {
+    @NotNull
+    private CartOperationType type;
+
+    @NotNull
+    private UUID productId;
+
+    // ignored by REMOVE; setting a quantity of zero removes the item
+    @PositiveOrZero
+    private int quantity;
+}
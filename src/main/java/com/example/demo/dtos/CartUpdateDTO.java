@@ -0,0 +1,22 @@
+package com.example.demo.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartUpdateDTO {
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid @NotNull CartOperationDTO> operations;
+}
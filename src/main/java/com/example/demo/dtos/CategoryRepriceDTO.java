@@ -0,0 +1,29 @@
+package com.example.demo.dtos;
+
+import com.example.demo.enums.ProductCategory;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryRepriceDTO {
+    @NotNull
+    private ProductCategory category;
+
+    // -10 lowers every price by 10%, 5 raises them by 5%
+    @NotNull
+    @DecimalMin(value = "-100", inclusive = false)
+    @DecimalMax(value = "1000")
+    @Digits(integer = 4, fraction = 2)
+    private BigDecimal percentage;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dtos;
+
+import com.example.demo.enums.ProductCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryStatisticsDTO {
+    private ProductCategory category;
+    private long productCount;
+    private BigDecimal minPrice;
+    private BigDecimal averagePrice;
+    private BigDecimal maxPrice;
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityVersionDTO {
+    private long version;
+    private Instant updatedAt;
+
+    public String toETag() {
+        return "\"" + version + "\"";
+    }
+
+    public long toLastModified() {
+        return updatedAt == null ? -1 : updatedAt.toEpochMilli();
+    }
+}
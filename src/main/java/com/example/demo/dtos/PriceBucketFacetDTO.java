@@ -0,0 +1,20 @@
+package com.example.demo.dtos;
+
+import com.example.demo.enums.PriceBucket;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketFacetDTO {
+    private PriceBucket bucket;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private long count;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dtos;
+
+import com.example.demo.entities.Product;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchDTO {
+    private List<Product> products;
+    private List<UUID> missingIds;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dtos;
+
+import com.example.demo.entities.ProductChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeFeedDTO {
+    private List<ProductChange> changes;
+    // pass as since on the next poll; unchanged when there was nothing new
+    private long nextSince;
+    private boolean hasMore;
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dtos;
+
+import com.example.demo.entities.Product;
+import com.example.demo.entities.Review;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDetailDTO {
+    private Product product;
+    private SellerSummaryDTO seller;
+    // first page of GET /reviews/product/{productId} with its default sort
+    private Slice<Review> reviews;
+    private RatingSummaryDTO rating;
+}
@@ -0,0 +1,20 @@
+package com.example.demo.dtos;
+
+import com.example.demo.enums.ProductCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO {
+    private long total;
+    private Map<ProductCategory, Long> categories;
+    private List<PriceBucketFacetDTO> priceBuckets;
+}
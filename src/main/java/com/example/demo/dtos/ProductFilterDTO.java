@@ -0,0 +1,23 @@
+package com.example.demo.dtos;
+
+import com.example.demo.enums.ProductCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterDTO {
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Set<ProductCategory> categories;
+    private UUID sellerId;
+    private Double minRating;
+}
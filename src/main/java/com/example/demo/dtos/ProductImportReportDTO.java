@@ -0,0 +1,20 @@
+package com.example.demo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportReportDTO {
+    private long processedRows;
+    private long importedRows;
+    private long rejectedRows;
+    private List<ProductImportErrorDTO> errors;
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRepriceReportDTO {
+    private List<ProductPriceDTO> updated;
+    // products that do not exist or belong to another seller
+    private List<UUID> rejectedIds;
+}
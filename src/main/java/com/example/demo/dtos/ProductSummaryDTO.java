@@ -0,0 +1,41 @@
+package com.example.demo.dtos;
+
+import com.example.demo.entities.Product;
+import com.example.demo.enums.ProductCategory;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDTO {
+    private UUID id;
+    private String name;
+    private String description;
+    private BigDecimal price;
+    private ProductCategory category;
+    private UUID sellerId;
+    private String sellerName;
+    private double averageRating;
+    private long ratingCount;
+
+    public static ProductSummaryDTO from(Product product) {
+        return ProductSummaryDTO.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .category(product.getCategory())
+                .sellerId(product.getSeller().getId())
+                .sellerName(product.getSeller().getName())
+                .averageRating(product.getAverageRating())
+                .ratingCount(product.getRatingCount())
+                .build();
+    }
+}
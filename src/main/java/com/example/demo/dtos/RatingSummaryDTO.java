@@ -0,0 +1,19 @@
+package com.example.demo.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummaryDTO {
+    private double averageRating;
+    private long ratingCount;
+    // number of reviews per rating, from 0 to 5
+    private Map<Integer, Long> distribution;
+}
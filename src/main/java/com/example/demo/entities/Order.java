@@ -6,6 +6,8 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -18,7 +20,22 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name = "orders")
+@NamedEntityGraph(name = Order.WITH_ITEMS_AND_PRODUCTS, attributeNodes = {
+        @NamedAttributeNode(value = "customer", subgraph = "user"),
+        @NamedAttributeNode(value = "items", subgraph = "items")
+}, subgraphs = {
+        @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+        @NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode(value = "seller", subgraph = "user")),
+        // inverse one-to-ones are never lazy, so they are joined rather than selected once per user
+        @NamedSubgraph(name = "user", attributeNodes = {
+                @NamedAttributeNode("confirmationToken"),
+                @NamedAttributeNode("resetPasswordToken")
+        })
+})
 public class Order {
+    // everything an order response serializes, loaded with a single select
+    public static final String WITH_ITEMS_AND_PRODUCTS = "Order.withItemsAndProducts";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -29,6 +46,8 @@ public class Order {
     @JoinColumn(name = "customer_id", nullable = false)
     private Customer customer;
 
+    // pages of orders initialize the items of up to a whole page at once
+    @BatchSize(size = 50)
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<OrderItem> items = new ArrayList<>();
 
@@ -37,8 +56,14 @@ public class Order {
     @Column(nullable = false)
     private Instant orderDate;
 
-    @Transient
-    private BigDecimal totalAmount;
+    // kept up to date by every cart change, so totals never load the items or their products
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int itemCount;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -50,14 +75,7 @@ public class Order {
         this.orderDate = Instant.now();
         this.status = OrderStatus.Active;
         this.items = new ArrayList<>();
-    }
-
-    public BigDecimal getTotalAmount() {
-        BigDecimal calculatedTotal = BigDecimal.ZERO;
-        for (OrderItem orderItem : items) {
-            calculatedTotal = calculatedTotal.add(orderItem.getItemTotal());
-        }
-        return calculatedTotal;
+        this.totalAmount = BigDecimal.ZERO;
     }
 
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.example.demo.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -12,7 +13,9 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Builder
-@Table(name = "order_items")
+@Table(name = "order_items", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_order_items_order_product", columnNames = {"order_id", "product_id"})
+})
 public class OrderItem {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -31,11 +34,16 @@ public class OrderItem {
     @Column(nullable = false)
     private int quantity;
 
+    // the product price when the product was first added to the order
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private BigDecimal unitPrice;
+
     @Transient
     private BigDecimal itemTotal;
 
     public BigDecimal getItemTotal() {
-        return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
     }
 
 }
@@ -1,13 +1,19 @@
 package com.example.demo.entities;
 
+import com.example.demo.entities.converters.ProductCategoryConverter;
 import com.example.demo.entities.user.Seller;
 import com.example.demo.enums.ProductCategory;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -17,8 +23,15 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Builder
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_price", columnList = "category, price"),
+        @Index(name = "idx_products_seller_id_name", columnList = "seller_id, name"),
+        @Index(name = "idx_products_price", columnList = "price"),
+        @Index(name = "idx_products_average_rating", columnList = "averageRating"),
+        @Index(name = "idx_products_updated_at", columnList = "updatedAt")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@BatchSize(size = 50)
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -43,7 +56,30 @@ public class Product {
     private Seller seller;
 
     @Column(nullable = false)
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = ProductCategoryConverter.class)
     private ProductCategory category;
 
+    // only moved by ProductRepository's atomic rating update, never by saving a loaded product
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long ratingCount;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long ratingSum;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private double averageRating;
+
+    @JsonIgnore
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "GMT")
+    @UpdateTimestamp
+    private Instant updatedAt;
+
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.example.demo.entities;
+
+import com.example.demo.enums.ProductChangeType;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Append-only record of a product create, update or delete. Rows are never updated, and the primary
+ * key doubles as the feed position, so reading the changes after a sequence is one index range scan.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "product_changes")
+public class ProductChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long sequence;
+
+    @Column(nullable = false)
+    private UUID productId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ProductChangeType type;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "GMT")
+    @Column(nullable = false)
+    private Instant changedAt;
+}
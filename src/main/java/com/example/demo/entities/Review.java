@@ -2,12 +2,15 @@ package com.example.demo.entities;
 
 import com.example.demo.entities.user.Customer;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -44,6 +47,16 @@ public class Review {
     @Column(nullable = false)
     private Instant createdDate;
 
+    @JsonIgnore
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "GMT")
+    @UpdateTimestamp
+    private Instant updatedAt;
+
     @Builder
     public Review(Product product, String comment, int rating, Customer customer) {
         this.product = product;
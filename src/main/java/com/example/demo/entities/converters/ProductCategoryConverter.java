@@ -0,0 +1,23 @@
+package com.example.demo.entities.converters;
+
+import com.example.demo.enums.ProductCategory;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link ProductCategory} as its pinned smallint code, so the column and every index on it
+ * take two bytes per row instead of the constant name.
+ */
+@Converter
+public class ProductCategoryConverter implements AttributeConverter<ProductCategory, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(ProductCategory category) {
+        return category == null ? null : category.getCode();
+    }
+
+    @Override
+    public ProductCategory convertToEntityAttribute(Short code) {
+        return code == null ? null : ProductCategory.fromCode(code);
+    }
+}
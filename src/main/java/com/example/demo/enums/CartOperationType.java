@@ -0,0 +1,7 @@
+package com.example.demo.enums;
+
+public enum CartOperationType {
+    ADD,
+    SET,
+    REMOVE
+}
@@ -0,0 +1,47 @@
+package com.example.demo.enums;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Price bands used for faceted browsing. Lower bounds are inclusive and upper bounds exclusive.
+ */
+@Getter
+public enum PriceBucket {
+    UNDER_10(0, 1_000),
+    FROM_10_TO_25(1_000, 2_500),
+    FROM_25_TO_50(2_500, 5_000),
+    FROM_50_TO_100(5_000, 10_000),
+    FROM_100_TO_250(10_000, 25_000),
+    FROM_250_TO_500(25_000, 50_000),
+    FROM_500_TO_1000(50_000, 100_000),
+    OVER_1000(100_000, Long.MAX_VALUE);
+
+    private static final PriceBucket[] BUCKETS = values();
+
+    private final long minCents;
+    private final long maxCents;
+
+    PriceBucket(long minCents, long maxCents) {
+        this.minCents = minCents;
+        this.maxCents = maxCents;
+    }
+
+    public BigDecimal getMinPrice() {
+        return BigDecimal.valueOf(minCents, 2);
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxCents == Long.MAX_VALUE ? null : BigDecimal.valueOf(maxCents, 2);
+    }
+
+    public static PriceBucket ofCents(long cents) {
+        for (PriceBucket bucket : BUCKETS) {
+            if (cents < bucket.maxCents) {
+                return bucket;
+            }
+        }
+        return OVER_1000;
+    }
+}
@@ -1,217 +1,255 @@
 package com.example.demo.enums;
 
+/**
+ * Product categories. Products store the code rather than the name or ordinal, so codes are pinned:
+ * new constants take the next unused code, and the code of a removed constant is never reused.
+ */
 public enum ProductCategory {
-    ELECTRONICS,
-    CLOTHING,
-    BEAUTY,
-    HOME_AND_KITCHEN,
-    SPORTS_AND_OUTDOORS,
-    BOOKS,
-    TOYS,
-    JEWELRY,
-    HEALTH_AND_WELLNESS,
-    FOOD_AND_DRINKS,
-    MUSIC_AND_INSTRUMENTS,
-    ART_AND_CRAFTS,
-    AUTOMOTIVE,
-    PET_SUPPLIES,
-    FURNITURE,
-    OFFICE_SUPPLIES,
-    BABY_AND_CHILD,
-    TRAVEL,
-    GAMES_AND_PUZZLES,
-    FITNESS_EQUIPMENT,
-    PARTY_SUPPLIES,
-    TECH_ACCESSORIES,
-    HOBBIES,
-    GARDEN_AND_OUTDOOR,
-    COLLECTIBLES,
-    WATCHES,
-    CAMERAS_AND_PHOTOGRAPHY,
-    MUSICAL_INSTRUMENTS,
-    DIY_SUPPLIES,
-    VINTAGE_AND_ANTIQUE,
-    ELECTRICAL_APPLIANCES,
-    BEVERAGES,
-    ELECTRONIC_ACCESSORIES,
-    FITNESS_APPAREL,
-    SHOES,
-    HOME_DECOR,
-    SPORTS_GEAR,
-    BEAUTY_PRODUCTS,
-    BED_AND_BATH,
-    FITNESS_TRACKERS,
-    LAPTOPS_AND_COMPUTERS,
-    CELL_PHONES,
-    GAMING_CONSOLES,
-    AUDIO_EQUIPMENT,
-    SUNGLASSES,
-    WATCH_ACCESSORIES,
-    COOKWARE,
-    TOOLS,
-    BIKES,
-    MOTORCYCLES,
-    HEADPHONES,
-    SKINCARE,
-    COFFEE_AND_TEA,
-    PARTY_DECORATIONS,
-    BOARD_GAMES,
-    VITAMINS_AND_SUPPLEMENTS,
-    WRITING_SUPPLIES,
-    BABY_CLOTHING,
-    BABY_TOYS,
-    SHOWER_AND_BATH,
-    TELEVISIONS,
-    HOME_APPLIANCES,
-    OUTERWEAR,
-    FITNESS_SUPPLEMENTS,
-    HANDBAGS,
-    ELECTRICAL_TOOLS,
-    CAMERA_ACCESSORIES,
-    ART_SUPPLIES,
-    COLLECTOR_ITEMS,
-    WEDDING_SUPPLIES,
-    SWIMWEAR,
-    CAR_ACCESSORIES,
-    HAIR_ACCESSORIES,
-    GARDEN_TOOLS,
-    ANTIQUES,
-    FINE_JEWELRY,
-    SMART_HOME_DEVICES,
-    TABLEWARE,
-    KITCHEN_APPLIANCES,
-    ORGANIZATIONAL_ITEMS,
-    COMPUTER_ACCESSORIES,
-    COMPUTER_COMPONENTS,
-    COMPUTER_PERIPHERALS,
-    GAMING_ACCESSORIES,
-    MUSICAL_INSTRUMENT_ACCESSORIES,
-    FITNESS_ACCESSORIES,
-    PARTY_FAVORS,
-    SEASONAL_DECOR,
-    PETS,
-    PET_TOYS,
-    PET_FOOD,
-    PET_CLOTHING,
-    WINE_AND_SPIRITS,
-    SPORTS_MEMORABILIA,
-    ART_PRINTS,
-    VINTAGE_CLOTHING,
-    VINTAGE_FURNITURE,
-    APPLIANCES,
-    RECREATIONAL_EQUIPMENT,
-    OUTDOOR_FURNITURE,
-    ELECTRONIC_GADGETS,
-    BEAUTY_TOOLS,
-    BATH_AND_BODY,
-    CLEANING_SUPPLIES,
-    CANDLES,
-    HOME_FRAGRANCES,
-    BOARD_GAME_ACCESSORIES,
-    CAMERA_LENS,
-    BABY_FOOD,
-    BABY_ACCESSORIES,
-    INFANT_CLOTHING,
-    TODDLER_CLOTHING,
-    EDUCATIONAL_TOYS,
-    COSTUMES,
-    COSMETICS,
-    WATCHES_AND_CLOCKS,
-    COFFEE_MAKERS,
-    TEA_INFUSERS,
-    SMARTWATCHES,
-    SMARTPHONES,
-    PC_GAMING,
-    CONSOLE_GAMING,
-    CAMERA_LENS_ACCESSORIES,
-    FINE_ART,
-    DECORATIVE_ART,
-    HOME_TEXTILES,
-    TELEPHONE_ACCESSORIES,
-    LIGHTING,
-    VINTAGE_COLLECTIBLES,
-    KITCHEN_TOOLS,
-    BAKEWARE,
-    COOKING_UTENSILS,
-    COOKBOOKS,
-    CHINAWARE,
-    DRINKWARE,
-    FURNITURE_ACCESSORIES,
-    EXERCISE_EQUIPMENT,
-    FITNESS_APPAREL_ACCESSORIES,
-    WEDDING_DECORATIONS,
-    BRIDAL_FASHION,
-    BRIDAL_ACCESSORIES,
-    HONEYMOON_SUPPLIES,
-    BRIDAL_PARTY_GIFTS,
-    BRIDESMAID_DRESSES,
-    GROOMSMEN_ATTIRE,
-    SWIMWEAR_ACCESSORIES,
-    CAR_MAINTENANCE,
-    CAR_CARE_PRODUCTS,
-    CAR_INTERIOR_ACCESSORIES,
-    HAIR_STYLING_PRODUCTS,
-    HAIR_COLOR,
-    GARDEN_PLANTS,
-    GARDEN_DECOR,
-    GARDEN_FURNITURE,
-    HANDCRAFTED_JEWELRY,
-    FINE_JEWELRY_ACCESSORIES,
-    SMART_HOME_DEVICES_ACCESSORIES,
-    TABLEWARE_ACCESSORIES,
-    BATHROOM_ACCESSORIES,
-    OUTDOOR_FURNITURE_ACCESSORIES,
-    ELECTRONIC_GADGETS_ACCESSORIES,
-    BEAUTY_TOOLS_ACCESSORIES,
-    BOARD_GAME_EXPANSIONS,
-    BABY_FURNITURE,
-    BABY_TRANSPORTATION,
-    BABY_CARE_PRODUCTS,
-    TODDLER_FURNITURE,
-    TOY_VEHICLES,
-    KIDS_ELECTRONIC_TOYS,
-    KIDS_BUILDING_TOYS,
-    KIDS_LEARNING_TOYS,
-    COSTUME_ACCESSORIES,
-    MAKEUP_PRODUCTS,
-    SKIN_CARE_PRODUCTS,
-    HAIR_CARE_PRODUCTS,
-    WATCH_BATTERIES,
-    WATCH_STRAPS,
-    ESPRESSO_MACHINES,
-    COFFEE_GRINDERS,
-    COFFEE_ACCESSORIES,
-    TEA_ACCESSORIES,
-    TABLET_ACCESSORIES,
-    PHONE_CASES,
-    GAMING_CONTROLLER_ACCESSORIES,
-    GAMING_HEADSET_ACCESSORIES,
-    MUSICAL_INSTRUMENT_CASES,
-    MUSICAL_INSTRUMENT_STANDS,
-    FITNESS_APPAREL_EXPANSIONS,
-    FITNESS_SUPPLEMENTS_ACCESSORIES,
-    BEVERAGE_ACCESSORIES,
-    ELECTRONIC_ACCESSORIES_EXPANSIONS,
-    HEADPHONE_ACCESSORIES,
-    SMARTWATCH_ACCESSORIES,
-    COMPUTER_ACCESSORIES_EXPANSIONS,
-    COMPUTER_COMPONENTS_EXPANSIONS,
-    COMPUTER_PERIPHERALS_EXPANSIONS,
-    GAMING_ACCESSORIES_EXPANSIONS,
-    MUSICAL_INSTRUMENT_ACCESSORIES_EXPANSIONS,
-    FITNESS_ACCESSORIES_EXPANSIONS,
-    PARTY_FAVORS_EXPANSIONS,
-    SEASONAL_DECOR_EXPANSIONS,
-    PETS_EXPANSIONS,
-    PET_TOYS_EXPANSIONS,
-    PET_FOOD_EXPANSIONS,
-    PET_CLOTHING_EXPANSIONS,
-    WINE_AND_SPIRITS_EXPANSIONS,
-    SPORTS_MEMORABILIA_EXPANSIONS,
-    ART_PRINTS_EXPANSIONS,
-    VINTAGE_CLOTHING_EXPANSIONS,
-    VINTAGE_FURNITURE_EXPANSIONS,
-    APPLIANCES_EXPANSIONS,
-    RECREATIONAL_EQUIPMENT_EXPANSIONS,
-    OUTDOOR
+    ELECTRONICS(1),
+    CLOTHING(2),
+    BEAUTY(3),
+    HOME_AND_KITCHEN(4),
+    SPORTS_AND_OUTDOORS(5),
+    BOOKS(6),
+    TOYS(7),
+    JEWELRY(8),
+    HEALTH_AND_WELLNESS(9),
+    FOOD_AND_DRINKS(10),
+    MUSIC_AND_INSTRUMENTS(11),
+    ART_AND_CRAFTS(12),
+    AUTOMOTIVE(13),
+    PET_SUPPLIES(14),
+    FURNITURE(15),
+    OFFICE_SUPPLIES(16),
+    BABY_AND_CHILD(17),
+    TRAVEL(18),
+    GAMES_AND_PUZZLES(19),
+    FITNESS_EQUIPMENT(20),
+    PARTY_SUPPLIES(21),
+    TECH_ACCESSORIES(22),
+    HOBBIES(23),
+    GARDEN_AND_OUTDOOR(24),
+    COLLECTIBLES(25),
+    WATCHES(26),
+    CAMERAS_AND_PHOTOGRAPHY(27),
+    MUSICAL_INSTRUMENTS(28),
+    DIY_SUPPLIES(29),
+    VINTAGE_AND_ANTIQUE(30),
+    ELECTRICAL_APPLIANCES(31),
+    BEVERAGES(32),
+    ELECTRONIC_ACCESSORIES(33),
+    FITNESS_APPAREL(34),
+    SHOES(35),
+    HOME_DECOR(36),
+    SPORTS_GEAR(37),
+    BEAUTY_PRODUCTS(38),
+    BED_AND_BATH(39),
+    FITNESS_TRACKERS(40),
+    LAPTOPS_AND_COMPUTERS(41),
+    CELL_PHONES(42),
+    GAMING_CONSOLES(43),
+    AUDIO_EQUIPMENT(44),
+    SUNGLASSES(45),
+    WATCH_ACCESSORIES(46),
+    COOKWARE(47),
+    TOOLS(48),
+    BIKES(49),
+    MOTORCYCLES(50),
+    HEADPHONES(51),
+    SKINCARE(52),
+    COFFEE_AND_TEA(53),
+    PARTY_DECORATIONS(54),
+    BOARD_GAMES(55),
+    VITAMINS_AND_SUPPLEMENTS(56),
+    WRITING_SUPPLIES(57),
+    BABY_CLOTHING(58),
+    BABY_TOYS(59),
+    SHOWER_AND_BATH(60),
+    TELEVISIONS(61),
+    HOME_APPLIANCES(62),
+    OUTERWEAR(63),
+    FITNESS_SUPPLEMENTS(64),
+    HANDBAGS(65),
+    ELECTRICAL_TOOLS(66),
+    CAMERA_ACCESSORIES(67),
+    ART_SUPPLIES(68),
+    COLLECTOR_ITEMS(69),
+    WEDDING_SUPPLIES(70),
+    SWIMWEAR(71),
+    CAR_ACCESSORIES(72),
+    HAIR_ACCESSORIES(73),
+    GARDEN_TOOLS(74),
+    ANTIQUES(75),
+    FINE_JEWELRY(76),
+    SMART_HOME_DEVICES(77),
+    TABLEWARE(78),
+    KITCHEN_APPLIANCES(79),
+    ORGANIZATIONAL_ITEMS(80),
+    COMPUTER_ACCESSORIES(81),
+    COMPUTER_COMPONENTS(82),
+    COMPUTER_PERIPHERALS(83),
+    GAMING_ACCESSORIES(84),
+    MUSICAL_INSTRUMENT_ACCESSORIES(85),
+    FITNESS_ACCESSORIES(86),
+    PARTY_FAVORS(87),
+    SEASONAL_DECOR(88),
+    PETS(89),
+    PET_TOYS(90),
+    PET_FOOD(91),
+    PET_CLOTHING(92),
+    WINE_AND_SPIRITS(93),
+    SPORTS_MEMORABILIA(94),
+    ART_PRINTS(95),
+    VINTAGE_CLOTHING(96),
+    VINTAGE_FURNITURE(97),
+    APPLIANCES(98),
+    RECREATIONAL_EQUIPMENT(99),
+    OUTDOOR_FURNITURE(100),
+    ELECTRONIC_GADGETS(101),
+    BEAUTY_TOOLS(102),
+    BATH_AND_BODY(103),
+    CLEANING_SUPPLIES(104),
+    CANDLES(105),
+    HOME_FRAGRANCES(106),
+    BOARD_GAME_ACCESSORIES(107),
+    CAMERA_LENS(108),
+    BABY_FOOD(109),
+    BABY_ACCESSORIES(110),
+    INFANT_CLOTHING(111),
+    TODDLER_CLOTHING(112),
+    EDUCATIONAL_TOYS(113),
+    COSTUMES(114),
+    COSMETICS(115),
+    WATCHES_AND_CLOCKS(116),
+    COFFEE_MAKERS(117),
+    TEA_INFUSERS(118),
+    SMARTWATCHES(119),
+    SMARTPHONES(120),
+    PC_GAMING(121),
+    CONSOLE_GAMING(122),
+    CAMERA_LENS_ACCESSORIES(123),
+    FINE_ART(124),
+    DECORATIVE_ART(125),
+    HOME_TEXTILES(126),
+    TELEPHONE_ACCESSORIES(127),
+    LIGHTING(128),
+    VINTAGE_COLLECTIBLES(129),
+    KITCHEN_TOOLS(130),
+    BAKEWARE(131),
+    COOKING_UTENSILS(132),
+    COOKBOOKS(133),
+    CHINAWARE(134),
+    DRINKWARE(135),
+    FURNITURE_ACCESSORIES(136),
+    EXERCISE_EQUIPMENT(137),
+    FITNESS_APPAREL_ACCESSORIES(138),
+    WEDDING_DECORATIONS(139),
+    BRIDAL_FASHION(140),
+    BRIDAL_ACCESSORIES(141),
+    HONEYMOON_SUPPLIES(142),
+    BRIDAL_PARTY_GIFTS(143),
+    BRIDESMAID_DRESSES(144),
+    GROOMSMEN_ATTIRE(145),
+    SWIMWEAR_ACCESSORIES(146),
+    CAR_MAINTENANCE(147),
+    CAR_CARE_PRODUCTS(148),
+    CAR_INTERIOR_ACCESSORIES(149),
+    HAIR_STYLING_PRODUCTS(150),
+    HAIR_COLOR(151),
+    GARDEN_PLANTS(152),
+    GARDEN_DECOR(153),
+    GARDEN_FURNITURE(154),
+    HANDCRAFTED_JEWELRY(155),
+    FINE_JEWELRY_ACCESSORIES(156),
+    SMART_HOME_DEVICES_ACCESSORIES(157),
+    TABLEWARE_ACCESSORIES(158),
+    BATHROOM_ACCESSORIES(159),
+    OUTDOOR_FURNITURE_ACCESSORIES(160),
+    ELECTRONIC_GADGETS_ACCESSORIES(161),
+    BEAUTY_TOOLS_ACCESSORIES(162),
+    BOARD_GAME_EXPANSIONS(163),
+    BABY_FURNITURE(164),
+    BABY_TRANSPORTATION(165),
+    BABY_CARE_PRODUCTS(166),
+    TODDLER_FURNITURE(167),
+    TOY_VEHICLES(168),
+    KIDS_ELECTRONIC_TOYS(169),
+    KIDS_BUILDING_TOYS(170),
+    KIDS_LEARNING_TOYS(171),
+    COSTUME_ACCESSORIES(172),
+    MAKEUP_PRODUCTS(173),
+    SKIN_CARE_PRODUCTS(174),
+    HAIR_CARE_PRODUCTS(175),
+    WATCH_BATTERIES(176),
+    WATCH_STRAPS(177),
+    ESPRESSO_MACHINES(178),
+    COFFEE_GRINDERS(179),
+    COFFEE_ACCESSORIES(180),
+    TEA_ACCESSORIES(181),
+    TABLET_ACCESSORIES(182),
+    PHONE_CASES(183),
+    GAMING_CONTROLLER_ACCESSORIES(184),
+    GAMING_HEADSET_ACCESSORIES(185),
+    MUSICAL_INSTRUMENT_CASES(186),
+    MUSICAL_INSTRUMENT_STANDS(187),
+    FITNESS_APPAREL_EXPANSIONS(188),
+    FITNESS_SUPPLEMENTS_ACCESSORIES(189),
+    BEVERAGE_ACCESSORIES(190),
+    ELECTRONIC_ACCESSORIES_EXPANSIONS(191),
+    HEADPHONE_ACCESSORIES(192),
+    SMARTWATCH_ACCESSORIES(193),
+    COMPUTER_ACCESSORIES_EXPANSIONS(194),
+    COMPUTER_COMPONENTS_EXPANSIONS(195),
+    COMPUTER_PERIPHERALS_EXPANSIONS(196),
+    GAMING_ACCESSORIES_EXPANSIONS(197),
+    MUSICAL_INSTRUMENT_ACCESSORIES_EXPANSIONS(198),
+    FITNESS_ACCESSORIES_EXPANSIONS(199),
+    PARTY_FAVORS_EXPANSIONS(200),
+    SEASONAL_DECOR_EXPANSIONS(201),
+    PETS_EXPANSIONS(202),
+    PET_TOYS_EXPANSIONS(203),
+    PET_FOOD_EXPANSIONS(204),
+    PET_CLOTHING_EXPANSIONS(205),
+    WINE_AND_SPIRITS_EXPANSIONS(206),
+    SPORTS_MEMORABILIA_EXPANSIONS(207),
+    ART_PRINTS_EXPANSIONS(208),
+    VINTAGE_CLOTHING_EXPANSIONS(209),
+    VINTAGE_FURNITURE_EXPANSIONS(210),
+    APPLIANCES_EXPANSIONS(211),
+    RECREATIONAL_EQUIPMENT_EXPANSIONS(212),
+    OUTDOOR(213);
+
+    private static final ProductCategory[] BY_CODE;
+
+    static {
+        int maxCode = 0;
+        for (ProductCategory category : values()) {
+            maxCode = Math.max(maxCode, category.code);
+        }
+        BY_CODE = new ProductCategory[maxCode + 1];
+        for (ProductCategory category : values()) {
+            if (category.code <= 0 || BY_CODE[category.code] != null) {
+                throw new ExceptionInInitializerError("Invalid product category code " + category.code);
+            }
+            BY_CODE[category.code] = category;
+        }
+    }
+
+    private final short code;
+
+    ProductCategory(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static ProductCategory fromCode(short code) {
+        ProductCategory category = code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown product category code " + code);
+        }
+        return category;
+    }
 }
@@ -0,0 +1,7 @@
+package com.example.demo.enums;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
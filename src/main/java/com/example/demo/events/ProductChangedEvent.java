@@ -0,0 +1,28 @@
+package com.example.demo.events;
+
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.enums.ProductChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Published by ProductService after a product is created, updated or deleted.
+ * The product summary is null for deletions.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private final ProductChangeType type;
+    private final UUID productId;
+    private final ProductSummaryDTO product;
+
+    public static ProductChangedEvent saved(ProductChangeType type, ProductSummaryDTO product) {
+        return new ProductChangedEvent(type, product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(UUID productId) {
+        return new ProductChangedEvent(ProductChangeType.DELETED, productId, null);
+    }
+}
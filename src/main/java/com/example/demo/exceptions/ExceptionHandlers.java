@@ -14,6 +14,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -21,6 +22,7 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.validation.FieldError;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -459,4 +461,60 @@ public class ExceptionHandlers {
         return ResponseEntity.status(status).body(err);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<StandardError> InvalidCursorException
+            (InvalidCursorException e, HttpServletRequest request) {
+        logger.error("Invalid cursor exception:", e);
+        String error = "Invalid cursor";
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        StandardError err = new StandardError(Instant.now(), status.value(),
+                error, e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ResponseEntity<StandardError> BatchSizeExceededException
+            (BatchSizeExceededException e, HttpServletRequest request) {
+        logger.error("Batch size exceeded exception:", e);
+        String error = "Batch size exceeded";
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        StandardError err = new StandardError(Instant.now(), status.value(),
+                error, e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<StandardError> ObjectOptimisticLockingFailureException
+            (ObjectOptimisticLockingFailureException e, HttpServletRequest request) {
+        logger.error("Object optimistic locking failure exception:", e);
+        String error = "Concurrent modification";
+        HttpStatus status = HttpStatus.CONFLICT;
+        StandardError err = new StandardError(Instant.now(), status.value(),
+                error, "The resource was modified by another request, reload it and try again",
+                request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<StandardError> InvalidImportFileException
+            (InvalidImportFileException e, HttpServletRequest request) {
+        logger.error("Invalid import file exception:", e);
+        String error = "Invalid import file";
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        StandardError err = new StandardError(Instant.now(), status.value(),
+                error, e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    public ResponseEntity<StandardError> HttpMediaTypeNotSupportedException
+            (HttpMediaTypeNotSupportedException e, HttpServletRequest request) {
+        logger.error("Http media type not supported exception:", e);
+        String error = "Unsupported media type";
+        HttpStatus status = HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+        StandardError err = new StandardError(Instant.now(), status.value(),
+                error, e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
 }
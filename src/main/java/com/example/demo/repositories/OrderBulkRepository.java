@@ -0,0 +1,79 @@
+package com.example.demo.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Order writes that bypass the persistence context. A partial unique index allows a single Active order
+ * per customer, so creating it is an INSERT ... ON CONFLICT DO NOTHING: concurrent first requests all
+ * insert, one wins and the others read its order, without any application lock.
+ */
+@Repository
+public class OrderBulkRepository {
+
+    private static final String SELECT_ACTIVE_SQL = "SELECT id FROM orders " +
+            "WHERE customer_id = ? AND status = 'Active'";
+    private static final String INSERT_ACTIVE_IF_ABSENT_SQL = "INSERT INTO orders (id, customer_id, order_date, " +
+            "status, total_amount, item_count) VALUES (?, ?, ?, 'Active', 0, 0) " +
+            "ON CONFLICT (customer_id) WHERE status = 'Active' DO NOTHING";
+    private static final String LOCK_STATUS_SQL = "SELECT status FROM orders WHERE id = ? FOR UPDATE";
+    private static final String RECOMPUTE_TOTALS_SQL = "UPDATE orders SET " +
+            "total_amount = COALESCE((SELECT SUM(i.unit_price * i.quantity) FROM order_items i " +
+            "WHERE i.order_id = orders.id), 0), " +
+            "item_count = COALESCE((SELECT SUM(i.quantity) FROM order_items i WHERE i.order_id = orders.id), 0) " +
+            "WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the id of the customer's Active order, creating the order when there is none.
+     */
+    public UUID findOrCreateActiveOrderId(UUID customerId) {
+        UUID existing = findActiveOrderId(customerId);
+        if (existing != null) {
+            return existing;
+        }
+        UUID id = UUID.randomUUID();
+        Timestamp orderDate = Timestamp.from(Instant.now());
+        if (jdbcTemplate.update(INSERT_ACTIVE_IF_ABSENT_SQL, id, customerId, orderDate) > 0) {
+            return id;
+        }
+        // a concurrent request created it first; its insert has committed by now
+        return findActiveOrderId(customerId);
+    }
+
+    /**
+     * Locks the order row until the transaction ends and returns whether the order is Active. Every cart
+     * write takes this lock before touching any item of the order, so concurrent cart writes on the same
+     * order queue on a single row instead of locking items in conflicting orders.
+     */
+    public boolean lockIfActive(UUID orderId) {
+        List<String> status = jdbcTemplate.queryForList(LOCK_STATUS_SQL, String.class, orderId);
+        return !status.isEmpty() && "Active".equals(status.get(0));
+    }
+
+    /**
+     * Locks the order and recomputes its total and item count from its items. Returns false, without
+     * changing anything, when the order is no longer Active.
+     */
+    public boolean recomputeTotalsIfActive(UUID orderId) {
+        if (!lockIfActive(orderId)) {
+            return false;
+        }
+        // a statement of its own, so it reads every item committed before the lock was granted
+        jdbcTemplate.update(RECOMPUTE_TOTALS_SQL, orderId);
+        return true;
+    }
+
+    private UUID findActiveOrderId(UUID customerId) {
+        List<UUID> ids = jdbcTemplate.queryForList(SELECT_ACTIVE_SQL, UUID.class, customerId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+}
@@ -4,6 +4,7 @@ import com.example.demo.entities.OrderHistory;
 import com.example.demo.entities.user.Customer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,4 +16,6 @@ public interface OrderHistoryRepository extends JpaRepository<OrderHistory, UUID
     List<OrderHistory> findAllByCustomer(Customer customer);
 
     Page<OrderHistory> findAllByCustomer(Customer customer, Pageable pageable);
+
+    Slice<OrderHistory> findSliceByCustomer(Customer customer, Pageable pageable);
 }
@@ -0,0 +1,94 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dtos.CartOperationDTO;
+import com.example.demo.entities.OrderItem;
+import com.example.demo.entities.Product;
+import com.example.demo.enums.CartOperationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cart writes that bypass the persistence context. An order holds at most one item per product, so
+ * adding a product to the cart is an upsert on (order_id, product_id): a single INSERT ... ON CONFLICT,
+ * which never reads the rest of the cart and never loses a concurrent increment. The upsert only applies
+ * while the order is Active, so a stale cached order id can never add items to an order that was already
+ * paid.
+ */
+@Repository
+public class OrderItemBulkRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO order_items (id, order_id, product_id, quantity, " +
+            "unit_price) SELECT ?, o.id, p.id, ?, p.price FROM orders o, products p " +
+            "WHERE o.id = ? AND o.status = 'Active' AND p.id = ? " +
+            "ON CONFLICT (order_id, product_id) " +
+            "DO UPDATE SET quantity = order_items.quantity + EXCLUDED.quantity " +
+            "RETURNING id, quantity, unit_price";
+
+    // the boolean parameter tells a SET, which replaces the quantity, from an ADD, which adds to it
+    private static final String UPSERT_LINE_SQL = "INSERT INTO order_items (id, order_id, product_id, quantity, " +
+            "unit_price) SELECT ?, ?, p.id, ?, p.price FROM products p WHERE p.id = ? " +
+            "ON CONFLICT (order_id, product_id) DO UPDATE SET quantity = " +
+            "CASE WHEN ? THEN EXCLUDED.quantity ELSE order_items.quantity + EXCLUDED.quantity END";
+    private static final String DELETE_LINE_SQL = "DELETE FROM order_items WHERE order_id = ? AND product_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the quantity to the order's item for the product, creating the item at the product's stored
+     * price when the order has none yet, and returns the item with its resulting quantity and unit price.
+     * The price is read from the products table rather than the given, possibly cached, product. Returns
+     * an empty optional, without writing anything, when the order is no longer Active.
+     */
+    public Optional<OrderItem> addQuantity(UUID orderId, Product product, int quantity) {
+        RowMapper<OrderItem> rowMapper = (resultSet, rowNum) -> OrderItem.builder()
+                .id(resultSet.getObject("id", UUID.class))
+                .product(product)
+                .quantity(resultSet.getInt("quantity"))
+                .unitPrice(resultSet.getBigDecimal("unit_price"))
+                .build();
+        return jdbcTemplate.query(UPSERT_SQL, rowMapper,
+                UUID.randomUUID(), quantity, orderId, product.getId()).stream().findFirst();
+    }
+
+    /**
+     * Adds to (ADD) or replaces (SET) the quantity of the order's item for each product, creating missing
+     * items at the current product price, with a single batched upsert. Returns the update
+     * count of every operation, which is 0 when the product does not exist. Does not check that the order
+     * is Active.
+     */
+    public int[] upsertLines(UUID orderId, List<CartOperationDTO> operations) {
+        int[][] batches = jdbcTemplate.batchUpdate(UPSERT_LINE_SQL, operations, operations.size(),
+                (statement, operation) -> {
+                    statement.setObject(1, UUID.randomUUID());
+                    statement.setObject(2, orderId);
+                    statement.setInt(3, operation.getQuantity());
+                    statement.setObject(4, operation.getProductId());
+                    statement.setBoolean(5, operation.getType() == CartOperationType.SET);
+                });
+        int[] counts = new int[operations.size()];
+        int index = 0;
+        for (int[] batch : batches) {
+            for (int count : batch) {
+                counts[index++] = count;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Removes the order's items for the products with a single batch.
+     */
+    public void deleteLines(UUID orderId, List<UUID> productIds) {
+        jdbcTemplate.batchUpdate(DELETE_LINE_SQL, productIds, productIds.size(), (statement, productId) -> {
+            statement.setObject(1, orderId);
+            statement.setObject(2, productId);
+        });
+    }
+}
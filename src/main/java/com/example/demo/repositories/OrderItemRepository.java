@@ -1,13 +1,25 @@
 package com.example.demo.repositories;
 
 import com.example.demo.entities.OrderItem;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, UUID> {
     List<OrderItem> findByOrderId(UUID orderId);
+
+    @Query("SELECT i.order.id FROM OrderItem i WHERE i.id = :id")
+    Optional<UUID> findOrderIdById(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM OrderItem i WHERE i.id = :id")
+    Optional<OrderItem> findByIdForUpdate(@Param("id") UUID id);
 }
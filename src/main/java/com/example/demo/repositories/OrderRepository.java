@@ -2,11 +2,18 @@ package com.example.demo.repositories;
 
 import com.example.demo.entities.Order;
 import com.example.demo.entities.user.Customer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,4 +23,28 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 
     @Query("SELECT o FROM Order o WHERE o.customer = :customer AND o.status = com.example.demo.enums.OrderStatus.Active")
     Optional<Order> findActiveOrderByCurrentUser(@Param("customer") Customer customer);
+
+    @EntityGraph(Order.WITH_ITEMS_AND_PRODUCTS)
+    @Query("SELECT o FROM Order o WHERE o.customer = :customer AND o.status = com.example.demo.enums.OrderStatus.Active")
+    Optional<Order> findActiveOrderWithItemsByCustomer(@Param("customer") Customer customer);
+
+    @EntityGraph(Order.WITH_ITEMS_AND_PRODUCTS)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findWithItemsById(@Param("id") UUID id);
+
+    @EntityGraph(Order.WITH_ITEMS_AND_PRODUCTS)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // joining the items here would paginate in memory; they are fetched for the whole page by id instead
+    @Override
+    @EntityGraph(attributePaths = {"customer", "customer.confirmationToken", "customer.resetPasswordToken"})
+    Page<Order> findAll(Pageable pageable);
+
+    // native: HQL renders a decimal parameter in arithmetic as an unresolved numeric($p,$s) cast
+    @Modifying
+    @Query(value = "UPDATE orders SET total_amount = total_amount + :amountDelta, " +
+            "item_count = item_count + :countDelta WHERE id = :id AND status = 'Active'", nativeQuery = true)
+    int applyTotalsDelta(@Param("id") UUID id, @Param("amountDelta") BigDecimal amountDelta,
+                         @Param("countDelta") int countDelta);
 }
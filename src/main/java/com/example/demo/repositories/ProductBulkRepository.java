@@ -0,0 +1,205 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dtos.ProductPriceDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Bulk paths that bypass the persistence context. Inserts stream every chunk of already validated
+ * products through a single COPY statement and commit on their own. Reads walk a forward-only cursor so
+ * the whole catalog is never held in memory.
+ */
+@Repository
+public class ProductBulkRepository {
+
+    private static final String COPY_SQL = "COPY products (id, name, description, price, category, seller_id, " +
+            "updated_at) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String UPDATE_PRICE_SQL = "UPDATE products SET price = ?, version = version + 1, " +
+            "updated_at = ? WHERE id = ? AND seller_id = ?";
+    private static final String UPDATE_CATEGORY_PRICE_SQL = "UPDATE products " +
+            "SET price = GREATEST(ROUND(price * ?, 2), 0.01), version = version + 1, updated_at = ? " +
+            "WHERE seller_id = ? AND category = ?";
+
+    private static final String PRICE_BUCKET_SQL = priceBucketCase();
+    private static final String COUNT_BY_CATEGORY_AND_PRICE_BUCKET_SQL = "SELECT category, price_bucket, " +
+            "COUNT(*) FROM (SELECT category, " + PRICE_BUCKET_SQL + " AS price_bucket FROM products) buckets " +
+            "GROUP BY category, price_bucket";
+    private static final String COUNT_SELLER_BY_CATEGORY_AND_PRICE_BUCKET_SQL = "SELECT category, " +
+            "price_bucket, COUNT(*) FROM (SELECT category, " + PRICE_BUCKET_SQL + " AS price_bucket " +
+            "FROM products WHERE seller_id = ?) buckets GROUP BY category, price_bucket";
+
+    public static final int FETCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void insertAll(List<Product> products) {
+        copy(products, Instant.now());
+    }
+
+    /**
+     * Streams the summaries of every product matching the specification, ordered by id, to the action.
+     * Must run inside a transaction so PostgreSQL keeps the cursor open and honours the fetch size.
+     */
+    public void forEachSummary(Specification<Product> specification, Consumer<ProductSummaryDTO> action) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductSummaryDTO> query = criteriaBuilder.createQuery(ProductSummaryDTO.class);
+        Root<Product> product = query.from(Product.class);
+        Join<Product, Seller> seller = product.join("seller");
+        query.select(criteriaBuilder.construct(ProductSummaryDTO.class,
+                product.get("id"), product.get("name"), product.get("description"), product.get("price"),
+                product.get("category"), seller.get("id"), seller.get("name"),
+                product.get("averageRating"), product.get("ratingCount")));
+        Predicate predicate = specification.toPredicate(product, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(criteriaBuilder.asc(product.get("id")));
+
+        try (ScrollableResults<ProductSummaryDTO> results = entityManager.createQuery(query)
+                .unwrap(Query.class)
+                .setFetchSize(FETCH_SIZE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            long rows = 0;
+            while (results.next()) {
+                action.accept(results.get());
+                if (++rows % FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads every product id without loading rows. Like {@link #forEachSummary}, it must run inside a
+     * transaction for the fetch size to apply.
+     */
+    public Set<UUID> findAllIds() {
+        Set<UUID> ids = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT id FROM products");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> ids.add(resultSet.getObject(1, UUID.class)));
+        return ids;
+    }
+
+    /**
+     * Sets the prices of the given seller's products with batched UPDATEs, one per price. The returned
+     * counts follow the order of the prices and are 0 for products that do not exist or belong to
+     * another seller.
+     */
+    public int[] updatePrices(UUID sellerId, List<ProductPriceDTO> prices) {
+        Timestamp updatedAt = Timestamp.from(Instant.now());
+        int[][] batches = jdbcTemplate.batchUpdate(UPDATE_PRICE_SQL, prices, FETCH_SIZE, (statement, price) -> {
+            statement.setBigDecimal(1, price.getPrice());
+            statement.setTimestamp(2, updatedAt);
+            statement.setObject(3, price.getProductId());
+            statement.setObject(4, sellerId);
+        });
+        int[] counts = new int[prices.size()];
+        int index = 0;
+        for (int[] batch : batches) {
+            for (int count : batch) {
+                counts[index++] = count;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Multiplies the price of every product of the seller in the category with a single UPDATE,
+     * rounding to cents and never going below one cent.
+     */
+    public int updateCategoryPrices(UUID sellerId, ProductCategory category, BigDecimal factor) {
+        return jdbcTemplate.update(UPDATE_CATEGORY_PRICE_SQL, factor, Timestamp.from(Instant.now()), sellerId,
+                category.getCode());
+    }
+
+    /**
+     * Counts products, optionally of a single seller, per category and price bucket with one GROUP BY.
+     * The result is indexed by category ordinal and then by price bucket ordinal.
+     */
+    public long[][] countByCategoryAndPriceBucket(UUID sellerId) {
+        long[][] counts = new long[ProductCategory.values().length][PriceBucket.values().length];
+        RowCallbackHandler handler = resultSet -> {
+            int category = ProductCategory.fromCode(resultSet.getShort(1)).ordinal();
+            counts[category][resultSet.getInt(2)] = resultSet.getLong(3);
+        };
+        if (sellerId == null) {
+            jdbcTemplate.query(COUNT_BY_CATEGORY_AND_PRICE_BUCKET_SQL, handler);
+        } else {
+            jdbcTemplate.query(COUNT_SELLER_BY_CATEGORY_AND_PRICE_BUCKET_SQL, handler, sellerId);
+        }
+        return counts;
+    }
+
+    // maps a price to its bucket ordinal with the same bounds as PriceBucket.ofCents
+    private static String priceBucketCase() {
+        StringBuilder sql = new StringBuilder("CASE");
+        PriceBucket[] buckets = PriceBucket.values();
+        for (int i = 0; i < buckets.length - 1; i++) {
+            sql.append(" WHEN price < ").append(buckets[i].getMaxPrice().toPlainString()).append(" THEN ").append(i);
+        }
+        return sql.append(" ELSE ").append(buckets.length - 1).append(" END").toString();
+    }
+
+    private void copy(List<Product> products, Instant now) {
+        StringBuilder csv = new StringBuilder(products.size() * 256);
+        for (Product product : products) {
+            csv.append(product.getId()).append(',');
+            appendQuoted(csv, product.getName()).append(',');
+            appendQuoted(csv, product.getDescription()).append(',');
+            csv.append(product.getPrice().toPlainString()).append(',')
+                    .append(product.getCategory().getCode()).append(',')
+                    .append(product.getSeller().getId()).append(',')
+                    .append(now).append('\n');
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_SQL, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Could not stream products to COPY", e);
+            }
+        });
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.repositories;
+
+import com.example.demo.entities.ProductChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+    List<ProductChange> findBySequenceGreaterThanOrderBySequence(long sequence, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.sequence), 0) FROM ProductChange c")
+    long findLatestSequence();
+}
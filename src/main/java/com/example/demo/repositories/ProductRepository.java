@@ -1,18 +1,96 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dtos.EntityVersionDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.dtos.SellerSummaryDTO;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Seller;
 import com.example.demo.enums.ProductCategory;
+import com.example.demo.repositories.projections.CategoryPriceStatistics;
+import com.example.demo.repositories.projections.ProductSearchResult;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID> {
-    Page<Product> findByCategory(ProductCategory productCategory, Pageable paging);
+public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product> {
+    String SUMMARY_QUERY = "SELECT new com.example.demo.dtos.ProductSummaryDTO" +
+            "(p.id, p.name, p.description, p.price, p.category, s.id, s.name, " +
+            "p.averageRating, p.ratingCount) " +
+            "FROM Product p JOIN p.seller s";
 
-    Page<Product> findAllBySeller(Seller seller, Pageable paging);
+    @Query(value = SUMMARY_QUERY, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductSummaryDTO> findAllSummaries(Pageable paging);
+
+    @Query(SUMMARY_QUERY)
+    Slice<ProductSummaryDTO> findSliceBy(Pageable paging);
+
+    @Query(value = SUMMARY_QUERY + " WHERE p.category = :category",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category = :category")
+    Page<ProductSummaryDTO> findByCategory(@Param("category") ProductCategory productCategory, Pageable paging);
+
+    @Query(SUMMARY_QUERY + " WHERE p.category = :category")
+    Slice<ProductSummaryDTO> findSliceByCategory(@Param("category") ProductCategory productCategory, Pageable paging);
+
+    @Query(value = SUMMARY_QUERY + " WHERE p.seller = :seller",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.seller = :seller")
+    Page<ProductSummaryDTO> findAllBySeller(@Param("seller") Seller seller, Pageable paging);
+
+    @Query(SUMMARY_QUERY + " WHERE p.seller = :seller")
+    Slice<ProductSummaryDTO> findSliceBySeller(@Param("seller") Seller seller, Pageable paging);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingCount = p.ratingCount + :countDelta, " +
+            "p.ratingSum = p.ratingSum + :sumDelta, " +
+            "p.version = p.version + 1, p.updatedAt = instant, " +
+            "p.averageRating = CASE WHEN p.ratingCount + :countDelta = 0 THEN 0.0 " +
+            "ELSE (p.ratingSum + :sumDelta) * 1.0 / (p.ratingCount + :countDelta) END " +
+            "WHERE p.id = :id")
+    int applyRatingDelta(@Param("id") UUID id, @Param("countDelta") long countDelta,
+                         @Param("sumDelta") long sumDelta);
+
+    @Query("SELECT new com.example.demo.dtos.EntityVersionDTO(p.version, p.updatedAt) " +
+            "FROM Product p WHERE p.id = :id")
+    Optional<EntityVersionDTO> findVersionById(@Param("id") UUID id);
+
+    @Query("SELECT new com.example.demo.dtos.SellerSummaryDTO(s.id, s.name, " +
+            "(SELECT COUNT(o) FROM Product o WHERE o.seller = s)) " +
+            "FROM Product p JOIN p.seller s WHERE p.id = :id")
+    Optional<SellerSummaryDTO> findSellerSummaryByProductId(@Param("id") UUID id);
+
+    @Query("SELECT p.category AS category, COUNT(p) AS productCount, MIN(p.price) AS minPrice, " +
+            "AVG(p.price) AS averagePrice, MAX(p.price) AS maxPrice FROM Product p GROUP BY p.category")
+    List<CategoryPriceStatistics> findCategoryStatistics();
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.seller s " +
+            "LEFT JOIN FETCH s.confirmationToken LEFT JOIN FETCH s.resetPasswordToken " +
+            "WHERE p.id IN :ids")
+    List<Product> findAllWithSellerByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(value = "SELECT p.id AS \"id\", p.name AS \"name\", p.description AS \"description\", " +
+            "p.price AS \"price\", p.category AS \"category\", p.seller_id AS \"sellerId\", " +
+            "u.name AS \"sellerName\", p.average_rating AS \"averageRating\", " +
+            "p.rating_count AS \"ratingCount\", ts_rank(p.search_vector, q) AS \"rank\" " +
+            "FROM products p JOIN users u ON u.id = p.seller_id, " +
+            "websearch_to_tsquery('english', :query) q " +
+            "WHERE p.search_vector @@ q " +
+            "AND (:category = 0 OR p.category = :category) " +
+            "AND (ts_rank(p.search_vector, q) < CAST(:rank AS real) " +
+            "OR (ts_rank(p.search_vector, q) = CAST(:rank AS real) AND p.id > :id)) " +
+            "ORDER BY \"rank\" DESC, p.id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<ProductSearchResult> search(@Param("query") String query, @Param("category") short category,
+                                     @Param("rank") Float rank, @Param("id") UUID id,
+                                     @Param("limit") int limit);
 }
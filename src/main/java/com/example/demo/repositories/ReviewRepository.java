@@ -1,18 +1,59 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dtos.EntityVersionDTO;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.Review;
 import com.example.demo.entities.user.Customer;
+import com.example.demo.repositories.projections.RatingCount;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, UUID> {
+    // product pages are shared between concurrent requests, so they are loaded with everything a review is
+    // serialized with; the users' one-to-one tokens are mapped on the inverse side and would otherwise be
+    // loaded with one extra select each
+    @EntityGraph(attributePaths = {"product.seller.confirmationToken", "product.seller.resetPasswordToken",
+            "customer.confirmationToken", "customer.resetPasswordToken"})
     Page<Review> findAllByProduct(Product product, Pageable paging);
 
     Page<Review> findAllByCustomer(Customer customer, Pageable paging);
+
+    @EntityGraph(attributePaths = {"product.seller.confirmationToken", "product.seller.resetPasswordToken",
+            "customer.confirmationToken", "customer.resetPasswordToken"})
+    Slice<Review> findSliceByProduct(Product product, Pageable paging);
+
+    Slice<Review> findSliceByCustomer(Customer customer, Pageable paging);
+
+    // for callers without an open session
+    @EntityGraph(attributePaths = {"product.seller.confirmationToken", "product.seller.resetPasswordToken",
+            "customer.confirmationToken", "customer.resetPasswordToken"})
+    Slice<Review> findSliceByProductId(UUID productId, Pageable paging);
+
+    @Query("SELECT r.rating AS rating, COUNT(r) AS count FROM Review r " +
+            "WHERE r.product.id = :productId GROUP BY r.rating")
+    List<RatingCount> countRatingsByProductId(@Param("productId") UUID productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.id = :id")
+    Optional<Review> findByIdForUpdate(@Param("id") UUID id);
+
+    // a review is serialized with its product, so its validator has to change with either of them;
+    // both versions only ever grow, which makes their sum a valid strong validator
+    @Query("SELECT new com.example.demo.dtos.EntityVersionDTO(r.version + p.version, " +
+            "CASE WHEN p.updatedAt > r.updatedAt THEN p.updatedAt ELSE r.updatedAt END) " +
+            "FROM Review r JOIN r.product p WHERE r.id = :id")
+    Optional<EntityVersionDTO> findVersionById(@Param("id") UUID id);
 }
@@ -0,0 +1,17 @@
+package com.example.demo.repositories.projections;
+
+import com.example.demo.enums.ProductCategory;
+
+import java.math.BigDecimal;
+
+public interface CategoryPriceStatistics {
+    ProductCategory getCategory();
+
+    Long getProductCount();
+
+    BigDecimal getMinPrice();
+
+    Double getAveragePrice();
+
+    BigDecimal getMaxPrice();
+}
@@ -0,0 +1,26 @@
+package com.example.demo.repositories.projections;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface ProductSearchResult {
+    UUID getId();
+
+    String getName();
+
+    String getDescription();
+
+    BigDecimal getPrice();
+
+    Short getCategory();
+
+    UUID getSellerId();
+
+    String getSellerName();
+
+    Double getAverageRating();
+
+    Long getRatingCount();
+
+    Float getRank();
+}
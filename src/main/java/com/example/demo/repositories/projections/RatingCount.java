@@ -0,0 +1,7 @@
+package com.example.demo.repositories.projections;
+
+public interface RatingCount {
+    Integer getRating();
+
+    Long getCount();
+}
@@ -0,0 +1,94 @@
+package com.example.demo.repositories.specifications;
+
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductCategory;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+public class ProductSpecifications {
+
+    public static Specification<Product> all() {
+        return Specification.where(null);
+    }
+
+    public static Specification<Product> fetchSeller() {
+        return (root, query, criteriaBuilder) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                // the user's one-to-one tokens are mapped on the inverse side and would
+                // otherwise be loaded with one extra select each per seller
+                Fetch<Product, Seller> seller = root.fetch("seller");
+                seller.fetch("confirmationToken", JoinType.LEFT);
+                seller.fetch("resetPasswordToken", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Product> hasCategory(ProductCategory productCategory) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("category"), productCategory);
+    }
+
+    public static Specification<Product> hasSeller(Seller seller) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("seller"), seller);
+    }
+
+    public static Specification<Product> hasCategoryIn(Collection<ProductCategory> productCategories) {
+        return (root, query, criteriaBuilder) -> productCategories == null || productCategories.isEmpty()
+                ? null
+                : root.get("category").in(productCategories);
+    }
+
+    public static Specification<Product> hasSellerId(UUID sellerId) {
+        // compares the foreign key column directly, without joining users
+        return (root, query, criteriaBuilder) -> sellerId == null
+                ? null
+                : criteriaBuilder.equal(root.get("seller").get("id"), sellerId);
+    }
+
+    public static Specification<Product> hasPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return (root, query, criteriaBuilder) -> {
+            if (minPrice == null && maxPrice == null) {
+                return null;
+            }
+            if (minPrice == null) {
+                return criteriaBuilder.lessThanOrEqualTo(root.get("price"), maxPrice);
+            }
+            if (maxPrice == null) {
+                return criteriaBuilder.greaterThanOrEqualTo(root.get("price"), minPrice);
+            }
+            return criteriaBuilder.between(root.get("price"), minPrice, maxPrice);
+        };
+    }
+
+    public static Specification<Product> hasMinRating(Double minRating) {
+        return (root, query, criteriaBuilder) -> minRating == null
+                ? null
+                : criteriaBuilder.greaterThanOrEqualTo(root.get("averageRating"), minRating);
+    }
+
+    public static Specification<Product> hasIdIn(Collection<UUID> ids) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Product> updatedAfter(Instant instant) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("updatedAt"), instant);
+    }
+
+    /**
+     * Combines every criterion set on the filter; absent criteria match all products.
+     */
+    public static Specification<Product> matches(ProductFilterDTO filter) {
+        return hasCategoryIn(filter.getCategories())
+                .and(hasPriceBetween(filter.getMinPrice(), filter.getMaxPrice()))
+                .and(hasSellerId(filter.getSellerId()))
+                .and(hasMinRating(filter.getMinRating()));
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
@@ -57,6 +58,14 @@ public class OrderHistoryService {
         return orderHistoryRepository.findAllByCustomer(customer, paging);
     }
 
+    public Slice<OrderHistory> findSliceByCurrentUser
+            (Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+        Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
+        Customer customer = (Customer) getCurrentUser();
+
+        return orderHistoryRepository.findSliceByCustomer(customer, paging);
+    }
+
     public List<OrderHistory> findByCurrentUser() {
         Customer customer = (Customer) getCurrentUser();
         return orderHistoryRepository.findAllByCustomer(customer);
@@ -67,7 +76,7 @@ public class OrderHistoryService {
         for (OrderHistory orderHistory : orderHistoryList) {
             Order order = orderHistory.getOrder();
             for (OrderItem orderItem : order.getItems()) {
-                if (orderItem.getProduct().equals(product)) {
+                if (orderItem.getProduct().getId().equals(product.getId())) {
                     return true;
                 }
             }
@@ -1,20 +1,28 @@
 package com.example.demo.services;
 
+import com.example.demo.dtos.CartOperationDTO;
 import com.example.demo.dtos.OrderItemDTO;
 import com.example.demo.entities.Order;
 import com.example.demo.entities.OrderItem;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.user.User;
+import com.example.demo.enums.CartOperationType;
+import com.example.demo.repositories.OrderItemBulkRepository;
 import com.example.demo.repositories.OrderItemRepository;
 import com.example.demo.services.exceptions.DatabaseException;
+import com.example.demo.services.exceptions.InvalidOrderException;
 import com.example.demo.services.exceptions.ResourceNotFoundException;
-import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
 import static com.example.demo.config.utils.GetCurrentUser.getCurrentUser;
@@ -26,45 +34,125 @@ public class OrderItemService {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+    @Autowired
+    private OrderItemBulkRepository orderItemBulkRepository;
+
     @Autowired
     private OrderService orderService;
 
     @Autowired
     private ProductService productService;
 
+    /**
+     * Adds the product to the current user's cart, or adds to its quantity when the cart already has
+     * it, with a single upsert that does not depend on the size of the cart. The order's total moves
+     * by the added quantity at the item's unit price in the same transaction.
+     */
+    @Transactional
     public OrderItem create(OrderItemDTO orderItemDTO) {
-        User user = getCurrentUser();
-        Order order = orderService.findOrCreateActiveOrderByCurrentUser();
-        checkOwnership(user, order.getCustomer().getId());
-
-        OrderItem existingOrderItem = findExistingItem(order, orderItemDTO.getProductId());
-
-        if (existingOrderItem != null) {
-            OrderItemDTO updateData = OrderItemDTO.builder()
-                    .quantity(existingOrderItem.getQuantity() + orderItemDTO.getQuantity())
-                    .build();
-            updateData(existingOrderItem, updateData);
-
-            return orderItemRepository.save(existingOrderItem);
-        } else {
-            Product product = productService.findById(orderItemDTO.getProductId());
-            OrderItem orderItem = OrderItem.builder()
-                    .order(order)
-                    .quantity(orderItemDTO.getQuantity())
-                    .product(product)
-                    .build();
-
-            return orderItemRepository.save(orderItem);
-        }
+        Product product = productService.findById(orderItemDTO.getProductId());
+        int quantity = orderItemDTO.getQuantity();
+        UUID orderId = lockActiveOrderOfCurrentUser();
+
+        OrderItem result = orderItemBulkRepository.addQuantity(orderId, product, quantity)
+                .orElseThrow(() -> new InvalidOrderException("Invalid order: The active order changed"));
+        orderService.applyTotalsDelta(orderId,
+                result.getUnitPrice().multiply(BigDecimal.valueOf(quantity)), quantity);
+
+        return result;
     }
 
-    private OrderItem findExistingItem(Order order, UUID productId) {
-        for (OrderItem orderItem : order.getItems()) {
-            if (orderItem.getProduct().getId().equals(productId)) {
-                return orderItem;
+    /**
+     * Applies the operations to the current user's cart, in order and in one transaction, and returns
+     * the resulting cart. The operations are first folded into one change per product, so the cart is
+     * written with one batch of upserts and one of deletes whatever the number of operations, and the
+     * order's totals are then recomputed once from its items.
+     */
+    @Transactional
+    public Order applyCartOperations(List<CartOperationDTO> operations) {
+        UUID orderId = lockActiveOrderOfCurrentUser();
+
+        List<CartOperationDTO> upserts = new ArrayList<>();
+        List<UUID> deletes = new ArrayList<>();
+        for (CartOperationDTO change : foldByProduct(operations).values()) {
+            if (change.getType() == CartOperationType.REMOVE
+                    || change.getType() == CartOperationType.SET && change.getQuantity() == 0) {
+                deletes.add(change.getProductId());
+            } else if (change.getQuantity() > 0) {
+                upserts.add(change);
             }
         }
-        return null;
+
+        if (!upserts.isEmpty()) {
+            int[] counts = orderItemBulkRepository.upsertLines(orderId, upserts);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new ResourceNotFoundException(upserts.get(i).getProductId());
+                }
+            }
+        }
+        if (!deletes.isEmpty()) {
+            orderItemBulkRepository.deleteLines(orderId, deletes);
+        }
+        orderService.recomputeTotals(orderId);
+
+        return orderService.findById(orderId);
+    }
+
+    /**
+     * Reduces the operations to the net change of each product: a REMOVE, a SET of the final quantity,
+     * or an ADD when no operation replaced the quantity.
+     */
+    private static Map<UUID, CartOperationDTO> foldByProduct(List<CartOperationDTO> operations) {
+        Map<UUID, CartOperationDTO> changes = new TreeMap<>();
+        for (CartOperationDTO operation : operations) {
+            UUID productId = operation.getProductId();
+            CartOperationDTO change = switch (operation.getType()) {
+                case ADD -> {
+                    CartOperationDTO previous = changes.get(productId);
+                    if (previous == null) {
+                        yield new CartOperationDTO(CartOperationType.ADD, productId, operation.getQuantity());
+                    }
+                    CartOperationType type = previous.getType() == CartOperationType.ADD
+                            ? CartOperationType.ADD : CartOperationType.SET;
+                    yield new CartOperationDTO(type, productId, previous.getQuantity() + operation.getQuantity());
+                }
+                case SET -> new CartOperationDTO(CartOperationType.SET, productId, operation.getQuantity());
+                case REMOVE -> new CartOperationDTO(CartOperationType.REMOVE, productId, 0);
+            };
+            changes.put(productId, change);
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the id of the current user's Active order with its row locked until the transaction ends.
+     * Every cart write locks the order this way before touching its items, so concurrent writes to one
+     * cart are serialized on the order row and can never wait on each other's items.
+     */
+    private UUID lockActiveOrderOfCurrentUser() {
+        UUID orderId = orderService.findOrCreateActiveOrderIdByCurrentUser();
+        if (orderService.lockIfActive(orderId)) {
+            return orderId;
+        }
+        // the cached order was paid or deleted meanwhile, possibly on another node
+        orderService.evictActiveOrderIdOfCurrentUser();
+        orderId = orderService.findOrCreateActiveOrderIdByCurrentUser();
+        if (!orderService.lockIfActive(orderId)) {
+            throw new InvalidOrderException("Invalid order: The active order changed");
+        }
+        return orderId;
+    }
+
+    /**
+     * Locks the order of the item before the item itself, in the same order as every other cart write.
+     */
+    private void lockOrderOfItem(UUID id) {
+        UUID orderId = orderItemRepository.findOrderIdById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(id));
+        if (!orderService.lockIfActive(orderId)) {
+            throw new InvalidOrderException("Invalid order: The active order changed");
+        }
     }
 
     public List<OrderItem> findAll() {
@@ -80,31 +168,41 @@ public class OrderItemService {
                 .orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
+    @Transactional
     public OrderItem update(UUID id, OrderItemDTO obj) {
-        try {
-            OrderItem entity = orderItemRepository.getReferenceById(id);
-            User user = getCurrentUser();
-            checkOwnership(user, entity.getOrder().getCustomer().getId());
-            updateData(entity, obj);
+        lockOrderOfItem(id);
+        OrderItem entity = orderItemRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException(id));
+        User user = getCurrentUser();
+        checkOwnership(user, entity.getOrder().getCustomer().getId());
 
-            return orderItemRepository.save(entity);
-        } catch (EntityNotFoundException e) {
-            throw new ResourceNotFoundException(id);
-        }
+        int previousQuantity = entity.getQuantity();
+        updateData(entity, obj);
+        OrderItem result = orderItemRepository.save(entity);
+        int quantityDelta = result.getQuantity() - previousQuantity;
+        orderService.applyTotalsDelta(entity.getOrder().getId(),
+                result.getUnitPrice().multiply(BigDecimal.valueOf(quantityDelta)), quantityDelta);
+
+        return result;
     }
 
     private void updateData(OrderItem entity, OrderItemDTO obj) {
         entity.setQuantity(obj.getQuantity());
     }
 
+    @Transactional
     public void delete(UUID id) {
         try {
-            OrderItem entity = orderItemRepository.getReferenceById(id);
+            lockOrderOfItem(id);
+            OrderItem entity = orderItemRepository.findByIdForUpdate(id)
+                    .orElseThrow(() -> new ResourceNotFoundException(id));
 
             User user = getCurrentUser();
             checkOwnership(user, entity.getOrder().getCustomer().getId());
 
             orderItemRepository.deleteById(id);
+            orderService.applyTotalsDelta(entity.getOrder().getId(),
+                    entity.getItemTotal().negate(), -entity.getQuantity());
         } catch (EmptyResultDataAccessException e) {
             throw new ResourceNotFoundException(id);
         } catch (DataIntegrityViolationException e) {
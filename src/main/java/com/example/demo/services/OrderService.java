@@ -7,10 +7,13 @@ import com.example.demo.entities.user.Customer;
 import com.example.demo.entities.user.User;
 import com.example.demo.enums.CreditCard;
 import com.example.demo.enums.OrderStatus;
+import com.example.demo.repositories.OrderBulkRepository;
 import com.example.demo.repositories.OrderRepository;
 import com.example.demo.repositories.UserRepository;
 import com.example.demo.services.exceptions.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
@@ -24,6 +27,7 @@ import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 
+import static com.example.demo.config.CacheConfig.ACTIVE_ORDERS_CACHE;
 import static com.example.demo.config.utils.GetCurrentUser.getCurrentUser;
 import static com.example.demo.services.utils.CheckOwnership.checkOwnership;
 
@@ -34,12 +38,18 @@ public class OrderService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderBulkRepository orderBulkRepository;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private OrderHistoryService orderHistoryService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @Transactional
     public Order create() {
         try {
@@ -60,15 +70,25 @@ public class OrderService {
         }
     }
 
+    /**
+     * Returns a page of orders with their items, products and sellers loaded by two selects, the page
+     * and then the graph of every order in it, whatever the page size.
+     */
+    @Transactional(readOnly = true)
     public Page<Order> findAll(Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
         Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
 
-        return orderRepository.findAll(paging);
+        Page<Order> orders = orderRepository.findAll(paging);
+        if (orders.hasContent()) {
+            // initializes the items of the orders already in the persistence context
+            orderRepository.findWithItemsByIdIn(orders.map(Order::getId).getContent());
+        }
+        return orders;
     }
 
     public Order findById(UUID id) {
         User user = getCurrentUser();
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findWithItemsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(id));
         checkOwnership(user, order.getCustomer().getId());
         return order;
@@ -77,15 +97,63 @@ public class OrderService {
     public Order findActiveOrderByCurrentUser() {
         Customer user = (Customer) getCurrentUser();
 
-        return orderRepository.findActiveOrderByCurrentUser(user)
+        return orderRepository.findActiveOrderWithItemsByCustomer(user)
                 .orElseThrow(ResourceNotFoundException::new);
     }
 
-    public Order findOrCreateActiveOrderByCurrentUser() {
+    // for checkout, which only needs the persisted totals and never the items
+    private Order findActiveOrderWithoutItemsByCurrentUser() {
         Customer user = (Customer) getCurrentUser();
 
         return orderRepository.findActiveOrderByCurrentUser(user)
-                .orElseGet(() -> create());
+                .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    /**
+     * Returns the id of the current user's active order, creating the order on first use. Ids are
+     * cached per customer, so hot cart paths skip the lookup; writes that use a cached id must check
+     * the order is still Active and call {@link #evictActiveOrderIdOfCurrentUser()} when it is not.
+     */
+    public UUID findOrCreateActiveOrderIdByCurrentUser() {
+        UUID customerId = getCurrentUser().getId();
+        return activeOrders().get(customerId, () -> orderBulkRepository.findOrCreateActiveOrderId(customerId));
+    }
+
+    public void evictActiveOrderIdOfCurrentUser() {
+        activeOrders().evict(getCurrentUser().getId());
+    }
+
+    /**
+     * Locks the order row for the rest of the transaction and returns whether it is Active. Cart writes
+     * call it before writing any item, so they all lock the order first and the items after it.
+     */
+    public boolean lockIfActive(UUID id) {
+        return orderBulkRepository.lockIfActive(id);
+    }
+
+    /**
+     * Recomputes the order's persisted total and item count from its items, under the order's row
+     * lock. Must run in the same transaction as the item changes.
+     */
+    public void recomputeTotals(UUID id) {
+        if (!orderBulkRepository.recomputeTotalsIfActive(id)) {
+            throw new InvalidOrderException("Invalid order: The active order changed");
+        }
+    }
+
+    /**
+     * Shifts the order's persisted total and item count with a single atomic UPDATE, so concurrent
+     * cart edits never overwrite each other. Must run in the same transaction as the item change, which
+     * the thrown exception rolls back when the order was paid or deleted since the item was written.
+     */
+    public void applyTotalsDelta(UUID id, BigDecimal amountDelta, int countDelta) {
+        if (orderRepository.applyTotalsDelta(id, amountDelta, countDelta) == 0) {
+            throw new InvalidOrderException("Invalid order: The active order changed");
+        }
+    }
+
+    private Cache activeOrders() {
+        return cacheManager.getCache(ACTIVE_ORDERS_CACHE);
     }
 
     private Order findByUser(User user) {
@@ -101,6 +169,7 @@ public class OrderService {
             checkOwnership(user, entity.getCustomer().getId());
 
             orderRepository.deleteById(id);
+            activeOrders().evict(entity.getCustomer().getId());
         } catch (EmptyResultDataAccessException e) {
             throw new ResourceNotFoundException(id);
         } catch (DataIntegrityViolationException e) {
@@ -114,22 +183,23 @@ public class OrderService {
             Order order = findByUser(user);
 
             orderRepository.deleteById(order.getId());
+            activeOrders().evict(user.getId());
         } catch (DataIntegrityViolationException e) {
             throw new DatabaseException(e.getMessage());
         }
     }
 
     public void checkUserOrder() {
-        Order order = findActiveOrderByCurrentUser();
+        Order order = findActiveOrderWithoutItemsByCurrentUser();
 
-        if (order.getItems().isEmpty()) {
+        if (order.getItemCount() == 0) {
             throw new InvalidOrderException("Invalid order: The order does not contain any items");
         }
     }
 
     public void moveOrderToHistory(CreditCard creditCard, BigDecimal paymentAmount) {
         Customer user = (Customer) getCurrentUser();
-        Order order = findActiveOrderByCurrentUser();
+        Order order = findActiveOrderWithoutItemsByCurrentUser();
 
         OrderHistoryDTO orderHistoryDTO = OrderHistoryDTO.builder()
                 .order(order)
@@ -142,6 +212,7 @@ public class OrderService {
         userRepository.save(user);
         order.setStatus(OrderStatus.Delivered);
         orderRepository.save(order);
+        activeOrders().evict(user.getId());
     }
 
 }
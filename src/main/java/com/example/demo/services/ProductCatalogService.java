@@ -0,0 +1,375 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.CategoryStatisticsDTO;
+import com.example.demo.dtos.PriceBucketFacetDTO;
+import com.example.demo.dtos.ProductChangeFeedDTO;
+import com.example.demo.dtos.ProductFacetsDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductChangeType;
+import com.example.demo.events.ProductChangedEvent;
+import com.example.demo.repositories.ProductBulkRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.projections.CategoryPriceStatistics;
+import com.example.demo.services.catalog.ProductCatalogSnapshot;
+import com.example.demo.services.catalog.ProductCatalogSnapshotFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import static com.example.demo.repositories.specifications.ProductSpecifications.all;
+import static com.example.demo.repositories.specifications.ProductSpecifications.updatedAfter;
+
+/**
+ * Owns the published {@link ProductCatalogSnapshot}. Readers only dereference a volatile field, while
+ * changes are queued and applied copy-on-write by whichever writer holds the lock, so a burst of
+ * concurrent changes is folded into a single new snapshot.
+ * <p>
+ * When {@code catalog.snapshot.file} is set, the snapshot is saved there after loading and on shutdown.
+ * On the next start the saved copy is published right away and then caught up with the products
+ * changed or deleted since it was taken.
+ * <p>
+ * Change events only reach the node that made the change, so every node also catches up periodically
+ * with the products other nodes changed or deleted.
+ */
+@Service
+public class ProductCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogService.class);
+
+    // tolerates commits that were still in flight, or clocks running behind, when a load started
+    private static final Duration HIGH_WATER_MARK_MARGIN = Duration.ofMinutes(1);
+
+    private final Queue<Consumer<ProductCatalogSnapshot.Mutation>> pendingChanges = new ConcurrentLinkedQueue<>();
+
+    private volatile ProductCatalogSnapshot snapshot;
+
+    // while set, changes stay queued so the rows being caught up with cannot overwrite them
+    private boolean catchingUp;
+
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.snapshot.file:}")
+    private String snapshotFile;
+
+    // every product change committed before this instant is reflected in the snapshot
+    private volatile Instant highWaterMark;
+
+    // every deletion up to this position of the change feed is reflected in the snapshot
+    private volatile Long feedSequence;
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductSuggestionService productSuggestionService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        Instant loadStarted = Instant.now().minus(HIGH_WATER_MARK_MARGIN);
+        long loadSequence = productChangeService.findLatestSequence();
+        ProductCatalogSnapshotFile.Contents saved = readFile();
+
+        if (saved != null) {
+            publish(saved.snapshot());
+            logger.info("Catalog snapshot of {} products ready from {} in {} ms", saved.snapshot().size(),
+                    snapshotFile, Duration.ofNanos(System.nanoTime() - started).toMillis());
+            catchUp(saved.highWaterMark(), null);
+            logger.info("Catalog snapshot caught up with changes since {}", saved.highWaterMark());
+        } else {
+            publish(read(all()));
+            logger.info("Catalog snapshot of {} products ready from the database in {} ms", snapshot.size(),
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+        }
+        feedSequence = loadSequence;
+        highWaterMark = loadStarted;
+        productSuggestionService.rebuild(snapshot);
+        save();
+    }
+
+    /**
+     * Catches up with the changes committed by other nodes, which publish their change events only
+     * locally: products updated after the high-water mark are read back, and products deleted after the
+     * last seen position of the change feed are dropped.
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.refresh-interval:PT30S}",
+            initialDelayString = "${catalog.snapshot.refresh-interval:PT30S}")
+    public void refresh() {
+        Instant since = highWaterMark;
+        if (!enabled || since == null) {
+            return;
+        }
+        Instant refreshStarted = Instant.now().minus(HIGH_WATER_MARK_MARGIN);
+        feedSequence = catchUp(since, feedSequence);
+        highWaterMark = refreshStarted;
+        productSuggestionService.rebuild(snapshot);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void save() {
+        ProductCatalogSnapshot current = snapshot;
+        if (snapshotFile.isBlank() || current == null) {
+            return;
+        }
+        try {
+            new ProductCatalogSnapshotFile(Path.of(snapshotFile)).write(current, highWaterMark);
+        } catch (IOException e) {
+            logger.warn("Could not save the catalog snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() == ProductChangeType.DELETED) {
+            change(mutation -> mutation.remove(event.getProductId()));
+        } else {
+            change(mutation -> mutation.put(event.getProduct()));
+        }
+    }
+
+    public void putAll(Collection<ProductSummaryDTO> products) {
+        change(mutation -> products.forEach(mutation::put));
+    }
+
+    public void applyRatingDelta(UUID id, long countDelta, long sumDelta) {
+        change(mutation -> mutation.addRating(id, countDelta, sumDelta));
+    }
+
+    /**
+     * Computes facet counts from the snapshot bitmaps. While the snapshot is unavailable the database
+     * counts products per category and price bucket, and the facets are summed from those counts.
+     */
+    public ProductFacetsDTO facets(Set<ProductCategory> categories, UUID sellerId, Set<PriceBucket> priceBuckets) {
+        ProductCatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current.facets(categories, sellerId, priceBuckets);
+        }
+        long[][] counts = productBulkRepository.countByCategoryAndPriceBucket(sellerId);
+        boolean anyCategory = categories == null || categories.isEmpty();
+        boolean anyPriceBucket = priceBuckets == null || priceBuckets.isEmpty();
+
+        long total = 0;
+        Map<ProductCategory, Long> categoryCounts = new EnumMap<>(ProductCategory.class);
+        long[] priceBucketCounts = new long[PriceBucket.values().length];
+        for (ProductCategory category : ProductCategory.values()) {
+            boolean categorySelected = anyCategory || categories.contains(category);
+            long categoryCount = 0;
+            for (PriceBucket priceBucket : PriceBucket.values()) {
+                long count = counts[category.ordinal()][priceBucket.ordinal()];
+                boolean priceBucketSelected = anyPriceBucket || priceBuckets.contains(priceBucket);
+                if (priceBucketSelected) {
+                    categoryCount += count;
+                }
+                if (categorySelected) {
+                    priceBucketCounts[priceBucket.ordinal()] += count;
+                }
+                if (categorySelected && priceBucketSelected) {
+                    total += count;
+                }
+            }
+            if (categoryCount > 0) {
+                categoryCounts.put(category, categoryCount);
+            }
+        }
+
+        List<PriceBucketFacetDTO> priceBucketFacets = new ArrayList<>();
+        for (PriceBucket priceBucket : PriceBucket.values()) {
+            priceBucketFacets.add(PriceBucketFacetDTO.builder()
+                    .bucket(priceBucket)
+                    .minPrice(priceBucket.getMinPrice())
+                    .maxPrice(priceBucket.getMaxPrice())
+                    .count(priceBucketCounts[priceBucket.ordinal()])
+                    .build());
+        }
+        return ProductFacetsDTO.builder()
+                .total(total)
+                .categories(categoryCounts)
+                .priceBuckets(priceBucketFacets)
+                .build();
+    }
+
+    /**
+     * Returns the product count and price range of every category with products. The snapshot keeps
+     * them up to date as products change; while it is unavailable they are aggregated by the database.
+     */
+    public List<CategoryStatisticsDTO> categoryStatistics() {
+        ProductCatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current.categoryStatistics();
+        }
+        Map<ProductCategory, CategoryStatisticsDTO> statistics = new EnumMap<>(ProductCategory.class);
+        for (CategoryPriceStatistics row : productRepository.findCategoryStatistics()) {
+            statistics.put(row.getCategory(), CategoryStatisticsDTO.builder()
+                    .category(row.getCategory())
+                    .productCount(row.getProductCount())
+                    .minPrice(row.getMinPrice())
+                    .averagePrice(BigDecimal.valueOf(row.getAveragePrice()).setScale(2, RoundingMode.HALF_UP))
+                    .maxPrice(row.getMaxPrice())
+                    .build());
+        }
+        return new ArrayList<>(statistics.values());
+    }
+
+    /**
+     * Returns the latest snapshot, or null while it is disabled or still loading, in which case
+     * callers must query the database.
+     */
+    public ProductCatalogSnapshot current() {
+        return snapshot;
+    }
+
+    private ProductCatalogSnapshotFile.Contents readFile() {
+        if (snapshotFile.isBlank()) {
+            return null;
+        }
+        try {
+            return new ProductCatalogSnapshotFile(Path.of(snapshotFile)).read();
+        } catch (IOException e) {
+            logger.warn("Could not read the catalog snapshot from {}", snapshotFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reloads the products changed after {@code since} and drops the deleted ones: those deleted after
+     * {@code fromSequence} in the change feed or, when it is null, every product no longer in the
+     * database. Returns the feed position caught up with. Changes published meanwhile are queued, as
+     * during the initial load, and applied on top of the rows read once they are in, so a row read
+     * before a concurrent change never overwrites it.
+     */
+    private Long catchUp(Instant since, Long fromSequence) {
+        synchronized (this) {
+            catchingUp = true;
+        }
+        CatchUp caughtUp = null;
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            caughtUp = transactionTemplate.execute(status -> {
+                CatchUp result = new CatchUp();
+                if (fromSequence == null) {
+                    result.retainedIds = productBulkRepository.findAllIds();
+                } else {
+                    result.sequence = readDeletions(fromSequence, result.deletedIds);
+                }
+                productBulkRepository.forEachSummary(updatedAfter(since), result.changed::add);
+                return result;
+            });
+        } finally {
+            synchronized (this) {
+                if (caughtUp != null) {
+                    ProductCatalogSnapshot.Mutation mutation = snapshot.mutate();
+                    if (caughtUp.retainedIds != null) {
+                        mutation.retainAll(caughtUp.retainedIds);
+                    }
+                    caughtUp.deletedIds.forEach(mutation::remove);
+                    caughtUp.changed.forEach(mutation::put);
+                    snapshot = mutation.publish();
+                }
+                catchingUp = false;
+                publishPendingChanges();
+            }
+        }
+        return caughtUp.sequence;
+    }
+
+    private long readDeletions(long fromSequence, List<UUID> deletedIds) {
+        long sequence = fromSequence;
+        ProductChangeFeedDTO feed;
+        do {
+            feed = productChangeService.findSince(sequence, ProductChangeService.MAX_CHANGES);
+            feed.getChanges().stream()
+                    .filter(change -> change.getType() == ProductChangeType.DELETED)
+                    .forEach(change -> deletedIds.add(change.getProductId()));
+            sequence = feed.getNextSince();
+        } while (feed.isHasMore());
+        return sequence;
+    }
+
+    private static class CatchUp {
+        private Set<UUID> retainedIds;
+        private final List<UUID> deletedIds = new ArrayList<>();
+        private final List<ProductSummaryDTO> changed = new ArrayList<>();
+        private Long sequence;
+    }
+
+    private synchronized void publish(ProductCatalogSnapshot loaded) {
+        snapshot = loaded;
+        publishPendingChanges();
+    }
+
+    private ProductCatalogSnapshot read(Specification<Product> specification) {
+        ProductCatalogSnapshot.Builder builder = new ProductCatalogSnapshot.Builder(1024);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status ->
+                productBulkRepository.forEachSummary(specification, builder::add));
+        return builder.build();
+    }
+
+    private void change(Consumer<ProductCatalogSnapshot.Mutation> change) {
+        if (!enabled) {
+            return;
+        }
+        pendingChanges.add(change);
+        synchronized (this) {
+            if (snapshot != null && !catchingUp) {
+                publishPendingChanges();
+            }
+        }
+    }
+
+    private void publishPendingChanges() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        ProductCatalogSnapshot.Mutation mutation = snapshot.mutate();
+        Consumer<ProductCatalogSnapshot.Mutation> change;
+        while ((change = pendingChanges.poll()) != null) {
+            change.accept(mutation);
+        }
+        snapshot = mutation.publish();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.ProductChangeFeedDTO;
+import com.example.demo.entities.ProductChange;
+import com.example.demo.enums.ProductChangeType;
+import com.example.demo.repositories.ProductChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Records product changes in the product_changes feed and serves them in sequence order, so consumers
+ * can sync incrementally by polling with the last sequence they saw.
+ * <p>
+ * An identity column alone is not enough for that: a transaction that draws sequence 7 may commit
+ * after another one that drew 8, and a consumer that already moved past 8 would never see 7. Writers
+ * therefore take a transaction-scoped advisory lock right before appending, which makes changes commit
+ * in sequence order. The lock is only held from the append to the commit.
+ */
+@Service
+public class ProductChangeService {
+
+    public static final int MAX_CHANGES = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO product_changes (product_id, type, changed_at) " +
+            "VALUES (?, ?, ?)";
+    private static final long FEED_LOCK_KEY = 0x70726f645f636867L; // "prod_chg"
+
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Appends one change per product. Must run in the transaction that changes the products, as its
+     * last statement before the commit, so the feed lock is held as briefly as possible.
+     */
+    public void record(ProductChangeType type, Collection<UUID> productIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Product changes must be recorded inside a transaction");
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+        lockFeed();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(INSERT_SQL, productIds, productIds.size(), (statement, productId) -> {
+            statement.setObject(1, productId);
+            statement.setString(2, type.name());
+            statement.setTimestamp(3, now);
+        });
+    }
+
+    /**
+     * Takes the feed lock until the current transaction ends. Writers that lock product rows before
+     * knowing which changes they will record call this first, so every writer takes the feed lock
+     * before row locks and two writers can never wait on each other.
+     */
+    public void lockFeed() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Product changes must be recorded inside a transaction");
+        }
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", resultSet -> null, FEED_LOCK_KEY);
+    }
+
+    public ProductChangeFeedDTO findSince(long since, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_CHANGES));
+        List<ProductChange> changes = productChangeRepository.findBySequenceGreaterThanOrderBySequence(
+                since, PageRequest.of(0, size + 1));
+        boolean hasMore = changes.size() > size;
+        if (hasMore) {
+            changes = changes.subList(0, size);
+        }
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence();
+        return ProductChangeFeedDTO.builder()
+                .changes(changes)
+                .nextSince(nextSince)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Returns the sequence of the latest change, or 0 when there is none, to start polling from.
+     */
+    public long findLatestSequence() {
+        return productChangeRepository.findLatestSequence();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.ProductDetailDTO;
+import com.example.demo.dtos.RatingSummaryDTO;
+import com.example.demo.dtos.SellerSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.Review;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.ReviewRepository;
+import com.example.demo.repositories.projections.RatingCount;
+import com.example.demo.services.exceptions.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Assembles the product page in one call. The product, seller summary, first review page and rating
+ * distribution only depend on the product id, so they are fetched concurrently on a bounded pool and
+ * the page costs the slowest fetch rather than the sum of all four. When the pool is saturated, fetches
+ * run on the request thread instead of queueing without bound.
+ * <p>
+ * Every fetch is timed under {@value #FETCH_TIMER}, tagged with its part, with a percentile histogram.
+ */
+@Service
+public class ProductDetailService {
+
+    public static final int REVIEW_PAGE_SIZE = 5;
+    public static final String FETCH_TIMER = "product.detail.fetch";
+
+    private static final int MAX_RATING = 5;
+
+    @Value("${product.detail.threads:16}")
+    private int threads;
+
+    @Value("${product.detail.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("product-detail-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    public ProductDetailDTO findById(UUID id) {
+        CompletableFuture<Product> product = fetch("product", () -> productService.findById(id));
+        CompletableFuture<SellerSummaryDTO> seller = fetch("seller", () ->
+                productRepository.findSellerSummaryByProductId(id)
+                        .orElseThrow(() -> new ResourceNotFoundException(id)));
+        CompletableFuture<Slice<Review>> reviews = fetch("reviews", () ->
+                reviewRepository.findSliceByProductId(id,
+                        PageRequest.of(0, REVIEW_PAGE_SIZE, Sort.Direction.ASC, "rating")));
+        CompletableFuture<List<RatingCount>> ratingCounts = fetch("rating", () ->
+                reviewRepository.countRatingsByProductId(id));
+
+        try {
+            CompletableFuture.allOf(product, seller, reviews, ratingCounts).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        return ProductDetailDTO.builder()
+                .product(product.join())
+                .seller(seller.join())
+                .reviews(reviews.join())
+                .rating(ratingSummary(product.join(), ratingCounts.join()))
+                .build();
+    }
+
+    private <T> CompletableFuture<T> fetch(String part, Supplier<T> supplier) {
+        Timer timer = Timer.builder(FETCH_TIMER)
+                .tag("part", part)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        return CompletableFuture.supplyAsync(() -> timer.record(supplier), executor);
+    }
+
+    private RatingSummaryDTO ratingSummary(Product product, List<RatingCount> ratingCounts) {
+        Map<Integer, Long> distribution = new TreeMap<>();
+        for (int rating = 0; rating <= MAX_RATING; rating++) {
+            distribution.put(rating, 0L);
+        }
+        ratingCounts.forEach(ratingCount -> distribution.put(ratingCount.getRating(), ratingCount.getCount()));
+        return RatingSummaryDTO.builder()
+                .averageRating(product.getAverageRating())
+                .ratingCount(product.getRatingCount())
+                .distribution(distribution)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductFileFormat;
+import com.example.demo.repositories.ProductBulkRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.example.demo.repositories.specifications.ProductSpecifications.hasCategoryIn;
+import static com.example.demo.repositories.specifications.ProductSpecifications.hasSellerId;
+
+/**
+ * Streams the catalog, optionally narrowed to a category or a seller, as NDJSON or CSV. Rows are written
+ * while the database cursor advances, so memory use does not depend on the size of the catalog.
+ */
+@Service
+public class ProductExportService {
+
+    private static final String CSV_HEADER =
+            "id,name,description,price,category,sellerId,sellerName,averageRating,ratingCount\n";
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public StreamingResponseBody export(ProductCategory productCategory, UUID sellerId, ProductFileFormat format) {
+        if (sellerId != null) {
+            userService.findByIdAndEnsureType(sellerId, Seller.class);
+        }
+        Specification<Product> specification =
+                hasCategoryIn(productCategory == null ? null : Set.of(productCategory))
+                        .and(hasSellerId(sellerId));
+
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (format == ProductFileFormat.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        productBulkRepository.forEachSummary(specification, summary -> write(writer, summary, format)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+
+    private void write(Writer writer, ProductSummaryDTO summary, ProductFileFormat format) {
+        try {
+            if (format == ProductFileFormat.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(summary));
+            } else {
+                writer.write(summary.getId() + "," + csvField(summary.getName()) + ","
+                        + csvField(summary.getDescription()) + "," + summary.getPrice().toPlainString() + ","
+                        + summary.getCategory() + "," + summary.getSellerId() + ","
+                        + csvField(summary.getSellerName()) + "," + summary.getAverageRating() + ","
+                        + summary.getRatingCount());
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
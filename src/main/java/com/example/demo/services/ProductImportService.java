@@ -0,0 +1,270 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.ProductDTO;
+import com.example.demo.dtos.ProductImportErrorDTO;
+import com.example.demo.dtos.ProductImportReportDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductChangeType;
+import com.example.demo.enums.ProductFileFormat;
+import com.example.demo.repositories.ProductBulkRepository;
+import com.example.demo.services.exceptions.InvalidImportFileException;
+import com.example.demo.services.utils.CsvRecordReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.*;
+
+import static com.example.demo.config.utils.GetCurrentUser.getCurrentUser;
+
+/**
+ * Imports products for the current seller from a streamed NDJSON or CSV body. Rows are validated
+ * against the {@link ProductDTO} constraints and written in chunks of {@link #CHUNK_SIZE}, each in
+ * its own transaction, so memory stays bounded by the chunk size whatever the size of the input.
+ */
+@Service
+public class ProductImportService {
+
+    public static final int CHUNK_SIZE = 5000;
+    public static final int MAX_REPORTED_ERRORS = 1000;
+    // well above the longest valid field and record, low enough to bound a malformed upload
+    public static final int MAX_CSV_FIELD_LENGTH = 1000;
+    public static final int MAX_CSV_RECORD_LENGTH = 8192;
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "description", "price", "category");
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Rows in the report are numbered by their line (NDJSON) or record (CSV, header included) in the input.
+     */
+    public ProductImportReportDTO importProducts(Reader reader, ProductFileFormat format) throws IOException {
+        ImportRun run = new ImportRun((Seller) getCurrentUser());
+        if (format == ProductFileFormat.NDJSON) {
+            readNdjson(reader, run);
+        } else {
+            readCsv(reader, run);
+        }
+        return run.finish();
+    }
+
+    private void readNdjson(Reader reader, ImportRun run) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        long row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.accept(row, objectMapper.readValue(line, ProductDTO.class), Set.of());
+            } catch (JsonProcessingException e) {
+                run.reject(row, List.of("Malformed JSON: " + e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private void readCsv(Reader reader, ImportRun run) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader, MAX_CSV_FIELD_LENGTH, MAX_CSV_RECORD_LENGTH);
+        List<String> header = records.readRecord();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new InvalidImportFileException("The CSV header must contain the columns " + CSV_COLUMNS);
+            }
+        }
+
+        long row = 1;
+        while (true) {
+            List<String> record;
+            try {
+                record = records.readRecord();
+            } catch (CsvRecordReader.RecordTooLongException e) {
+                row++;
+                run.reject(row, List.of(e.getMessage()));
+                continue;
+            } catch (CsvRecordReader.MalformedRecordException e) {
+                run.reject(row + 1, List.of(e.getMessage()));
+                return;
+            }
+            if (record == null) {
+                return;
+            }
+            row++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            parseCsvRecord(row, record, columns, run);
+        }
+    }
+
+    private void parseCsvRecord(long row, List<String> record, Map<String, Integer> columns, ImportRun run) {
+        List<String> errors = new ArrayList<>();
+        Set<String> unparsed = new HashSet<>();
+        ProductDTO productDTO = ProductDTO.builder()
+                .name(field(record, columns, "name"))
+                .description(field(record, columns, "description"))
+                .build();
+
+        String price = field(record, columns, "price");
+        if (price != null) {
+            try {
+                productDTO.setPrice(new BigDecimal(price.trim()));
+            } catch (NumberFormatException e) {
+                errors.add("price: must be a number");
+                unparsed.add("price");
+            }
+        }
+        String category = field(record, columns, "category");
+        if (category != null) {
+            try {
+                productDTO.setCategory(ProductCategory.valueOf(category.trim()));
+            } catch (IllegalArgumentException e) {
+                errors.add("category: unknown category " + category.trim());
+                unparsed.add("category");
+            }
+        }
+
+        if (errors.isEmpty()) {
+            run.accept(row, productDTO, unparsed);
+        } else {
+            errors.addAll(run.violations(productDTO, unparsed));
+            run.reject(row, errors);
+        }
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        if (index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    private class ImportRun {
+        private final Seller seller;
+        private List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        private List<Long> chunkRows = new ArrayList<>(CHUNK_SIZE);
+        private final List<ProductImportErrorDTO> errors = new ArrayList<>();
+        private long processedRows;
+        private long importedRows;
+        private long rejectedRows;
+        private boolean errorsTruncated;
+
+        ImportRun(Seller seller) {
+            this.seller = seller;
+        }
+
+        void accept(long row, ProductDTO productDTO, Set<String> unparsed) {
+            List<String> violations = violations(productDTO, unparsed);
+            if (!violations.isEmpty()) {
+                reject(row, violations);
+                return;
+            }
+            processedRows++;
+            chunk.add(Product.builder()
+                    .id(UUID.randomUUID())
+                    .name(productDTO.getName())
+                    .description(productDTO.getDescription())
+                    .price(productDTO.getPrice())
+                    .category(productDTO.getCategory())
+                    .seller(seller)
+                    .build());
+            chunkRows.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(long row, List<String> messages) {
+            processedRows++;
+            rejectedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportErrorDTO(row, messages));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        List<String> violations(ProductDTO productDTO, Set<String> ignoredFields) {
+            return validator.validate(productDTO).stream()
+                    .filter(violation -> !ignoredFields.contains(violation.getPropertyPath().toString()))
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .toList();
+        }
+
+        ProductImportReportDTO finish() {
+            flush();
+            return ProductImportReportDTO.builder()
+                    .processedRows(processedRows)
+                    .importedRows(importedRows)
+                    .rejectedRows(rejectedRows)
+                    .errors(errors)
+                    .errorsTruncated(errorsTruncated)
+                    .build();
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                List<Product> products = chunk;
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    productBulkRepository.insertAll(products);
+                    productChangeService.record(ProductChangeType.CREATED,
+                            products.stream().map(Product::getId).toList());
+                });
+                importedRows += chunk.size();
+                List<ProductSummaryDTO> summaries = chunk.stream().map(ProductSummaryDTO::from).toList();
+                productCatalogService.putAll(summaries);
+            } catch (DataAccessException e) {
+                String message = "Rejected by the database: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                for (Long row : chunkRows) {
+                    processedRows--;
+                    reject(row, List.of(message));
+                }
+            }
+            chunk = new ArrayList<>(CHUNK_SIZE);
+            chunkRows = new ArrayList<>(CHUNK_SIZE);
+        }
+    }
+}
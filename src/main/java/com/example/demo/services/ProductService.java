@@ -1,39 +1,94 @@
 package com.example.demo.services;
 
+import com.example.demo.dtos.CategoryRepriceDTO;
+import com.example.demo.dtos.CursorPageDTO;
+import com.example.demo.dtos.EntityVersionDTO;
+import com.example.demo.dtos.ProductBatchDTO;
 import com.example.demo.dtos.ProductDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductPriceDTO;
+import com.example.demo.dtos.ProductRepriceReportDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Seller;
 import com.example.demo.entities.user.User;
 import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductChangeType;
 import com.example.demo.enums.Role;
+import com.example.demo.events.ProductChangedEvent;
+import com.example.demo.repositories.ProductBulkRepository;
 import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.projections.ProductSearchResult;
+import com.example.demo.services.catalog.ProductCatalogSnapshot;
+import com.example.demo.services.exceptions.BatchSizeExceededException;
 import com.example.demo.services.exceptions.DatabaseException;
 import com.example.demo.services.exceptions.ResourceNotFoundException;
+import com.example.demo.services.utils.ScrollCursor;
+import com.example.demo.services.utils.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.UUID;
+import java.math.BigDecimal;
+import java.util.*;
 
+import static com.example.demo.config.CacheConfig.PRODUCTS_CACHE;
 import static com.example.demo.config.utils.GetCurrentUser.getCurrentUser;
+import static com.example.demo.repositories.specifications.ProductSpecifications.*;
 import static com.example.demo.services.utils.CheckOwnership.checkOwnership;
 
 @Service
 public class ProductService {
 
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private static final Map<String, Class<?>> SEARCH_CURSOR_KEYS = Map.of("rank", Float.class, "id", UUID.class);
+
     @Autowired
     private ProductRepository productRepository;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<UUID, Optional<Product>> productLoads;
+
+    @PostConstruct
+    void createSingleFlights() {
+        productLoads = new SingleFlight<>("product", meterRegistry);
+    }
+
+    @Transactional
     public Product create(ProductDTO productDTO) {
         Seller user = (Seller) getCurrentUser();
         Product product = Product.builder()
@@ -43,60 +98,432 @@ public class ProductService {
                 .seller(user)
                 .category(productDTO.getCategory())
                 .build();
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        productChangeService.record(ProductChangeType.CREATED, List.of(savedProduct.getId()));
+
+        ProductChangedEvent event = ProductChangedEvent.saved(ProductChangeType.CREATED,
+                ProductSummaryDTO.from(savedProduct));
+        afterCommit(() -> eventPublisher.publishEvent(event));
+        return savedProduct;
     }
 
     @Transactional
-    public Page<Product> findAll(Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+    public Page<ProductSummaryDTO> findAll(Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+        Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
+        ProductCatalogSnapshot snapshot = snapshotSortedBy(sortBy);
+        if (snapshot != null) {
+            return snapshot.findPage(new ProductFilterDTO(), paging);
+        }
+
+        return productRepository.findAllSummaries(paging);
+    }
+
+    public Slice<ProductSummaryDTO> findSliceAll(Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
         Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
+        ProductCatalogSnapshot snapshot = snapshotSortedBy(sortBy);
+        if (snapshot != null) {
+            return snapshot.findSlice(new ProductFilterDTO(), paging);
+        }
 
-        return productRepository.findAll(paging);
+        return productRepository.findSliceBy(paging);
     }
 
-    public Page<Product> findByCategory(ProductCategory productCategory, Integer pageNo,
-                                        Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+    public Page<ProductSummaryDTO> findByCategory(ProductCategory productCategory, Integer pageNo,
+                                                  Integer pageSize, Sort.Direction sortOrder, String sortBy) {
         Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
+        ProductCatalogSnapshot snapshot = snapshotSortedBy(sortBy);
+        if (snapshot != null) {
+            return snapshot.findPage(inCategory(productCategory), paging);
+        }
         return productRepository.findByCategory(productCategory, paging);
     }
 
+    public Slice<ProductSummaryDTO> findSliceByCategory(ProductCategory productCategory, Integer pageNo,
+                                                        Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+        Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
+        ProductCatalogSnapshot snapshot = snapshotSortedBy(sortBy);
+        if (snapshot != null) {
+            return snapshot.findSlice(inCategory(productCategory), paging);
+        }
+        return productRepository.findSliceByCategory(productCategory, paging);
+    }
+
+    private static ProductFilterDTO inCategory(ProductCategory productCategory) {
+        return ProductFilterDTO.builder().categories(Set.of(productCategory)).build();
+    }
+
+    /**
+     * Returns the in-memory catalog when it is loaded and can order by the property, otherwise null.
+     */
+    private ProductCatalogSnapshot snapshotSortedBy(String sortBy) {
+        return ProductCatalogSnapshot.supportsSort(sortBy) ? productCatalogService.current() : null;
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> scrollAll(String cursor, Integer pageSize,
+                                                      Sort.Direction sortOrder, String sortBy) {
+        return scroll(new ProductFilterDTO(), all(), cursor, pageSize, sortOrder, sortBy);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> scrollByCategory(ProductCategory productCategory, String cursor,
+                                                             Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+        return scroll(inCategory(productCategory), hasCategory(productCategory), cursor, pageSize, sortOrder, sortBy);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> scrollBySeller(UUID sellerId, String cursor, Integer pageSize,
+                                                           Sort.Direction sortOrder, String sortBy) {
+        Seller seller = userService.findByIdAndEnsureType(sellerId, Seller.class);
+        return scroll(ProductFilterDTO.builder().sellerId(sellerId).build(), hasSeller(seller),
+                cursor, pageSize, sortOrder, sortBy);
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> scrollByFilter(ProductFilterDTO filter, String cursor, Integer pageSize,
+                                                           Sort.Direction sortOrder, String sortBy) {
+        return scroll(filter, matches(filter), cursor, pageSize, sortOrder, sortBy);
+    }
+
+    /**
+     * Scrolls through the products matching the filter, served from the in-memory catalog when possible
+     * and from the equivalent specification otherwise. Both paths share the same cursor format.
+     */
+    private CursorPageDTO<ProductSummaryDTO> scroll(ProductFilterDTO filter, Specification<Product> specification,
+                                                    String cursor, Integer pageSize, Sort.Direction sortOrder,
+                                                    String sortBy) {
+        Sort sort = Sort.by(sortOrder, sortBy);
+        KeysetScrollPosition position = ScrollCursor.decode(cursor, Product.class, sort, "id");
+
+        ProductCatalogSnapshot snapshot = snapshotSortedBy(sortBy);
+        if (snapshot != null) {
+            return scrollSnapshot(snapshot, filter, position, pageSize, sortOrder, sortBy);
+        }
+
+        Window<Product> window = productRepository.findBy(fetchSeller().and(specification), query -> query
+                .sortBy(sort)
+                .limit(pageSize)
+                .scroll(position));
+
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? ScrollCursor.encode(window.positionAt(window.size() - 1))
+                : null;
+
+        return CursorPageDTO.<ProductSummaryDTO>builder()
+                .content(window.map(ProductSummaryDTO::from).getContent())
+                .size(window.size())
+                .hasNext(window.hasNext())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private CursorPageDTO<ProductSummaryDTO> scrollSnapshot(ProductCatalogSnapshot snapshot, ProductFilterDTO filter,
+                                                            KeysetScrollPosition position, Integer pageSize,
+                                                            Sort.Direction sortOrder, String sortBy) {
+        List<ProductSummaryDTO> results = snapshot.scroll(filter, sortBy, sortOrder, position, pageSize + 1);
+        boolean hasNext = results.size() > pageSize;
+        List<ProductSummaryDTO> content = hasNext ? results.subList(0, pageSize) : results;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductSummaryDTO last = content.get(content.size() - 1);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sortBy, sortKey(last, sortBy));
+            keys.put("id", last.getId());
+            nextCursor = ScrollCursor.encode(ScrollPosition.forward(keys));
+        }
+
+        return CursorPageDTO.<ProductSummaryDTO>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static Object sortKey(ProductSummaryDTO product, String sortBy) {
+        return switch (sortBy) {
+            case "price" -> product.getPrice();
+            case "averageRating" -> product.getAverageRating();
+            default -> product.getRatingCount();
+        };
+    }
+
+    public CursorPageDTO<ProductSummaryDTO> search(String query, ProductCategory productCategory,
+                                                   String cursor, Integer pageSize) {
+        KeysetScrollPosition position = ScrollCursor.decode(cursor, SEARCH_CURSOR_KEYS);
+        Float rank = position.isInitial()
+                ? Float.POSITIVE_INFINITY
+                : (Float) position.getKeys().get("rank");
+        UUID id = position.isInitial()
+                ? new UUID(0, 0)
+                : (UUID) position.getKeys().get("id");
+        // category codes start at 1, so 0 matches every category
+        short category = productCategory == null ? 0 : productCategory.getCode();
+
+        List<ProductSearchResult> results = productRepository.search(query, category, rank, id, pageSize + 1);
+        boolean hasNext = results.size() > pageSize;
+        List<ProductSearchResult> content = hasNext ? results.subList(0, pageSize) : results;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ProductSearchResult last = content.get(content.size() - 1);
+            nextCursor = ScrollCursor.encode(ScrollPosition.forward(
+                    Map.of("rank", last.getRank(), "id", last.getId())));
+        }
+
+        return CursorPageDTO.<ProductSummaryDTO>builder()
+                .content(content.stream().map(this::toSummary).toList())
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private ProductSummaryDTO toSummary(ProductSearchResult result) {
+        return ProductSummaryDTO.builder()
+                .id(result.getId())
+                .name(result.getName())
+                .description(result.getDescription())
+                .price(result.getPrice())
+                .category(ProductCategory.fromCode(result.getCategory()))
+                .sellerId(result.getSellerId())
+                .sellerName(result.getSellerName())
+                .averageRating(result.getAverageRating())
+                .ratingCount(result.getRatingCount())
+                .build();
+    }
+
+    /**
+     * Concurrent cache misses for the same product share a single query.
+     */
+    @Cacheable(value = PRODUCTS_CACHE, key = "#id")
     public Product findById(UUID id) {
-        return productRepository.findById(id)
+        return productLoads.load(id, () -> productRepository.findById(id))
+                .orElseThrow(() -> new ResourceNotFoundException(id));
+    }
+
+    /**
+     * Returns the validators of a product for conditional requests, read from the cached product when
+     * present and otherwise from the version columns alone, so unchanged products are never loaded.
+     */
+    public EntityVersionDTO findVersionById(UUID id) {
+        Product cached = cacheManager.getCache(PRODUCTS_CACHE).get(id, Product.class);
+        if (cached != null) {
+            return new EntityVersionDTO(cached.getVersion(), cached.getUpdatedAt());
+        }
+        return productRepository.findVersionById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
-    public Page<Product> findByCurrentUser(Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+    /**
+     * Resolves up to {@link #MAX_BATCH_SIZE} products, serving cached entries first and loading the
+     * rest with a single IN query. Products keep the order of the requested ids and ids that do not
+     * exist are reported instead of failing the whole batch.
+     */
+    public ProductBatchDTO findAllByIds(List<UUID> ids) {
+        Set<UUID> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > MAX_BATCH_SIZE) {
+            throw new BatchSizeExceededException(MAX_BATCH_SIZE);
+        }
+
+        Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        Map<UUID, Product> productsById = new HashMap<>();
+        List<UUID> uncachedIds = new ArrayList<>();
+        for (UUID id : uniqueIds) {
+            Product cached = cache.get(id, Product.class);
+            if (cached != null) {
+                productsById.put(id, cached);
+            } else {
+                uncachedIds.add(id);
+            }
+        }
+
+        if (!uncachedIds.isEmpty()) {
+            for (Product product : productRepository.findAllWithSellerByIdIn(uncachedIds)) {
+                cache.put(product.getId(), product);
+                productsById.put(product.getId(), product);
+            }
+        }
+
+        List<Product> products = new ArrayList<>(productsById.size());
+        List<UUID> missingIds = new ArrayList<>();
+        for (UUID id : uniqueIds) {
+            Product product = productsById.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        return ProductBatchDTO.builder()
+                .products(products)
+                .missingIds(missingIds)
+                .build();
+    }
+
+    public Page<ProductSummaryDTO> findByCurrentUser(Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
         Seller seller = (Seller) getCurrentUser();
         Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
 
         return productRepository.findAllBySeller(seller, paging);
     }
 
-    public Page<Product> findAllBySeller(UUID sellerId, Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
+    public Slice<ProductSummaryDTO> findSliceByCurrentUser(Integer pageNo, Integer pageSize,
+                                                           Sort.Direction sortOrder, String sortBy) {
+        Seller seller = (Seller) getCurrentUser();
+        Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
+
+        return productRepository.findSliceBySeller(seller, paging);
+    }
+
+    public Page<ProductSummaryDTO> findAllBySeller(UUID sellerId, Integer pageNo, Integer pageSize, Sort.Direction sortOrder, String sortBy) {
         Seller seller = userService.findByIdAndEnsureType(sellerId, Seller.class);
         Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
 
         return productRepository.findAllBySeller(seller, paging);
     }
 
+    public Slice<ProductSummaryDTO> findSliceBySeller(UUID sellerId, Integer pageNo, Integer pageSize,
+                                                      Sort.Direction sortOrder, String sortBy) {
+        Seller seller = userService.findByIdAndEnsureType(sellerId, Seller.class);
+        Pageable paging = PageRequest.of(pageNo, pageSize, sortOrder, sortBy);
+
+        return productRepository.findSliceBySeller(seller, paging);
+    }
+
+    @Transactional
     public Product update(UUID id, ProductDTO obj) {
         try {
             Product entity = productRepository.getReferenceById(id);
             User user = getCurrentUser();
             checkOwnership(user, entity.getSeller().getId());
             updateData(entity, obj);
+            Product savedProduct = productRepository.save(entity);
+            productChangeService.record(ProductChangeType.UPDATED, List.of(id));
 
-            return productRepository.save(entity);
+            ProductChangedEvent event = ProductChangedEvent.saved(ProductChangeType.UPDATED,
+                    ProductSummaryDTO.from(savedProduct));
+            afterCommit(() -> {
+                cacheManager.getCache(PRODUCTS_CACHE).evict(id);
+                eventPublisher.publishEvent(event);
+            });
+            return savedProduct;
         } catch (EntityNotFoundException e) {
             throw new ResourceNotFoundException(id);
         }
     }
 
+    /**
+     * Sets the prices of the current seller's products with batched UPDATEs that check ownership in
+     * their WHERE clause, instead of loading and saving every product. When a product appears more than
+     * once, its last price wins. Products that do not exist or belong to another seller are reported
+     * rather than failing the whole request.
+     */
+    @Transactional
+    public ProductRepriceReportDTO reprice(List<ProductPriceDTO> prices) {
+        UUID sellerId = getCurrentUser().getId();
+        Map<UUID, ProductPriceDTO> pricesById = new LinkedHashMap<>();
+        prices.forEach(price -> pricesById.put(price.getProductId(), price));
+        List<ProductPriceDTO> uniquePrices = new ArrayList<>(pricesById.values());
+
+        productChangeService.lockFeed();
+        int[] counts = productBulkRepository.updatePrices(sellerId, uniquePrices);
+        List<ProductPriceDTO> updated = new ArrayList<>();
+        List<UUID> rejectedIds = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                updated.add(uniquePrices.get(i));
+            } else {
+                rejectedIds.add(uniquePrices.get(i).getProductId());
+            }
+        }
+
+        List<UUID> updatedIds = updated.stream().map(ProductPriceDTO::getProductId).toList();
+        List<ProductSummaryDTO> summaries = new ArrayList<>(updatedIds.size());
+        for (int from = 0; from < updatedIds.size(); from += ProductBulkRepository.FETCH_SIZE) {
+            List<UUID> chunk = updatedIds.subList(from,
+                    Math.min(from + ProductBulkRepository.FETCH_SIZE, updatedIds.size()));
+            productBulkRepository.forEachSummary(hasIdIn(chunk), summaries::add);
+        }
+        afterReprice(summaries);
+
+        return ProductRepriceReportDTO.builder()
+                .updated(updated)
+                .rejectedIds(rejectedIds)
+                .build();
+    }
+
+    /**
+     * Applies a percentage to the price of every product the current seller has in the category, with a
+     * single UPDATE.
+     */
+    @Transactional
+    public ProductRepriceReportDTO repriceCategory(CategoryRepriceDTO categoryRepriceDTO) {
+        UUID sellerId = getCurrentUser().getId();
+        BigDecimal factor = BigDecimal.ONE.add(categoryRepriceDTO.getPercentage().movePointLeft(2));
+
+        productChangeService.lockFeed();
+        productBulkRepository.updateCategoryPrices(sellerId, categoryRepriceDTO.getCategory(), factor);
+        List<ProductSummaryDTO> summaries = new ArrayList<>();
+        productBulkRepository.forEachSummary(Specification.where(hasSellerId(sellerId))
+                .and(hasCategory(categoryRepriceDTO.getCategory())), summaries::add);
+        afterReprice(summaries);
+
+        return ProductRepriceReportDTO.builder()
+                .updated(summaries.stream()
+                        .map(summary -> new ProductPriceDTO(summary.getId(), summary.getPrice()))
+                        .toList())
+                .rejectedIds(List.of())
+                .build();
+    }
+
+    private void afterReprice(List<ProductSummaryDTO> summaries) {
+        productChangeService.record(ProductChangeType.UPDATED,
+                summaries.stream().map(ProductSummaryDTO::getId).toList());
+        afterCommit(() -> {
+            Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+            summaries.forEach(summary -> cache.evict(summary.getId()));
+            productCatalogService.putAll(summaries);
+        });
+    }
+
+    /**
+     * Shifts the rating aggregates with a single atomic UPDATE so concurrent review writes
+     * never overwrite each other. Must run inside the caller's transaction; the cached
+     * product is evicted and the catalog snapshot updated once that transaction commits.
+     */
+    public void applyRatingDelta(UUID id, long countDelta, long sumDelta) {
+        if (productRepository.applyRatingDelta(id, countDelta, sumDelta) == 0) {
+            throw new ResourceNotFoundException(id);
+        }
+        afterCommit(() -> {
+            cacheManager.getCache(PRODUCTS_CACHE).evict(id);
+            productCatalogService.applyRatingDelta(id, countDelta, sumDelta);
+        });
+    }
+
+    /**
+     * Runs the action once the current transaction commits, so caches and the catalog snapshot never
+     * see a change that is later rolled back, for instance by an optimistic lock failure at flush.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private void updateData(Product entity, ProductDTO obj) {
         entity.setDescription(obj.getDescription());
         entity.setName(obj.getName());
         entity.setPrice(obj.getPrice());
     }
 
+    @Transactional
     public void delete(UUID id) {
         try {
             Product entity = productRepository.getReferenceById(id);
@@ -108,7 +535,15 @@ public class ProductService {
                 checkOwnership(user, entity.getSeller().getId());
             }
 
+            // the feed lock is taken before the delete locks the row, matching the order of other writers
+            productChangeService.record(ProductChangeType.DELETED, List.of(id));
             productRepository.deleteById(id);
+            // flushed here so a constraint violation is reported below rather than at commit
+            productRepository.flush();
+            afterCommit(() -> {
+                cacheManager.getCache(PRODUCTS_CACHE).evict(id);
+                eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+            });
         } catch (EmptyResultDataAccessException e) {
             throw new ResourceNotFoundException(id);
         } catch (DataIntegrityViolationException e) {
@@ -0,0 +1,36 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.ProductSuggestionDTO;
+import com.example.demo.services.catalog.ProductCatalogSnapshot;
+import com.example.demo.services.catalog.ProductSuggestionIndex;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Answers name prefixes from a {@link ProductSuggestionIndex}, most rated products first. The index is rebuilt
+ * from the catalog snapshot whenever ProductCatalogService loads or refreshes it, so suggestions follow the
+ * changes of every node and lag local ones by at most the refresh interval.
+ */
+@Service
+public class ProductSuggestionService {
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    private volatile ProductSuggestionIndex index = ProductSuggestionIndex.EMPTY;
+
+    // the snapshot the index was built from, so an unchanged catalog is not indexed again
+    private ProductCatalogSnapshot source;
+
+    public synchronized void rebuild(ProductCatalogSnapshot snapshot) {
+        if (snapshot == null || snapshot == source) {
+            return;
+        }
+        index = index.update(snapshot);
+        source = snapshot;
+    }
+
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        return index.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+}
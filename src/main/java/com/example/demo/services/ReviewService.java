@@ -1,5 +1,6 @@
 package com.example.demo.services;
 
+import com.example.demo.dtos.EntityVersionDTO;
 import com.example.demo.dtos.ReviewDTO;
 import com.example.demo.dtos.UpdateReviewDTO;
 import com.example.demo.entities.Product;
@@ -12,7 +13,9 @@ import com.example.demo.services.exceptions.DatabaseException;
 import com.example.demo.services.exceptions.ProductNotPurchasedException;
 import com.example.demo.services.exceptions.ResourceNotFoundException;
 import com.example.demo.services.exceptions.UniqueConstraintViolationError;
-import jakarta.persistence.EntityNotFoundException;
+import com.example.demo.services.utils.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -20,6 +23,7 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
@@ -40,6 +44,22 @@ public class ReviewService {
     @Autowired
     private OrderHistoryService orderHistoryService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<ReviewPageKey, Page<Review>> reviewPageLoads;
+    private SingleFlight<ReviewPageKey, Slice<Review>> reviewSliceLoads;
+
+    private record ReviewPageKey(UUID productId, Pageable paging) {
+    }
+
+    @PostConstruct
+    void createSingleFlights() {
+        reviewPageLoads = new SingleFlight<>("reviewPage", meterRegistry);
+        reviewSliceLoads = new SingleFlight<>("reviewSlice", meterRegistry);
+    }
+
+    @Transactional
     public Review create(ReviewDTO reviewDTO) {
         try {
             Product product = productService.findById(reviewDTO.getProductId());
@@ -55,7 +75,10 @@ public class ReviewService {
                     .product(product)
                     .customer(user)
                     .build();
-            return reviewRepository.save(review);
+            Review result = reviewRepository.saveAndFlush(review);
+            productService.applyRatingDelta(product.getId(), 1, result.getRating());
+
+            return result;
         } catch (DataIntegrityViolationException e) {
             throw new UniqueConstraintViolationError("A review for this product already exists. " +
                     "You can create only 1 review per product.");
@@ -75,12 +98,33 @@ public class ReviewService {
                 .orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
+    public EntityVersionDTO findVersionById(UUID id) {
+        return reviewRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(id));
+    }
+
+    // every review change goes through applyRatingDelta, which bumps the product's version, and each listed
+    // review embeds the product, so the product's validators cover its review listing
+    public EntityVersionDTO findVersionByProduct(UUID productId) {
+        return productService.findVersionById(productId);
+    }
+
     public Page<Review> findAllByProduct(UUID productId, Integer pageNo, Integer pageSize,
                                          Sort.Direction sortDirection, String sortBy) {
         Product product = productService.findById(productId);
         Pageable paging = PageRequest.of(pageNo, pageSize, sortDirection, sortBy);
 
-        return reviewRepository.findAllByProduct(product, paging);
+        return reviewPageLoads.load(new ReviewPageKey(productId, paging),
+                () -> reviewRepository.findAllByProduct(product, paging));
+    }
+
+    public Slice<Review> findSliceByProduct(UUID productId, Integer pageNo, Integer pageSize,
+                                            Sort.Direction sortDirection, String sortBy) {
+        Product product = productService.findById(productId);
+        Pageable paging = PageRequest.of(pageNo, pageSize, sortDirection, sortBy);
+
+        return reviewSliceLoads.load(new ReviewPageKey(productId, paging),
+                () -> reviewRepository.findSliceByProduct(product, paging));
     }
 
     public Page<Review> findByCurrentUser(Integer pageNo, Integer pageSize,
@@ -91,17 +135,28 @@ public class ReviewService {
         return reviewRepository.findAllByCustomer(customer, paging);
     }
 
+    public Slice<Review> findSliceByCurrentUser(Integer pageNo, Integer pageSize,
+                                                Sort.Direction sortDirection, String sortBy) {
+        Customer customer = (Customer) getCurrentUser();
+        Pageable paging = PageRequest.of(pageNo, pageSize, sortDirection, sortBy);
+
+        return reviewRepository.findSliceByCustomer(customer, paging);
+    }
+
+    @Transactional
     public Review update(UUID id, UpdateReviewDTO obj) {
-        try {
-            Review entity = reviewRepository.getReferenceById(id);
-            User user = getCurrentUser();
-            checkOwnership(user, entity.getCustomer().getId());
-            updateData(entity, obj);
+        Review entity = reviewRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException(id));
+        User user = getCurrentUser();
+        checkOwnership(user, entity.getCustomer().getId());
 
-            return reviewRepository.save(entity);
-        } catch (EntityNotFoundException e) {
-            throw new ResourceNotFoundException(id);
-        }
+        int previousRating = entity.getRating();
+        updateData(entity, obj);
+        Review result = reviewRepository.save(entity);
+        productService.applyRatingDelta(entity.getProduct().getId(), 0,
+                result.getRating() - previousRating);
+
+        return result;
     }
 
     private void updateData(Review entity, UpdateReviewDTO obj) {
@@ -109,9 +164,11 @@ public class ReviewService {
         entity.setRating(obj.getRating());
     }
 
+    @Transactional
     public void delete(UUID id) {
         try {
-            Review entity = reviewRepository.getReferenceById(id);
+            Review entity = reviewRepository.findByIdForUpdate(id)
+                    .orElseThrow(() -> new ResourceNotFoundException(id));
 
             User user = getCurrentUser();
             String role = user.getAuthorities().stream().toList().get(0).getAuthority();
@@ -121,6 +178,7 @@ public class ReviewService {
             }
 
             reviewRepository.deleteById(id);
+            productService.applyRatingDelta(entity.getProduct().getId(), -1, -entity.getRating());
         } catch (EmptyResultDataAccessException e) {
             throw new ResourceNotFoundException(id);
         } catch (DataIntegrityViolationException e) {
@@ -0,0 +1,144 @@
+package com.example.demo.services.catalog;
+
+import com.example.demo.dtos.CategoryStatisticsDTO;
+import com.example.demo.enums.ProductCategory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product count and price range of every category of a {@link ProductCatalogSnapshot}, held in an
+ * EnumMap keyed by category. A snapshot derived from another one derives its statistics as well, by
+ * removing the rows it replaces and adding the new ones, so counts and sums never need a full pass. Only
+ * a category that loses its cheapest or most expensive product is rescanned for its new range.
+ */
+final class CategoryStatistics {
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+
+    // only categories with at least one product; totals are never modified once published
+    private final Map<ProductCategory, Totals> totals;
+
+    private CategoryStatistics(Map<ProductCategory, Totals> totals) {
+        this.totals = totals;
+    }
+
+    static CategoryStatistics compute(short[] categories, long[] priceCents, int size) {
+        Update update = new CategoryStatistics(new EnumMap<>(ProductCategory.class)).update();
+        for (int row = 0; row < size; row++) {
+            update.add(categories[row], priceCents[row]);
+        }
+        return update.apply(categories, priceCents, size);
+    }
+
+    Update update() {
+        return new Update();
+    }
+
+    List<CategoryStatisticsDTO> toDTOs() {
+        List<CategoryStatisticsDTO> statistics = new ArrayList<>(totals.size());
+        totals.forEach((category, categoryTotals) -> statistics.add(CategoryStatisticsDTO.builder()
+                .category(category)
+                .productCount(categoryTotals.count)
+                .minPrice(BigDecimal.valueOf(categoryTotals.minCents, 2))
+                .averagePrice(BigDecimal.valueOf(categoryTotals.sumCents, 2)
+                        .divide(BigDecimal.valueOf(categoryTotals.count), 2, RoundingMode.HALF_UP))
+                .maxPrice(BigDecimal.valueOf(categoryTotals.maxCents, 2))
+                .build()));
+        return statistics;
+    }
+
+    /**
+     * Derives the statistics of the next snapshot. Categories are copied the first time they change,
+     * so the statistics being updated stay untouched.
+     */
+    final class Update {
+
+        private final EnumMap<ProductCategory, Totals> next = new EnumMap<>(ProductCategory.class);
+        private final EnumSet<ProductCategory> copied = EnumSet.noneOf(ProductCategory.class);
+        private final EnumSet<ProductCategory> stale = EnumSet.noneOf(ProductCategory.class);
+
+        private Update() {
+            next.putAll(totals);
+        }
+
+        void add(short category, long priceCents) {
+            Totals categoryTotals = writable(CATEGORIES[category]);
+            if (categoryTotals.count == 0) {
+                categoryTotals.minCents = priceCents;
+                categoryTotals.maxCents = priceCents;
+            } else {
+                categoryTotals.minCents = Math.min(categoryTotals.minCents, priceCents);
+                categoryTotals.maxCents = Math.max(categoryTotals.maxCents, priceCents);
+            }
+            categoryTotals.count++;
+            categoryTotals.sumCents += priceCents;
+        }
+
+        void remove(short category, long priceCents) {
+            ProductCategory productCategory = CATEGORIES[category];
+            Totals categoryTotals = writable(productCategory);
+            categoryTotals.count--;
+            categoryTotals.sumCents -= priceCents;
+            if (categoryTotals.count == 0) {
+                next.remove(productCategory);
+                copied.remove(productCategory);
+                stale.remove(productCategory);
+            } else if (priceCents == categoryTotals.minCents || priceCents == categoryTotals.maxCents) {
+                stale.add(productCategory);
+            }
+        }
+
+        /**
+         * Publishes the statistics, rescanning the ranges of stale categories in the first {@code size}
+         * rows of the columns of the snapshot they describe.
+         */
+        CategoryStatistics apply(short[] categories, long[] priceCents, int size) {
+            if (!stale.isEmpty()) {
+                for (ProductCategory category : stale) {
+                    Totals categoryTotals = next.get(category);
+                    categoryTotals.minCents = Long.MAX_VALUE;
+                    categoryTotals.maxCents = Long.MIN_VALUE;
+                }
+                for (int row = 0; row < size; row++) {
+                    ProductCategory category = CATEGORIES[categories[row]];
+                    if (stale.contains(category)) {
+                        Totals categoryTotals = next.get(category);
+                        categoryTotals.minCents = Math.min(categoryTotals.minCents, priceCents[row]);
+                        categoryTotals.maxCents = Math.max(categoryTotals.maxCents, priceCents[row]);
+                    }
+                }
+            }
+            return new CategoryStatistics(next);
+        }
+
+        private Totals writable(ProductCategory category) {
+            if (copied.add(category)) {
+                Totals current = next.get(category);
+                next.put(category, current == null ? new Totals() : current.copy());
+            }
+            return next.get(category);
+        }
+    }
+
+    private static final class Totals {
+        private long count;
+        private long sumCents;
+        private long minCents;
+        private long maxCents;
+
+        private Totals copy() {
+            Totals copy = new Totals();
+            copy.count = count;
+            copy.sumCents = sumCents;
+            copy.minCents = minCents;
+            copy.maxCents = maxCents;
+            return copy;
+        }
+    }
+}
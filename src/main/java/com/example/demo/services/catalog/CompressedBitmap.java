@@ -0,0 +1,445 @@
+package com.example.demo.services.catalog;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable set of non-negative ints in the Roaring layout: values are split into chunks of 2^16 by
+ * their high bits, and each chunk stores its low bits as a sorted char[] while it holds at most
+ * {@value #ARRAY_LIMIT} values and as a 1024 word bitset beyond that. Sparse sets such as a single
+ * seller's products stay small, while dense ones such as a popular category intersect word by word.
+ */
+public final class CompressedBitmap {
+
+    static final int ARRAY_LIMIT = 4096;
+
+    private static final int BITSET_WORDS = 1 << 10;
+
+    public static final CompressedBitmap EMPTY = new CompressedBitmap(new char[0], new Object[0], 0);
+
+    private final char[] keys;
+    // each container is either a sorted char[] or a long[BITSET_WORDS]
+    private final Object[] containers;
+    private final int cardinality;
+
+    private CompressedBitmap(char[] keys, Object[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static CompressedBitmap of(int... sortedValues) {
+        Builder builder = new Builder();
+        for (int value : sortedValues) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, (char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        return containers[index] instanceof long[] words
+                ? (words[low >>> 6] & (1L << low)) != 0
+                : Arrays.binarySearch((char[]) containers[index], low) >= 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            int high = keys[i] << 16;
+            if (containers[i] instanceof long[] words) {
+                for (int word = 0; word < words.length; word++) {
+                    long bits = words[word];
+                    while (bits != 0) {
+                        action.accept(high | (word << 6) | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            } else {
+                for (char low : (char[]) containers[i]) {
+                    action.accept(high | low);
+                }
+            }
+        }
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        char[] resultKeys = new char[Math.min(keys.length, other.keys.length)];
+        Object[] resultContainers = new Object[resultKeys.length];
+        int size = 0;
+        int resultCardinality = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object container = and(containers[i], other.containers[j]);
+                int containerCardinality = cardinality(container);
+                if (containerCardinality > 0) {
+                    resultKeys[size] = keys[i];
+                    resultContainers[size++] = container;
+                    resultCardinality += containerCardinality;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, size), Arrays.copyOf(resultContainers, size),
+                resultCardinality);
+    }
+
+    public int andCardinality(CompressedBitmap other) {
+        int result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result += andCardinality(containers[i], other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        char[] resultKeys = new char[keys.length + other.keys.length];
+        Object[] resultContainers = new Object[resultKeys.length];
+        int size = 0;
+        int resultCardinality = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            Object container;
+            if (j == other.keys.length || (i < keys.length && keys[i] < other.keys[j])) {
+                resultKeys[size] = keys[i];
+                container = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                resultKeys[size] = other.keys[j];
+                container = other.containers[j++];
+            } else {
+                resultKeys[size] = keys[i];
+                container = or(containers[i++], other.containers[j++]);
+            }
+            resultContainers[size++] = container;
+            resultCardinality += cardinality(container);
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, size), Arrays.copyOf(resultContainers, size),
+                resultCardinality);
+    }
+
+    /**
+     * Returns the values of this set missing from the other one. Chunks the other set does not touch are
+     * shared rather than copied.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        char[] resultKeys = new char[keys.length];
+        Object[] resultContainers = new Object[keys.length];
+        int size = 0;
+        int resultCardinality = 0;
+
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Object container = j < other.keys.length && other.keys[j] == keys[i]
+                    ? andNot(containers[i], other.containers[j])
+                    : containers[i];
+            int containerCardinality = cardinality(container);
+            if (containerCardinality > 0) {
+                resultKeys[size] = keys[i];
+                resultContainers[size++] = container;
+                resultCardinality += containerCardinality;
+            }
+        }
+        return new CompressedBitmap(Arrays.copyOf(resultKeys, size), Arrays.copyOf(resultContainers, size),
+                resultCardinality);
+    }
+
+    private static int cardinality(Object container) {
+        if (container instanceof long[] words) {
+            int result = 0;
+            for (long word : words) {
+                result += Long.bitCount(word);
+            }
+            return result;
+        }
+        return ((char[]) container).length;
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof long[] wordsA && b instanceof long[] wordsB) {
+            long[] words = new long[BITSET_WORDS];
+            int count = 0;
+            for (int i = 0; i < BITSET_WORDS; i++) {
+                words[i] = wordsA[i] & wordsB[i];
+                count += Long.bitCount(words[i]);
+            }
+            return count > ARRAY_LIMIT ? words : toArray(words, count);
+        }
+        if (a instanceof long[] words) {
+            return filter((char[]) b, words);
+        }
+        if (b instanceof long[] words) {
+            return filter((char[]) a, words);
+        }
+
+        char[] valuesA = (char[]) a;
+        char[] valuesB = (char[]) b;
+        char[] result = new char[Math.min(valuesA.length, valuesB.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < valuesA.length && j < valuesB.length) {
+            if (valuesA[i] < valuesB[j]) {
+                i++;
+            } else if (valuesA[i] > valuesB[j]) {
+                j++;
+            } else {
+                result[size++] = valuesA[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int andCardinality(Object a, Object b) {
+        if (a instanceof long[] wordsA && b instanceof long[] wordsB) {
+            int count = 0;
+            for (int i = 0; i < BITSET_WORDS; i++) {
+                count += Long.bitCount(wordsA[i] & wordsB[i]);
+            }
+            return count;
+        }
+        if (a instanceof long[] words) {
+            return countIn((char[]) b, words);
+        }
+        if (b instanceof long[] words) {
+            return countIn((char[]) a, words);
+        }
+
+        // counts without materializing the intersection, which facet counting would throw away
+        char[] valuesA = (char[]) a;
+        char[] valuesB = (char[]) b;
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < valuesA.length && j < valuesB.length) {
+            if (valuesA[i] < valuesB[j]) {
+                i++;
+            } else if (valuesA[i] > valuesB[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int countIn(char[] values, long[] words) {
+        int count = 0;
+        for (char low : values) {
+            count += (int) (words[low >>> 6] >>> low) & 1;
+        }
+        return count;
+    }
+
+    private static Object or(Object a, Object b) {
+        if (a instanceof long[] || b instanceof long[]) {
+            long[] words = toWords(a);
+            if (b instanceof long[] wordsB) {
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    words[i] |= wordsB[i];
+                }
+            } else {
+                for (char low : (char[]) b) {
+                    words[low >>> 6] |= 1L << low;
+                }
+            }
+            return words;
+        }
+
+        char[] valuesA = (char[]) a;
+        char[] valuesB = (char[]) b;
+        char[] result = new char[valuesA.length + valuesB.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < valuesA.length || j < valuesB.length) {
+            if (j == valuesB.length || (i < valuesA.length && valuesA[i] < valuesB[j])) {
+                result[size++] = valuesA[i++];
+            } else if (i == valuesA.length || valuesA[i] > valuesB[j]) {
+                result[size++] = valuesB[j++];
+            } else {
+                result[size++] = valuesA[i++];
+                j++;
+            }
+        }
+        return size > ARRAY_LIMIT ? toWords(Arrays.copyOf(result, size)) : Arrays.copyOf(result, size);
+    }
+
+    private static Object andNot(Object a, Object b) {
+        if (a instanceof long[] wordsA) {
+            long[] words = wordsA.clone();
+            if (b instanceof long[] wordsB) {
+                for (int i = 0; i < BITSET_WORDS; i++) {
+                    words[i] &= ~wordsB[i];
+                }
+            } else {
+                for (char low : (char[]) b) {
+                    words[low >>> 6] &= ~(1L << low);
+                }
+            }
+            int count = cardinality(words);
+            return count > ARRAY_LIMIT ? words : toArray(words, count);
+        }
+        if (b instanceof long[] words) {
+            char[] values = (char[]) a;
+            char[] result = new char[values.length];
+            int size = 0;
+            for (char low : values) {
+                if ((words[low >>> 6] & (1L << low)) == 0) {
+                    result[size++] = low;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        char[] valuesA = (char[]) a;
+        char[] valuesB = (char[]) b;
+        char[] result = new char[valuesA.length];
+        int size = 0;
+        int j = 0;
+        for (char value : valuesA) {
+            while (j < valuesB.length && valuesB[j] < value) {
+                j++;
+            }
+            if (j == valuesB.length || valuesB[j] != value) {
+                result[size++] = value;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static char[] filter(char[] values, long[] words) {
+        char[] result = new char[values.length];
+        int size = 0;
+        for (char low : values) {
+            if ((words[low >>> 6] & (1L << low)) != 0) {
+                result[size++] = low;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static long[] toWords(Object container) {
+        if (container instanceof long[] words) {
+            return words.clone();
+        }
+        long[] words = new long[BITSET_WORDS];
+        for (char low : (char[]) container) {
+            words[low >>> 6] |= 1L << low;
+        }
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int count) {
+        char[] values = new char[count];
+        int size = 0;
+        for (int word = 0; word < words.length; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                values[size++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Appends values in strictly ascending order, switching a chunk to a bitset once it outgrows the
+     * array limit.
+     */
+    public static final class Builder {
+
+        private char[] keys = new char[4];
+        private Object[] containers = new Object[4];
+        private int size;
+        private int cardinality;
+        private char[] values = new char[16];
+        private long[] words;
+        private int valueCount;
+        private int last = -1;
+
+        public Builder add(int value) {
+            if (value <= last) {
+                throw new IllegalArgumentException("Values must be added in ascending order");
+            }
+            char key = (char) (value >>> 16);
+            if (last < 0 || key != (char) (last >>> 16)) {
+                flush();
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    containers = Arrays.copyOf(containers, size * 2);
+                }
+                keys[size] = key;
+            }
+            last = value;
+
+            char low = (char) value;
+            if (words != null) {
+                words[low >>> 6] |= 1L << low;
+            } else if (valueCount == ARRAY_LIMIT) {
+                words = toWords(Arrays.copyOf(values, valueCount));
+                words[low >>> 6] |= 1L << low;
+            } else {
+                if (valueCount == values.length) {
+                    values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_LIMIT));
+                }
+                values[valueCount] = low;
+            }
+            valueCount++;
+            return this;
+        }
+
+        private void flush() {
+            if (valueCount == 0) {
+                return;
+            }
+            containers[size++] = words != null ? words : Arrays.copyOf(values, valueCount);
+            cardinality += valueCount;
+            words = null;
+            values = new char[16];
+            valueCount = 0;
+        }
+
+        public CompressedBitmap build() {
+            flush();
+            return new CompressedBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), cardinality);
+        }
+    }
+}
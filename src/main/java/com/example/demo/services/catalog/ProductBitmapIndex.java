@@ -0,0 +1,169 @@
+package com.example.demo.services.catalog;
+
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bitmaps of snapshot row ordinals per category, per seller and per price bucket. Each set is built
+ * in a single ascending pass over the rows, so every bitmap is appended to in order. A snapshot derived
+ * from another one derives its index as well, replacing only the bitmaps whose rows changed.
+ */
+final class ProductBitmapIndex {
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final PriceBucket[] PRICE_BUCKETS = PriceBucket.values();
+
+    private final CompressedBitmap[] byCategory;
+    private final CompressedBitmap[] bySeller;
+    private final CompressedBitmap[] byPriceBucket;
+
+    ProductBitmapIndex(int size, short[] categories, int[] sellerIndexes, int sellerCount, long[] priceCents) {
+        CompressedBitmap.Builder[] categoryBuilders = builders(CATEGORIES.length);
+        CompressedBitmap.Builder[] sellerBuilders = builders(sellerCount);
+        CompressedBitmap.Builder[] priceBucketBuilders = builders(PRICE_BUCKETS.length);
+
+        for (int row = 0; row < size; row++) {
+            categoryBuilders[categories[row]].add(row);
+            sellerBuilders[sellerIndexes[row]].add(row);
+            priceBucketBuilders[PriceBucket.ofCents(priceCents[row]).ordinal()].add(row);
+        }
+
+        byCategory = build(categoryBuilders);
+        bySeller = build(sellerBuilders);
+        byPriceBucket = build(priceBucketBuilders);
+    }
+
+    private ProductBitmapIndex(CompressedBitmap[] byCategory, CompressedBitmap[] bySeller,
+                               CompressedBitmap[] byPriceBucket) {
+        this.byCategory = byCategory;
+        this.bySeller = bySeller;
+        this.byPriceBucket = byPriceBucket;
+    }
+
+    CompressedBitmap category(ProductCategory category) {
+        return byCategory[category.ordinal()];
+    }
+
+    CompressedBitmap seller(int sellerIndex) {
+        return bySeller[sellerIndex];
+    }
+
+    CompressedBitmap priceBucket(PriceBucket priceBucket) {
+        return byPriceBucket[priceBucket.ordinal()];
+    }
+
+    Update update() {
+        return new Update();
+    }
+
+    private static CompressedBitmap.Builder[] builders(int count) {
+        CompressedBitmap.Builder[] builders = new CompressedBitmap.Builder[count];
+        for (int i = 0; i < count; i++) {
+            builders[i] = new CompressedBitmap.Builder();
+        }
+        return builders;
+    }
+
+    private static CompressedBitmap[] build(CompressedBitmap.Builder[] builders) {
+        CompressedBitmap[] bitmaps = new CompressedBitmap[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            bitmaps[i] = builders[i].build();
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Derives the index of the next snapshot from the rows it removes from a bitmap and adds to another.
+     * Rows keep their ordinals, so only the touched bitmaps are rewritten, and each of them only in the
+     * chunks holding those rows.
+     */
+    final class Update {
+
+        private final Map<Integer, Changes> categoryChanges = new HashMap<>();
+        private final Map<Integer, Changes> sellerChanges = new HashMap<>();
+        private final Map<Integer, Changes> priceBucketChanges = new HashMap<>();
+
+        private Update() {
+        }
+
+        void add(int row, short category, int sellerIndex, long priceCents) {
+            changes(categoryChanges, category).added.add(row);
+            changes(sellerChanges, sellerIndex).added.add(row);
+            changes(priceBucketChanges, PriceBucket.ofCents(priceCents).ordinal()).added.add(row);
+        }
+
+        /**
+         * Moves an existing row between the bitmaps of its old and new values, skipping the ones that
+         * did not change.
+         */
+        void move(int row, short oldCategory, int oldSellerIndex, long oldPriceCents, short category,
+                  int sellerIndex, long priceCents) {
+            if (oldCategory != category) {
+                changes(categoryChanges, oldCategory).removed.add(row);
+                changes(categoryChanges, category).added.add(row);
+            }
+            if (oldSellerIndex != sellerIndex) {
+                changes(sellerChanges, oldSellerIndex).removed.add(row);
+                changes(sellerChanges, sellerIndex).added.add(row);
+            }
+            int oldPriceBucket = PriceBucket.ofCents(oldPriceCents).ordinal();
+            int priceBucket = PriceBucket.ofCents(priceCents).ordinal();
+            if (oldPriceBucket != priceBucket) {
+                changes(priceBucketChanges, oldPriceBucket).removed.add(row);
+                changes(priceBucketChanges, priceBucket).added.add(row);
+            }
+        }
+
+        ProductBitmapIndex apply(int sellerCount) {
+            CompressedBitmap[] nextBySeller = Arrays.copyOf(bySeller, sellerCount);
+            Arrays.fill(nextBySeller, bySeller.length, sellerCount, CompressedBitmap.EMPTY);
+            return new ProductBitmapIndex(apply(byCategory.clone(), categoryChanges),
+                    apply(nextBySeller, sellerChanges), apply(byPriceBucket.clone(), priceBucketChanges));
+        }
+
+        private static CompressedBitmap[] apply(CompressedBitmap[] bitmaps, Map<Integer, Changes> changes) {
+            changes.forEach((index, bitmapChanges) -> {
+                CompressedBitmap bitmap = bitmaps[index];
+                if (bitmapChanges.removed.size > 0) {
+                    bitmap = bitmap.andNot(bitmapChanges.removed.toBitmap());
+                }
+                if (bitmapChanges.added.size > 0) {
+                    bitmap = bitmap.or(bitmapChanges.added.toBitmap());
+                }
+                bitmaps[index] = bitmap;
+            });
+            return bitmaps;
+        }
+
+        private static Changes changes(Map<Integer, Changes> changes, int index) {
+            return changes.computeIfAbsent(index, key -> new Changes());
+        }
+    }
+
+    private static final class Changes {
+        private final Rows removed = new Rows();
+        private final Rows added = new Rows();
+    }
+
+    private static final class Rows {
+        private int[] rows = new int[4];
+        private int size;
+
+        private void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        private CompressedBitmap toBitmap() {
+            int[] sorted = Arrays.copyOf(rows, size);
+            Arrays.sort(sorted);
+            return CompressedBitmap.of(sorted);
+        }
+    }
+}
@@ -0,0 +1,969 @@
+package com.example.demo.services.catalog;
+
+import com.example.demo.dtos.CategoryStatisticsDTO;
+import com.example.demo.dtos.PriceBucketFacetDTO;
+import com.example.demo.dtos.ProductFacetsDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+import org.springframework.data.domain.*;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable, column oriented copy of the catalog; categories are held as ordinals. Rows are ordered the way
+ * PostgreSQL orders them, by the sort property and then by id as unsigned bytes, so cursors stay valid when
+ * a query falls back to the repository.
+ */
+public final class ProductCatalogSnapshot {
+
+    public static final Set<String> SORTABLE_PROPERTIES = Set.of("price", "averageRating", "ratingCount");
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+
+    private static final int INSERTION_SORT_THRESHOLD = 7;
+
+    private final UUID[] ids;
+    private final long[] priceCents;
+    private final short[] categories;
+    private final int[] sellerIndexes;
+    private final String[] names;
+    private final String[] descriptions;
+    private final long[] ratingCounts;
+    private final long[] ratingSums;
+    private final double[] averageRatings;
+    private final int size;
+    private final UUID[] sellerIds;
+    private final String[] sellerNames;
+    private final int sellerCount;
+    // shared with the snapshots appended to the same columns, so entries past size or sellerCount are ignored
+    private final Map<UUID, Integer> indexById;
+    private final Map<UUID, Integer> sellerIndexById;
+    private final Tail tail;
+    private final Map<String, int[]> sortOrders = new ConcurrentHashMap<>();
+    private volatile ProductBitmapIndex bitmapIndex;
+    private volatile CategoryStatistics categoryStatistics;
+
+    private ProductCatalogSnapshot(UUID[] ids, long[] priceCents, short[] categories, int[] sellerIndexes,
+                                   String[] names, String[] descriptions, long[] ratingCounts,
+                                   long[] ratingSums, double[] averageRatings, int size, UUID[] sellerIds,
+                                   String[] sellerNames, int sellerCount, Map<UUID, Integer> indexById,
+                                   Map<UUID, Integer> sellerIndexById, Tail tail) {
+        this.ids = ids;
+        this.priceCents = priceCents;
+        this.categories = categories;
+        this.sellerIndexes = sellerIndexes;
+        this.names = names;
+        this.descriptions = descriptions;
+        this.ratingCounts = ratingCounts;
+        this.ratingSums = ratingSums;
+        this.averageRatings = averageRatings;
+        this.size = size;
+        this.sellerIds = sellerIds;
+        this.sellerNames = sellerNames;
+        this.sellerCount = sellerCount;
+        this.indexById = indexById;
+        this.sellerIndexById = sellerIndexById;
+        this.tail = tail;
+    }
+
+    public static boolean supportsSort(String property) {
+        return SORTABLE_PROPERTIES.contains(property);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    UUID idAt(int row) {
+        return ids[row];
+    }
+
+    String nameAt(int row) {
+        return names[row];
+    }
+
+    long ratingCountAt(int row) {
+        return ratingCounts[row];
+    }
+
+    public Mutation mutate() {
+        return new Mutation();
+    }
+
+    public List<ProductSummaryDTO> scroll(ProductFilterDTO filter, String property, Sort.Direction direction,
+                                          KeysetScrollPosition position, int limit) {
+        IntPredicate matcher = matcher(filter);
+        int[] order = sortOrder(property, direction);
+        int start = position.isInitial()
+                ? 0
+                : firstAfter(order, property, direction, position.getKeys().get(property),
+                (UUID) position.getKeys().get("id"));
+
+        List<ProductSummaryDTO> result = new ArrayList<>(Math.min(limit, 64));
+        for (int i = start; i < order.length && result.size() < limit; i++) {
+            if (matcher.test(order[i])) {
+                result.add(toSummary(order[i]));
+            }
+        }
+        return result;
+    }
+
+    public Slice<ProductSummaryDTO> findSlice(ProductFilterDTO filter, Pageable pageable) {
+        List<ProductSummaryDTO> content = new ArrayList<>(pageable.getPageSize());
+        boolean hasNext = walk(filter, pageable, content, true) > pageable.getOffset() + pageable.getPageSize();
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    public Page<ProductSummaryDTO> findPage(ProductFilterDTO filter, Pageable pageable) {
+        List<ProductSummaryDTO> content = new ArrayList<>(pageable.getPageSize());
+        long total = walk(filter, pageable, content, false);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // each facet is counted under the other selections only, so sibling options keep meaningful counts
+    public ProductFacetsDTO facets(Set<ProductCategory> selectedCategories, UUID sellerId,
+                                   Set<PriceBucket> selectedPriceBuckets) {
+        ProductBitmapIndex index = bitmapIndex();
+        CompressedBitmap seller = null;
+        if (sellerId != null) {
+            Integer sellerIndex = sellerIndexOf(sellerId);
+            seller = sellerIndex == null ? CompressedBitmap.EMPTY : index.seller(sellerIndex);
+        }
+        CompressedBitmap categoryUnion = union(selectedCategories, index::category);
+        CompressedBitmap priceBucketUnion = union(selectedPriceBuckets, index::priceBucket);
+
+        long[] categoryTotals = new long[CATEGORIES.length];
+        CompressedBitmap categoryBase = intersect(seller, priceBucketUnion);
+        if (categoryBase == null) {
+            for (ProductCategory category : CATEGORIES) {
+                categoryTotals[category.ordinal()] = index.category(category).cardinality();
+            }
+        } else {
+            categoryBase.forEach(row -> categoryTotals[categories[row]]++);
+        }
+        Map<ProductCategory, Long> categoryCounts = new EnumMap<>(ProductCategory.class);
+        for (ProductCategory category : CATEGORIES) {
+            if (categoryTotals[category.ordinal()] > 0) {
+                categoryCounts.put(category, categoryTotals[category.ordinal()]);
+            }
+        }
+
+        PriceBucket[] priceBuckets = PriceBucket.values();
+        long[] priceBucketTotals = new long[priceBuckets.length];
+        CompressedBitmap priceBucketBase = intersect(seller, categoryUnion);
+        if (priceBucketBase == null) {
+            for (PriceBucket priceBucket : priceBuckets) {
+                priceBucketTotals[priceBucket.ordinal()] = index.priceBucket(priceBucket).cardinality();
+            }
+        } else {
+            priceBucketBase.forEach(row -> priceBucketTotals[PriceBucket.ofCents(priceCents[row]).ordinal()]++);
+        }
+        List<PriceBucketFacetDTO> priceBucketCounts = new ArrayList<>();
+        for (PriceBucket priceBucket : priceBuckets) {
+            priceBucketCounts.add(PriceBucketFacetDTO.builder()
+                    .bucket(priceBucket)
+                    .minPrice(priceBucket.getMinPrice())
+                    .maxPrice(priceBucket.getMaxPrice())
+                    .count(priceBucketTotals[priceBucket.ordinal()])
+                    .build());
+        }
+
+        CompressedBitmap matches = intersect(intersect(seller, categoryUnion), priceBucketUnion);
+        return ProductFacetsDTO.builder()
+                .total(matches == null ? size : matches.cardinality())
+                .categories(categoryCounts)
+                .priceBuckets(priceBucketCounts)
+                .build();
+    }
+
+    public List<CategoryStatisticsDTO> categoryStatistics() {
+        CategoryStatistics statistics = categoryStatistics;
+        if (statistics == null) {
+            synchronized (this) {
+                statistics = categoryStatistics;
+                if (statistics == null) {
+                    statistics = CategoryStatistics.compute(categories, priceCents, size);
+                    categoryStatistics = statistics;
+                }
+            }
+        }
+        return statistics.toDTOs();
+    }
+
+    private ProductBitmapIndex bitmapIndex() {
+        ProductBitmapIndex index = bitmapIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = bitmapIndex;
+                if (index == null) {
+                    index = new ProductBitmapIndex(size, categories, sellerIndexes, sellerCount, priceCents);
+                    bitmapIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    // a null bitmap stands for "every row", which keeps unselected facets from costing an intersection
+    private static <T> CompressedBitmap union(Set<T> selected, Function<T, CompressedBitmap> bitmap) {
+        if (selected == null || selected.isEmpty()) {
+            return null;
+        }
+        CompressedBitmap result = CompressedBitmap.EMPTY;
+        for (T value : selected) {
+            result = result.or(bitmap.apply(value));
+        }
+        return result;
+    }
+
+    private static CompressedBitmap intersect(CompressedBitmap a, CompressedBitmap b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null ? a : a.and(b);
+    }
+
+    // returns the matching row count, or at most one past the page when stopAfterPage is set
+    private long walk(ProductFilterDTO filter, Pageable pageable, List<ProductSummaryDTO> content,
+                      boolean stopAfterPage) {
+        Sort.Order sortOrder = pageable.getSort().iterator().next();
+        IntPredicate matcher = matcher(filter);
+        long offset = pageable.getOffset();
+        long end = offset + pageable.getPageSize();
+
+        long matched = 0;
+        for (int row : sortOrder(sortOrder.getProperty(), sortOrder.getDirection())) {
+            if (!matcher.test(row)) {
+                continue;
+            }
+            if (matched >= offset && matched < end) {
+                content.add(toSummary(row));
+            }
+            matched++;
+            if (stopAfterPage && matched > end) {
+                break;
+            }
+        }
+        return matched;
+    }
+
+    private IntPredicate matcher(ProductFilterDTO filter) {
+        boolean[] categoryMask = null;
+        if (filter.getCategories() != null && !filter.getCategories().isEmpty()) {
+            categoryMask = new boolean[CATEGORIES.length];
+            for (ProductCategory category : filter.getCategories()) {
+                categoryMask[category.ordinal()] = true;
+            }
+        }
+
+        int sellerIndex = -1;
+        if (filter.getSellerId() != null) {
+            Integer index = sellerIndexOf(filter.getSellerId());
+            if (index == null) {
+                return row -> false;
+            }
+            sellerIndex = index;
+        }
+
+        long minCents = filter.getMinPrice() == null
+                ? Long.MIN_VALUE
+                : filter.getMinPrice().movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+        long maxCents = filter.getMaxPrice() == null
+                ? Long.MAX_VALUE
+                : filter.getMaxPrice().movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact();
+        double minRating = filter.getMinRating() == null ? Double.NEGATIVE_INFINITY : filter.getMinRating();
+
+        boolean[] categories = categoryMask;
+        int seller = sellerIndex;
+        return row -> (categories == null || categories[this.categories[row]])
+                && (seller < 0 || sellerIndexes[row] == seller)
+                && priceCents[row] >= minCents
+                && priceCents[row] <= maxCents
+                && averageRatings[row] >= minRating;
+    }
+
+    Integer rowOf(UUID id) {
+        Integer row = indexById.get(id);
+        return row != null && row < size ? row : null;
+    }
+
+    private Integer sellerIndexOf(UUID sellerId) {
+        Integer sellerIndex = sellerIndexById.get(sellerId);
+        return sellerIndex != null && sellerIndex < sellerCount ? sellerIndex : null;
+    }
+
+    private int[] sortOrder(String property, Sort.Direction direction) {
+        if (!supportsSort(property)) {
+            throw new IllegalArgumentException("Catalog snapshot cannot sort by " + property);
+        }
+        return sortOrders.computeIfAbsent(sortKey(property, direction), key -> {
+            int[] rows = new int[size];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = i;
+            }
+            sortRows(rows, rowComparator(property, direction));
+            return rows;
+        });
+    }
+
+    private static String sortKey(String property, Sort.Direction direction) {
+        return property + ':' + direction;
+    }
+
+    // moved rows are looked up under the previous snapshot's values, since that is how they were sorted
+    private void repairSortOrder(String key, int[] previousOrder, ProductCatalogSnapshot previous, int[] movedRows) {
+        int separator = key.indexOf(':');
+        String property = key.substring(0, separator);
+        Sort.Direction direction = Sort.Direction.valueOf(key.substring(separator + 1));
+        RowComparator previousComparator = previous.rowComparator(property, direction);
+        RowComparator comparator = rowComparator(property, direction);
+
+        int[] removed = new int[movedRows.length];
+        int removedCount = 0;
+        for (int row : movedRows) {
+            if (row < previous.size) {
+                removed[removedCount++] = lowerBound(previousOrder, row, previousComparator);
+            }
+        }
+        Arrays.sort(removed, 0, removedCount);
+        int[] kept = new int[previousOrder.length - removedCount];
+        int from = 0;
+        int written = 0;
+        for (int i = 0; i < removedCount; i++) {
+            System.arraycopy(previousOrder, from, kept, written, removed[i] - from);
+            written += removed[i] - from;
+            from = removed[i] + 1;
+        }
+        System.arraycopy(previousOrder, from, kept, written, previousOrder.length - from);
+
+        int[] inserted = movedRows.clone();
+        sortRows(inserted, comparator);
+        int[] order = new int[size];
+        from = 0;
+        written = 0;
+        for (int row : inserted) {
+            int position = lowerBound(kept, row, comparator);
+            System.arraycopy(kept, from, order, written, position - from);
+            written += position - from;
+            from = position;
+            order[written++] = row;
+        }
+        System.arraycopy(kept, from, order, written, kept.length - from);
+        sortOrders.put(key, order);
+    }
+
+    private static int lowerBound(int[] order, int row, RowComparator comparator) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(order[middle], row) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private RowComparator rowComparator(String property, Sort.Direction direction) {
+        RowComparator values = switch (property) {
+            case "price" -> (a, b) -> Long.compare(priceCents[a], priceCents[b]);
+            case "averageRating" -> (a, b) -> Double.compare(averageRatings[a], averageRatings[b]);
+            default -> (a, b) -> Long.compare(ratingCounts[a], ratingCounts[b]);
+        };
+        boolean descending = direction.isDescending();
+        return (a, b) -> {
+            int result = values.compare(a, b);
+            if (descending) {
+                result = -result;
+            }
+            return result != 0 ? result : compareIds(ids[a], ids[b]);
+        };
+    }
+
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    private static void sortRows(int[] rows, RowComparator comparator) {
+        if (rows.length > 1) {
+            mergeSort(rows.clone(), rows, 0, rows.length, comparator);
+        }
+    }
+
+    private static void mergeSort(int[] source, int[] destination, int from, int to, RowComparator comparator) {
+        if (to - from < INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = destination[i];
+                int j = i;
+                while (j > from && comparator.compare(destination[j - 1], row) > 0) {
+                    destination[j] = destination[j - 1];
+                    j--;
+                }
+                destination[j] = row;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(destination, source, from, middle, comparator);
+        mergeSort(destination, source, middle, to, comparator);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right == to || (left < middle && comparator.compare(source[left], source[right]) <= 0)) {
+                destination[i] = source[left++];
+            } else {
+                destination[i] = source[right++];
+            }
+        }
+    }
+
+    private int compareToKey(String property, int row, Object key) {
+        return switch (property) {
+            case "price" -> BigDecimal.valueOf(priceCents[row], 2).compareTo((BigDecimal) key);
+            case "averageRating" -> Double.compare(averageRatings[row], ((Number) key).doubleValue());
+            default -> Long.compare(ratingCounts[row], ((Number) key).longValue());
+        };
+    }
+
+    private int firstAfter(int[] order, String property, Sort.Direction direction, Object key, UUID id) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int result = compareToKey(property, order[middle], key);
+            if (direction.isDescending()) {
+                result = -result;
+            }
+            if (result == 0) {
+                result = compareIds(ids[order[middle]], id);
+            }
+            if (result > 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int compareIds(UUID a, UUID b) {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0
+                ? result
+                : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private ProductSummaryDTO toSummary(int row) {
+        return ProductSummaryDTO.builder()
+                .id(ids[row])
+                .name(names[row])
+                .description(descriptions[row])
+                .price(BigDecimal.valueOf(priceCents[row], 2))
+                .category(CATEGORIES[categories[row]])
+                .sellerId(sellerIds[sellerIndexes[row]])
+                .sellerName(sellerNames[sellerIndexes[row]])
+                .averageRating(averageRatings[row])
+                .ratingCount(ratingCounts[row])
+                .build();
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+    }
+
+    private static long ratingSum(ProductSummaryDTO product) {
+        return Math.round(product.getAverageRating() * product.getRatingCount());
+    }
+
+    private static int grownCapacity(int capacity, int required) {
+        return Math.max(required, capacity + (capacity >> 1) + 16);
+    }
+
+    public final class Mutation {
+
+        private final Map<UUID, ProductSummaryDTO> puts = new LinkedHashMap<>();
+        private final Set<UUID> removals = new HashSet<>();
+        private final Map<UUID, long[]> ratingDeltas = new HashMap<>();
+
+        private Mutation() {
+        }
+
+        public void put(ProductSummaryDTO product) {
+            removals.remove(product.getId());
+            // the summary already carries the ratings it was read with
+            ratingDeltas.remove(product.getId());
+            puts.put(product.getId(), product);
+        }
+
+        public void remove(UUID id) {
+            puts.remove(id);
+            ratingDeltas.remove(id);
+            if (rowOf(id) != null) {
+                removals.add(id);
+            }
+        }
+
+        public void retainAll(Set<UUID> existingIds) {
+            for (int row = 0; row < size; row++) {
+                UUID id = ids[row];
+                if (!existingIds.contains(id) && !puts.containsKey(id)) {
+                    remove(id);
+                }
+            }
+        }
+
+        public void addRating(UUID id, long countDelta, long sumDelta) {
+            if (removals.contains(id)) {
+                return;
+            }
+            long[] delta = ratingDeltas.computeIfAbsent(id, key -> new long[2]);
+            delta[0] += countDelta;
+            delta[1] += sumDelta;
+        }
+
+        public ProductCatalogSnapshot publish() {
+            ProductCatalogSnapshot next = ProductCatalogSnapshot.this;
+            if (!removals.isEmpty()) {
+                next = rebuild();
+            } else if (!puts.isEmpty()) {
+                next = putRows();
+            }
+            return ratingDeltas.isEmpty() ? next : next.withRatingDeltas(ratingDeltas);
+        }
+
+        private ProductCatalogSnapshot rebuild() {
+            CategoryStatistics.Update statistics = categoryStatistics == null ? null : categoryStatistics.update();
+            Builder builder = new Builder(size + puts.size());
+            for (int row = 0; row < size; row++) {
+                UUID id = ids[row];
+                if (removals.contains(id)) {
+                    if (statistics != null) {
+                        statistics.remove(categories[row], priceCents[row]);
+                    }
+                    continue;
+                }
+                ProductSummaryDTO product = puts.get(id);
+                if (product != null) {
+                    builder.add(product);
+                    if (statistics != null) {
+                        statistics.remove(categories[row], priceCents[row]);
+                        statistics.add((short) product.getCategory().ordinal(), toCents(product.getPrice()));
+                    }
+                } else {
+                    builder.add(id, priceCents[row], categories[row], sellerIds[sellerIndexes[row]],
+                            sellerNames[sellerIndexes[row]], names[row], descriptions[row],
+                            ratingCounts[row], ratingSums[row], averageRatings[row]);
+                }
+            }
+            for (ProductSummaryDTO product : puts.values()) {
+                if (rowOf(product.getId()) == null) {
+                    builder.add(product);
+                    if (statistics != null) {
+                        statistics.add((short) product.getCategory().ordinal(), toCents(product.getPrice()));
+                    }
+                }
+            }
+            ProductCatalogSnapshot next = builder.build();
+            if (statistics != null) {
+                next.categoryStatistics = statistics.apply(next.categories, next.priceCents, next.size);
+            }
+            if (bitmapIndex != null) {
+                // removals renumber every row behind them, so the bitmaps are rebuilt along with the columns
+                next.bitmapIndex = new ProductBitmapIndex(next.size, next.categories, next.sellerIndexes,
+                        next.sellerCount, next.priceCents);
+            }
+            return next;
+        }
+
+        private ProductCatalogSnapshot putRows() {
+            int addedCount = 0;
+            int[] updatedRows = new int[puts.size()];
+            int updatedCount = 0;
+            boolean priceChanged = false;
+            boolean categoryChanged = false;
+            boolean sellerChanged = false;
+            boolean textChanged = false;
+            boolean ratingChanged = false;
+            Map<UUID, String> newSellers = new LinkedHashMap<>();
+            for (ProductSummaryDTO product : puts.values()) {
+                Integer row = rowOf(product.getId());
+                if (row == null) {
+                    addedCount++;
+                } else {
+                    updatedRows[updatedCount++] = row;
+                    priceChanged |= priceCents[row] != toCents(product.getPrice());
+                    categoryChanged |= categories[row] != product.getCategory().ordinal();
+                    sellerChanged |= !sellerIds[sellerIndexes[row]].equals(product.getSellerId());
+                    textChanged |= !Objects.equals(names[row], product.getName())
+                            || !Objects.equals(descriptions[row], product.getDescription());
+                    ratingChanged |= ratingCounts[row] != product.getRatingCount()
+                            || ratingSums[row] != ratingSum(product)
+                            || averageRatings[row] != product.getAverageRating();
+                }
+                if (sellerIndexOf(product.getSellerId()) == null) {
+                    newSellers.putIfAbsent(product.getSellerId(), product.getSellerName());
+                }
+            }
+            updatedRows = Arrays.copyOf(updatedRows, updatedCount);
+
+            int nextSize = size + addedCount;
+            int nextSellerCount = sellerCount + newSellers.size();
+            boolean copy = (nextSize > size || nextSellerCount > sellerCount)
+                    && (nextSize > ids.length || nextSellerCount > sellerIds.length
+                    || !tail.claim(size, sellerCount, nextSize, nextSellerCount));
+
+            int capacity = copy ? grownCapacity(ids.length, nextSize) : ids.length;
+            int sellerCapacity = copy ? grownCapacity(sellerIds.length, nextSellerCount) : sellerIds.length;
+            UUID[] nextIds = copy ? Arrays.copyOf(ids, capacity) : ids;
+            long[] nextPriceCents = copy
+                    ? Arrays.copyOf(priceCents, capacity)
+                    : priceChanged ? priceCents.clone() : priceCents;
+            short[] nextCategories = copy
+                    ? Arrays.copyOf(categories, capacity)
+                    : categoryChanged ? categories.clone() : categories;
+            int[] nextSellerIndexes = copy
+                    ? Arrays.copyOf(sellerIndexes, capacity)
+                    : sellerChanged ? sellerIndexes.clone() : sellerIndexes;
+            String[] nextNames = copy ? Arrays.copyOf(names, capacity) : textChanged ? names.clone() : names;
+            String[] nextDescriptions = copy
+                    ? Arrays.copyOf(descriptions, capacity)
+                    : textChanged ? descriptions.clone() : descriptions;
+            long[] nextRatingCounts = copy
+                    ? Arrays.copyOf(ratingCounts, capacity)
+                    : ratingChanged ? ratingCounts.clone() : ratingCounts;
+            long[] nextRatingSums = copy
+                    ? Arrays.copyOf(ratingSums, capacity)
+                    : ratingChanged ? ratingSums.clone() : ratingSums;
+            double[] nextAverageRatings = copy
+                    ? Arrays.copyOf(averageRatings, capacity)
+                    : ratingChanged ? averageRatings.clone() : averageRatings;
+            UUID[] nextSellerIds = copy ? Arrays.copyOf(sellerIds, sellerCapacity) : sellerIds;
+            String[] nextSellerNames = copy ? Arrays.copyOf(sellerNames, sellerCapacity) : sellerNames;
+            Map<UUID, Integer> nextIndexById = indexById;
+            Map<UUID, Integer> nextSellerIndexById = sellerIndexById;
+            Tail nextTail = tail;
+            if (copy) {
+                nextIndexById = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+                for (int row = 0; row < size; row++) {
+                    nextIndexById.put(ids[row], row);
+                }
+                nextSellerIndexById = new ConcurrentHashMap<>(sellerCapacity * 4 / 3 + 1);
+                for (int seller = 0; seller < sellerCount; seller++) {
+                    nextSellerIndexById.put(sellerIds[seller], seller);
+                }
+                nextTail = new Tail(nextSize, nextSellerCount);
+            }
+
+            int sellerIndex = sellerCount;
+            for (Map.Entry<UUID, String> seller : newSellers.entrySet()) {
+                nextSellerIds[sellerIndex] = seller.getKey();
+                nextSellerNames[sellerIndex] = seller.getValue();
+                nextSellerIndexById.put(seller.getKey(), sellerIndex++);
+            }
+
+            CategoryStatistics.Update statistics = categoryStatistics == null ? null : categoryStatistics.update();
+            ProductBitmapIndex.Update bitmaps = bitmapIndex == null ? null : bitmapIndex.update();
+            if (statistics != null) {
+                for (int row : updatedRows) {
+                    statistics.remove(categories[row], priceCents[row]);
+                }
+            }
+            int[] movedRows = Arrays.copyOf(updatedRows, updatedCount + addedCount);
+            int appendedRow = size;
+            for (ProductSummaryDTO product : puts.values()) {
+                Integer existingRow = rowOf(product.getId());
+                boolean appended = existingRow == null;
+                int row = appended ? appendedRow++ : existingRow;
+                if (appended) {
+                    nextIds[row] = product.getId();
+                    nextIndexById.put(product.getId(), row);
+                    movedRows[updatedCount + row - size] = row;
+                }
+                // shared columns already hold the row's values and stay untouched for the snapshots reading them
+                if (appended || priceChanged) {
+                    nextPriceCents[row] = toCents(product.getPrice());
+                }
+                if (appended || categoryChanged) {
+                    nextCategories[row] = (short) product.getCategory().ordinal();
+                }
+                if (appended || sellerChanged) {
+                    nextSellerIndexes[row] = nextSellerIndexById.get(product.getSellerId());
+                }
+                if (appended || textChanged) {
+                    nextNames[row] = product.getName();
+                    nextDescriptions[row] = product.getDescription();
+                }
+                if (appended || ratingChanged) {
+                    nextRatingCounts[row] = product.getRatingCount();
+                    nextRatingSums[row] = ratingSum(product);
+                    nextAverageRatings[row] = product.getAverageRating();
+                }
+                if (statistics != null) {
+                    statistics.add(nextCategories[row], nextPriceCents[row]);
+                }
+                if (bitmaps != null && appended) {
+                    bitmaps.add(row, nextCategories[row], nextSellerIndexes[row], nextPriceCents[row]);
+                } else if (bitmaps != null) {
+                    bitmaps.move(row, categories[row], sellerIndexes[row], priceCents[row], nextCategories[row],
+                            nextSellerIndexes[row], nextPriceCents[row]);
+                }
+            }
+
+            ProductCatalogSnapshot next = new ProductCatalogSnapshot(nextIds, nextPriceCents, nextCategories,
+                    nextSellerIndexes, nextNames, nextDescriptions, nextRatingCounts, nextRatingSums,
+                    nextAverageRatings, nextSize, nextSellerIds, nextSellerNames, nextSellerCount, nextIndexById,
+                    nextSellerIndexById, nextTail);
+            if (statistics != null) {
+                next.categoryStatistics = statistics.apply(nextCategories, nextPriceCents, nextSize);
+            }
+            if (bitmaps != null) {
+                next.bitmapIndex = bitmaps.apply(nextSellerCount);
+            }
+            boolean keysChanged = addedCount > 0;
+            boolean priceKeysChanged = keysChanged || priceChanged;
+            boolean ratingKeysChanged = keysChanged || ratingChanged;
+            sortOrders.forEach((key, order) -> {
+                if (key.startsWith("price:") ? priceKeysChanged : ratingKeysChanged) {
+                    next.repairSortOrder(key, order, ProductCatalogSnapshot.this, movedRows);
+                } else {
+                    next.sortOrders.put(key, order);
+                }
+            });
+            return next;
+        }
+    }
+
+    private ProductCatalogSnapshot withRatingDeltas(Map<UUID, long[]> deltas) {
+        long[] newRatingCounts = ratingCounts.clone();
+        long[] newRatingSums = ratingSums.clone();
+        double[] newAverageRatings = averageRatings.clone();
+
+        int[] movedRows = new int[deltas.size()];
+        int movedCount = 0;
+        for (Map.Entry<UUID, long[]> entry : deltas.entrySet()) {
+            Integer row = rowOf(entry.getKey());
+            if (row == null) {
+                continue;
+            }
+            long[] delta = entry.getValue();
+            movedRows[movedCount++] = row;
+            newRatingCounts[row] += delta[0];
+            newRatingSums[row] += delta[1];
+            // same expression as ProductRepository.applyRatingDelta
+            newAverageRatings[row] = newRatingCounts[row] == 0
+                    ? 0.0
+                    : newRatingSums[row] * 1.0 / newRatingCounts[row];
+        }
+
+        ProductCatalogSnapshot next = new ProductCatalogSnapshot(ids, priceCents, categories, sellerIndexes,
+                names, descriptions, newRatingCounts, newRatingSums, newAverageRatings, size, sellerIds,
+                sellerNames, sellerCount, indexById, sellerIndexById, tail);
+        next.bitmapIndex = bitmapIndex;
+        next.categoryStatistics = categoryStatistics;
+        int[] changedRows = Arrays.copyOf(movedRows, movedCount);
+        sortOrders.forEach((key, order) -> {
+            if (key.startsWith("price:")) {
+                next.sortOrders.put(key, order);
+            } else {
+                next.repairSortOrder(key, order, this, changedRows);
+            }
+        });
+        return next;
+    }
+
+    // category names go first so a file stays readable after constants are added or reordered
+    void writeColumns(DataOutput out) throws IOException {
+        out.writeInt(CATEGORIES.length);
+        for (ProductCategory category : CATEGORIES) {
+            writeString(out, category.name());
+        }
+        out.writeInt(sellerCount);
+        for (int seller = 0; seller < sellerCount; seller++) {
+            writeUuid(out, sellerIds[seller]);
+            writeString(out, sellerNames[seller]);
+        }
+        out.writeInt(size);
+        for (int row = 0; row < size; row++) {
+            writeUuid(out, ids[row]);
+            out.writeLong(priceCents[row]);
+            out.writeShort(categories[row]);
+            out.writeInt(sellerIndexes[row]);
+            writeString(out, names[row]);
+            writeString(out, descriptions[row]);
+            out.writeLong(ratingCounts[row]);
+            out.writeLong(ratingSums[row]);
+            out.writeDouble(averageRatings[row]);
+        }
+    }
+
+    static ProductCatalogSnapshot readColumns(ByteBuffer in) {
+        short[] categoryCodes = new short[in.getInt()];
+        for (int code = 0; code < categoryCodes.length; code++) {
+            categoryCodes[code] = (short) ProductCategory.valueOf(readString(in)).ordinal();
+        }
+        UUID[] sellerIds = new UUID[in.getInt()];
+        String[] sellerNames = new String[sellerIds.length];
+        for (int seller = 0; seller < sellerIds.length; seller++) {
+            sellerIds[seller] = readUuid(in);
+            sellerNames[seller] = readString(in);
+        }
+        int size = in.getInt();
+        Builder builder = new Builder(size);
+        for (int row = 0; row < size; row++) {
+            UUID id = readUuid(in);
+            long priceCents = in.getLong();
+            short category = categoryCodes[in.getShort()];
+            int seller = in.getInt();
+            builder.add(id, priceCents, category, sellerIds[seller], sellerNames[seller], readString(in),
+                    readString(in), in.getLong(), in.getLong(), in.getDouble());
+        }
+        return builder.build();
+    }
+
+    private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    // length prefixed UTF-8, since DataOutput.writeUTF is limited to 64KB
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static final class Builder {
+
+        private UUID[] ids;
+        private long[] priceCents;
+        private short[] categories;
+        private int[] sellerIndexes;
+        private String[] names;
+        private String[] descriptions;
+        private long[] ratingCounts;
+        private long[] ratingSums;
+        private double[] averageRatings;
+        private final List<UUID> sellerIds = new ArrayList<>();
+        private final List<String> sellerNames = new ArrayList<>();
+        private final Map<UUID, Integer> indexById;
+        private final Map<UUID, Integer> sellerIndexById = new ConcurrentHashMap<>();
+        private int size;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            ids = new UUID[capacity];
+            priceCents = new long[capacity];
+            categories = new short[capacity];
+            sellerIndexes = new int[capacity];
+            names = new String[capacity];
+            descriptions = new String[capacity];
+            ratingCounts = new long[capacity];
+            ratingSums = new long[capacity];
+            averageRatings = new double[capacity];
+            indexById = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        }
+
+        public Builder add(ProductSummaryDTO product) {
+            return add(product.getId(), toCents(product.getPrice()), (short) product.getCategory().ordinal(),
+                    product.getSellerId(), product.getSellerName(), product.getName(), product.getDescription(),
+                    product.getRatingCount(), ratingSum(product), product.getAverageRating());
+        }
+
+        private Builder add(UUID id, long priceCents, short category, UUID sellerId, String sellerName,
+                            String name, String description, long ratingCount, long ratingSum,
+                            double averageRating) {
+            if (indexById.containsKey(id)) {
+                throw new IllegalArgumentException("Duplicate product " + id);
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            Integer sellerIndex = sellerIndexById.get(sellerId);
+            if (sellerIndex == null) {
+                sellerIndex = sellerIds.size();
+                sellerIds.add(sellerId);
+                sellerNames.add(sellerName);
+                sellerIndexById.put(sellerId, sellerIndex);
+            }
+
+            ids[size] = id;
+            this.priceCents[size] = priceCents;
+            categories[size] = category;
+            sellerIndexes[size] = sellerIndex;
+            names[size] = name;
+            descriptions[size] = description;
+            ratingCounts[size] = ratingCount;
+            ratingSums[size] = ratingSum;
+            averageRatings[size] = averageRating;
+            indexById.put(id, size);
+            size++;
+            return this;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            sellerIndexes = Arrays.copyOf(sellerIndexes, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            ratingCounts = Arrays.copyOf(ratingCounts, capacity);
+            ratingSums = Arrays.copyOf(ratingSums, capacity);
+            averageRatings = Arrays.copyOf(averageRatings, capacity);
+        }
+
+        public ProductCatalogSnapshot build() {
+            return new ProductCatalogSnapshot(Arrays.copyOf(ids, size), Arrays.copyOf(priceCents, size),
+                    Arrays.copyOf(categories, size), Arrays.copyOf(sellerIndexes, size),
+                    Arrays.copyOf(names, size), Arrays.copyOf(descriptions, size),
+                    Arrays.copyOf(ratingCounts, size), Arrays.copyOf(ratingSums, size),
+                    Arrays.copyOf(averageRatings, size), size, sellerIds.toArray(UUID[]::new),
+                    sellerNames.toArray(String[]::new), sellerIds.size(), indexById, sellerIndexById,
+                    new Tail(size, sellerIds.size()));
+        }
+    }
+
+    // end of the rows written to a set of shared columns; only the snapshot ending there may append to them
+    private static final class Tail {
+
+        private int rows;
+        private int sellers;
+
+        private Tail(int rows, int sellers) {
+            this.rows = rows;
+            this.sellers = sellers;
+        }
+
+        private synchronized boolean claim(int rows, int sellers, int nextRows, int nextSellers) {
+            if (this.rows != rows || this.sellers != sellers) {
+                return false;
+            }
+            this.rows = nextRows;
+            this.sellers = nextSellers;
+            return true;
+        }
+    }
+}
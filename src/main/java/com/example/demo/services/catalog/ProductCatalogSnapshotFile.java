@@ -0,0 +1,108 @@
+package com.example.demo.services.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Local copy of a {@link ProductCatalogSnapshot}, so a restarting node can publish the catalog it had
+ * before shutting down instead of reading every product again. The file holds a header with the format
+ * version and the high-water mark the snapshot is current up to, the snapshot columns, and a trailing
+ * CRC32. It is replaced atomically, so readers never see a half written file.
+ */
+public class ProductCatalogSnapshotFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogSnapshotFile.class);
+
+    private static final int MAGIC = 0x50435346; // "PCSF"
+    static final int FORMAT_VERSION = 1;
+    // magic, version, high-water mark
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    private static final int CHECKSUM_BYTES = 8;
+
+    private final Path path;
+
+    public ProductCatalogSnapshotFile(Path path) {
+        this.path = path;
+    }
+
+    public record Contents(ProductCatalogSnapshot snapshot, Instant highWaterMark) {
+    }
+
+    public void write(ProductCatalogSnapshot snapshot, Instant highWaterMark) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                CRC32 checksum = new CRC32();
+                DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), checksum));
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(highWaterMark.toEpochMilli());
+                snapshot.writeColumns(out);
+                // the checksum itself is not part of what it covers
+                out.flush();
+                ByteBuffer trailer = ByteBuffer.allocate(CHECKSUM_BYTES).putLong(0, checksum.getValue());
+                channel.write(trailer);
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps the file and decodes it into a new snapshot. Returns null when the file is missing, was
+     * written by another format version, or fails its checksum, in which case the catalog must be
+     * read from the database.
+     */
+    public Contents read() throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES || size > Integer.MAX_VALUE) {
+                logger.warn("Ignoring catalog snapshot file {} of {} bytes", path, size);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyEnd = (int) size - CHECKSUM_BYTES;
+
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.duplicate().limit(bodyEnd));
+            if (checksum.getValue() != buffer.getLong(bodyEnd)) {
+                logger.warn("Ignoring catalog snapshot file {} with a bad checksum", path);
+                return null;
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                logger.warn("Ignoring catalog snapshot file {} written in another format", path);
+                return null;
+            }
+            Instant highWaterMark = Instant.ofEpochMilli(buffer.getLong());
+            ProductCatalogSnapshot snapshot = ProductCatalogSnapshot.readColumns(buffer.limit(bodyEnd));
+            return new Contents(snapshot, highWaterMark);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            logger.warn("Ignoring unreadable catalog snapshot file {}", path, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.demo.services.catalog;
+
+import com.example.demo.dtos.ProductSuggestionDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable name index built from a catalog snapshot. Normalized names are kept in one sorted array, so the
+ * names starting with a prefix form a contiguous range, and a max tree over the rating counts of that order
+ * picks the most rated names of any range without scanning it.
+ */
+public final class ProductSuggestionIndex {
+
+    public static final ProductSuggestionIndex EMPTY = new ProductSuggestionIndex(new String[0], new int[0],
+            new UUID[0], new String[0], new long[0]);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String[] keys;
+    // rows of the snapshot the index was built from, which only move when products are removed
+    private final int[] rows;
+    private final UUID[] ids;
+    private final String[] names;
+    private final long[] ratingCounts;
+    // leaves at size + position hold their position; every parent holds the better of its two children
+    private final int[] tree;
+
+    private ProductSuggestionIndex(String[] keys, int[] rows, UUID[] ids, String[] names, long[] ratingCounts) {
+        this.keys = keys;
+        this.rows = rows;
+        this.ids = ids;
+        this.names = names;
+        this.ratingCounts = ratingCounts;
+        int size = keys.length;
+        this.tree = new int[2 * size];
+        for (int position = 0; position < size; position++) {
+            tree[size + position] = position;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    public static ProductSuggestionIndex of(ProductCatalogSnapshot snapshot) {
+        return EMPTY.update(snapshot);
+    }
+
+    /**
+     * Builds the index of a newer snapshot. Products whose name did not change keep their place and key,
+     * so only new and renamed products are normalized and sorted before both runs are merged.
+     */
+    public ProductSuggestionIndex update(ProductCatalogSnapshot snapshot) {
+        int size = snapshot.size();
+        boolean[] kept = new boolean[size];
+        int[] keptRows = new int[size];
+        String[] keptKeys = new String[size];
+        int keptCount = 0;
+        for (int position = 0; position < keys.length; position++) {
+            int row = rows[position];
+            if (row >= size || snapshot.idAt(row) != ids[position]) {
+                Integer moved = snapshot.rowOf(ids[position]);
+                if (moved == null) {
+                    continue;
+                }
+                row = moved;
+            }
+            if (names[position].equals(snapshot.nameAt(row))) {
+                kept[row] = true;
+                keptRows[keptCount] = row;
+                keptKeys[keptCount++] = keys[position];
+            }
+        }
+        Entry[] changed = new Entry[size - keptCount];
+        int changedCount = 0;
+        for (int row = 0; row < size; row++) {
+            if (!kept[row]) {
+                changed[changedCount++] = new Entry(normalize(snapshot.nameAt(row)), row);
+            }
+        }
+        Arrays.sort(changed, (a, b) -> compare(snapshot, a.key(), a.row(), b.key(), b.row()));
+
+        String[] mergedKeys = new String[size];
+        int[] mergedRows = new int[size];
+        int position = 0;
+        int keptIndex = 0;
+        for (int changedIndex = 0; changedIndex < changedCount; changedIndex++) {
+            Entry entry = changed[changedIndex];
+            int insertAt = keptIndex;
+            int high = keptCount;
+            while (insertAt < high) {
+                int middle = (insertAt + high) >>> 1;
+                if (compare(snapshot, keptKeys[middle], keptRows[middle], entry.key(), entry.row()) < 0) {
+                    insertAt = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            System.arraycopy(keptKeys, keptIndex, mergedKeys, position, insertAt - keptIndex);
+            System.arraycopy(keptRows, keptIndex, mergedRows, position, insertAt - keptIndex);
+            position += insertAt - keptIndex;
+            keptIndex = insertAt;
+            mergedKeys[position] = entry.key();
+            mergedRows[position++] = entry.row();
+        }
+        System.arraycopy(keptKeys, keptIndex, mergedKeys, position, keptCount - keptIndex);
+        System.arraycopy(keptRows, keptIndex, mergedRows, position, keptCount - keptIndex);
+
+        UUID[] mergedIds = new UUID[size];
+        String[] mergedNames = new String[size];
+        long[] mergedRatingCounts = new long[size];
+        for (position = 0; position < size; position++) {
+            mergedIds[position] = snapshot.idAt(mergedRows[position]);
+            mergedNames[position] = snapshot.nameAt(mergedRows[position]);
+            mergedRatingCounts[position] = snapshot.ratingCountAt(mergedRows[position]);
+        }
+        return new ProductSuggestionIndex(mergedKeys, mergedRows, mergedIds, mergedNames, mergedRatingCounts);
+    }
+
+    /**
+     * Returns up to {@code limit} products whose normalized name starts with the normalized prefix, most
+     * rated first and in name order among equals.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        List<ProductSuggestionDTO> result = new ArrayList<>();
+        if (normalizedPrefix.isEmpty() || limit <= 0) {
+            return result;
+        }
+        int from = firstAtOrAfter(normalizedPrefix);
+        int to = firstWithoutPrefix(normalizedPrefix, from);
+
+        // each range is represented by its best position, and taking it splits the range around it
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[0] == better(a[0], b[0]) ? -1 : 1);
+        offer(ranges, from, to);
+        while (result.size() < limit && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int best = range[0];
+            result.add(new ProductSuggestionDTO(ids[best], names[best]));
+            offer(ranges, range[1], best);
+            offer(ranges, best + 1, range[2]);
+        }
+        return result;
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (isAscii(value)) {
+            // nothing to decompose, and a name is usually left with single spaces once trimmed
+            String lowerCase = value.toLowerCase(Locale.ROOT).trim();
+            return hasOnlySingleSpaces(lowerCase) ? lowerCase : WHITESPACE.matcher(lowerCase).replaceAll(" ");
+        }
+        String withoutDiacritics = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(withoutDiacritics.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    private static int compare(ProductCatalogSnapshot snapshot, String keyA, int rowA, String keyB, int rowB) {
+        int result = keyA.compareTo(keyB);
+        return result != 0 ? result : snapshot.idAt(rowA).compareTo(snapshot.idAt(rowB));
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasOnlySingleSpaces(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ' ' ? i > 0 && value.charAt(i - 1) == ' ' : c <= ' ' && Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void offer(PriorityQueue<int[]> ranges, int from, int to) {
+        if (from < to) {
+            ranges.add(new int[]{best(from, to), from, to});
+        }
+    }
+
+    private int best(int from, int to) {
+        int result = -1;
+        for (int low = from + keys.length, high = to + keys.length; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                result = better(result, tree[low++]);
+            }
+            if ((high & 1) == 1) {
+                result = better(result, tree[--high]);
+            }
+        }
+        return result;
+    }
+
+    private int better(int a, int b) {
+        if (a < 0 || b < 0) {
+            return Math.max(a, b);
+        }
+        if (ratingCounts[a] != ratingCounts[b]) {
+            return ratingCounts[a] > ratingCounts[b] ? a : b;
+        }
+        return Math.min(a, b);
+    }
+
+    private int firstAtOrAfter(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // names with the prefix sort right at or after it, so they end where the first one without it is
+    private int firstWithoutPrefix(String prefix, int from) {
+        int low = from;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private record Entry(String key, int row) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.services.exceptions;
+
+public class BatchSizeExceededException extends RuntimeException {
+    public BatchSizeExceededException(int maxSize) {
+        super("Batch size exceeded: A batch request accepts at most " + maxSize + " ids");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.services.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException() {
+        super("Invalid cursor: The cursor is malformed or was not issued for the requested sort");
+    }
+}
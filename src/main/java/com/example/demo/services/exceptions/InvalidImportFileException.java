@@ -0,0 +1,7 @@
+package com.example.demo.services.exceptions;
+
+public class InvalidImportFileException extends RuntimeException {
+    public InvalidImportFileException(String message) {
+        super("Invalid import file: " + message);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.services.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 records one at a time from a character stream, so arbitrarily large inputs
+ * are parsed without being buffered. Quoted fields may contain commas, doubled quotes and line breaks.
+ * Fields and records are capped in length: the characters of a record over a cap are skipped rather
+ * than buffered, and the record is then reported with a {@link RecordTooLongException}.
+ */
+public class CsvRecordReader {
+
+    private final Reader reader;
+    private final int maxFieldLength;
+    private final int maxRecordLength;
+    private int next = -2;
+
+    public CsvRecordReader(Reader reader, int maxFieldLength, int maxRecordLength) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        this.maxFieldLength = maxFieldLength;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Returns the fields of the next record, or null once the input is exhausted.
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int fieldLength = 0;
+        int recordLength = 0;
+        boolean quoted = false;
+        String overflow = null;
+        while (true) {
+            if (c != -1 && ++recordLength > maxRecordLength && overflow == null) {
+                overflow = "Record longer than " + maxRecordLength + " characters";
+            }
+            int append = -1;
+            if (quoted) {
+                if (c == -1) {
+                    throw new MalformedRecordException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        append = '"';
+                        read();
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append = c;
+                }
+            } else if (c == '"' && fieldLength == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldLength = 0;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (overflow != null) {
+                    throw new RecordTooLongException(overflow);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                append = c;
+            }
+
+            if (append != -1) {
+                if (++fieldLength > maxFieldLength && overflow == null) {
+                    overflow = "Field longer than " + maxFieldLength + " characters";
+                }
+                if (overflow == null) {
+                    field.append((char) append);
+                }
+            }
+            if (overflow != null) {
+                // the rest of the record is only scanned for its end, never buffered
+                fields.clear();
+                field.setLength(0);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (next != -2) {
+            int c = next;
+            next = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = reader.read();
+        }
+        return next;
+    }
+
+    public static class MalformedRecordException extends IOException {
+        public MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown once the whole over-long record has been skipped, so reading can go on with the next one.
+     */
+    public static class RecordTooLongException extends MalformedRecordException {
+        public RecordTooLongException(String message) {
+            super(message);
+        }
+    }
+}
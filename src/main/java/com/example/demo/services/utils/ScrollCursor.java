@@ -0,0 +1,69 @@
+package com.example.demo.services.utils;
+
+import com.example.demo.services.exceptions.InvalidCursorException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes keyset scroll positions as opaque, URL-safe cursors and decodes them back,
+ * converting every key to the type of the matching entity property or to an explicit key type.
+ */
+public class ScrollCursor {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+    private static final TypeReference<LinkedHashMap<String, String>> keysType = new TypeReference<>() {
+    };
+
+    public static String encode(ScrollPosition position) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        ((KeysetScrollPosition) position).getKeys()
+                .forEach((key, value) -> keys.put(key, String.valueOf(value)));
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(keys));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode scroll position", e);
+        }
+    }
+
+    public static KeysetScrollPosition decode(String cursor, Class<?> entityType, Sort sort, String idProperty) {
+        Map<String, Class<?>> keyTypes = new LinkedHashMap<>();
+        sort.forEach(order -> keyTypes.put(order.getProperty(),
+                BeanUtils.findPropertyType(order.getProperty(), entityType)));
+        keyTypes.put(idProperty, BeanUtils.findPropertyType(idProperty, entityType));
+        return decode(cursor, keyTypes);
+    }
+
+    public static KeysetScrollPosition decode(String cursor, Map<String, Class<?>> keyTypes) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        try {
+            Map<String, String> keys = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), keysType);
+            if (!keyTypes.keySet().equals(keys.keySet())) {
+                throw new InvalidCursorException();
+            }
+
+            Map<String, Object> typedKeys = new LinkedHashMap<>();
+            keys.forEach((key, value) -> typedKeys.put(key, conversionService.convert(value, keyTypes.get(key))));
+            return ScrollPosition.forward(typedKeys);
+        } catch (IllegalArgumentException | IOException | ConversionException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
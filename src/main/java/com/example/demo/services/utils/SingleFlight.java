@@ -0,0 +1,71 @@
+package com.example.demo.services.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the loader and every caller that
+ * arrives while it is still running waits for and shares its result, or its exception. Nothing is kept
+ * once the load completes, so this only deduplicates reads that overlap in time and never serves stale
+ * data; caching stays the job of the cache in front of it.
+ * <p>
+ * Shared results are handed to several request threads, so they must be immutable or fully loaded
+ * entities that are not modified afterwards.
+ * <p>
+ * Loads are counted under {@value #LOADS_COUNTER}, tagged with the name and an outcome of either
+ * {@code executed} or {@code coalesced}.
+ */
+public class SingleFlight<K, V> {
+
+    public static final String LOADS_COUNTER = "singleflight.loads";
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.executed = meterRegistry.counter(LOADS_COUNTER, "name", name, "outcome", "executed");
+        this.coalesced = meterRegistry.counter(LOADS_COUNTER, "name", name, "outcome", "coalesced");
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        try {
+            V result = loader.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -3,7 +3,8 @@ package com.example.demo;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// the periodic catalog refresh would otherwise apply mocked repository rows in the middle of a test
+@SpringBootTest(properties = "catalog.snapshot.refresh-interval=P1D")
 @AutoConfigureMockMvc
 public class ApplicationConfigTest {
 }
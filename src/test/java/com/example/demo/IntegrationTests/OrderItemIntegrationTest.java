@@ -1,6 +1,8 @@
 package com.example.demo.IntegrationTests;
 
 import com.example.demo.controller.ApplicationConfigTestController;
+import com.example.demo.dtos.CartOperationDTO;
+import com.example.demo.dtos.CartUpdateDTO;
 import com.example.demo.dtos.OrderItemDTO;
 import com.example.demo.entities.Order;
 import com.example.demo.entities.OrderItem;
@@ -8,6 +10,7 @@ import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Admin;
 import com.example.demo.entities.user.Customer;
 import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.CartOperationType;
 import com.example.demo.repositories.OrderItemRepository;
 import com.example.demo.repositories.OrderRepository;
 import com.example.demo.repositories.ProductRepository;
@@ -23,7 +26,9 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
@@ -122,6 +127,23 @@ class OrderItemIntegrationTest extends ApplicationConfigTestController {
         assertEquals(1, orderItemRepository.findAll().size());
     }
 
+    @Test
+    void givenOperationsAndCustomer_whenUpdateCart_thenReturnCartWithTotals() throws Exception {
+        insertProduct();
+        CartUpdateDTO cartUpdateDTO = new CartUpdateDTO(List.of(
+                new CartOperationDTO(CartOperationType.ADD, product.getId(), 2),
+                new CartOperationDTO(CartOperationType.ADD, product.getId(), 1)));
+
+        mockMvc.perform(mockPatchRequest("cart", cartUpdateDTO).with(user(setupCustomer())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemCount").value(3))
+                .andExpect(jsonPath("$.items[0].quantity").value(3))
+                .andExpect(jsonPath("$.totalAmount")
+                        .value(product.getPrice().multiply(BigDecimal.valueOf(3)).doubleValue()));
+
+        assertEquals(1, orderItemRepository.findAll().size());
+    }
+
     @Test
     void givenOrderItemAndAdmin_whenFindAll_thenReturnOrderItems() throws Exception {
         insertOrderItem();
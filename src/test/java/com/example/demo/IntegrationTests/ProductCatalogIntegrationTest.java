@@ -0,0 +1,153 @@
+package com.example.demo.IntegrationTests;
+
+import com.example.demo.controller.ApplicationConfigTestController;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.repositories.ProductBulkRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.ProductCatalogService;
+import com.example.demo.utils.TestDataBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static com.example.demo.repositories.specifications.ProductSpecifications.fetchSeller;
+import static com.example.demo.repositories.specifications.ProductSpecifications.matches;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Times the keyset scroll of the product listing against PostgreSQL and against the catalog snapshot over
+ * the same rows, the SQL side of ProductCatalogSnapshotBenchmark. The row count defaults to 100k and can be
+ * raised with -Dcatalog.rows=1000000.
+ */
+@Testcontainers
+class ProductCatalogIntegrationTest extends ApplicationConfigTestController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogIntegrationTest.class);
+
+    private static final String PATH = "/products";
+    private static final int ROWS = Integer.getInteger("catalog.rows", 100_000);
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 100;
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+
+    @Container
+    static PostgreSQLContainer postgreSQLContainer = new PostgreSQLContainer("postgres:latest");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+    @Autowired
+    private ProductCatalogService productCatalogService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public ProductCatalogIntegrationTest() {
+        super(PATH);
+    }
+
+    @BeforeEach
+    void setUp() {
+        Seller seller = userRepository.save((Seller) TestDataBuilder.buildUserNoId());
+        Random random = new Random(42);
+        List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int row = 0; row < ROWS; row++) {
+            chunk.add(Product.builder()
+                    .id(UUID.randomUUID())
+                    .name("Product " + row)
+                    .description("Description of product " + row)
+                    .price(BigDecimal.valueOf(1 + random.nextInt(200_000), 2))
+                    .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .seller(seller)
+                    .build());
+            if (chunk.size() == CHUNK_SIZE || row == ROWS - 1) {
+                List<Product> products = chunk;
+                transactionTemplate.executeWithoutResult(status -> productBulkRepository.insertAll(products));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        jdbcTemplate.execute("ANALYZE products");
+        productCatalogService.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM products");
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void givenCatalogRows_whenScrollByCategoryAndPrice_thenSnapshotMatchesDatabase() {
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .categories(Set.of(ProductCategory.BOOKS, ProductCategory.TOYS))
+                .minPrice(new BigDecimal("10.00"))
+                .maxPrice(new BigDecimal("100.00"))
+                .build();
+
+        List<UUID> database = time("database", () -> productRepository.findBy(fetchSeller().and(matches(filter)),
+                        query -> query
+                                .sortBy(Sort.by(Sort.Direction.ASC, "price", "id"))
+                                .limit(PAGE_SIZE)
+                                .scroll(ScrollPosition.keyset()))
+                .map(Product::getId)
+                .getContent());
+        List<UUID> snapshot = time("snapshot", () -> productCatalogService.current()
+                .scroll(filter, "price", Sort.Direction.ASC, ScrollPosition.keyset(), PAGE_SIZE).stream()
+                .map(ProductSummaryDTO::getId)
+                .toList());
+
+        assertEquals(database, snapshot);
+    }
+
+    private <T> T time(String source, Supplier<T> query) {
+        T result = null;
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            result = query.get();
+        }
+        long start = System.nanoTime();
+        for (int run = 0; run < MEASURED_RUNS; run++) {
+            result = query.get();
+        }
+        logger.info("Scroll from the {} over {} products took {} us/op", source, ROWS,
+                (System.nanoTime() - start) / 1000 / MEASURED_RUNS);
+        return result;
+    }
+}
@@ -2,25 +2,46 @@ package com.example.demo.IntegrationTests;
 
 import com.example.demo.controller.ApplicationConfigTestController;
 import com.example.demo.dtos.ProductDTO;
+import com.example.demo.dtos.ProductFilterDTO;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductCategory;
 import com.example.demo.repositories.ProductRepository;
 import com.example.demo.repositories.UserRepository;
+import com.example.demo.utils.CapturingStatementInspector;
 import com.example.demo.utils.TestDataBuilder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.example.demo.repositories.specifications.ProductSpecifications.fetchSeller;
+import static com.example.demo.repositories.specifications.ProductSpecifications.matches;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Testcontainers
@@ -36,12 +57,18 @@ class ProductIntegrationTest extends ApplicationConfigTestController {
         registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
         registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
         registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                CapturingStatementInspector.class::getName);
     }
 
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     public ProductIntegrationTest() {
         super(PATH);
@@ -80,6 +107,25 @@ class ProductIntegrationTest extends ApplicationConfigTestController {
         assertEquals(1, productRepository.findAll().size());
     }
 
+    @Test
+    void givenNdjsonAndSeller_whenImportProducts_thenCopyValidRowsAndReportInvalidOnes() throws Exception {
+        Seller seller = setupSeller();
+        String body = objectMapper.writeValueAsString(productDTO) + "\n"
+                + "{\"name\":\"x\"}\n"
+                + objectMapper.writeValueAsString(productDTO) + "\n";
+
+        mockMvc.perform(mockPostRequest("import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body)
+                        .with(user(seller)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(2))
+                .andExpect(jsonPath("$.rejectedRows").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2));
+
+        assertEquals(2, productRepository.count());
+    }
+
     @Test
     void givenProductsAndNoUser_whenFindAll_thenReturnProductPage() throws Exception {
         insertProduct();
@@ -112,6 +158,56 @@ class ProductIntegrationTest extends ApplicationConfigTestController {
                 .andExpect(jsonPath("$.name").value(product.getName()));
     }
 
+    @Test
+    void givenProductsAndNoUser_whenExportAsCsv_thenStreamHeaderAndOneRowPerProduct() throws Exception {
+        insertProduct();
+
+        MvcResult result = mockMvc.perform(mockGetRequestWithParams("export", "format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith(product.getId() + ","));
+    }
+
+    @Test
+    void givenProductAndNoUser_whenFindAllByIds_thenReturnProductsAndMissingIds() throws Exception {
+        insertProduct();
+        UUID missingId = UUID.randomUUID();
+
+        mockMvc.perform(mockGetRequestWithParams("batch", "ids", missingId + "," + product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(1)))
+                .andExpect(jsonPath("$.products[0].id").value(product.getId().toString()))
+                .andExpect(jsonPath("$.missingIds[0]").value(missingId.toString()));
+    }
+
+    @Test
+    void givenETagFromPreviousResponse_whenFindById_thenReturnNotModifiedUntilProductChanges() throws Exception {
+        insertProduct();
+
+        String eTag = mockMvc.perform(mockGetRequest(product.getId().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(mockGetRequest(product.getId().toString()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        productDTO.setName("random");
+        mockMvc.perform(mockPatchRequest(product.getId().toString(), productDTO).with(user(setupSeller())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(mockGetRequest(product.getId().toString()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("random"));
+    }
+
     @Test
     void givenProductAndSeller_whenFindByCurrentUser_thenReturnProductPage() throws Exception {
         insertProduct();
@@ -132,6 +228,156 @@ class ProductIntegrationTest extends ApplicationConfigTestController {
                 .andExpect(jsonPath("$.content", hasSize(1)));
     }
 
+    @Test
+    void givenMatchingProduct_whenSearch_thenReturnRankedCursorPage() throws Exception {
+        insertProduct();
+
+        mockMvc.perform(mockGetRequestWithParams("search", "query", "sample"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id").value(product.getId().toString()))
+                .andExpect(jsonPath("$.content[0].sellerId").value(seller.getId().toString()))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void givenOtherCategory_whenSearch_thenReturnEmptyCursorPage() throws Exception {
+        insertProduct();
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams("search", "query", "sample")
+                .param("productCategory", ProductCategory.BOOKS.toString());
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+    }
+
+    @Test
+    void givenMoreMatchesThanPageSize_whenSearchWithNextCursor_thenReturnRemainingProducts() throws Exception {
+        insertProduct();
+        Product second = TestDataBuilder.buildProductNoId(seller);
+        second.setName("Second sample");
+        Product third = TestDataBuilder.buildProductNoId(seller);
+        third.setName("Third sample");
+        productRepository.saveAll(List.of(second, third));
+
+        String firstPage = mockMvc.perform(mockGetRequestWithParams("search", "query", "sample")
+                        .param("pageSize", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(mockGetRequestWithParams("search", "query", "sample")
+                        .param("pageSize", "2")
+                        .param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void givenProductsAndNoUser_whenFilter_thenReturnMatchingCursorPage() throws Exception {
+        insertProduct();
+        Product book = TestDataBuilder.buildProductNoId(seller);
+        book.setCategory(ProductCategory.BOOKS);
+        book.setPrice(new BigDecimal("30"));
+        productRepository.save(book);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams("filter", "minPrice", "10")
+                .param("productCategory", ProductCategory.BOOKS.toString())
+                .param("sellerId", seller.getId().toString());
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id").value(book.getId().toString()));
+    }
+
+    @Test
+    void givenCategoryAndPriceFilter_whenExplain_thenUseCategoryPriceIndex() {
+        String plan = explainGenerated(ProductFilterDTO.builder()
+                .categories(Set.of(ProductCategory.BOOKS, ProductCategory.TOYS))
+                .minPrice(new BigDecimal("10"))
+                .maxPrice(new BigDecimal("50"))
+                .build(), Sort.by("price"));
+
+        assertTrue(plan.contains("idx_products_category_price"), plan);
+    }
+
+    @Test
+    void givenCategoryFilter_whenExplain_thenUseCategoryPriceIndex() {
+        String plan = explainGenerated(ProductFilterDTO.builder()
+                .categories(Set.of(ProductCategory.BOOKS))
+                .build(), Sort.by("price"));
+
+        assertTrue(plan.contains("idx_products_category_price"), plan);
+    }
+
+    @Test
+    void givenSellerFilterSortedByName_whenExplain_thenUseSellerNameIndex() {
+        String plan = explainGenerated(ProductFilterDTO.builder()
+                .sellerId(UUID.randomUUID())
+                .build(), Sort.by("name"));
+
+        assertTrue(plan.contains("idx_products_seller_id_name"), plan);
+    }
+
+    @Test
+    void givenPriceRangeFilter_whenExplain_thenUsePriceIndex() {
+        String plan = explainGenerated(ProductFilterDTO.builder()
+                .minPrice(new BigDecimal("10"))
+                .maxPrice(new BigDecimal("50"))
+                .build(), Sort.by("price"));
+
+        assertTrue(plan.contains("idx_products_price"), plan);
+    }
+
+    @Test
+    void givenMinRatingFilter_whenExplain_thenUseAverageRatingIndex() {
+        String plan = explainGenerated(ProductFilterDTO.builder()
+                .minRating(4.0)
+                .build(), Sort.by(Sort.Direction.DESC, "averageRating"));
+
+        assertTrue(plan.contains("idx_products_average_rating"), plan);
+    }
+
+    // runs the first page of the filter the way ProductService.scrollByFilter does and explains the
+    // statement Hibernate generated for it; its parameters are numbered so PostgreSQL can plan it
+    // without values
+    private String explainGenerated(ProductFilterDTO filter, Sort sort) {
+        CapturingStatementInspector.clear();
+        productRepository.findBy(fetchSeller().and(matches(filter)), query -> query
+                .sortBy(sort)
+                .limit(5)
+                .scroll(ScrollPosition.keyset()));
+        String sql = CapturingStatementInspector.statements().stream()
+                .filter(statement -> statement.startsWith("select") && statement.contains(" from products "))
+                .findFirst()
+                .orElseThrow();
+
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return explain("(GENERIC_PLAN) " + numbered);
+    }
+
+    // the test table is tiny, so sequential scans are disabled to make the planner reveal
+    // which index it would pick for the filter shape
+    private String explain(String sql) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+        });
+    }
+
     @Test
     void givenValidBodyAndSeller_whenUpdate_thenReturnUpdatedProduct() throws Exception {
         insertProduct();
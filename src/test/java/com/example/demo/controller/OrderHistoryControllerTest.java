@@ -10,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -101,6 +103,24 @@ class OrderHistoryControllerTest extends ApplicationConfigTestController {
                 .findByCurrentUser(0, 5, Sort.Direction.ASC, "paymentDate");
     }
 
+    @Test
+    @WithMockUser(authorities = "Customer")
+    void givenIncludeTotalFalse_whenFindByCurrentUser_thenReturnOrderHistorySlice() throws Exception {
+        Slice<OrderHistory> orderHistorySlice = mock(SliceImpl.class);
+
+        when(orderHistoryService.findSliceByCurrentUser(0, 5, Sort.Direction.ASC, "paymentDate"))
+                .thenReturn(orderHistorySlice);
+
+        mockMvc.perform(mockGetRequestWithParams("/user", "includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(orderHistorySlice)));
+
+        verify(orderHistoryService, times(1))
+                .findSliceByCurrentUser(0, 5, Sort.Direction.ASC, "paymentDate");
+        verify(orderHistoryService, never())
+                .findByCurrentUser(0, 5, Sort.Direction.ASC, "paymentDate");
+    }
+
     @Test
     void givenNoUser_whenFindByCurrentUser_thenReturnStatus403Forbidden() throws Exception {
         mockMvc.perform(mockGetRequest("user"))
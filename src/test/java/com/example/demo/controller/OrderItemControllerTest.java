@@ -1,8 +1,11 @@
 package com.example.demo.controller;
 
+import com.example.demo.dtos.CartOperationDTO;
+import com.example.demo.dtos.CartUpdateDTO;
 import com.example.demo.dtos.OrderItemDTO;
 import com.example.demo.entities.Order;
 import com.example.demo.entities.OrderItem;
+import com.example.demo.enums.CartOperationType;
 import com.example.demo.services.OrderItemService;
 import com.example.demo.services.exceptions.DatabaseException;
 import com.example.demo.services.exceptions.ResourceNotFoundException;
@@ -372,4 +375,44 @@ class OrderItemControllerTest extends ApplicationConfigTestController {
         verify(orderItemService, never()).delete(orderItem.getId());
     }
 
+    @Test
+    @WithMockUser(authorities = "Customer")
+    void givenOperations_whenUpdateCart_thenReturnCart() throws Exception {
+        List<CartOperationDTO> operations = List.of(
+                new CartOperationDTO(CartOperationType.ADD, orderItemDTO.getProductId(), 2));
+        when(orderItemService.applyCartOperations(operations)).thenReturn(order);
+
+        mockMvc.perform(mockPatchRequest("cart", new CartUpdateDTO(operations)))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(order)));
+
+        verify(orderItemService, times(1)).applyCartOperations(operations);
+    }
+
+    @Test
+    @WithMockUser(authorities = "Customer")
+    void givenInvalidOperation_whenUpdateCart_thenHandleMethodArgumentNotValidException() throws Exception {
+        CartUpdateDTO cartUpdateDTO = new CartUpdateDTO(
+                List.of(new CartOperationDTO(null, orderItemDTO.getProductId(), -1)));
+
+        mockMvc.perform(mockPatchRequest("cart", cartUpdateDTO))
+                .andExpect(status().isBadRequest())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof MethodArgumentNotValidException));
+
+        verify(orderItemService, never()).applyCartOperations(anyList());
+    }
+
+    @Test
+    void givenNoUser_whenUpdateCart_thenReturnStatus403Forbidden() throws Exception {
+        mockMvc.perform(mockPatchRequest("cart", new CartUpdateDTO(List.of())))
+                .andExpect(status().isForbidden())
+                .andExpect(result ->
+                        assertEquals("Access Denied",
+                                result.getResponse().getErrorMessage()));
+
+        verify(orderItemService, never()).applyCartOperations(anyList());
+    }
+
 }
\ No newline at end of file
@@ -1,11 +1,41 @@
 package com.example.demo.controller;
 
+import com.example.demo.dtos.CategoryRepriceDTO;
+import com.example.demo.dtos.CategoryStatisticsDTO;
+import com.example.demo.dtos.CursorPageDTO;
+import com.example.demo.dtos.EntityVersionDTO;
+import com.example.demo.dtos.ProductBatchDTO;
+import com.example.demo.dtos.ProductChangeFeedDTO;
 import com.example.demo.dtos.ProductDTO;
+import com.example.demo.dtos.ProductDetailDTO;
+import com.example.demo.dtos.ProductFacetsDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductImportReportDTO;
+import com.example.demo.dtos.ProductPriceDTO;
+import com.example.demo.dtos.ProductRepriceDTO;
+import com.example.demo.dtos.ProductRepriceReportDTO;
+import com.example.demo.dtos.ProductSuggestionDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.dtos.RatingSummaryDTO;
+import com.example.demo.dtos.SellerSummaryDTO;
 import com.example.demo.entities.Product;
+import com.example.demo.entities.ProductChange;
 import com.example.demo.entities.user.Seller;
 import com.example.demo.entities.user.User;
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductChangeType;
+import com.example.demo.enums.ProductFileFormat;
+import com.example.demo.services.ProductCatalogService;
+import com.example.demo.services.ProductChangeService;
+import com.example.demo.services.ProductDetailService;
+import com.example.demo.services.ProductExportService;
+import com.example.demo.services.ProductImportService;
 import com.example.demo.services.ProductService;
+import com.example.demo.services.ProductSuggestionService;
+import com.example.demo.services.exceptions.BatchSizeExceededException;
 import com.example.demo.services.exceptions.DatabaseException;
+import com.example.demo.services.exceptions.InvalidCursorException;
 import com.example.demo.services.exceptions.ResourceNotFoundException;
 import com.example.demo.services.exceptions.UnauthorizedAccessException;
 import com.example.demo.utils.TestDataBuilder;
@@ -13,21 +43,38 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class ProductControllerTest extends ApplicationConfigTestController {
@@ -41,11 +88,38 @@ class ProductControllerTest extends ApplicationConfigTestController {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductSuggestionService productSuggestionService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductExportService productExportService;
+
+    @MockBean
+    private ProductCatalogService productCatalogService;
+
+    @MockBean
+    private ProductChangeService productChangeService;
+
+    @MockBean
+    private ProductDetailService productDetailService;
+
     private User user = TestDataBuilder.buildUserWithId();
     private Product product = TestDataBuilder.buildProductWithId((Seller) user);
+    private EntityVersionDTO productVersion =
+            new EntityVersionDTO(3, Instant.parse("2023-08-01T10:00:00Z"));
     private ProductDTO productDTO = TestDataBuilder.buildProductDTO();
     private ProductDTO invalidProductDTO = mock(ProductDTO.class);
-    Page<Product> productPage = mock(PageImpl.class);
+    Page<ProductSummaryDTO> productPage = mock(PageImpl.class);
+    Slice<ProductSummaryDTO> productSlice = mock(SliceImpl.class);
+    CursorPageDTO<ProductSummaryDTO> productCursorPage = CursorPageDTO.<ProductSummaryDTO>builder()
+            .content(List.of(ProductSummaryDTO.from(product)))
+            .size(1)
+            .hasNext(true)
+            .nextCursor("cursor")
+            .build();
 
     @Test
     @WithMockUser(authorities = "Seller")
@@ -61,6 +135,155 @@ class ProductControllerTest extends ApplicationConfigTestController {
         verify(productService, times(1)).create(productDTO);
     }
 
+    @Test
+    @WithMockUser(authorities = "Seller")
+    void givenNdjsonBody_whenImportProducts_thenReturnImportReport() throws Exception {
+        ProductImportReportDTO report = ProductImportReportDTO.builder()
+                .processedRows(1)
+                .importedRows(1)
+                .errors(List.of())
+                .build();
+        when(productImportService.importProducts(any(Reader.class), eq(ProductFileFormat.NDJSON)))
+                .thenReturn(report);
+
+        MockHttpServletRequestBuilder mockRequest = mockPostRequest("import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(objectMapper.writeValueAsString(productDTO));
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(report)));
+
+        verify(productImportService, times(1))
+                .importProducts(any(Reader.class), eq(ProductFileFormat.NDJSON));
+    }
+
+    @Test
+    @WithMockUser(authorities = "Seller")
+    void givenCsvBody_whenImportProducts_thenImportAsCsv() throws Exception {
+        ProductImportReportDTO report = ProductImportReportDTO.builder().errors(List.of()).build();
+        when(productImportService.importProducts(any(Reader.class), eq(ProductFileFormat.CSV)))
+                .thenReturn(report);
+
+        MockHttpServletRequestBuilder mockRequest = mockPostRequest("import")
+                .contentType("text/csv")
+                .content("name,description,price,category\n");
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk());
+
+        verify(productImportService, times(1))
+                .importProducts(any(Reader.class), eq(ProductFileFormat.CSV));
+    }
+
+    @Test
+    @WithMockUser(authorities = "Seller")
+    void givenUnsupportedContentType_whenImportProducts_thenReturnUnsupportedMediaType() throws Exception {
+        mockMvc.perform(mockPostRequest("import").contentType(MediaType.APPLICATION_XML).content("<a/>"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(productImportService);
+    }
+
+    @Test
+    void givenNoUser_whenImportProducts_thenReturnStatus403Forbidden() throws Exception {
+        mockMvc.perform(mockPostRequest("import").contentType(MediaType.APPLICATION_NDJSON).content("{}"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(productImportService);
+    }
+
+    @Test
+    void givenSelections_whenFacets_thenReturnFacetCounts() throws Exception {
+        UUID sellerId = UUID.randomUUID();
+        ProductFacetsDTO facets = ProductFacetsDTO.builder()
+                .total(1)
+                .categories(Map.of(ProductCategory.BOOKS, 1L))
+                .priceBuckets(List.of())
+                .build();
+        when(productCatalogService.facets(Set.of(ProductCategory.BOOKS, ProductCategory.TOYS), sellerId,
+                Set.of(PriceBucket.UNDER_10))).thenReturn(facets);
+
+        mockMvc.perform(mockGetRequest("facets")
+                        .param("productCategory", "BOOKS", "TOYS")
+                        .param("sellerId", sellerId.toString())
+                        .param("priceBucket", "UNDER_10"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(facets)));
+    }
+
+    @Test
+    void givenCategoryStatistics_whenCategoryStatistics_thenReturnThem() throws Exception {
+        List<CategoryStatisticsDTO> statistics = List.of(new CategoryStatisticsDTO(ProductCategory.BOOKS, 2,
+                new BigDecimal("5.00"), new BigDecimal("12.50"), new BigDecimal("20.00")));
+        when(productCatalogService.categoryStatistics()).thenReturn(statistics);
+
+        mockMvc.perform(mockGetRequest("category/statistics"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(statistics)));
+    }
+
+    @Test
+    void givenUnknownPriceBucket_whenFacets_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(mockGetRequestWithParams("facets", "priceBucket", "CHEAP"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(productCatalogService);
+    }
+
+    @Test
+    void givenNoFormat_whenExport_thenStreamNdjsonAttachment() throws Exception {
+        StreamingResponseBody body = outputStream -> outputStream.write("{}\n".getBytes(StandardCharsets.UTF_8));
+        when(productExportService.export(null, null, ProductFileFormat.NDJSON)).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(mockGetRequest("export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products.ndjson\""))
+                .andExpect(content().string("{}\n"));
+
+        verify(productExportService, times(1)).export(null, null, ProductFileFormat.NDJSON);
+    }
+
+    @Test
+    void givenCsvFormatAndFilters_whenExport_thenStreamCsvAttachment() throws Exception {
+        UUID sellerId = UUID.randomUUID();
+        when(productExportService.export(ProductCategory.BOOKS, sellerId, ProductFileFormat.CSV))
+                .thenReturn(outputStream -> {
+                });
+
+        MvcResult result = mockMvc.perform(mockGetRequest("export")
+                        .param("productCategory", ProductCategory.BOOKS.name())
+                        .param("sellerId", sellerId.toString())
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products.csv\""));
+
+        verify(productExportService, times(1)).export(ProductCategory.BOOKS, sellerId, ProductFileFormat.CSV);
+    }
+
+    @Test
+    void givenNonExistingSeller_whenExport_thenReturnNotFound() throws Exception {
+        UUID sellerId = UUID.randomUUID();
+        when(productExportService.export(null, sellerId, ProductFileFormat.NDJSON))
+                .thenThrow(ResourceNotFoundException.class);
+
+        mockMvc.perform(mockGetRequestWithParams("export", "sellerId", sellerId.toString()))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(authorities = "Seller")
     void givenInvalidBody_whenCreate_thenHandleMethodArgumentNotValidException() throws Exception {
@@ -104,7 +327,7 @@ class ProductControllerTest extends ApplicationConfigTestController {
 
     @Test
     void givenProductsAndNoUser_whenFindAll_thenReturnProductPage() throws Exception {
-        Page<Product> productPage = mock(PageImpl.class);
+        Page<ProductSummaryDTO> productPage = mock(PageImpl.class);
 
         when(productService.findAll(0, 5, Sort.Direction.ASC, "name"))
                 .thenReturn(productPage);
@@ -117,6 +340,88 @@ class ProductControllerTest extends ApplicationConfigTestController {
                 .findAll(0, 5, Sort.Direction.ASC, "name");
     }
 
+    @Test
+    void givenIncludeTotalFalse_whenFindAll_thenReturnProductSlice() throws Exception {
+        when(productService.findSliceAll(0, 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productSlice);
+
+        mockMvc.perform(mockGetRequest().param("includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productSlice)));
+
+        verify(productService, times(1))
+                .findSliceAll(0, 5, Sort.Direction.ASC, "name");
+        verify(productService, never()).findAll(0, 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenPrefixAndNoUser_whenSuggest_thenReturnSuggestions() throws Exception {
+        List<ProductSuggestionDTO> suggestions =
+                List.of(new ProductSuggestionDTO(product.getId(), product.getName()));
+        when(productSuggestionService.suggest("sam", 10)).thenReturn(suggestions);
+
+        mockMvc.perform(mockGetRequestWithParams("suggest", "prefix", "sam"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(suggestions)));
+
+        verify(productSuggestionService, times(1)).suggest("sam", 10);
+    }
+
+    @Test
+    void givenId_whenFindDetailById_thenReturnDetail() throws Exception {
+        ProductDetailDTO detail = ProductDetailDTO.builder()
+                .product(product)
+                .seller(new SellerSummaryDTO(user.getId(), user.getName(), 1))
+                .rating(new RatingSummaryDTO(0, 0, Map.of(5, 0L)))
+                .build();
+        when(productDetailService.findById(product.getId())).thenReturn(detail);
+
+        mockMvc.perform(mockGetRequest(product.getId() + "/detail"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(detail)));
+
+        verify(productDetailService, times(1)).findById(product.getId());
+    }
+
+    @Test
+    void givenNoProduct_whenFindDetailById_thenHandleResourceNotFoundException() throws Exception {
+        when(productDetailService.findById(product.getId())).thenThrow(ResourceNotFoundException.class);
+
+        mockMvc.perform(mockGetRequest(product.getId() + "/detail"))
+                .andExpect(status().isNotFound())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof ResourceNotFoundException));
+    }
+
+    @Test
+    void givenSince_whenFindChanges_thenReturnFeed() throws Exception {
+        ProductChangeFeedDTO feed = ProductChangeFeedDTO.builder()
+                .changes(List.of(new ProductChange(8L, product.getId(), ProductChangeType.UPDATED,
+                        Instant.parse("2023-08-01T10:00:00Z"))))
+                .nextSince(8)
+                .hasMore(false)
+                .build();
+        when(productChangeService.findSince(7, 100)).thenReturn(feed);
+
+        mockMvc.perform(mockGetRequestWithParams("changes", "since", "7"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(feed)));
+
+        verify(productChangeService, times(1)).findSince(7, 100);
+    }
+
+    @Test
+    void givenMissingPrefix_whenSuggest_thenHandleMissingServletRequestParameterException() throws Exception {
+        mockMvc.perform(mockGetRequest("suggest"))
+                .andExpect(status().isBadRequest())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof MissingServletRequestParameterException));
+
+        verifyNoInteractions(productSuggestionService);
+    }
+
     @Test
     void givenProductsAndNoUser_whenFindByCategory_thenReturnProduct() throws Exception {
         when(productService.findByCategory(product.getCategory(),
@@ -133,6 +438,25 @@ class ProductControllerTest extends ApplicationConfigTestController {
                 .findByCategory(product.getCategory(), 0, 5, Sort.Direction.ASC, "name");
     }
 
+    @Test
+    void givenIncludeTotalFalse_whenFindByCategory_thenReturnProductSlice() throws Exception {
+        when(productService.findSliceByCategory(product.getCategory(),
+                0, 5, Sort.Direction.ASC, "name")).thenReturn(productSlice);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams
+                ("/category", "productCategory", product.getCategory().toString())
+                .param("includeTotal", "false");
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productSlice)));
+
+        verify(productService, times(1))
+                .findSliceByCategory(product.getCategory(), 0, 5, Sort.Direction.ASC, "name");
+        verify(productService, never())
+                .findByCategory(product.getCategory(), 0, 5, Sort.Direction.ASC, "name");
+    }
+
     @Test
     void givenMissingParamAndNoUser_whenFindByCategory_thenHandleMissingServletRequestParameterException() throws Exception {
         when(productService.findByCategory(product.getCategory(),
@@ -166,19 +490,241 @@ class ProductControllerTest extends ApplicationConfigTestController {
     }
 
     @Test
-    void givenProductAndNoUser_whenFindById_thenReturnProduct() throws Exception {
+    void givenProductsAndNoUser_whenScrollAll_thenReturnCursorPage() throws Exception {
+        when(productService.scrollAll(null, 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productCursorPage);
+
+        mockMvc.perform(mockGetRequest("scroll"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1)).scrollAll(null, 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenCursorAndNoUser_whenScrollAll_thenReturnNextCursorPage() throws Exception {
+        when(productService.scrollAll("cursor", 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productCursorPage);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams
+                ("scroll", "cursor", "cursor");
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1)).scrollAll("cursor", 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenInvalidCursor_whenScrollAll_thenHandleInvalidCursorException() throws Exception {
+        when(productService.scrollAll("invalid", 5, Sort.Direction.ASC, "name"))
+                .thenThrow(InvalidCursorException.class);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams
+                ("scroll", "cursor", "invalid");
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isBadRequest())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof InvalidCursorException));
+
+        verify(productService, times(1)).scrollAll("invalid", 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenQueryAndNoUser_whenSearch_thenReturnCursorPage() throws Exception {
+        when(productService.search("sample", null, null, 5)).thenReturn(productCursorPage);
+
+        mockMvc.perform(mockGetRequestWithParams("search", "query", "sample"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1)).search("sample", null, null, 5);
+    }
+
+    @Test
+    void givenQueryCategoryAndCursor_whenSearch_thenReturnCursorPage() throws Exception {
+        when(productService.search("sample", product.getCategory(), "cursor", 10))
+                .thenReturn(productCursorPage);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams("search", "query", "sample")
+                .param("productCategory", product.getCategory().toString())
+                .param("cursor", "cursor")
+                .param("pageSize", "10");
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1)).search("sample", product.getCategory(), "cursor", 10);
+    }
+
+    @Test
+    void givenMissingQuery_whenSearch_thenHandleMissingServletRequestParameterException() throws Exception {
+        mockMvc.perform(mockGetRequest("search"))
+                .andExpect(status().isBadRequest())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof MissingServletRequestParameterException));
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void givenProductsAndNoUser_whenScrollByCategory_thenReturnCursorPage() throws Exception {
+        when(productService.scrollByCategory(product.getCategory(), null,
+                5, Sort.Direction.ASC, "name")).thenReturn(productCursorPage);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams
+                ("category/scroll", "productCategory", product.getCategory().toString());
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1))
+                .scrollByCategory(product.getCategory(), null, 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenFilterParams_whenFilter_thenReturnCursorPage() throws Exception {
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .minPrice(new BigDecimal("10"))
+                .maxPrice(new BigDecimal("50"))
+                .categories(Set.of(ProductCategory.BOOKS, ProductCategory.TOYS))
+                .sellerId(user.getId())
+                .minRating(4.0)
+                .build();
+        when(productService.scrollByFilter(filter, null, 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productCursorPage);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams
+                ("filter", "minPrice", "10")
+                .param("maxPrice", "50")
+                .param("productCategory", ProductCategory.BOOKS.name(), ProductCategory.TOYS.name())
+                .param("sellerId", user.getId().toString())
+                .param("minRating", "4");
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1)).scrollByFilter(filter, null, 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenNoFilterParams_whenFilter_thenScrollWithEmptyFilter() throws Exception {
+        when(productService.scrollByFilter(new ProductFilterDTO(), null, 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productCursorPage);
+
+        mockMvc.perform(mockGetRequest("filter"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1))
+                .scrollByFilter(new ProductFilterDTO(), null, 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenIdsAndNoUser_whenFindAllByIds_thenReturnProductBatch() throws Exception {
+        UUID missingId = UUID.randomUUID();
+        ProductBatchDTO productBatch = ProductBatchDTO.builder()
+                .products(List.of(product))
+                .missingIds(List.of(missingId))
+                .build();
+        when(productService.findAllByIds(List.of(product.getId(), missingId))).thenReturn(productBatch);
+
+        MockHttpServletRequestBuilder mockRequest = mockGetRequestWithParams
+                ("batch", "ids", product.getId() + "," + missingId);
+
+        mockMvc.perform(mockRequest)
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productBatch)));
+
+        verify(productService, times(1)).findAllByIds(List.of(product.getId(), missingId));
+    }
+
+    @Test
+    void givenTooManyIds_whenFindAllByIds_thenHandleBatchSizeExceededException() throws Exception {
+        when(productService.findAllByIds(List.of(product.getId())))
+                .thenThrow(new BatchSizeExceededException(ProductService.MAX_BATCH_SIZE));
+
+        mockMvc.perform(mockGetRequestWithParams("batch", "ids", product.getId().toString()))
+                .andExpect(status().isBadRequest())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof BatchSizeExceededException));
+
+        verify(productService, times(1)).findAllByIds(List.of(product.getId()));
+    }
+
+    @Test
+    void givenNoIds_whenFindAllByIds_thenHandleMissingServletRequestParameterException() throws Exception {
+        mockMvc.perform(mockGetRequest("batch"))
+                .andExpect(status().isBadRequest())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof MissingServletRequestParameterException));
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void givenProductAndNoUser_whenFindById_thenReturnProductWithValidators() throws Exception {
+        when(productService.findVersionById(product.getId())).thenReturn(productVersion);
         when(productService.findById(product.getId())).thenReturn(product);
 
         mockMvc.perform(mockGetRequest(product.getId().toString()))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, productVersion.toLastModified()))
                 .andExpect(content().json(objectMapper.writeValueAsString(product)));
 
         verify(productService, times(1)).findById(product.getId());
     }
 
+    @Test
+    void givenMatchingIfNoneMatch_whenFindById_thenReturnNotModifiedWithoutLoadingProduct() throws Exception {
+        when(productService.findVersionById(product.getId())).thenReturn(productVersion);
+
+        mockMvc.perform(mockGetRequest(product.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(productService, never()).findById(product.getId());
+    }
+
+    @Test
+    void givenStaleIfNoneMatch_whenFindById_thenReturnProduct() throws Exception {
+        when(productService.findVersionById(product.getId())).thenReturn(productVersion);
+        when(productService.findById(product.getId())).thenReturn(product);
+
+        mockMvc.perform(mockGetRequest(product.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(product)));
+
+        verify(productService, times(1)).findById(product.getId());
+    }
+
+    @Test
+    void givenUnchangedSinceIfModifiedSince_whenFindById_thenReturnNotModified() throws Exception {
+        when(productService.findVersionById(product.getId())).thenReturn(productVersion);
+
+        mockMvc.perform(mockGetRequest(product.getId().toString())
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, productVersion.toLastModified()))
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).findById(product.getId());
+    }
+
     @Test
     void givenNoProductAndNoUser_whenFindById_thenHandleResourceNotFoundException() throws Exception {
-        when(productService.findById(product.getId()))
+        when(productService.findVersionById(product.getId()))
                 .thenThrow(ResourceNotFoundException.class);
 
         mockMvc.perform(mockGetRequest(product.getId().toString()))
@@ -187,7 +733,7 @@ class ProductControllerTest extends ApplicationConfigTestController {
                         assertTrue(result.getResolvedException()
                                 instanceof ResourceNotFoundException));
 
-        verify(productService, times(1)).findById(product.getId());
+        verify(productService, never()).findById(product.getId());
     }
 
     @Test
@@ -204,6 +750,21 @@ class ProductControllerTest extends ApplicationConfigTestController {
                 .findByCurrentUser(0, 5, Sort.Direction.ASC, "name");
     }
 
+    @Test
+    @WithMockUser(authorities = "Seller")
+    void givenIncludeTotalFalse_whenFindByCurrentUser_thenReturnProductSlice() throws Exception {
+        when(productService.findSliceByCurrentUser(0, 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productSlice);
+
+        mockMvc.perform(mockGetRequestWithParams("user", "includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productSlice)));
+
+        verify(productService, times(1))
+                .findSliceByCurrentUser(0, 5, Sort.Direction.ASC, "name");
+        verify(productService, never()).findByCurrentUser(0, 5, Sort.Direction.ASC, "name");
+    }
+
     @Test
     void givenNoUser_whenFindByCurrentUser_thenReturnStatus403Forbidden() throws Exception {
         mockMvc.perform(mockGetRequest("user"))
@@ -240,6 +801,34 @@ class ProductControllerTest extends ApplicationConfigTestController {
                 .findAllBySeller(user.getId(), 0, 5, Sort.Direction.ASC, "name");
     }
 
+    @Test
+    void givenIncludeTotalFalse_whenFindBySellerId_thenReturnProductSlice() throws Exception {
+        when(productService.findSliceBySeller(user.getId(), 0, 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productSlice);
+
+        mockMvc.perform(mockGetRequestWithParams("seller/" + user.getId(), "includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productSlice)));
+
+        verify(productService, times(1))
+                .findSliceBySeller(user.getId(), 0, 5, Sort.Direction.ASC, "name");
+        verify(productService, never())
+                .findAllBySeller(user.getId(), 0, 5, Sort.Direction.ASC, "name");
+    }
+
+    @Test
+    void givenProduct_whenScrollBySellerId_thenReturnCursorPage() throws Exception {
+        when(productService.scrollBySeller(user.getId(), null, 5, Sort.Direction.ASC, "name"))
+                .thenReturn(productCursorPage);
+
+        mockMvc.perform(mockGetRequest("seller/" + user.getId() + "/scroll"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(productCursorPage)));
+
+        verify(productService, times(1))
+                .scrollBySeller(user.getId(), null, 5, Sort.Direction.ASC, "name");
+    }
+
     @Test
     void givenInvalidCasting_whenFindBySellerId_thenHandleClassCastException() throws Exception {
         when(productService.findAllBySeller(user.getId(), 0, 5, Sort.Direction.ASC, "name"))
@@ -267,6 +856,55 @@ class ProductControllerTest extends ApplicationConfigTestController {
         verify(productService, times(1)).update(product.getId(), productDTO);
     }
 
+    @Test
+    @WithMockUser(authorities = "Seller")
+    void givenPrices_whenReprice_thenReturnReport() throws Exception {
+        List<ProductPriceDTO> prices = List.of(new ProductPriceDTO(product.getId(), new BigDecimal("9.99")));
+        ProductRepriceReportDTO report = ProductRepriceReportDTO.builder()
+                .updated(prices)
+                .rejectedIds(List.of())
+                .build();
+        when(productService.reprice(prices)).thenReturn(report);
+
+        mockMvc.perform(mockPatchRequest("prices", new ProductRepriceDTO(prices)))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(report)));
+
+        verify(productService, times(1)).reprice(prices);
+    }
+
+    @Test
+    @WithMockUser(authorities = "Seller")
+    void givenInvalidPrice_whenReprice_thenHandleMethodArgumentNotValidException() throws Exception {
+        ProductRepriceDTO productRepriceDTO = new ProductRepriceDTO(
+                List.of(new ProductPriceDTO(product.getId(), new BigDecimal("-1"))));
+
+        mockMvc.perform(mockPatchRequest("prices", productRepriceDTO))
+                .andExpect(status().isBadRequest())
+                .andExpect(result ->
+                        assertTrue(result.getResolvedException()
+                                instanceof MethodArgumentNotValidException));
+
+        verify(productService, never()).reprice(anyList());
+    }
+
+    @Test
+    @WithMockUser(authorities = "Seller")
+    void givenCategoryRule_whenRepriceCategory_thenReturnReport() throws Exception {
+        CategoryRepriceDTO categoryRepriceDTO = new CategoryRepriceDTO(ProductCategory.BOOKS, new BigDecimal("-10"));
+        ProductRepriceReportDTO report = ProductRepriceReportDTO.builder()
+                .updated(List.of(new ProductPriceDTO(product.getId(), new BigDecimal("9.00"))))
+                .rejectedIds(List.of())
+                .build();
+        when(productService.repriceCategory(categoryRepriceDTO)).thenReturn(report);
+
+        mockMvc.perform(mockPatchRequest("prices/category", categoryRepriceDTO))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(report)));
+
+        verify(productService, times(1)).repriceCategory(categoryRepriceDTO);
+    }
+
     @Test
     @WithMockUser(authorities = "Seller")
     void givenNoProduct_whenUpdate_thenHandleResourceNotFoundException() throws Exception {
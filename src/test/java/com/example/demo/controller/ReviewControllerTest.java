@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.dtos.EntityVersionDTO;
 import com.example.demo.dtos.ReviewDTO;
 import com.example.demo.dtos.UpdateReviewDTO;
 import com.example.demo.entities.Product;
@@ -13,16 +14,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.time.Instant;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class ReviewControllerTest extends ApplicationConfigTestController {
@@ -39,6 +46,10 @@ class ReviewControllerTest extends ApplicationConfigTestController {
     private Customer customer = TestDataBuilder.buildCustomerWithId();
     private Product product = TestDataBuilder.buildProductWithId(seller);
     private Review review = TestDataBuilder.buildReviewWithId(product, customer);
+    private EntityVersionDTO reviewVersion =
+            new EntityVersionDTO(3, Instant.parse("2023-08-01T10:00:00Z"));
+    private EntityVersionDTO productVersion =
+            new EntityVersionDTO(7, Instant.parse("2023-08-02T10:00:00Z"));
     private ReviewDTO reviewDTO = TestDataBuilder.buildReviewDTO();
     private ReviewDTO invalidReviewDTO = mock(ReviewDTO.class);
     private UpdateReviewDTO updateReviewDTO = TestDataBuilder.buildUpdateReviewDTO();
@@ -169,19 +180,59 @@ class ReviewControllerTest extends ApplicationConfigTestController {
     }
 
     @Test
-    void givenReviewAndNoUser_whenFindById_thenReturnReview() throws Exception {
+    void givenReviewAndNoUser_whenFindById_thenReturnReviewWithValidators() throws Exception {
+        when(reviewService.findVersionById(review.getId())).thenReturn(reviewVersion);
         when(reviewService.findById(review.getId())).thenReturn(review);
 
         mockMvc.perform(mockGetRequest(review.getId().toString()))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, reviewVersion.toLastModified()))
+                .andExpect(content().json(objectMapper.writeValueAsString(review)));
+
+        verify(reviewService, times(1)).findById(review.getId());
+    }
+
+    @Test
+    void givenMatchingIfNoneMatch_whenFindById_thenReturnNotModifiedWithoutLoadingReview() throws Exception {
+        when(reviewService.findVersionById(review.getId())).thenReturn(reviewVersion);
+
+        mockMvc.perform(mockGetRequest(review.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(reviewService, never()).findById(review.getId());
+    }
+
+    @Test
+    void givenStaleIfNoneMatch_whenFindById_thenReturnReview() throws Exception {
+        when(reviewService.findVersionById(review.getId())).thenReturn(reviewVersion);
+        when(reviewService.findById(review.getId())).thenReturn(review);
+
+        mockMvc.perform(mockGetRequest(review.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(review)));
 
         verify(reviewService, times(1)).findById(review.getId());
     }
 
+    @Test
+    void givenUnchangedSinceIfModifiedSince_whenFindById_thenReturnNotModified() throws Exception {
+        when(reviewService.findVersionById(review.getId())).thenReturn(reviewVersion);
+
+        mockMvc.perform(mockGetRequest(review.getId().toString())
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, reviewVersion.toLastModified()))
+                .andExpect(status().isNotModified());
+
+        verify(reviewService, never()).findById(review.getId());
+    }
+
     @Test
     void givenNoReviewAndNoUser_whenFindById_thenHandleResourceNotFoundException() throws Exception {
-        when(reviewService.findById(review.getId()))
+        when(reviewService.findVersionById(review.getId()))
                 .thenThrow(ResourceNotFoundException.class);
 
         mockMvc.perform(mockGetRequest(review.getId().toString()))
@@ -190,22 +241,72 @@ class ReviewControllerTest extends ApplicationConfigTestController {
                         assertTrue(result.getResolvedException()
                                 instanceof ResourceNotFoundException));
 
-        verify(reviewService, times(1)).findById(review.getId());
+        verify(reviewService, never()).findById(review.getId());
     }
 
     @Test
     void givenReview_whenFindAllByProduct_thenReturnReviewPage() throws Exception {
         Page<Review> reviewPage = mock(PageImpl.class);
 
+        when(reviewService.findVersionByProduct(product.getId())).thenReturn(productVersion);
         when(reviewService
                 .findAllByProduct(product.getId(), 0, 5, Sort.Direction.ASC, "rating"))
                 .thenReturn(reviewPage);
 
         mockMvc.perform(mockGetRequest("product/" + product.getId()))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(content().json(objectMapper.writeValueAsString(reviewPage)));
+
+        verify(reviewService, times(1))
+                .findAllByProduct(product.getId(), 0, 5, Sort.Direction.ASC, "rating");
+    }
+
+    @Test
+    void givenMatchingIfNoneMatch_whenFindAllByProduct_thenReturnNotModifiedWithoutLoadingReviews()
+            throws Exception {
+        when(reviewService.findVersionByProduct(product.getId())).thenReturn(productVersion);
+
+        mockMvc.perform(mockGetRequest("product/" + product.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(reviewService, never())
+                .findAllByProduct(product.getId(), 0, 5, Sort.Direction.ASC, "rating");
+    }
+
+    @Test
+    void givenStaleIfNoneMatch_whenFindAllByProduct_thenReturnReviewPage() throws Exception {
+        Page<Review> reviewPage = mock(PageImpl.class);
+
+        when(reviewService.findVersionByProduct(product.getId())).thenReturn(productVersion);
+        when(reviewService
+                .findAllByProduct(product.getId(), 0, 5, Sort.Direction.ASC, "rating"))
+                .thenReturn(reviewPage);
+
+        mockMvc.perform(mockGetRequest("product/" + product.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"6\""))
+                .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(reviewPage)));
+    }
+
+    @Test
+    void givenIncludeTotalFalse_whenFindAllByProduct_thenReturnReviewSlice() throws Exception {
+        Slice<Review> reviewSlice = mock(SliceImpl.class);
+
+        when(reviewService.findVersionByProduct(product.getId())).thenReturn(productVersion);
+        when(reviewService
+                .findSliceByProduct(product.getId(), 0, 5, Sort.Direction.ASC, "rating"))
+                .thenReturn(reviewSlice);
+
+        mockMvc.perform(mockGetRequestWithParams("product/" + product.getId(), "includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(reviewSlice)));
 
         verify(reviewService, times(1))
+                .findSliceByProduct(product.getId(), 0, 5, Sort.Direction.ASC, "rating");
+        verify(reviewService, never())
                 .findAllByProduct(product.getId(), 0, 5, Sort.Direction.ASC, "rating");
     }
 
@@ -226,6 +327,24 @@ class ReviewControllerTest extends ApplicationConfigTestController {
                 .findByCurrentUser(0, 5, Sort.Direction.ASC, "rating");
     }
 
+    @Test
+    @WithMockUser(authorities = "Customer")
+    void givenIncludeTotalFalse_whenFindByCurrentUser_thenReturnReviewSlice() throws Exception {
+        Slice<Review> reviewSlice = mock(SliceImpl.class);
+
+        when(reviewService.findSliceByCurrentUser(0, 5, Sort.Direction.ASC, "rating"))
+                .thenReturn(reviewSlice);
+
+        mockMvc.perform(mockGetRequestWithParams("user", "includeTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(reviewSlice)));
+
+        verify(reviewService, times(1))
+                .findSliceByCurrentUser(0, 5, Sort.Direction.ASC, "rating");
+        verify(reviewService, never())
+                .findByCurrentUser(0, 5, Sort.Direction.ASC, "rating");
+    }
+
     @Test
     void givenNoUser_whenFindByCurrentUser_thenReturnStatus403Forbidden() throws Exception {
         mockMvc.perform(mockGetRequest("user"))
@@ -0,0 +1,264 @@
+package com.example.demo.repositories;
+
+import com.example.demo.config.PostgresSchemaInitializer;
+import com.example.demo.entities.Order;
+import com.example.demo.entities.OrderItem;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Customer;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.OrderStatus;
+import com.example.demo.utils.TestDataBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderBulkRepository.class, PostgresSchemaInitializer.class})
+@Testcontainers
+class OrderBulkRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer postgreSQLContainer = new PostgreSQLContainer("postgres:latest");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+    }
+
+    @Autowired
+    private OrderBulkRepository orderBulkRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PostgresSchemaInitializer postgresSchemaInitializer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer = TestDataBuilder.buildCustomerNoId();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository.saveAndFlush(customer);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void givenNoActiveOrder_whenFindOrCreateActiveOrderId_thenCreateActiveOrder() {
+        UUID result = orderBulkRepository.findOrCreateActiveOrderId(customer.getId());
+
+        Order order = orderRepository.findById(result).orElseThrow();
+        assertEquals(OrderStatus.Active, order.getStatus());
+        assertEquals(customer.getId(), order.getCustomer().getId());
+    }
+
+    @Test
+    void givenActiveOrder_whenFindOrCreateActiveOrderId_thenReturnIt() {
+        Order active = orderRepository.saveAndFlush(TestDataBuilder.buildOrder(customer));
+
+        UUID result = orderBulkRepository.findOrCreateActiveOrderId(customer.getId());
+
+        assertEquals(active.getId(), result);
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenConcurrentCallers_whenFindOrCreateActiveOrderId_thenCreateOneActiveOrder() throws Exception {
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<UUID> ids = new HashSet<>();
+        try {
+            List<Future<UUID>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return orderBulkRepository.findOrCreateActiveOrderId(customer.getId());
+                }));
+            }
+            start.countDown();
+            for (Future<UUID> result : results) {
+                ids.add(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, ids.size());
+        assertEquals(1, orderRepository.count());
+    }
+
+    // a violation aborts the surrounding transaction on PostgreSQL, so each save commits on its own
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenActiveOrder_whenSaveSecondActiveOrder_thenThrowDataIntegrityViolationException() {
+        orderRepository.saveAndFlush(TestDataBuilder.buildOrder(customer));
+
+        assertThrows(DataIntegrityViolationException.class, () ->
+                orderRepository.saveAndFlush(TestDataBuilder.buildOrder(customer)));
+    }
+
+    @Test
+    void givenOnlyDeliveredOrder_whenFindOrCreateActiveOrderId_thenCreateNewActiveOrder() {
+        Order delivered = TestDataBuilder.buildOrder(customer);
+        delivered.setStatus(OrderStatus.Delivered);
+        orderRepository.saveAndFlush(delivered);
+
+        UUID result = orderBulkRepository.findOrCreateActiveOrderId(customer.getId());
+
+        assertNotEquals(delivered.getId(), result);
+        assertEquals(2, orderRepository.count());
+    }
+
+    @Test
+    void givenItems_whenRecomputeTotalsIfActive_thenSetTotalsFromItems() {
+        Order active = orderRepository.saveAndFlush(TestDataBuilder.buildOrder(customer));
+        Seller seller = (Seller) userRepository.saveAndFlush(TestDataBuilder.buildUserNoId());
+        Product first = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+        Product second = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+        OrderItem firstItem = TestDataBuilder.buildOrderItemNoId(active, first);
+        firstItem.setQuantity(2);
+        OrderItem secondItem = TestDataBuilder.buildOrderItemNoId(active, second);
+        secondItem.setQuantity(3);
+        secondItem.setUnitPrice(new BigDecimal("2.50"));
+        orderItemRepository.saveAllAndFlush(List.of(firstItem, secondItem));
+
+        boolean result = orderBulkRepository.recomputeTotalsIfActive(active.getId());
+
+        assertTrue(result);
+        entityManager.clear();
+        Order recomputed = orderRepository.findById(active.getId()).orElseThrow();
+        assertEquals(5, recomputed.getItemCount());
+        assertEquals(0, first.getPrice().multiply(BigDecimal.valueOf(2)).add(new BigDecimal("7.50"))
+                .compareTo(recomputed.getTotalAmount()));
+    }
+
+    @Test
+    void givenDuplicateActiveOrders_whenRunSchemaInitializer_thenFoldItemsAndTotalsIntoOldest() {
+        jdbcTemplate.execute("DROP INDEX uk_orders_active_customer");
+        Seller seller = (Seller) userRepository.saveAndFlush(TestDataBuilder.buildUserNoId());
+        Product shared = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+        Product other = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+        Order oldest = orderRepository.saveAndFlush(TestDataBuilder.buildOrder(customer));
+        Order duplicate = orderRepository.saveAndFlush(TestDataBuilder.buildOrder(customer));
+        OrderItem keptItem = TestDataBuilder.buildOrderItemNoId(oldest, shared);
+        keptItem.setQuantity(1);
+        OrderItem movedShared = TestDataBuilder.buildOrderItemNoId(duplicate, shared);
+        movedShared.setQuantity(2);
+        OrderItem movedOther = TestDataBuilder.buildOrderItemNoId(duplicate, other);
+        movedOther.setQuantity(3);
+        movedOther.setUnitPrice(new BigDecimal("2.50"));
+        orderItemRepository.saveAllAndFlush(List.of(keptItem, movedShared, movedOther));
+        orderRepository.applyTotalsDelta(oldest.getId(), shared.getPrice(), 1);
+        orderRepository.applyTotalsDelta(duplicate.getId(),
+                shared.getPrice().multiply(BigDecimal.valueOf(2)).add(new BigDecimal("7.50")), 5);
+
+        postgresSchemaInitializer.run(null);
+
+        entityManager.clear();
+        assertFalse(orderRepository.existsById(duplicate.getId()));
+        Order folded = orderRepository.findById(oldest.getId()).orElseThrow();
+        assertEquals(6, folded.getItemCount());
+        assertEquals(0, shared.getPrice().multiply(BigDecimal.valueOf(3)).add(new BigDecimal("7.50"))
+                .compareTo(folded.getTotalAmount()));
+        assertEquals(2, orderItemRepository.findByOrderId(oldest.getId()).size());
+    }
+
+    @Test
+    void givenBackfillsApplied_whenRunSchemaInitializer_thenLeaveOrderTotalsAlone() {
+        Order active = orderRepository.saveAndFlush(TestDataBuilder.buildOrder(customer));
+        Seller seller = (Seller) userRepository.saveAndFlush(TestDataBuilder.buildUserNoId());
+        Product product = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+        orderItemRepository.saveAndFlush(TestDataBuilder.buildOrderItemNoId(active, product));
+
+        postgresSchemaInitializer.run(null);
+
+        entityManager.clear();
+        assertEquals(0, orderRepository.findById(active.getId()).orElseThrow().getItemCount());
+    }
+
+    @Test
+    void givenOrderNoLongerActive_whenRecomputeTotalsIfActive_thenReturnFalse() {
+        Order delivered = TestDataBuilder.buildOrder(customer);
+        delivered.setStatus(OrderStatus.Delivered);
+        orderRepository.saveAndFlush(delivered);
+
+        assertFalse(orderBulkRepository.recomputeTotalsIfActive(delivered.getId()));
+        assertFalse(orderBulkRepository.recomputeTotalsIfActive(UUID.randomUUID()));
+    }
+
+    @Test
+    void givenActiveOrder_whenLockIfActive_thenReturnTrue() {
+        Order active = TestDataBuilder.buildOrder(customer);
+        active.setStatus(OrderStatus.Active);
+        orderRepository.saveAndFlush(active);
+
+        assertTrue(orderBulkRepository.lockIfActive(active.getId()));
+    }
+
+    @Test
+    void givenOrderNoLongerActive_whenLockIfActive_thenReturnFalse() {
+        Order delivered = TestDataBuilder.buildOrder(customer);
+        delivered.setStatus(OrderStatus.Delivered);
+        orderRepository.saveAndFlush(delivered);
+
+        assertFalse(orderBulkRepository.lockIfActive(delivered.getId()));
+        assertFalse(orderBulkRepository.lockIfActive(UUID.randomUUID()));
+    }
+}
@@ -4,19 +4,23 @@ import com.example.demo.entities.Order;
 import com.example.demo.entities.OrderHistory;
 import com.example.demo.entities.user.Customer;
 import com.example.demo.utils.TestDataBuilder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.*;
 
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class OrderHistoryRepositoryTest {
 
     @Autowired
@@ -28,6 +32,11 @@ class OrderHistoryRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
     private Customer customer = TestDataBuilder.buildCustomerNoId();
     private Order order;
     private OrderHistory orderHistory;
@@ -37,6 +46,8 @@ class OrderHistoryRepositoryTest {
         userRepository.save(customer);
         order = TestDataBuilder.buildOrder(customer);
         orderHistory = TestDataBuilder.buildOrderHistory(order);
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
     }
 
     @AfterEach
@@ -66,4 +77,19 @@ class OrderHistoryRepositoryTest {
         assertEquals(expectedResult, result);
     }
 
+    @Test
+    void givenMoreOrderHistoryThanPageSize_whenFindSliceByCustomer_thenSkipCountQuery() {
+        orderHistoryRepository.save(orderHistory);
+        orderHistoryRepository.save(TestDataBuilder.buildOrderHistory(TestDataBuilder.buildOrder(customer)));
+        orderHistoryRepository.flush();
+        statistics.clear();
+
+        Slice<OrderHistory> result = orderHistoryRepository.findSliceByCustomer
+                (customer, PageRequest.of(0, 1, Sort.by("paymentDate")));
+
+        assertEquals(1, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,282 @@
+package com.example.demo.repositories;
+
+import com.example.demo.config.PostgresSchemaInitializer;
+import com.example.demo.dtos.CartOperationDTO;
+import com.example.demo.entities.Order;
+import com.example.demo.entities.OrderItem;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Customer;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.CartOperationType;
+import com.example.demo.enums.OrderStatus;
+import com.example.demo.utils.TestDataBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderItemBulkRepository.class, PostgresSchemaInitializer.class})
+@Testcontainers
+class OrderItemBulkRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer postgreSQLContainer = new PostgreSQLContainer("postgres:latest");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+        registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+    }
+
+    @Autowired
+    private OrderItemBulkRepository orderItemBulkRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Seller seller = (Seller) TestDataBuilder.buildUserNoId();
+    private Customer customer = TestDataBuilder.buildCustomerNoId();
+    private Product product;
+    private Order order;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository.save(seller);
+        userRepository.save(customer);
+
+        order = orderRepository.save(TestDataBuilder.buildOrder(customer));
+        product = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        orderItemRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void givenProductNotInOrder_whenAddQuantity_thenInsertItem() {
+        OrderItem result = orderItemBulkRepository.addQuantity(order.getId(), product, 3).orElseThrow();
+
+        assertEquals(3, result.getQuantity());
+        assertEquals(3, orderItemRepository.findById(result.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void givenProductInOrder_whenAddQuantity_thenIncrementExistingItem() {
+        OrderItem first = orderItemBulkRepository.addQuantity(order.getId(), product, 3).orElseThrow();
+
+        OrderItem result = orderItemBulkRepository.addQuantity(order.getId(), product, 2).orElseThrow();
+
+        assertEquals(first.getId(), result.getId());
+        assertEquals(5, result.getQuantity());
+        assertEquals(1, orderItemRepository.findByOrderId(order.getId()).size());
+    }
+
+    @Test
+    void givenProductPriceChangedAfterAdd_whenAddQuantity_thenKeepFirstUnitPrice() {
+        BigDecimal firstPrice = product.getPrice();
+        orderItemBulkRepository.addQuantity(order.getId(), product, 1).orElseThrow();
+        product.setPrice(firstPrice.add(BigDecimal.TEN));
+        productRepository.saveAndFlush(product);
+
+        OrderItem result = orderItemBulkRepository.addQuantity(order.getId(), product, 1).orElseThrow();
+
+        assertEquals(0, firstPrice.compareTo(result.getUnitPrice()));
+        assertEquals(0, firstPrice.multiply(BigDecimal.valueOf(2)).compareTo(result.getItemTotal()));
+    }
+
+    @Test
+    void givenStaleProductPrice_whenAddQuantity_thenUseStoredPrice() {
+        BigDecimal storedPrice = product.getPrice();
+        Product stale = TestDataBuilder.buildProductNoId(seller);
+        stale.setId(product.getId());
+        stale.setPrice(storedPrice.add(BigDecimal.TEN));
+
+        OrderItem result = orderItemBulkRepository.addQuantity(order.getId(), stale, 2).orElseThrow();
+
+        assertEquals(0, storedPrice.compareTo(result.getUnitPrice()));
+        assertEquals(0, storedPrice.compareTo(orderItemRepository.findById(result.getId()).orElseThrow()
+                .getUnitPrice()));
+    }
+
+    @Test
+    void givenOrderNoLongerActive_whenAddQuantity_thenReturnEmptyAndAddNothing() {
+        order.setStatus(OrderStatus.Delivered);
+        orderRepository.saveAndFlush(order);
+
+        Optional<OrderItem> result = orderItemBulkRepository.addQuantity(order.getId(), product, 3);
+
+        assertTrue(result.isEmpty());
+        assertTrue(orderItemRepository.findByOrderId(order.getId()).isEmpty());
+    }
+
+    @Test
+    void givenAddAndSetOperations_whenUpsertLines_thenWriteItemsAtProductPrice() {
+        Product other = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+        orderItemBulkRepository.addQuantity(order.getId(), product, 3).orElseThrow();
+
+        int[] counts = orderItemBulkRepository.upsertLines(order.getId(), List.of(
+                new CartOperationDTO(CartOperationType.ADD, product.getId(), 2),
+                new CartOperationDTO(CartOperationType.SET, other.getId(), 4)));
+
+        assertArrayEquals(new int[]{1, 1}, counts);
+        Map<UUID, OrderItem> items = orderItemRepository.findByOrderId(order.getId()).stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+        assertEquals(5, items.get(product.getId()).getQuantity());
+        assertEquals(4, items.get(other.getId()).getQuantity());
+        assertEquals(0, other.getPrice().compareTo(items.get(other.getId()).getUnitPrice()));
+    }
+
+    @Test
+    void givenItem_whenUpsertLinesWithSet_thenReplaceQuantity() {
+        orderItemBulkRepository.addQuantity(order.getId(), product, 3).orElseThrow();
+
+        orderItemBulkRepository.upsertLines(order.getId(),
+                List.of(new CartOperationDTO(CartOperationType.SET, product.getId(), 1)));
+
+        assertEquals(1, orderItemRepository.findByOrderId(order.getId()).get(0).getQuantity());
+    }
+
+    @Test
+    void givenMissingProduct_whenUpsertLines_thenReturnZeroCountAndAddNothing() {
+        int[] counts = orderItemBulkRepository.upsertLines(order.getId(),
+                List.of(new CartOperationDTO(CartOperationType.ADD, UUID.randomUUID(), 2)));
+
+        assertArrayEquals(new int[]{0}, counts);
+        assertTrue(orderItemRepository.findByOrderId(order.getId()).isEmpty());
+    }
+
+    @Test
+    void givenItems_whenDeleteLines_thenRemoveOnlyThoseProducts() {
+        Product other = productRepository.saveAndFlush(TestDataBuilder.buildProductNoId(seller));
+        orderItemBulkRepository.addQuantity(order.getId(), product, 3).orElseThrow();
+        orderItemBulkRepository.addQuantity(order.getId(), other, 1).orElseThrow();
+
+        orderItemBulkRepository.deleteLines(order.getId(), List.of(product.getId()));
+
+        List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
+        assertEquals(1, items.size());
+        assertEquals(other.getId(), items.get(0).getProduct().getId());
+    }
+
+    // a violation aborts the surrounding transaction on PostgreSQL, so each save commits on its own
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenProductInOrder_whenSaveSecondItemForIt_thenThrowDataIntegrityViolationException() {
+        orderItemRepository.saveAndFlush(TestDataBuilder.buildOrderItemNoId(order, product));
+
+        assertThrows(DataIntegrityViolationException.class, () ->
+                orderItemRepository.saveAndFlush(TestDataBuilder.buildOrderItemNoId(order, product)));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenConcurrentAdds_whenAddQuantity_thenCountEveryIncrement() throws Exception {
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<OrderItem>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return orderItemBulkRepository.addQuantity(order.getId(), product, 1).orElseThrow();
+                }));
+            }
+            start.countDown();
+            for (Future<OrderItem> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<OrderItem> items = orderItemRepository.findByOrderId(order.getId());
+        assertEquals(1, items.size());
+        assertEquals(callers, items.get(0).getQuantity());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenConcurrentAddsWithTotalsDelta_whenAddQuantity_thenOrderTotalsMatchItems() throws Exception {
+        int callers = 16;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                int quantity = i % 3 + 1;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> {
+                        OrderItem item = orderItemBulkRepository.addQuantity(order.getId(), product, quantity)
+                                .orElseThrow();
+                        return orderRepository.applyTotalsDelta(order.getId(),
+                                item.getUnitPrice().multiply(BigDecimal.valueOf(quantity)), quantity);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        OrderItem item = orderItemRepository.findByOrderId(order.getId()).get(0);
+        Order result = orderRepository.findById(order.getId()).orElseThrow();
+        assertEquals(item.getQuantity(), result.getItemCount());
+        assertEquals(0, item.getItemTotal().compareTo(result.getTotalAmount()));
+    }
+}
@@ -14,6 +14,8 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -64,4 +66,17 @@ class OrderItemRepositoryTest {
         assertEquals(Collections.singletonList(orderItem), result);
     }
 
+    @Test
+    void givenOrderItem_whenFindOrderIdById_thenReturnOptionalOrderId() {
+        orderItemRepository.save(orderItem);
+        Optional<UUID> result = orderItemRepository.findOrderIdById(orderItem.getId());
+        assertEquals(Optional.of(order.getId()), result);
+    }
+
+    @Test
+    void givenNoOrderItem_whenFindOrderIdById_thenReturnOptionalEmpty() {
+        Optional<UUID> result = orderItemRepository.findOrderIdById(UUID.randomUUID());
+        assertEquals(Optional.empty(), result);
+    }
+
 }
\ No newline at end of file
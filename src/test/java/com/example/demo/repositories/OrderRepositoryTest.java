@@ -1,29 +1,53 @@
 package com.example.demo.repositories;
 
 import com.example.demo.entities.Order;
+import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Customer;
+import com.example.demo.entities.user.Seller;
 import com.example.demo.enums.OrderStatus;
 import com.example.demo.utils.TestDataBuilder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
 class OrderRepositoryTest {
 
+    private static final int ORDERS = 4;
+    private static final int ITEMS_PER_ORDER = 3;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     private Customer customer = TestDataBuilder.buildCustomerNoId();
     private Order order;
 
@@ -65,4 +89,111 @@ class OrderRepositoryTest {
         assertEquals(Optional.empty(), result);
     }
 
+    @Test
+    void givenActiveOrder_whenApplyTotalsDelta_thenReturnOne() {
+        order.setStatus(OrderStatus.Active);
+        orderRepository.saveAndFlush(order);
+
+        int result = orderRepository.applyTotalsDelta(order.getId(), BigDecimal.TEN, 2);
+
+        assertEquals(1, result);
+    }
+
+    @Test
+    void givenProcessingOrder_whenApplyTotalsDelta_thenReturnZero() {
+        order.setStatus(OrderStatus.Processing);
+        orderRepository.saveAndFlush(order);
+
+        int result = orderRepository.applyTotalsDelta(order.getId(), BigDecimal.TEN, 2);
+
+        assertEquals(0, result);
+    }
+
+    @Test
+    void givenOrderWithItems_whenFindWithItemsByIdAndSerialize_thenUseBoundedStatements() {
+        Order saved = saveOrdersWithItems();
+
+        long statements = countStatementsToSerialize(() -> {
+            Order result = orderRepository.findWithItemsById(saved.getId()).orElseThrow();
+            assertEquals(ITEMS_PER_ORDER, result.getItems().size());
+            return result;
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void givenOrderWithItems_whenFindActiveOrderWithItemsByCustomerAndSerialize_thenUseBoundedStatements() {
+        saveOrdersWithItems();
+
+        long statements = countStatementsToSerialize(() -> {
+            Order result = orderRepository.findActiveOrderWithItemsByCustomer(customer).orElseThrow();
+            assertEquals(ITEMS_PER_ORDER, result.getItems().size());
+            return result;
+        });
+
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void givenOrdersWithItems_whenFindAllPageAndSerialize_thenUseBoundedStatements() {
+        saveOrdersWithItems();
+
+        long statements = countStatementsToSerialize(() -> {
+            Page<Order> page = orderRepository.findAll(PageRequest.of(0, ORDERS, Sort.Direction.ASC, "orderDate"));
+            orderRepository.findWithItemsByIdIn(page.map(Order::getId).getContent());
+            assertEquals(ORDERS, page.getNumberOfElements());
+            return page;
+        });
+
+        // the page, its count and the graph of every order in it
+        assertTrue(statements <= 3, statements + " statements");
+    }
+
+    /**
+     * Saves {@value #ORDERS} orders of different customers, the first one being {@link #customer}'s,
+     * each holding {@value #ITEMS_PER_ORDER} products of different sellers.
+     */
+    private Order saveOrdersWithItems() {
+        Order first = null;
+        for (int i = 0; i < ORDERS; i++) {
+            Customer orderCustomer = customer;
+            if (i > 0) {
+                orderCustomer = TestDataBuilder.buildCustomerNoId();
+                orderCustomer.setEmail(i + orderCustomer.getEmail());
+                entityManager.persist(orderCustomer);
+            }
+            Order order = entityManager.persist(TestDataBuilder.buildOrder(orderCustomer));
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Seller seller = (Seller) TestDataBuilder.buildUserNoId();
+                seller.setEmail(i + "-" + j + seller.getEmail());
+                entityManager.persist(seller);
+                Product product = entityManager.persist(TestDataBuilder.buildProductNoId(seller));
+                entityManager.persist(TestDataBuilder.buildOrderItemNoId(order, product));
+            }
+            if (first == null) {
+                first = order;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return first;
+    }
+
+    /**
+     * Counts the statements needed to load the response and serialize it the way the endpoint does,
+     * including every lazy association Jackson walks into.
+     */
+    private long countStatementsToSerialize(Supplier<Object> load) {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        try {
+            objectMapper.writeValueAsString(load.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return statistics.getPrepareStatementCount();
+    }
+
 }
\ No newline at end of file
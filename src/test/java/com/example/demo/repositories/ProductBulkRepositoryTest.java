@@ -0,0 +1,195 @@
+package com.example.demo.repositories;
+
+import com.example.demo.dtos.ProductPriceDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.utils.TestDataBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static com.example.demo.repositories.specifications.ProductSpecifications.hasCategoryIn;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ProductBulkRepository.class)
+class ProductBulkRepositoryTest {
+
+    @Autowired
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Seller seller = (Seller) TestDataBuilder.buildUserNoId();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository.saveAndFlush(seller);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void givenProducts_whenInsertAll_thenPersistThemWithDefaults() {
+        Product product = TestDataBuilder.buildProductNoId(seller);
+        product.setId(UUID.randomUUID());
+        product.setName("Quoted \"name\", with comma");
+        product.setPrice(new BigDecimal("12.34"));
+        product.setCategory(ProductCategory.BOOKS);
+        Product other = TestDataBuilder.buildProductNoId(seller);
+        other.setId(UUID.randomUUID());
+
+        productBulkRepository.insertAll(List.of(product, other));
+
+        Product result = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(product.getName(), result.getName());
+        assertEquals(product.getPrice(), result.getPrice());
+        assertEquals(ProductCategory.BOOKS, result.getCategory());
+        assertEquals(seller.getId(), result.getSeller().getId());
+        assertEquals(0, result.getRatingCount());
+        assertEquals(0, result.getVersion());
+        assertNotNull(result.getUpdatedAt());
+        assertEquals(2, productRepository.count());
+    }
+
+    @Test
+    void givenSpecification_whenForEachSummary_thenStreamMatchingSummariesOrderedById() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Product product = TestDataBuilder.buildProductNoId(seller);
+            product.setId(UUID.randomUUID());
+            product.setCategory(i < 2 ? ProductCategory.BOOKS : ProductCategory.TOYS);
+            products.add(product);
+        }
+        productBulkRepository.insertAll(products);
+
+        List<ProductSummaryDTO> result = new ArrayList<>();
+        productBulkRepository.forEachSummary(hasCategoryIn(Set.of(ProductCategory.BOOKS)), result::add);
+
+        List<UUID> expectedIds = products.stream()
+                .filter(product -> product.getCategory() == ProductCategory.BOOKS)
+                .map(Product::getId)
+                .sorted(Comparator.comparing(UUID::toString))
+                .toList();
+        assertEquals(expectedIds, result.stream().map(ProductSummaryDTO::getId).toList());
+        assertEquals(seller.getName(), result.get(0).getSellerName());
+    }
+
+    @Test
+    void givenProducts_whenFindAllIds_thenReturnEveryId() {
+        Product product = TestDataBuilder.buildProductNoId(seller);
+        product.setId(UUID.randomUUID());
+        Product other = TestDataBuilder.buildProductNoId(seller);
+        other.setId(UUID.randomUUID());
+        productBulkRepository.insertAll(List.of(product, other));
+
+        assertEquals(Set.of(product.getId(), other.getId()), productBulkRepository.findAllIds());
+    }
+
+    @Test
+    void givenPrices_whenUpdatePrices_thenUpdateOnlyProductsOfSeller() {
+        Seller otherSeller = (Seller) TestDataBuilder.buildUserNoId();
+        otherSeller.setEmail("other@email.com");
+        userRepository.saveAndFlush(otherSeller);
+        Product owned = TestDataBuilder.buildProductNoId(seller);
+        owned.setId(UUID.randomUUID());
+        Product foreign = TestDataBuilder.buildProductNoId(otherSeller);
+        foreign.setId(UUID.randomUUID());
+        productBulkRepository.insertAll(List.of(owned, foreign));
+
+        int[] result = productBulkRepository.updatePrices(seller.getId(), List.of(
+                new ProductPriceDTO(owned.getId(), new BigDecimal("9.99")),
+                new ProductPriceDTO(foreign.getId(), new BigDecimal("9.99")),
+                new ProductPriceDTO(UUID.randomUUID(), new BigDecimal("9.99"))));
+
+        assertArrayEquals(new int[]{1, 0, 0}, result);
+        Product updated = productRepository.findById(owned.getId()).orElseThrow();
+        assertEquals(new BigDecimal("9.99"), updated.getPrice());
+        assertEquals(1, updated.getVersion());
+        assertEquals(0, foreign.getPrice()
+                .compareTo(productRepository.findById(foreign.getId()).orElseThrow().getPrice()));
+    }
+
+    @Test
+    void givenProducts_whenCountByCategoryAndPriceBucket_thenGroupThemAtBucketBounds() {
+        Seller otherSeller = (Seller) TestDataBuilder.buildUserNoId();
+        otherSeller.setEmail("other@email.com");
+        userRepository.saveAndFlush(otherSeller);
+        List<Product> products = new ArrayList<>();
+        for (String price : List.of("9.99", "10.00", "24.99", "1000.00")) {
+            Product product = TestDataBuilder.buildProductNoId(seller);
+            product.setId(UUID.randomUUID());
+            product.setCategory(ProductCategory.BOOKS);
+            product.setPrice(new BigDecimal(price));
+            products.add(product);
+        }
+        Product toy = TestDataBuilder.buildProductNoId(otherSeller);
+        toy.setId(UUID.randomUUID());
+        toy.setCategory(ProductCategory.TOYS);
+        toy.setPrice(new BigDecimal("5.00"));
+        products.add(toy);
+        productBulkRepository.insertAll(products);
+
+        long[][] all = productBulkRepository.countByCategoryAndPriceBucket(null);
+        long[][] ofSeller = productBulkRepository.countByCategoryAndPriceBucket(seller.getId());
+
+        long[] books = all[ProductCategory.BOOKS.ordinal()];
+        assertEquals(1, books[PriceBucket.UNDER_10.ordinal()]);
+        assertEquals(2, books[PriceBucket.FROM_10_TO_25.ordinal()]);
+        assertEquals(1, books[PriceBucket.OVER_1000.ordinal()]);
+        assertEquals(1, all[ProductCategory.TOYS.ordinal()][PriceBucket.UNDER_10.ordinal()]);
+        assertArrayEquals(books, ofSeller[ProductCategory.BOOKS.ordinal()]);
+        assertEquals(0, ofSeller[ProductCategory.TOYS.ordinal()][PriceBucket.UNDER_10.ordinal()]);
+    }
+
+    @Test
+    void givenFactor_whenUpdateCategoryPrices_thenRoundToCentsAndKeepAtLeastOneCent() {
+        Product book = TestDataBuilder.buildProductNoId(seller);
+        book.setId(UUID.randomUUID());
+        book.setCategory(ProductCategory.BOOKS);
+        book.setPrice(new BigDecimal("10.05"));
+        Product cheapBook = TestDataBuilder.buildProductNoId(seller);
+        cheapBook.setId(UUID.randomUUID());
+        cheapBook.setCategory(ProductCategory.BOOKS);
+        cheapBook.setPrice(new BigDecimal("0.01"));
+        Product toy = TestDataBuilder.buildProductNoId(seller);
+        toy.setId(UUID.randomUUID());
+        toy.setCategory(ProductCategory.TOYS);
+        toy.setPrice(new BigDecimal("10.00"));
+        productBulkRepository.insertAll(List.of(book, cheapBook, toy));
+
+        int result = productBulkRepository.updateCategoryPrices(seller.getId(), ProductCategory.BOOKS,
+                new BigDecimal("0.9"));
+
+        assertEquals(2, result);
+        assertEquals(new BigDecimal("9.05"), productRepository.findById(book.getId()).orElseThrow().getPrice());
+        assertEquals(new BigDecimal("0.01"), productRepository.findById(cheapBook.getId()).orElseThrow().getPrice());
+        assertEquals(new BigDecimal("10.00"), productRepository.findById(toy.getId()).orElseThrow().getPrice());
+    }
+}
@@ -1,21 +1,33 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dtos.EntityVersionDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.dtos.SellerSummaryDTO;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.repositories.projections.CategoryPriceStatistics;
+import com.example.demo.repositories.specifications.ProductSpecifications;
 import com.example.demo.utils.TestDataBuilder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.*;
 
-import java.util.Collections;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class ProductRepositoryTest {
 
     @Autowired
@@ -24,6 +36,11 @@ class ProductRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
     private Seller seller = (Seller) TestDataBuilder.buildUserNoId();
     private Product product = TestDataBuilder.buildProductNoId(seller);
     Pageable paging = PageRequest.of(0, 5, Sort.by("name"));
@@ -31,6 +48,8 @@ class ProductRepositoryTest {
     @BeforeEach
     void setUp() throws Exception {
         userRepository.save(seller);
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
     }
 
     @AfterEach
@@ -41,23 +60,314 @@ class ProductRepositoryTest {
     @Test
     void givenProducts_whenFindByCategory_thenReturnProducts() {
         productRepository.save(product);
-        List<Product> productList = Collections.singletonList(product);
-        Page<Product> expectedResult = new PageImpl<>(productList, paging, productList.size());
 
-        Page<Product> result = productRepository.findByCategory(product.getCategory(), paging);
+        Page<ProductSummaryDTO> result = productRepository.findByCategory(product.getCategory(), paging);
 
-        assertEquals(expectedResult, result);
+        assertEquals(1, result.getTotalElements());
+        assertEquals(product.getId(), result.getContent().get(0).getId());
+        assertEquals(product.getName(), result.getContent().get(0).getName());
+        assertEquals(seller.getId(), result.getContent().get(0).getSellerId());
     }
 
     @Test
     void givenProducts_whenFindAllBySeller_thenReturnProductPage() {
         productRepository.save(product);
-        List<Product> productList = Collections.singletonList(product);
-        Page<Product> expectedResult = new PageImpl<>(productList, paging, productList.size());
 
-        Page<Product> result = productRepository.findAllBySeller(seller, paging);
+        Page<ProductSummaryDTO> result = productRepository.findAllBySeller(seller, paging);
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(product.getId(), result.getContent().get(0).getId());
+        assertEquals(product.getName(), result.getContent().get(0).getName());
+        assertEquals(seller.getId(), result.getContent().get(0).getSellerId());
+    }
+
+    @Test
+    void givenMoreProductsThanPageSize_whenFindByCategory_thenIssueCountQuery() {
+        saveProducts(3);
+        Pageable smallPaging = PageRequest.of(0, 2, Sort.by("name"));
+
+        Page<ProductSummaryDTO> result = productRepository.findByCategory(product.getCategory(), smallPaging);
+
+        assertEquals(3, result.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenMoreProductsThanPageSize_whenFindSliceByCategory_thenSkipCountQuery() {
+        saveProducts(3);
+        Pageable smallPaging = PageRequest.of(0, 2, Sort.by("name"));
+
+        Slice<ProductSummaryDTO> result = productRepository.findSliceByCategory(product.getCategory(), smallPaging);
+
+        assertEquals(2, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenMoreProductsThanPageSize_whenFindSliceBy_thenSkipCountQuery() {
+        saveProducts(3);
+        Pageable smallPaging = PageRequest.of(0, 2, Sort.by("name"));
+
+        Slice<ProductSummaryDTO> result = productRepository.findSliceBy(smallPaging);
+
+        assertEquals(2, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenMoreProductsThanPageSize_whenFindSliceBySeller_thenSkipCountQuery() {
+        saveProducts(3);
+        Pageable smallPaging = PageRequest.of(1, 2, Sort.by("name"));
+
+        Slice<ProductSummaryDTO> result = productRepository.findSliceBySeller(seller, smallPaging);
+
+        assertEquals(1, result.getNumberOfElements());
+        assertFalse(result.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenFiftyProducts_whenFindAllSummaries_thenReturnPageInAtMostTwoStatements() {
+        saveProducts(50);
+        Pageable fullPaging = PageRequest.of(0, 50, Sort.by("name"));
+
+        Page<ProductSummaryDTO> result = productRepository.findAllSummaries(fullPaging);
+
+        assertEquals(50, result.getNumberOfElements());
+        assertEquals(seller.getId(), result.getContent().get(0).getSellerId());
+        assertEquals(seller.getName(), result.getContent().get(0).getSellerName());
+        assertTrue(statistics.getPrepareStatementCount() <= 2);
+    }
+
+    @Test
+    void givenFiftyProducts_whenScrollWithFetchSeller_thenReturnWindowInOneStatement() {
+        saveProducts(50);
+
+        Window<Product> result = productRepository.findBy(
+                ProductSpecifications.fetchSeller().and(ProductSpecifications.all()),
+                query -> query.sortBy(Sort.by("name")).limit(50).scroll(ScrollPosition.keyset()));
+        result.forEach(resultProduct -> resultProduct.getSeller().getName());
+
+        assertEquals(50, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenFiftyProducts_whenFindAllWithSellerByIdIn_thenReturnThemInOneStatement() {
+        saveProducts(50);
+        List<UUID> ids = productRepository.findAll().stream().map(Product::getId).toList();
+        entityManager.clear();
+        statistics.clear();
+
+        List<Product> result = productRepository.findAllWithSellerByIdIn(ids);
+        result.forEach(p -> p.getSeller().getName());
+
+        assertEquals(50, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenProductsOfSeller_whenFindSellerSummaryByProductId_thenCountSellerProducts() {
+        productRepository.save(product);
+        productRepository.save(TestDataBuilder.buildProductNoId(seller));
+
+        SellerSummaryDTO result = productRepository.findSellerSummaryByProductId(product.getId()).orElseThrow();
+
+        assertEquals(new SellerSummaryDTO(seller.getId(), seller.getName(), 2), result);
+    }
+
+    @Test
+    void givenUpdatedProduct_whenFindVersionById_thenReturnIncrementedVersion() {
+        productRepository.saveAndFlush(product);
+        product.setName("Renamed Product");
+        productRepository.saveAndFlush(product);
+
+        EntityVersionDTO result = productRepository.findVersionById(product.getId()).orElseThrow();
+
+        assertEquals(1, result.getVersion());
+        assertEquals(product.getUpdatedAt(), result.getUpdatedAt());
+    }
+
+    @Test
+    void givenProducts_whenScrollWithKeysetPosition_thenReturnNextWindow() {
+        Product second = TestDataBuilder.buildProductNoId(seller);
+        second.setName("Second Product");
+        Product third = TestDataBuilder.buildProductNoId(seller);
+        third.setName("Third Product");
+        productRepository.saveAll(List.of(product, second, third));
+        Sort sort = Sort.by("name");
+
+        Window<Product> firstWindow = productRepository.findBy(ProductSpecifications.all(),
+                query -> query.sortBy(sort).limit(2).scroll(ScrollPosition.keyset()));
+        Window<Product> secondWindow = productRepository.findBy(ProductSpecifications.all(),
+                query -> query.sortBy(sort).limit(2).scroll(firstWindow.positionAt(1)));
+
+        assertEquals(List.of(product, second), firstWindow.getContent());
+        assertTrue(firstWindow.hasNext());
+        assertEquals(List.of(third), secondWindow.getContent());
+        assertFalse(secondWindow.hasNext());
+    }
+
+    @Test
+    void givenRatingDeltas_whenApplyRatingDelta_thenKeepAggregatesConsistent() {
+        productRepository.saveAndFlush(product);
+
+        productRepository.applyRatingDelta(product.getId(), 1, 5);
+        productRepository.applyRatingDelta(product.getId(), 1, 3);
+        productRepository.applyRatingDelta(product.getId(), 0, 1 - 3);
+        entityManager.clear();
+
+        Product result = entityManager.find(Product.class, product.getId());
+        assertEquals(2, result.getRatingCount());
+        assertEquals(6, result.getRatingSum());
+        assertEquals(3.0, result.getAverageRating());
+
+        productRepository.applyRatingDelta(product.getId(), -1, -5);
+        productRepository.applyRatingDelta(product.getId(), -1, -1);
+        entityManager.clear();
+
+        result = entityManager.find(Product.class, product.getId());
+        assertEquals(5, result.getVersion());
+        assertEquals(0, result.getRatingCount());
+        assertEquals(0, result.getRatingSum());
+        assertEquals(0.0, result.getAverageRating());
+    }
+
+    @Test
+    void givenRatedProduct_whenSaveLoadedProduct_thenKeepRatingAggregates() {
+        productRepository.saveAndFlush(product);
+        productRepository.applyRatingDelta(product.getId(), 1, 4);
+        entityManager.clear();
+
+        Product loaded = entityManager.find(Product.class, product.getId());
+        loaded.setName("Renamed Product");
+        loaded.setRatingCount(0);
+        loaded.setRatingSum(0);
+        loaded.setAverageRating(0.0);
+        productRepository.saveAndFlush(loaded);
+        entityManager.clear();
+
+        Product result = entityManager.find(Product.class, product.getId());
+        assertEquals("Renamed Product", result.getName());
+        assertEquals(1, result.getRatingCount());
+        assertEquals(4, result.getRatingSum());
+        assertEquals(4.0, result.getAverageRating());
+    }
+
+    @Test
+    void givenProductsWithRatings_whenFindAllSummariesSortedByAverageRating_thenReturnBestRatedFirst() {
+        Product second = TestDataBuilder.buildProductNoId(seller);
+        second.setName("Second Product");
+        productRepository.saveAllAndFlush(List.of(product, second));
+        productRepository.applyRatingDelta(product.getId(), 2, 5);
+        productRepository.applyRatingDelta(second.getId(), 1, 4);
+        entityManager.clear();
+
+        Page<ProductSummaryDTO> result = productRepository.findAllSummaries(
+                PageRequest.of(0, 5, Sort.Direction.DESC, "averageRating"));
+
+        assertEquals(List.of(second.getId(), product.getId()),
+                result.getContent().stream().map(ProductSummaryDTO::getId).toList());
+        assertEquals(4.0, result.getContent().get(0).getAverageRating());
+        assertEquals(1, result.getContent().get(0).getRatingCount());
+    }
+
+    @Test
+    void givenProducts_whenFindAllMatchingFilter_thenReturnOnlyProductsMatchingEveryCriterion() {
+        Product cheapBook = buildProduct("Cheap Book", ProductCategory.BOOKS, "5");
+        Product pricyBook = buildProduct("Pricy Book", ProductCategory.BOOKS, "80");
+        Product toy = buildProduct("Toy", ProductCategory.TOYS, "20");
+        Product tool = buildProduct("Tool", ProductCategory.TOOLS, "20");
+        productRepository.saveAllAndFlush(List.of(cheapBook, pricyBook, toy, tool));
+        productRepository.applyRatingDelta(toy.getId(), 1, 5);
+        productRepository.applyRatingDelta(pricyBook.getId(), 1, 5);
+        entityManager.clear();
+
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .categories(Set.of(ProductCategory.BOOKS, ProductCategory.TOYS))
+                .minPrice(new BigDecimal("10"))
+                .maxPrice(new BigDecimal("100"))
+                .sellerId(seller.getId())
+                .minRating(4.0)
+                .build();
+
+        List<Product> result = productRepository.findAll(ProductSpecifications.matches(filter), Sort.by("name"));
+
+        assertEquals(List.of(pricyBook.getId(), toy.getId()), result.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void givenEmptyFilter_whenFindAllMatchingFilter_thenReturnAllProducts() {
+        saveProducts(3);
+
+        List<Product> result = productRepository.findAll(ProductSpecifications.matches(new ProductFilterDTO()));
+
+        assertEquals(3, result.size());
+    }
+
+    @Test
+    void givenOnlyMaxPrice_whenFindAllMatchingFilter_thenReturnProductsUpToMaxPrice() {
+        Product cheap = buildProduct("Cheap", ProductCategory.BOOKS, "5");
+        Product pricy = buildProduct("Pricy", ProductCategory.BOOKS, "80");
+        productRepository.saveAllAndFlush(List.of(cheap, pricy));
+
+        List<Product> result = productRepository.findAll(ProductSpecifications.matches(
+                ProductFilterDTO.builder().maxPrice(new BigDecimal("10")).build()));
+
+        assertEquals(List.of(cheap.getId()), result.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void givenProduct_whenSave_thenStoreCategoryCode() {
+        productRepository.save(buildProduct("Book", ProductCategory.BOOKS, "5"));
+        entityManager.flush();
+
+        Object stored = entityManager.getEntityManager()
+                .createNativeQuery("SELECT category FROM products").getSingleResult();
+
+        assertEquals(ProductCategory.BOOKS.getCode(), ((Number) stored).shortValue());
+        assertEquals(ProductCategory.BOOKS, productRepository.findAll().get(0).getCategory());
+    }
+
+    @Test
+    void givenProducts_whenFindCategoryStatistics_thenAggregatePricesPerCategory() {
+        productRepository.saveAll(List.of(
+                buildProduct("Cheap Book", ProductCategory.BOOKS, "5.00"),
+                buildProduct("Expensive Book", ProductCategory.BOOKS, "20.00"),
+                buildProduct("Toy", ProductCategory.TOYS, "7.50")));
+
+        List<CategoryPriceStatistics> result = productRepository.findCategoryStatistics();
+
+        CategoryPriceStatistics books = result.stream()
+                .filter(row -> row.getCategory() == ProductCategory.BOOKS)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, result.size());
+        assertEquals(2L, books.getProductCount());
+        assertEquals(0, new BigDecimal("5.00").compareTo(books.getMinPrice()));
+        assertEquals(12.5, books.getAveragePrice());
+        assertEquals(0, new BigDecimal("20.00").compareTo(books.getMaxPrice()));
+    }
+
+    private Product buildProduct(String name, ProductCategory category, String price) {
+        Product newProduct = TestDataBuilder.buildProductNoId(seller);
+        newProduct.setName(name);
+        newProduct.setCategory(category);
+        newProduct.setPrice(new BigDecimal(price));
+        return newProduct;
+    }
 
-        assertEquals(expectedResult, result);
+    private void saveProducts(int count) {
+        for (int i = 0; i < count; i++) {
+            Product newProduct = TestDataBuilder.buildProductNoId(seller);
+            newProduct.setName("Product " + i);
+            productRepository.save(newProduct);
+        }
+        productRepository.flush();
+        entityManager.clear();
+        statistics.clear();
     }
 
 }
\ No newline at end of file
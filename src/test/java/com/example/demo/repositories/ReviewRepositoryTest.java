@@ -1,23 +1,30 @@
 package com.example.demo.repositories;
 
+import com.example.demo.dtos.EntityVersionDTO;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.Review;
 import com.example.demo.entities.user.Customer;
 import com.example.demo.entities.user.Seller;
+import com.example.demo.repositories.projections.RatingCount;
 import com.example.demo.utils.TestDataBuilder;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.*;
 
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class ReviewRepositoryTest {
 
     @Autowired
@@ -29,6 +36,11 @@ class ReviewRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
     private Seller seller = (Seller) TestDataBuilder.buildUserNoId();
     private Customer customer = TestDataBuilder.buildCustomerNoId();
     private Product product;
@@ -42,6 +54,8 @@ class ReviewRepositoryTest {
         product = TestDataBuilder.buildProductNoId(seller);
         productRepository.save(product);
         review = TestDataBuilder.buildReviewNoId(product, customer);
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
     }
 
     @AfterEach
@@ -70,4 +84,81 @@ class ReviewRepositoryTest {
         Page<Review> result = reviewRepository.findAllByCustomer(customer, paging);
         assertEquals(expectedResult, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenMoreReviewsThanPageSize_whenFindSliceByProduct_thenSkipCountQuery() {
+        Customer otherCustomer = TestDataBuilder.buildCustomerNoId();
+        otherCustomer.setEmail("other@email.com");
+        userRepository.save(otherCustomer);
+        reviewRepository.save(review);
+        reviewRepository.save(TestDataBuilder.buildReviewNoId(product, otherCustomer));
+        reviewRepository.flush();
+        statistics.clear();
+
+        Slice<Review> result = reviewRepository.findSliceByProduct(product, PageRequest.of(0, 1, Sort.by("rating")));
+
+        assertEquals(1, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenMoreReviewsThanPageSize_whenFindSliceByCustomer_thenSkipCountQuery() {
+        Product otherProduct = TestDataBuilder.buildProductNoId(seller);
+        productRepository.save(otherProduct);
+        reviewRepository.save(review);
+        reviewRepository.save(TestDataBuilder.buildReviewNoId(otherProduct, customer));
+        reviewRepository.flush();
+        statistics.clear();
+
+        Slice<Review> result = reviewRepository.findSliceByCustomer(customer, PageRequest.of(0, 1, Sort.by("rating")));
+
+        assertEquals(1, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void givenReviewAndChangedProduct_whenFindVersionById_thenCombineBothVersions() {
+        reviewRepository.saveAndFlush(review);
+        product.setName("Renamed Product");
+        productRepository.saveAndFlush(product);
+
+        EntityVersionDTO result = reviewRepository.findVersionById(review.getId()).orElseThrow();
+
+        assertEquals(1, result.getVersion());
+        assertEquals(product.getUpdatedAt(), result.getUpdatedAt());
+    }
+
+    @Test
+    void givenReviews_whenCountRatingsByProductId_thenGroupThemByRating() {
+        Customer otherCustomer = TestDataBuilder.buildCustomerNoId();
+        otherCustomer.setEmail("other@email.com");
+        userRepository.save(otherCustomer);
+        review.setRating(4);
+        reviewRepository.save(review);
+        Review otherReview = TestDataBuilder.buildReviewNoId(product, otherCustomer);
+        otherReview.setRating(4);
+        reviewRepository.saveAndFlush(otherReview);
+
+        List<RatingCount> result = reviewRepository.countRatingsByProductId(product.getId());
+
+        assertEquals(1, result.size());
+        assertEquals(4, result.get(0).getRating());
+        assertEquals(2, result.get(0).getCount());
+    }
+
+    @Test
+    void givenReview_whenFindSliceByProductId_thenFetchProductAndCustomerInOneStatement() {
+        reviewRepository.saveAndFlush(review);
+        entityManager.clear();
+        statistics.clear();
+
+        Slice<Review> result = reviewRepository.findSliceByProductId(product.getId(), paging);
+
+        assertEquals(1, result.getNumberOfElements());
+        assertTrue(Hibernate.isInitialized(result.getContent().get(0).getProduct()));
+        assertTrue(Hibernate.isInitialized(result.getContent().get(0).getCustomer()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
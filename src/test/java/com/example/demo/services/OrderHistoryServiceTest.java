@@ -17,6 +17,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
@@ -134,6 +136,25 @@ class OrderHistoryServiceTest extends ApplicationConfigTest {
                 .findAllByCustomer(customer, orderHistoryPage.getPageable());
     }
 
+    @Test
+    void givenPaging_whenFindSliceByCustomer_ThenReturnOrderHistorySlice() {
+        Slice<OrderHistory> orderHistorySlice =
+                new SliceImpl<>(orderHistoryPage.getContent(), orderHistoryPage.getPageable(), true);
+        when(orderHistoryRepository.findSliceByCustomer(customer, orderHistoryPage.getPageable()))
+                .thenReturn(orderHistorySlice);
+
+        Slice<OrderHistory> result = orderHistoryService
+                .findSliceByCurrentUser(orderHistoryPage.getPageable().getPageNumber(),
+                        orderHistoryPage.getPageable().getPageSize(),
+                        Sort.Direction.ASC, "paymentDate");
+
+        assertEquals(orderHistorySlice, result);
+
+        verify(orderHistoryRepository, times(1))
+                .findSliceByCustomer(customer, orderHistoryPage.getPageable());
+        verify(orderHistoryRepository, never()).findAllByCustomer(eq(customer), any(Pageable.class));
+    }
+
     @Test
     void givenNoParam_whenFindByCustomer_ThenReturnOrderHistoryList() {
         when(orderHistoryRepository.findAllByCustomer(customer)).thenReturn(orderHistoryList);
@@ -148,6 +169,7 @@ class OrderHistoryServiceTest extends ApplicationConfigTest {
     @Test
     void givenUserPurchasedProduct_whenIsProductPurchasedByUser_thenReturnTrue() {
         Product product = mock(Product.class);
+        when(product.getId()).thenReturn(UUID.randomUUID());
         OrderItem orderItem = mock(OrderItem.class);
         when(orderItem.getProduct()).thenReturn(product);
         Order order = mock(Order.class);
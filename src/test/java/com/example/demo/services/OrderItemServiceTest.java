@@ -1,6 +1,7 @@
 package com.example.demo.services;
 
 import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.CartOperationDTO;
 import com.example.demo.dtos.OrderItemDTO;
 import com.example.demo.entities.Order;
 import com.example.demo.entities.OrderItem;
@@ -8,14 +9,17 @@ import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Customer;
 import com.example.demo.entities.user.Seller;
 import com.example.demo.entities.user.User;
+import com.example.demo.enums.CartOperationType;
+import com.example.demo.repositories.OrderItemBulkRepository;
 import com.example.demo.repositories.OrderItemRepository;
 import com.example.demo.services.exceptions.DatabaseException;
+import com.example.demo.services.exceptions.InvalidOrderException;
 import com.example.demo.services.exceptions.ResourceNotFoundException;
 import com.example.demo.services.exceptions.UnauthorizedAccessException;
 import com.example.demo.utils.TestDataBuilder;
-import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -24,6 +28,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +46,9 @@ class OrderItemServiceTest extends ApplicationConfigTest {
     @MockBean
     private OrderItemRepository orderItemRepository;
 
+    @MockBean
+    private OrderItemBulkRepository orderItemBulkRepository;
+
     @MockBean
     private OrderService orderService;
 
@@ -57,6 +65,13 @@ class OrderItemServiceTest extends ApplicationConfigTest {
     private Order order = TestDataBuilder.buildOrder(customer);
     private OrderItem orderItem = TestDataBuilder.buildOrderItemNoId(order, product);
 
+    @BeforeEach
+    void setupOrder() {
+        order.setId(UUID.randomUUID());
+        when(orderItemRepository.findOrderIdById(orderItem.getId())).thenReturn(Optional.of(order.getId()));
+        when(orderService.lockIfActive(order.getId())).thenReturn(true);
+    }
+
     @BeforeEach
     void setupSecurityContext() {
         authentication = mock(Authentication.class);
@@ -79,79 +94,167 @@ class OrderItemServiceTest extends ApplicationConfigTest {
     }
 
     @Test
-    void givenValidOrderItemDTOAndProductDoesNotExistsInOrder_whenCreate_thenReturnNewOrderItem() {
-        when(orderService.findOrCreateActiveOrderByCurrentUser()).thenReturn(order);
+    void givenValidOrderItemDTO_whenCreate_thenAddQuantityToActiveOrderAndReturnOrderItem() {
+        UUID orderId = UUID.randomUUID();
         when(productService.findById(orderItemDTO.getProductId()))
                 .thenReturn(product);
-        when(orderItemRepository.save(any(OrderItem.class)))
-                .thenReturn(orderItem);
-
+        when(orderService.findOrCreateActiveOrderIdByCurrentUser()).thenReturn(orderId);
+        when(orderService.lockIfActive(orderId)).thenReturn(true);
         orderItemDTO.setQuantity(5);
-        OrderItem expectedOrderItem = orderItem;
-        expectedOrderItem.setQuantity(orderItemDTO.getQuantity());
+        when(orderItemBulkRepository.addQuantity(orderId, product, 5))
+                .thenReturn(Optional.of(orderItem));
 
         OrderItem result = orderItemService.create(orderItemDTO);
 
         assertEquals(orderItem, result);
 
-        verifyAuthentication();
-        verify(orderService, times(1)).findOrCreateActiveOrderByCurrentUser();
         verify(productService, times(1)).findById(orderItemDTO.getProductId());
-        verify(orderItemRepository, times(1)).save(expectedOrderItem);
+        verify(orderService, times(1)).findOrCreateActiveOrderIdByCurrentUser();
+        verify(orderService, never()).evictActiveOrderIdOfCurrentUser();
+        InOrder inOrder = inOrder(orderService, orderItemBulkRepository);
+        inOrder.verify(orderService, times(1)).lockIfActive(orderId);
+        inOrder.verify(orderItemBulkRepository, times(1)).addQuantity(orderId, product, 5);
+        verify(orderService, times(1)).applyTotalsDelta(orderId,
+                orderItem.getUnitPrice().multiply(BigDecimal.valueOf(5)), 5);
+        verify(orderItemRepository, never()).save(any(OrderItem.class));
     }
 
     @Test
-    void givenValidOrderItemDTOAndProductAlreadyExistsInOrder_whenCreate_thenReturnUpdateOrderItemWithCorrectQuantity() {
-        OrderItem orderItem1 = orderItem;
-        product.setId(orderItemDTO.getProductId());
-        orderItem1.setProduct(product);
-        order.setItems(Collections.singletonList(orderItem1));
-
-        when(orderService.findOrCreateActiveOrderByCurrentUser()).thenReturn(order);
-        when(orderItemRepository.save(any(OrderItem.class)))
-                .thenReturn(orderItem);
-
+    void givenCachedOrderNoLongerActive_whenCreate_thenEvictItAndAddToNewActiveOrder() {
+        UUID paidOrderId = UUID.randomUUID();
+        UUID activeOrderId = UUID.randomUUID();
+        when(productService.findById(orderItemDTO.getProductId()))
+                .thenReturn(product);
+        when(orderService.findOrCreateActiveOrderIdByCurrentUser()).thenReturn(paidOrderId, activeOrderId);
+        when(orderService.lockIfActive(paidOrderId)).thenReturn(false);
+        when(orderService.lockIfActive(activeOrderId)).thenReturn(true);
         orderItemDTO.setQuantity(5);
-        OrderItem expectedOrderItem = orderItem;
-        expectedOrderItem.setQuantity(orderItemDTO.getQuantity() + orderItem.getQuantity());
+        when(orderItemBulkRepository.addQuantity(activeOrderId, product, 5))
+                .thenReturn(Optional.of(orderItem));
 
         OrderItem result = orderItemService.create(orderItemDTO);
 
         assertEquals(orderItem, result);
 
-        verifyAuthentication();
-        verify(orderService, times(1)).findOrCreateActiveOrderByCurrentUser();
-        verify(productService, never()).findById(any(UUID.class));
-        verify(orderItemRepository, times(1)).save(expectedOrderItem);
+        verify(orderService, times(1)).evictActiveOrderIdOfCurrentUser();
+        verify(orderService, times(2)).findOrCreateActiveOrderIdByCurrentUser();
+        verify(orderItemBulkRepository, times(1)).addQuantity(activeOrderId, product, 5);
+        verify(orderService, times(1)).applyTotalsDelta(activeOrderId,
+                orderItem.getUnitPrice().multiply(BigDecimal.valueOf(5)), 5);
+        verify(orderItemBulkRepository, never()).addQuantity(paidOrderId, product, 5);
+        verify(orderService, never()).applyTotalsDelta(eq(paidOrderId), any(BigDecimal.class), anyInt());
     }
 
     @Test
-    void givenNoOrder_whenCreate_thenThrowResourceNotFoundException() {
-        when(orderService.findOrCreateActiveOrderByCurrentUser()).thenThrow(ResourceNotFoundException.class);
+    void givenNewActiveOrderNoLongerActive_whenCreate_thenThrowInvalidOrderException() {
+        UUID paidOrderId = UUID.randomUUID();
+        when(productService.findById(orderItemDTO.getProductId()))
+                .thenReturn(product);
+        when(orderService.findOrCreateActiveOrderIdByCurrentUser()).thenReturn(paidOrderId);
+        when(orderService.lockIfActive(paidOrderId)).thenReturn(false);
+
+        assertThrows(InvalidOrderException.class, () -> orderItemService.create(orderItemDTO));
+
+        verify(orderService, times(1)).evictActiveOrderIdOfCurrentUser();
+        verifyNoInteractions(orderItemBulkRepository);
+        verify(orderService, never()).applyTotalsDelta(any(UUID.class), any(BigDecimal.class), anyInt());
+    }
+
+    @Test
+    void givenProductDoesNotExist_whenCreate_thenThrowResourceNotFoundException() {
+        when(productService.findById(orderItemDTO.getProductId()))
+                .thenThrow(ResourceNotFoundException.class);
 
         assertThrows(ResourceNotFoundException.class, () ->
                 orderItemService.create(orderItemDTO));
 
-        verifyAuthentication();
-        verify(orderService, times(1)).findOrCreateActiveOrderByCurrentUser();
-        verify(productService, never()).findById(any(UUID.class));
-        verify(orderItemRepository, never()).save(any(OrderItem.class));
+        verify(productService, times(1)).findById(orderItemDTO.getProductId());
+        verify(orderService, never()).findOrCreateActiveOrderIdByCurrentUser();
+        verify(orderService, never()).applyTotalsDelta(any(UUID.class), any(BigDecimal.class), anyInt());
+        verifyNoInteractions(orderItemBulkRepository);
     }
 
     @Test
-    void givenOrderDoesNotBelongToUser_whenCreate_thenThrowUnauthorizedAccessException() {
-        User user2 = mock(User.class);
-        when(user2.getId()).thenReturn(UUID.randomUUID());
-        when(authentication.getPrincipal()).thenReturn(user2);
-        when(orderService.findOrCreateActiveOrderByCurrentUser()).thenReturn(order);
+    void givenOperations_whenApplyCartOperations_thenWriteOneChangePerProductAndReturnCart() {
+        UUID orderId = order.getId();
+        UUID added = new UUID(0, 1);
+        UUID set = new UUID(0, 2);
+        UUID readded = new UUID(0, 3);
+        UUID cleared = new UUID(0, 4);
+        UUID removed = new UUID(0, 5);
+        when(orderService.findOrCreateActiveOrderIdByCurrentUser()).thenReturn(orderId);
+        when(orderService.lockIfActive(orderId)).thenReturn(true);
+        when(orderItemBulkRepository.upsertLines(eq(orderId), anyList())).thenReturn(new int[]{1, 1, 1});
+        when(orderService.findById(orderId)).thenReturn(order);
+
+        Order result = orderItemService.applyCartOperations(List.of(
+                new CartOperationDTO(CartOperationType.REMOVE, removed, 0),
+                new CartOperationDTO(CartOperationType.ADD, added, 2),
+                new CartOperationDTO(CartOperationType.SET, set, 4),
+                new CartOperationDTO(CartOperationType.REMOVE, readded, 0),
+                new CartOperationDTO(CartOperationType.ADD, added, 3),
+                new CartOperationDTO(CartOperationType.ADD, set, 1),
+                new CartOperationDTO(CartOperationType.SET, cleared, 0),
+                new CartOperationDTO(CartOperationType.ADD, readded, 2)));
+
+        assertEquals(order, result);
+
+        InOrder inOrder = inOrder(orderItemBulkRepository, orderService);
+        inOrder.verify(orderService, times(1)).lockIfActive(orderId);
+        inOrder.verify(orderItemBulkRepository, times(1)).upsertLines(orderId, List.of(
+                new CartOperationDTO(CartOperationType.ADD, added, 5),
+                new CartOperationDTO(CartOperationType.SET, set, 5),
+                new CartOperationDTO(CartOperationType.SET, readded, 2)));
+        inOrder.verify(orderItemBulkRepository, times(1)).deleteLines(orderId, List.of(cleared, removed));
+        inOrder.verify(orderService, times(1)).recomputeTotals(orderId);
+        verify(orderService, never()).evictActiveOrderIdOfCurrentUser();
+        verify(orderService, never()).applyTotalsDelta(any(UUID.class), any(BigDecimal.class), anyInt());
+    }
 
-        assertThrows(UnauthorizedAccessException.class, () ->
-                orderItemService.create(orderItemDTO));
+    @Test
+    void givenCachedOrderNoLongerActive_whenApplyCartOperations_thenEvictItAndUseNewActiveOrder() {
+        UUID paidOrderId = UUID.randomUUID();
+        UUID activeOrderId = order.getId();
+        when(orderService.findOrCreateActiveOrderIdByCurrentUser()).thenReturn(paidOrderId, activeOrderId);
+        when(orderService.lockIfActive(paidOrderId)).thenReturn(false);
+        when(orderService.findById(activeOrderId)).thenReturn(order);
+
+        orderItemService.applyCartOperations(
+                List.of(new CartOperationDTO(CartOperationType.REMOVE, product.getId(), 0)));
+
+        verify(orderService, times(1)).evictActiveOrderIdOfCurrentUser();
+        verify(orderItemBulkRepository, times(1)).deleteLines(activeOrderId, List.of(product.getId()));
+        verify(orderService, times(1)).recomputeTotals(activeOrderId);
+        verify(orderItemBulkRepository, never()).deleteLines(eq(paidOrderId), anyList());
+    }
 
-        verifyAuthentication();
-        verify(orderService, times(1)).findOrCreateActiveOrderByCurrentUser();
-        verify(productService, never()).findById(any(UUID.class));
-        verify(orderItemRepository, never()).save(any(OrderItem.class));
+    @Test
+    void givenMissingProduct_whenApplyCartOperations_thenThrowResourceNotFoundException() {
+        UUID orderId = order.getId();
+        UUID missing = UUID.randomUUID();
+        when(orderService.findOrCreateActiveOrderIdByCurrentUser()).thenReturn(orderId);
+        when(orderService.lockIfActive(orderId)).thenReturn(true);
+        when(orderItemBulkRepository.upsertLines(eq(orderId), anyList())).thenReturn(new int[]{0});
+
+        assertThrows(ResourceNotFoundException.class, () -> orderItemService.applyCartOperations(
+                List.of(new CartOperationDTO(CartOperationType.ADD, missing, 1))));
+
+        verify(orderItemBulkRepository, never()).deleteLines(any(UUID.class), anyList());
+        verify(orderService, never()).recomputeTotals(any(UUID.class));
+    }
+
+    @Test
+    void givenOrderPaidDuringOperations_whenApplyCartOperations_thenThrowInvalidOrderException() {
+        UUID orderId = order.getId();
+        when(orderService.findOrCreateActiveOrderIdByCurrentUser()).thenReturn(orderId);
+        when(orderService.lockIfActive(orderId)).thenReturn(true);
+        when(orderItemBulkRepository.upsertLines(eq(orderId), anyList())).thenReturn(new int[]{1});
+        doThrow(InvalidOrderException.class).when(orderService).recomputeTotals(orderId);
+
+        assertThrows(InvalidOrderException.class, () -> orderItemService.applyCartOperations(
+                List.of(new CartOperationDTO(CartOperationType.ADD, product.getId(), 1))));
+
+        verify(orderService, never()).findById(orderId);
     }
 
     @Test
@@ -203,8 +306,9 @@ class OrderItemServiceTest extends ApplicationConfigTest {
     }
 
     @Test
-    void givenValidIdAndOrderItemDTO_whenUpdate_thenReturnUpdatedOrderItem() {
-        when(orderItemRepository.getReferenceById(orderItem.getId())).thenReturn(orderItem);
+    void givenValidIdAndOrderItemDTO_whenUpdate_thenReturnUpdatedOrderItemAndApplyQuantityDifference() {
+        orderItem.setQuantity(2);
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.of(orderItem));
         when(orderItemRepository.save(orderItem)).thenReturn(orderItem);
 
         orderItemDTO = OrderItemDTO.builder().quantity(5).build();
@@ -214,22 +318,36 @@ class OrderItemServiceTest extends ApplicationConfigTest {
         assertEquals(orderItemDTO.getQuantity(), result.getQuantity());
 
         verifyAuthentication();
-        verify(orderItemRepository, times(1)).getReferenceById(orderItem.getId());
+        InOrder inOrder = inOrder(orderService, orderItemRepository);
+        inOrder.verify(orderService, times(1)).lockIfActive(order.getId());
+        inOrder.verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
         verify(orderItemRepository, times(1)).save(orderItem);
+        verify(orderService, times(1)).applyTotalsDelta(order.getId(),
+                orderItem.getUnitPrice().multiply(BigDecimal.valueOf(3)), 3);
+    }
+
+    @Test
+    void givenOrderNoLongerActive_whenUpdate_thenThrowInvalidOrderException() {
+        when(orderService.lockIfActive(order.getId())).thenReturn(false);
+
+        assertThrows(InvalidOrderException.class,
+                () -> orderItemService.update(orderItem.getId(), orderItemDTO));
+
+        verify(orderItemRepository, never()).findByIdForUpdate(orderItem.getId());
+        verify(orderItemRepository, never()).save(orderItem);
+        verify(orderService, never()).applyTotalsDelta(any(UUID.class), any(BigDecimal.class), anyInt());
     }
 
     @Test
     void givenNoOrderItem_whenUpdate_thenThrowResourceNotFoundException() {
-        when(orderItemRepository.getReferenceById(orderItem.getId())).thenReturn(orderItem);
-        when(orderItemRepository.save(orderItem))
-                .thenThrow(EntityNotFoundException.class);
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> orderItemService.update(orderItem.getId(), orderItemDTO));
 
-        verifyAuthentication();
-        verify(orderItemRepository, times(1)).getReferenceById(orderItem.getId());
-        verify(orderItemRepository, times(1)).save(orderItem);
+        verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
+        verify(orderItemRepository, never()).save(orderItem);
+        verify(orderService, never()).applyTotalsDelta(any(UUID.class), any(BigDecimal.class), anyInt());
     }
 
     @Test
@@ -238,31 +356,59 @@ class OrderItemServiceTest extends ApplicationConfigTest {
         when(user2.getId()).thenReturn(UUID.randomUUID());
 
         when(authentication.getPrincipal()).thenReturn(user2);
-        when(orderItemRepository.getReferenceById(orderItem.getId())).thenReturn(orderItem);
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.of(orderItem));
         when(orderItemRepository.save(orderItem)).thenReturn(orderItem);
 
         assertThrows(UnauthorizedAccessException.class,
                 () -> orderItemService.update(orderItem.getId(), orderItemDTO));
 
         verifyAuthentication();
-        verify(orderItemRepository, times(1)).getReferenceById(orderItem.getId());
+        verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
         verify(orderItemRepository, never()).save(orderItem);
+        verify(orderService, never()).applyTotalsDelta(any(UUID.class), any(BigDecimal.class), anyInt());
     }
 
     @Test
-    void givenOrderItem_whenDelete_thenDeleteOrderItem() {
-        when(orderItemRepository.getReferenceById(orderItem.getId())).thenReturn(orderItem);
+    void givenOrderItem_whenDelete_thenDeleteOrderItemAndSubtractItsTotal() {
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.of(orderItem));
 
         orderItemService.delete(orderItem.getId());
 
         verifyAuthentication();
-        verify(orderItemRepository, times(1)).getReferenceById(orderItem.getId());
+        InOrder inOrder = inOrder(orderService, orderItemRepository);
+        inOrder.verify(orderService, times(1)).lockIfActive(order.getId());
+        inOrder.verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
         verify(orderItemRepository, times(1)).deleteById(orderItem.getId());
+        verify(orderService, times(1)).applyTotalsDelta(order.getId(),
+                orderItem.getItemTotal().negate(), -orderItem.getQuantity());
+    }
+
+    @Test
+    void givenNoOrderItemOrder_whenDelete_thenThrowResourceNotFoundException() {
+        when(orderItemRepository.findOrderIdById(orderItem.getId())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> orderItemService.delete(orderItem.getId()));
+
+        verify(orderService, never()).lockIfActive(any(UUID.class));
+        verify(orderItemRepository, never()).deleteById(orderItem.getId());
     }
 
     @Test
     void givenNoOrderItem_whenDelete_thenThrowResourceNotFoundException() {
-        when(orderItemRepository.getReferenceById(orderItem.getId())).thenReturn(orderItem);
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> orderItemService.delete(orderItem.getId()));
+
+        verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
+        verify(orderItemRepository, never()).deleteById(orderItem.getId());
+        verify(orderService, never()).applyTotalsDelta(any(UUID.class), any(BigDecimal.class), anyInt());
+    }
+
+    @Test
+    void givenOrderItemDeletedConcurrently_whenDelete_thenThrowResourceNotFoundException() {
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.of(orderItem));
         doThrow(EmptyResultDataAccessException.class)
                 .when(orderItemRepository).deleteById(orderItem.getId());
 
@@ -270,13 +416,13 @@ class OrderItemServiceTest extends ApplicationConfigTest {
                 () -> orderItemService.delete(orderItem.getId()));
 
         verifyAuthentication();
-        verify(orderItemRepository, times(1)).getReferenceById(orderItem.getId());
+        verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
         verify(orderItemRepository, times(1)).deleteById(orderItem.getId());
     }
 
     @Test
     void givenOrderItemAndDeleteCausesDataIntegrityViolationException_whenDelete_thenThrowDatabaseException() {
-        when(orderItemRepository.getReferenceById(orderItem.getId())).thenReturn(orderItem);
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.of(orderItem));
         doThrow(DataIntegrityViolationException.class)
                 .when(orderItemRepository).deleteById(orderItem.getId());
 
@@ -284,7 +430,7 @@ class OrderItemServiceTest extends ApplicationConfigTest {
                 () -> orderItemService.delete(orderItem.getId()));
 
         verifyAuthentication();
-        verify(orderItemRepository, times(1)).getReferenceById(orderItem.getId());
+        verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
         verify(orderItemRepository, times(1)).deleteById(orderItem.getId());
     }
 
@@ -294,13 +440,13 @@ class OrderItemServiceTest extends ApplicationConfigTest {
         when(user2.getId()).thenReturn(UUID.randomUUID());
 
         when(authentication.getPrincipal()).thenReturn(user2);
-        when(orderItemRepository.getReferenceById(orderItem.getId())).thenReturn(orderItem);
+        when(orderItemRepository.findByIdForUpdate(orderItem.getId())).thenReturn(Optional.of(orderItem));
 
         assertThrows(UnauthorizedAccessException.class,
                 () -> orderItemService.delete(orderItem.getId()));
 
         verifyAuthentication();
-        verify(orderItemRepository, times(1)).getReferenceById(orderItem.getId());
+        verify(orderItemRepository, times(1)).findByIdForUpdate(orderItem.getId());
         verify(orderItemRepository, never()).deleteById(orderItem.getId());
     }
 
@@ -4,12 +4,12 @@ import com.example.demo.ApplicationConfigTest;
 import com.example.demo.dtos.OrderHistoryDTO;
 import com.example.demo.entities.Order;
 import com.example.demo.entities.OrderHistory;
-import com.example.demo.entities.OrderItem;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Customer;
 import com.example.demo.entities.user.User;
 import com.example.demo.enums.CreditCard;
 import com.example.demo.enums.OrderStatus;
+import com.example.demo.repositories.OrderBulkRepository;
 import com.example.demo.repositories.OrderRepository;
 import com.example.demo.repositories.UserRepository;
 import com.example.demo.services.exceptions.*;
@@ -35,6 +35,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -47,6 +48,9 @@ class OrderServiceTest extends ApplicationConfigTest {
     @MockBean
     private OrderRepository orderRepository;
 
+    @MockBean
+    private OrderBulkRepository orderBulkRepository;
+
     @MockBean
     private OrderHistoryService orderHistoryService;
 
@@ -58,7 +62,6 @@ class OrderServiceTest extends ApplicationConfigTest {
 
     private Customer customer = TestDataBuilder.buildCustomerWithId();
     private Order order = TestDataBuilder.buildOrder(customer);
-    private OrderItem mockOrderItem = mock(OrderItem.class);
     private OrderHistory orderHistory = TestDataBuilder.buildOrderHistory(order);
     private Page<Order> orderPage =
             TestDataBuilder.buildPage(order, 0, 5, Sort.Direction.ASC, "name");
@@ -139,28 +142,29 @@ class OrderServiceTest extends ApplicationConfigTest {
 
         verifyNoAuthentication();
         verify(orderRepository, times(1)).findAll(orderPage.getPageable());
+        verify(orderRepository, times(1)).findWithItemsByIdIn(Collections.singletonList(order.getId()));
     }
 
     @Test
     void givenOrder_whenFindById_thenReturnOrder() {
-        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsById(order.getId())).thenReturn(Optional.of(order));
 
         Order result = orderService.findById(order.getId());
 
         assertEquals(order, result);
 
         verifyAuthentication();
-        verify(orderRepository, times(1)).findById(order.getId());
+        verify(orderRepository, times(1)).findWithItemsById(order.getId());
     }
 
     @Test
     void givenNoOrder_whenFindById_thenThrowResourceNotFoundException() {
-        when(orderRepository.findById(order.getId())).thenReturn(Optional.empty());
+        when(orderRepository.findWithItemsById(order.getId())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> orderService.findById(order.getId()));
 
         verifyAuthentication();
-        verify(orderRepository, times(1)).findById(order.getId());
+        verify(orderRepository, times(1)).findWithItemsById(order.getId());
     }
 
     @Test
@@ -169,63 +173,65 @@ class OrderServiceTest extends ApplicationConfigTest {
         when(customerMock.getId()).thenReturn(UUID.randomUUID());
         Order orderMock = mock(Order.class);
         when(orderMock.getCustomer()).thenReturn(customerMock);
-        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(orderMock));
+        when(orderRepository.findWithItemsById(order.getId())).thenReturn(Optional.of(orderMock));
 
         assertThrows(UnauthorizedAccessException.class,
                 () -> orderService.findById(order.getId()));
 
         verifyAuthentication();
-        verify(orderRepository, times(1)).findById(order.getId());
+        verify(orderRepository, times(1)).findWithItemsById(order.getId());
     }
 
     @Test
     void givenOrder_whenFindActiveOrderByCurrentUser_thenReturnOrder() {
-        when(orderRepository.findActiveOrderByCurrentUser(customer)).thenReturn(Optional.of(order));
+        when(orderRepository.findActiveOrderWithItemsByCustomer(customer)).thenReturn(Optional.of(order));
 
         Order result = orderService.findActiveOrderByCurrentUser();
 
         assertEquals(order, result);
 
         verifyAuthentication();
-        verify(orderRepository, times(1)).findActiveOrderByCurrentUser(customer);
+        verify(orderRepository, times(1)).findActiveOrderWithItemsByCustomer(customer);
     }
 
     @Test
     void givenNoOrder_whenFindActiveOrderByCurrentUser_thenThrowResourceNotFoundException() {
-        when(orderRepository.findActiveOrderByCurrentUser(customer)).thenReturn(Optional.empty());
+        when(orderRepository.findActiveOrderWithItemsByCustomer(customer)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> orderService.findActiveOrderByCurrentUser());
 
         verifyAuthentication();
-        verify(orderRepository, times(1)).findActiveOrderByCurrentUser(customer);
+        verify(orderRepository, times(1)).findActiveOrderWithItemsByCustomer(customer);
     }
 
     @Test
-    void givenOrder_whenFindOrCreateActiveOrderByCurrentUser_thenReturnorder() {
-        when(orderRepository.findActiveOrderByCurrentUser(customer)).thenReturn(Optional.of(order));
+    void givenActiveOrderId_whenFindOrCreateActiveOrderIdByCurrentUserTwice_thenLookItUpOnce() {
+        UUID orderId = UUID.randomUUID();
+        when(orderBulkRepository.findOrCreateActiveOrderId(customer.getId())).thenReturn(orderId);
 
-        Order result = orderService.findOrCreateActiveOrderByCurrentUser();
+        UUID first = orderService.findOrCreateActiveOrderIdByCurrentUser();
+        UUID second = orderService.findOrCreateActiveOrderIdByCurrentUser();
 
-        assertEquals(order, result);
+        assertEquals(orderId, first);
+        assertEquals(orderId, second);
 
-        verifyAuthentication();
-        verify(orderRepository, times(1)).findActiveOrderByCurrentUser(customer);
-        verifyNoMoreInteractions(orderRepository);
+        verify(orderBulkRepository, times(1)).findOrCreateActiveOrderId(customer.getId());
+        verifyNoInteractions(orderRepository);
     }
 
     @Test
-    void givenNoOrder_whenFindOrCreateActiveOrderByCurrentUser_thenCreateAndReturnNewOrder() {
-        when(orderRepository.findActiveOrderByCurrentUser(customer)).thenReturn(Optional.empty());
-        when(orderRepository.save(any(Order.class))).thenReturn(order);
-
-        Order result = orderService.findOrCreateActiveOrderByCurrentUser();
-
-        assertEquals(order, result);
-
-        verify(authentication, times(2)).getPrincipal();
-        verify(securityContext, times(2)).getAuthentication();
-        verify(orderRepository, times(2)).findActiveOrderByCurrentUser(customer);
-        verify(orderRepository, times(1)).save(any(Order.class));
+    void givenCachedActiveOrderId_whenEvictActiveOrderIdOfCurrentUser_thenLookItUpAgain() {
+        UUID paidOrderId = UUID.randomUUID();
+        UUID newOrderId = UUID.randomUUID();
+        when(orderBulkRepository.findOrCreateActiveOrderId(customer.getId()))
+                .thenReturn(paidOrderId, newOrderId);
+        orderService.findOrCreateActiveOrderIdByCurrentUser();
+
+        orderService.evictActiveOrderIdOfCurrentUser();
+        UUID result = orderService.findOrCreateActiveOrderIdByCurrentUser();
+
+        assertEquals(newOrderId, result);
+        verify(orderBulkRepository, times(2)).findOrCreateActiveOrderId(customer.getId());
     }
 
     @Test
@@ -320,9 +326,54 @@ class OrderServiceTest extends ApplicationConfigTest {
         verify(orderRepository, times(1)).deleteById(order.getId());
     }
 
+    @Test
+    void givenActiveOrder_whenRecomputeTotals_thenRecomputeThem() {
+        UUID orderId = UUID.randomUUID();
+        when(orderBulkRepository.recomputeTotalsIfActive(orderId)).thenReturn(true);
+
+        orderService.recomputeTotals(orderId);
+
+        verify(orderBulkRepository, times(1)).recomputeTotalsIfActive(orderId);
+    }
+
+    @Test
+    void givenOrderNoLongerActive_whenRecomputeTotals_thenThrowInvalidOrderException() {
+        UUID orderId = UUID.randomUUID();
+        when(orderBulkRepository.recomputeTotalsIfActive(orderId)).thenReturn(false);
+
+        InvalidOrderException invalidOrderException = assertThrows(InvalidOrderException.class,
+                () -> orderService.recomputeTotals(orderId));
+
+        assertEquals("Invalid order: The active order changed", invalidOrderException.getMessage());
+    }
+
+    @Test
+    void givenOrder_whenApplyTotalsDelta_thenUpdateTotalsWithoutLoadingOrder() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.applyTotalsDelta(orderId, BigDecimal.TEN, 2)).thenReturn(1);
+
+        orderService.applyTotalsDelta(orderId, BigDecimal.TEN, 2);
+
+        verify(orderRepository, times(1)).applyTotalsDelta(orderId, BigDecimal.TEN, 2);
+        verify(orderRepository, never()).findById(orderId);
+    }
+
+    @Test
+    void givenOrderNoLongerActive_whenApplyTotalsDelta_thenThrowInvalidOrderException() {
+        UUID orderId = UUID.randomUUID();
+        when(orderRepository.applyTotalsDelta(orderId, BigDecimal.TEN, 2)).thenReturn(0);
+
+        InvalidOrderException invalidOrderException = assertThrows(InvalidOrderException.class,
+                () -> orderService.applyTotalsDelta(orderId, BigDecimal.TEN, 2));
+
+        assertEquals("Invalid order: The active order changed", invalidOrderException.getMessage());
+
+        verify(orderRepository, times(1)).applyTotalsDelta(orderId, BigDecimal.TEN, 2);
+    }
+
     @Test
     void givenOrderWithItems_whenCheckUserOrder_thenDoNothing() {
-        order.setItems(Collections.singletonList(mockOrderItem));
+        order.setItemCount(1);
         when(orderRepository.findActiveOrderByCurrentUser(customer)).thenReturn(Optional.of(order));
 
         orderService.checkUserOrder();
@@ -377,6 +428,20 @@ class OrderServiceTest extends ApplicationConfigTest {
         verify(orderRepository, times(1)).save(order);
     }
 
+    @Test
+    void givenCachedActiveOrderId_whenMoveOrderToHistory_thenEvictIt() {
+        UUID paidOrderId = UUID.randomUUID();
+        when(orderBulkRepository.findOrCreateActiveOrderId(customer.getId()))
+                .thenReturn(paidOrderId, UUID.randomUUID());
+        when(orderRepository.findActiveOrderByCurrentUser(customer)).thenReturn(Optional.of(order));
+        when(orderHistoryService.create(any(OrderHistoryDTO.class))).thenReturn(orderHistory);
+        orderService.findOrCreateActiveOrderIdByCurrentUser();
+
+        orderService.moveOrderToHistory(CreditCard.pm_card_visa, BigDecimal.ONE);
+
+        assertNotEquals(paidOrderId, orderService.findOrCreateActiveOrderIdByCurrentUser());
+    }
+
     @Test
     void givenNoActiveOrder_whenMoveOrderToHistory_thenThrowResourceNotFoundException() {
         when(orderRepository.findActiveOrderByCurrentUser(customer)).thenReturn(Optional.empty());
@@ -0,0 +1,535 @@
+package com.example.demo.services;
+
+import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.CategoryStatisticsDTO;
+import com.example.demo.dtos.PriceBucketFacetDTO;
+import com.example.demo.dtos.ProductFacetsDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductSuggestionDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductChangeType;
+import com.example.demo.events.ProductChangedEvent;
+import com.example.demo.repositories.ProductBulkRepository;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.projections.CategoryPriceStatistics;
+import com.example.demo.services.catalog.ProductCatalogSnapshot;
+import com.example.demo.utils.TestDataBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductCatalogServiceTest extends ApplicationConfigTest {
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @MockBean
+    private ProductBulkRepository productBulkRepository;
+
+    @MockBean
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductSuggestionService productSuggestionService;
+
+    private Seller seller = (Seller) TestDataBuilder.buildUserWithId();
+    private List<ProductSummaryDTO> products = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void loadSnapshot() {
+        doAnswer(invocation -> {
+            Consumer<ProductSummaryDTO> action = invocation.getArgument(1);
+            products.forEach(action);
+            return null;
+        }).when(productBulkRepository).forEachSummary(any(Specification.class), any(Consumer.class));
+        productCatalogService.load();
+    }
+
+    private ProductSummaryDTO buildSummary(UUID id, String price, ProductCategory category) {
+        Product product = TestDataBuilder.buildProductWithId(seller);
+        product.setId(id);
+        product.setPrice(new BigDecimal(price));
+        product.setCategory(category);
+        return ProductSummaryDTO.from(product);
+    }
+
+    private ProductSummaryDTO create(UUID id, String price, ProductCategory category) {
+        ProductSummaryDTO summary = buildSummary(id, price, category);
+        productCatalogService.onProductChanged(ProductChangedEvent.saved(ProductChangeType.CREATED, summary));
+        return summary;
+    }
+
+    private List<UUID> ids(List<ProductSummaryDTO> summaries) {
+        return summaries.stream().map(ProductSummaryDTO::getId).toList();
+    }
+
+    @Test
+    void givenProductsInDatabase_whenLoad_thenPublishSnapshotWithThem() {
+        products.add(buildSummary(UUID.randomUUID(), "10.00", ProductCategory.BOOKS));
+        products.add(buildSummary(UUID.randomUUID(), "20.00", ProductCategory.TOYS));
+
+        productCatalogService.load();
+
+        assertEquals(2, productCatalogService.current().size());
+    }
+
+    @Test
+    void givenSavedSnapshot_whenLoad_thenPublishSavedProductsAndCatchUp(@TempDir Path directory) {
+        ProductSummaryDTO kept = buildSummary(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductSummaryDTO deleted = buildSummary(UUID.randomUUID(), "20.00", ProductCategory.TOYS);
+        ProductSummaryDTO created = buildSummary(UUID.randomUUID(), "30.00", ProductCategory.TOYS);
+        ReflectionTestUtils.setField(productCatalogService, "snapshotFile",
+                directory.resolve("catalog.bin").toString());
+        try {
+            products.addAll(List.of(kept, deleted));
+            productCatalogService.load();
+
+            // only changes after the saved high-water mark are read back
+            products.clear();
+            products.add(created);
+            when(productBulkRepository.findAllIds()).thenReturn(Set.of(kept.getId(), created.getId()));
+            productCatalogService.load();
+        } finally {
+            ReflectionTestUtils.setField(productCatalogService, "snapshotFile", "");
+        }
+
+        assertEquals(List.of(kept, created), productCatalogService.current().findPage(new ProductFilterDTO(),
+                PageRequest.of(0, 10, Sort.Direction.ASC, "price")).getContent());
+        verify(productBulkRepository).findAllIds();
+    }
+
+    @Test
+    void givenChangeDuringCatchUp_whenLoad_thenKeepChangeOverRowReadBefore(@TempDir Path directory) {
+        ProductSummaryDTO kept = buildSummary(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductSummaryDTO repriced = buildSummary(kept.getId(), "15.00", ProductCategory.BOOKS);
+        ReflectionTestUtils.setField(productCatalogService, "snapshotFile",
+                directory.resolve("catalog.bin").toString());
+        try {
+            products.add(kept);
+            productCatalogService.load();
+
+            // the catch-up reads the row before the reprice commits, and its event arrives meanwhile
+            when(productBulkRepository.findAllIds()).thenAnswer(invocation -> {
+                productCatalogService.onProductChanged(
+                        ProductChangedEvent.saved(ProductChangeType.UPDATED, repriced));
+                return Set.of(kept.getId());
+            });
+            productCatalogService.load();
+        } finally {
+            ReflectionTestUtils.setField(productCatalogService, "snapshotFile", "");
+        }
+
+        assertEquals(List.of(repriced), productCatalogService.current().findPage(new ProductFilterDTO(),
+                PageRequest.of(0, 10, Sort.Direction.ASC, "price")).getContent());
+    }
+
+    @Test
+    void givenChangesFromAnotherNode_whenRefresh_thenReloadChangedAndDropDeletedProducts() {
+        ProductSummaryDTO kept = buildSummary(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductSummaryDTO deleted = buildSummary(UUID.randomUUID(), "20.00", ProductCategory.TOYS);
+        ProductSummaryDTO repriced = buildSummary(kept.getId(), "15.00", ProductCategory.BOOKS);
+        products.addAll(List.of(kept, deleted));
+        productCatalogService.load();
+
+        products.clear();
+        products.add(repriced);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                productChangeService.record(ProductChangeType.DELETED, List.of(deleted.getId())));
+        productCatalogService.refresh();
+
+        assertEquals(List.of(repriced), productCatalogService.current().findPage(new ProductFilterDTO(),
+                PageRequest.of(0, 10, Sort.Direction.ASC, "price")).getContent());
+        assertEquals(List.of(kept.getId()), productSuggestionService.suggest(kept.getName(), 10).stream()
+                .map(ProductSuggestionDTO::getId).toList());
+    }
+
+    @Test
+    void givenUnreadableSavedSnapshot_whenLoad_thenReadFromDatabase(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("catalog.bin");
+        Files.writeString(file, "not a snapshot");
+        products.add(buildSummary(UUID.randomUUID(), "10.00", ProductCategory.BOOKS));
+        ReflectionTestUtils.setField(productCatalogService, "snapshotFile", file.toString());
+        try {
+            productCatalogService.load();
+        } finally {
+            ReflectionTestUtils.setField(productCatalogService, "snapshotFile", "");
+        }
+
+        assertEquals(1, productCatalogService.current().size());
+        verify(productBulkRepository, never()).findAllIds();
+        assertTrue(Files.size(file) > "not a snapshot".length());
+    }
+
+    @Test
+    void givenProductsInCategories_whenFindPage_thenReturnCategoryMatchesInPriceOrder() {
+        ProductSummaryDTO expensive = create(UUID.randomUUID(), "30.00", ProductCategory.BOOKS);
+        ProductSummaryDTO cheap = create(UUID.randomUUID(), "10.50", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "1.00", ProductCategory.TOYS);
+
+        Page<ProductSummaryDTO> result = productCatalogService.current().findPage(
+                ProductFilterDTO.builder().categories(Set.of(ProductCategory.BOOKS)).build(),
+                PageRequest.of(0, 1, Sort.Direction.ASC, "price"));
+
+        assertEquals(List.of(cheap), result.getContent());
+        assertEquals(2, result.getTotalElements());
+
+        Slice<ProductSummaryDTO> nextPage = productCatalogService.current().findSlice(
+                ProductFilterDTO.builder().categories(Set.of(ProductCategory.BOOKS)).build(),
+                PageRequest.of(1, 1, Sort.Direction.ASC, "price"));
+
+        assertEquals(List.of(expensive), nextPage.getContent());
+        assertFalse(nextPage.hasNext());
+    }
+
+    @Test
+    void givenEqualPrices_whenScrollDescendingFromCursor_thenBreakTiesByUnsignedIdAscending() {
+        UUID lowId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID highId = UUID.fromString("f0000000-0000-0000-0000-000000000000");
+        ProductSummaryDTO highIdProduct = create(highId, "20.00", ProductCategory.BOOKS);
+        ProductSummaryDTO lowIdProduct = create(lowId, "20.00", ProductCategory.BOOKS);
+        ProductSummaryDTO cheaper = create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+        ProductCatalogSnapshot snapshot = productCatalogService.current();
+
+        List<ProductSummaryDTO> firstPage = snapshot.scroll(new ProductFilterDTO(), "price", Sort.Direction.DESC,
+                ScrollPosition.keyset(), 2);
+        List<ProductSummaryDTO> secondPage = snapshot.scroll(new ProductFilterDTO(), "price", Sort.Direction.DESC,
+                ScrollPosition.forward(Map.of("price", new BigDecimal("20.00"), "id", highId)), 2);
+
+        assertEquals(List.of(lowIdProduct, highIdProduct), firstPage);
+        assertEquals(List.of(cheaper), secondPage);
+    }
+
+    @Test
+    void givenFilter_whenScroll_thenApplyEveryCriterion() {
+        ProductSummaryDTO match = create(UUID.randomUUID(), "15.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "25.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "15.00", ProductCategory.TOYS);
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .categories(Set.of(ProductCategory.BOOKS))
+                .minPrice(new BigDecimal("15"))
+                .maxPrice(new BigDecimal("20"))
+                .sellerId(seller.getId())
+                .minRating(0.0)
+                .build();
+
+        List<ProductSummaryDTO> result = productCatalogService.current()
+                .scroll(filter, "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10);
+
+        assertEquals(List.of(match.getId()), ids(result));
+        assertTrue(productCatalogService.current().scroll(
+                ProductFilterDTO.builder().sellerId(UUID.randomUUID()).build(),
+                "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10).isEmpty());
+    }
+
+    @Test
+    void givenUpdatedProduct_whenProductChanged_thenPublishNewSnapshotAndKeepPreviousOneIntact() {
+        ProductSummaryDTO product = create(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductCatalogSnapshot previous = productCatalogService.current();
+        ProductSummaryDTO updated = buildSummary(product.getId(), "99.99", ProductCategory.BOOKS);
+
+        productCatalogService.onProductChanged(ProductChangedEvent.saved(ProductChangeType.UPDATED, updated));
+
+        assertEquals(List.of(updated), productCatalogService.current()
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10));
+        assertEquals(List.of(product), previous
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10));
+    }
+
+    @Test
+    void givenDeletedProduct_whenProductChanged_thenRemoveIt() {
+        ProductSummaryDTO kept = create(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductSummaryDTO deleted = create(UUID.randomUUID(), "20.00", ProductCategory.BOOKS);
+
+        productCatalogService.onProductChanged(ProductChangedEvent.deleted(deleted.getId()));
+
+        assertEquals(1, productCatalogService.current().size());
+        assertEquals(List.of(kept.getId()), ids(productCatalogService.current()
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10)));
+    }
+
+    @Test
+    void givenRatingDeltas_whenApplyRatingDelta_thenRecomputeAverageAndRatingOrder() {
+        ProductSummaryDTO rated = create(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductSummaryDTO unrated = create(UUID.randomUUID(), "20.00", ProductCategory.BOOKS);
+
+        productCatalogService.applyRatingDelta(rated.getId(), 1, 5);
+        productCatalogService.applyRatingDelta(rated.getId(), 1, 2);
+
+        List<ProductSummaryDTO> result = productCatalogService.current()
+                .scroll(new ProductFilterDTO(), "averageRating", Sort.Direction.DESC, ScrollPosition.keyset(), 10);
+
+        assertEquals(List.of(rated.getId(), unrated.getId()), ids(result));
+        assertEquals(2, result.get(0).getRatingCount());
+        assertEquals(3.5, result.get(0).getAverageRating());
+    }
+
+    @Test
+    void givenCachedSortOrder_whenProductsAddedAndUpdated_thenRepairOrderAndKeepPreviousSnapshotIntact() {
+        List<ProductSummaryDTO> created = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            created.add(create(UUID.randomUUID(), (i * 3) + ".00", ProductCategory.BOOKS));
+        }
+        ProductCatalogSnapshot previous = productCatalogService.current();
+        List<ProductSummaryDTO> previousOrder = previous
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.DESC, ScrollPosition.keyset(), 100);
+
+        List<ProductSummaryDTO> expected = new ArrayList<>(created);
+        for (int i = 0; i < 10; i++) {
+            ProductSummaryDTO updated = buildSummary(created.get(i * 4).getId(), (i * 9 + 1) + ".00",
+                    ProductCategory.BOOKS);
+            expected.set(i * 4, updated);
+            expected.add(buildSummary(UUID.randomUUID(), (i * 6 + 2) + ".00", ProductCategory.TOYS));
+        }
+        productCatalogService.putAll(expected);
+        expected.sort(Comparator.comparing(ProductSummaryDTO::getPrice).reversed());
+
+        assertEquals(expected, productCatalogService.current()
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.DESC, ScrollPosition.keyset(), 100));
+        assertEquals(previousOrder, previous
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.DESC, ScrollPosition.keyset(), 100));
+    }
+
+    @Test
+    void givenCachedSortOrders_whenOnlyPriceUpdated_thenReorderByPriceAndKeepRatingOrder() {
+        ProductSummaryDTO cheap = create(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductSummaryDTO expensive = create(UUID.randomUUID(), "20.00", ProductCategory.BOOKS);
+        ProductCatalogSnapshot previous = productCatalogService.current();
+        List<ProductSummaryDTO> ratingOrder = previous
+                .scroll(new ProductFilterDTO(), "averageRating", Sort.Direction.DESC, ScrollPosition.keyset(), 10);
+        previous.scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10);
+
+        ProductSummaryDTO repriced = buildSummary(cheap.getId(), "30.00", ProductCategory.BOOKS);
+        productCatalogService.putAll(List.of(repriced));
+        ProductCatalogSnapshot current = productCatalogService.current();
+
+        assertEquals(List.of(expensive, repriced), current
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10));
+        assertEquals(ratingOrder.stream().map(ProductSummaryDTO::getId).toList(), current
+                .scroll(new ProductFilterDTO(), "averageRating", Sort.Direction.DESC, ScrollPosition.keyset(), 10)
+                .stream().map(ProductSummaryDTO::getId).toList());
+        assertEquals(List.of(cheap, expensive), previous
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10));
+    }
+
+    @Test
+    void givenTwoMutationsOfOneSnapshot_whenPublish_thenAppendWithoutSeeingEachOther() {
+        ProductSummaryDTO existing = create(UUID.randomUUID(), "10.00", ProductCategory.BOOKS);
+        ProductCatalogSnapshot base = productCatalogService.current();
+        ProductSummaryDTO first = buildSummary(UUID.randomUUID(), "20.00", ProductCategory.BOOKS);
+        ProductSummaryDTO second = buildSummary(UUID.randomUUID(), "30.00", ProductCategory.BOOKS);
+
+        ProductCatalogSnapshot.Mutation firstMutation = base.mutate();
+        firstMutation.put(first);
+        ProductCatalogSnapshot withFirst = firstMutation.publish();
+        ProductCatalogSnapshot.Mutation secondMutation = base.mutate();
+        secondMutation.put(second);
+        ProductCatalogSnapshot withSecond = secondMutation.publish();
+
+        assertEquals(List.of(existing), base
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10));
+        assertEquals(List.of(existing, first), withFirst
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10));
+        assertEquals(List.of(existing, second), withSecond
+                .scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 10));
+    }
+
+    @Test
+    void givenFacetsQueried_whenProductOfNewSellerAdded_thenCountItInAppendedBitmaps() {
+        create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+        productCatalogService.facets(null, null, null);
+        Seller otherSeller = (Seller) TestDataBuilder.buildUserWithId();
+        Product product = TestDataBuilder.buildProductWithId(otherSeller);
+        product.setPrice(new BigDecimal("15.00"));
+        product.setCategory(ProductCategory.TOYS);
+
+        productCatalogService.onProductChanged(ProductChangedEvent.saved(ProductChangeType.CREATED,
+                ProductSummaryDTO.from(product)));
+        ProductFacetsDTO facets = productCatalogService.facets(null, otherSeller.getId(), null);
+
+        assertEquals(1, facets.getTotal());
+        assertEquals(Map.of(ProductCategory.TOYS, 1L), facets.getCategories());
+        assertEquals(1, priceBucketCount(facets, PriceBucket.FROM_10_TO_25));
+        assertEquals(2, productCatalogService.facets(null, null, null).getTotal());
+    }
+
+    @Test
+    void givenProductChanges_whenCategoryStatistics_thenDeriveThemFromThePreviousSnapshot() {
+        ProductSummaryDTO cheapBook = create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "15.00", ProductCategory.BOOKS);
+        ProductSummaryDTO toy = create(UUID.randomUUID(), "7.50", ProductCategory.TOYS);
+        ProductCatalogSnapshot previous = productCatalogService.current();
+        List<CategoryStatisticsDTO> before = previous.categoryStatistics();
+
+        // the cheapest book gets pricier, the only toy goes away and a new category shows up
+        productCatalogService.onProductChanged(ProductChangedEvent.saved(ProductChangeType.UPDATED,
+                buildSummary(cheapBook.getId(), "25.00", ProductCategory.BOOKS)));
+        productCatalogService.onProductChanged(ProductChangedEvent.deleted(toy.getId()));
+        create(UUID.randomUUID(), "3.00", ProductCategory.GAMES_AND_PUZZLES);
+
+        assertEquals(List.of(
+                new CategoryStatisticsDTO(ProductCategory.BOOKS, 2, new BigDecimal("15.00"),
+                        new BigDecimal("20.00"), new BigDecimal("25.00")),
+                new CategoryStatisticsDTO(ProductCategory.GAMES_AND_PUZZLES, 1, new BigDecimal("3.00"),
+                        new BigDecimal("3.00"), new BigDecimal("3.00"))
+        ), productCatalogService.categoryStatistics());
+        assertEquals(before, previous.categoryStatistics());
+        assertEquals(2, before.size());
+    }
+
+    @Test
+    void givenNoSnapshot_whenCategoryStatistics_thenAggregateInDatabase() {
+        CategoryPriceStatistics books = mock(CategoryPriceStatistics.class);
+        when(books.getCategory()).thenReturn(ProductCategory.BOOKS);
+        when(books.getProductCount()).thenReturn(3L);
+        when(books.getMinPrice()).thenReturn(new BigDecimal("1.00"));
+        when(books.getAveragePrice()).thenReturn(4.666666);
+        when(books.getMaxPrice()).thenReturn(new BigDecimal("10.00"));
+        when(productRepository.findCategoryStatistics()).thenReturn(List.of(books));
+        ReflectionTestUtils.setField(productCatalogService, "snapshot", null);
+
+        List<CategoryStatisticsDTO> result = productCatalogService.categoryStatistics();
+
+        assertEquals(List.of(new CategoryStatisticsDTO(ProductCategory.BOOKS, 3, new BigDecimal("1.00"),
+                new BigDecimal("4.67"), new BigDecimal("10.00"))), result);
+    }
+
+    @Test
+    void givenNameSort_whenSupportsSort_thenReturnFalse() {
+        assertTrue(ProductCatalogSnapshot.supportsSort("price"));
+        assertFalse(ProductCatalogSnapshot.supportsSort("name"));
+    }
+
+    private long priceBucketCount(ProductFacetsDTO facets, PriceBucket priceBucket) {
+        return facets.getPriceBuckets().stream()
+                .filter(facet -> facet.getBucket() == priceBucket)
+                .mapToLong(PriceBucketFacetDTO::getCount)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void givenSelections_whenFacets_thenCountMatchesAndEveryFacetUnderTheOtherSelections() {
+        create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "15.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "15.00", ProductCategory.TOYS);
+        create(UUID.randomUUID(), "1500.00", ProductCategory.TOYS);
+
+        ProductFacetsDTO facets = productCatalogService.facets(Set.of(ProductCategory.BOOKS), seller.getId(),
+                Set.of(PriceBucket.FROM_10_TO_25));
+
+        assertEquals(1, facets.getTotal());
+        assertEquals(Map.of(ProductCategory.BOOKS, 1L, ProductCategory.TOYS, 1L), facets.getCategories());
+        assertEquals(1, priceBucketCount(facets, PriceBucket.UNDER_10));
+        assertEquals(1, priceBucketCount(facets, PriceBucket.FROM_10_TO_25));
+        assertEquals(0, priceBucketCount(facets, PriceBucket.OVER_1000));
+        assertEquals(PriceBucket.values().length, facets.getPriceBuckets().size());
+    }
+
+    @Test
+    void givenNoSelections_whenFacets_thenCountWholeCatalog() {
+        create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "1500.00", ProductCategory.TOYS);
+
+        ProductFacetsDTO facets = productCatalogService.facets(null, null, null);
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(Map.of(ProductCategory.BOOKS, 1L, ProductCategory.TOYS, 1L), facets.getCategories());
+        assertEquals(1, priceBucketCount(facets, PriceBucket.OVER_1000));
+    }
+
+    @Test
+    void givenUnknownSeller_whenFacets_thenCountNothing() {
+        create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+
+        ProductFacetsDTO facets = productCatalogService.facets(null, UUID.randomUUID(), null);
+
+        assertEquals(0, facets.getTotal());
+        assertTrue(facets.getCategories().isEmpty());
+    }
+
+    @Test
+    void givenCategoryChange_whenFacets_thenCountFromUpdatedBitmaps() {
+        ProductSummaryDTO product = create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "7.00", ProductCategory.BOOKS);
+        productCatalogService.facets(null, null, null);
+
+        productCatalogService.onProductChanged(ProductChangedEvent.saved(ProductChangeType.UPDATED,
+                buildSummary(product.getId(), "50.00", ProductCategory.TOYS)));
+        ProductFacetsDTO facets = productCatalogService.facets(null, null, null);
+
+        assertEquals(Map.of(ProductCategory.BOOKS, 1L, ProductCategory.TOYS, 1L), facets.getCategories());
+        assertEquals(1, priceBucketCount(facets, PriceBucket.UNDER_10));
+        assertEquals(1, priceBucketCount(facets, PriceBucket.FROM_50_TO_100));
+    }
+
+    @Test
+    void givenDeletedProduct_whenFacets_thenCountFromRebuiltBitmaps() {
+        ProductSummaryDTO deleted = create(UUID.randomUUID(), "5.00", ProductCategory.BOOKS);
+        create(UUID.randomUUID(), "50.00", ProductCategory.TOYS);
+        productCatalogService.facets(null, null, null);
+
+        productCatalogService.onProductChanged(ProductChangedEvent.deleted(deleted.getId()));
+        ProductFacetsDTO facets = productCatalogService.facets(null, null, null);
+
+        assertEquals(1, facets.getTotal());
+        assertEquals(Map.of(ProductCategory.TOYS, 1L), facets.getCategories());
+        assertEquals(0, priceBucketCount(facets, PriceBucket.UNDER_10));
+    }
+
+    @Test
+    void givenNoSnapshot_whenFacets_thenSumCountsGroupedInDatabase() {
+        long[][] counts = new long[ProductCategory.values().length][PriceBucket.values().length];
+        counts[ProductCategory.BOOKS.ordinal()][PriceBucket.UNDER_10.ordinal()] = 2;
+        counts[ProductCategory.BOOKS.ordinal()][PriceBucket.FROM_10_TO_25.ordinal()] = 3;
+        counts[ProductCategory.TOYS.ordinal()][PriceBucket.FROM_10_TO_25.ordinal()] = 4;
+        when(productBulkRepository.countByCategoryAndPriceBucket(seller.getId())).thenReturn(counts);
+        ReflectionTestUtils.setField(productCatalogService, "snapshot", null);
+        clearInvocations(productBulkRepository);
+
+        ProductFacetsDTO facets = productCatalogService.facets(Set.of(ProductCategory.BOOKS), seller.getId(),
+                Set.of(PriceBucket.FROM_10_TO_25));
+
+        assertEquals(3, facets.getTotal());
+        assertEquals(Map.of(ProductCategory.BOOKS, 3L, ProductCategory.TOYS, 4L), facets.getCategories());
+        assertEquals(2, priceBucketCount(facets, PriceBucket.UNDER_10));
+        assertEquals(3, priceBucketCount(facets, PriceBucket.FROM_10_TO_25));
+        verify(productBulkRepository, never()).forEachSummary(any(Specification.class), any(Consumer.class));
+    }
+}
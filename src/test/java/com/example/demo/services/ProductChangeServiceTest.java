@@ -0,0 +1,145 @@
+package com.example.demo.services;
+
+import com.example.demo.dtos.ProductChangeFeedDTO;
+import com.example.demo.entities.ProductChange;
+import com.example.demo.enums.ProductChangeType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ProductChangeService.class)
+class ProductChangeServiceTest {
+
+    @Autowired
+    private ProductChangeService productChangeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void givenRecordedChanges_whenFindSince_thenReturnThemInSequenceOrderInBatches() {
+        UUID created = UUID.randomUUID();
+        UUID updated = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        productChangeService.record(ProductChangeType.CREATED, List.of(created));
+        productChangeService.record(ProductChangeType.UPDATED, List.of(updated));
+        productChangeService.record(ProductChangeType.DELETED, List.of(deleted));
+
+        ProductChangeFeedDTO firstBatch = productChangeService.findSince(0, 2);
+        ProductChangeFeedDTO secondBatch = productChangeService.findSince(firstBatch.getNextSince(), 2);
+
+        assertEquals(List.of(created, updated),
+                firstBatch.getChanges().stream().map(ProductChange::getProductId).toList());
+        assertTrue(firstBatch.isHasMore());
+        assertEquals(List.of(deleted), secondBatch.getChanges().stream().map(ProductChange::getProductId).toList());
+        assertEquals(ProductChangeType.DELETED, secondBatch.getChanges().get(0).getType());
+        assertFalse(secondBatch.isHasMore());
+        assertTrue(firstBatch.getChanges().get(0).getSequence() < firstBatch.getChanges().get(1).getSequence());
+    }
+
+    @Test
+    void givenNoNewChanges_whenFindSince_thenKeepSince() {
+        productChangeService.record(ProductChangeType.CREATED, List.of(UUID.randomUUID()));
+        long latest = productChangeService.findSince(0, 100).getNextSince();
+
+        ProductChangeFeedDTO result = productChangeService.findSince(latest, 100);
+
+        assertTrue(result.getChanges().isEmpty());
+        assertEquals(latest, result.getNextSince());
+        assertFalse(result.isHasMore());
+    }
+
+    @Test
+    void givenRecordedChanges_whenFindLatestSequence_thenReturnSequenceOfLastChange() {
+        productChangeService.record(ProductChangeType.CREATED, List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+        long result = productChangeService.findLatestSequence();
+
+        assertEquals(productChangeService.findSince(0, 100).getNextSince(), result);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenConcurrentWriters_whenRecord_thenCommitInSequenceOrder() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long since = productChangeService.findLatestSequence();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> firstWriter = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                productChangeService.record(ProductChangeType.CREATED, List.of(first));
+                recorded.countDown();
+                awaitUninterruptibly(release);
+            }));
+            assertTrue(recorded.await(5, TimeUnit.SECONDS));
+            Future<?> secondWriter = executor.submit(() -> transactionTemplate.executeWithoutResult(status ->
+                    productChangeService.record(ProductChangeType.CREATED, List.of(second))));
+            awaitFeedLockWaiter();
+
+            assertFalse(secondWriter.isDone());
+            assertTrue(productChangeService.findSince(since, 10).getChanges().isEmpty());
+
+            release.countDown();
+            firstWriter.get(5, TimeUnit.SECONDS);
+            secondWriter.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(first, second), productChangeService.findSince(since, 10).getChanges().stream()
+                    .map(ProductChange::getProductId).toList());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM product_changes WHERE sequence > ?", since);
+        }
+    }
+
+    // waits until a transaction is queued on the feed's advisory lock
+    private void awaitFeedLockWaiter() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_locks WHERE locktype = 'advisory' " +
+                "AND NOT granted", Long.class) == 0) {
+            assertTrue(System.nanoTime() < deadline, "The second writer never waited for the feed lock");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void givenNoTransaction_whenRecord_thenThrowIllegalStateException() {
+        assertThrows(IllegalStateException.class,
+                () -> productChangeService.record(ProductChangeType.CREATED, List.of(UUID.randomUUID())));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.services;
+
+import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.ProductDetailDTO;
+import com.example.demo.dtos.SellerSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.Review;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.ReviewRepository;
+import com.example.demo.repositories.projections.RatingCount;
+import com.example.demo.services.exceptions.ResourceNotFoundException;
+import com.example.demo.utils.TestDataBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.example.demo.config.CacheConfig.PRODUCTS_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductDetailServiceTest extends ApplicationConfigTest {
+
+    @Autowired
+    private ProductDetailService productDetailService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private ProductRepository productRepository;
+
+    @MockBean
+    private ReviewRepository reviewRepository;
+
+    private Seller seller = (Seller) TestDataBuilder.buildUserWithId();
+    private Product product = TestDataBuilder.buildProductWithId(seller);
+
+    @BeforeEach
+    void clearProductCache() {
+        cacheManager.getCache(PRODUCTS_CACHE).clear();
+    }
+
+    private RatingCount ratingCount(int rating, long count) {
+        RatingCount ratingCount = mock(RatingCount.class);
+        when(ratingCount.getRating()).thenReturn(rating);
+        when(ratingCount.getCount()).thenReturn(count);
+        return ratingCount;
+    }
+
+    @Test
+    void givenProduct_whenFindById_thenAssembleEveryPartAndTimeThem() {
+        product.setAverageRating(4.5);
+        product.setRatingCount(2);
+        Review review = TestDataBuilder.buildReviewWithId(product, TestDataBuilder.buildCustomerWithId());
+        SellerSummaryDTO sellerSummary = new SellerSummaryDTO(seller.getId(), seller.getName(), 3);
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        when(productRepository.findSellerSummaryByProductId(product.getId())).thenReturn(Optional.of(sellerSummary));
+        when(reviewRepository.findSliceByProductId(any(UUID.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(review)));
+        List<RatingCount> ratingCounts = List.of(ratingCount(4, 1), ratingCount(5, 1));
+        when(reviewRepository.countRatingsByProductId(product.getId())).thenReturn(ratingCounts);
+        long timedProductFetches = meterRegistry.timer(ProductDetailService.FETCH_TIMER, "part", "product").count();
+
+        ProductDetailDTO result = productDetailService.findById(product.getId());
+
+        assertEquals(product, result.getProduct());
+        assertEquals(sellerSummary, result.getSeller());
+        assertEquals(List.of(review), result.getReviews().getContent());
+        assertEquals(4.5, result.getRating().getAverageRating());
+        assertEquals(2, result.getRating().getRatingCount());
+        assertEquals(Map.of(0, 0L, 1, 0L, 2, 0L, 3, 0L, 4, 1L, 5, 1L), result.getRating().getDistribution());
+        assertEquals(timedProductFetches + 1,
+                meterRegistry.timer(ProductDetailService.FETCH_TIMER, "part", "product").count());
+        for (String part : List.of("seller", "reviews", "rating")) {
+            assertTrue(meterRegistry.timer(ProductDetailService.FETCH_TIMER, "part", part).count() > 0);
+        }
+    }
+
+    @Test
+    void givenNoProduct_whenFindById_thenThrowResourceNotFoundException() {
+        UUID id = UUID.randomUUID();
+        when(productRepository.findById(id)).thenReturn(Optional.empty());
+        when(productRepository.findSellerSummaryByProductId(id)).thenReturn(Optional.empty());
+        when(reviewRepository.findSliceByProductId(any(UUID.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        assertThrows(ResourceNotFoundException.class, () -> productDetailService.findById(id));
+    }
+}
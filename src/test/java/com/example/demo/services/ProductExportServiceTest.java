@@ -0,0 +1,100 @@
+package com.example.demo.services;
+
+import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductFileFormat;
+import com.example.demo.repositories.ProductBulkRepository;
+import com.example.demo.services.exceptions.ResourceNotFoundException;
+import com.example.demo.utils.TestDataBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductExportServiceTest extends ApplicationConfigTest {
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ProductBulkRepository productBulkRepository;
+
+    @MockBean
+    private UserService userService;
+
+    private Seller seller = (Seller) TestDataBuilder.buildUserWithId();
+    private Product product = TestDataBuilder.buildProductWithId(seller);
+
+    @SuppressWarnings("unchecked")
+    private void mockSummaries(ProductSummaryDTO... summaries) {
+        doAnswer(invocation -> {
+            Consumer<ProductSummaryDTO> action = invocation.getArgument(1);
+            for (ProductSummaryDTO summary : summaries) {
+                action.accept(summary);
+            }
+            return null;
+        }).when(productBulkRepository).forEachSummary(any(Specification.class), any(Consumer.class));
+    }
+
+    private String write(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void givenProducts_whenExportAsNdjson_thenWriteOneJsonObjectPerLine() throws Exception {
+        ProductSummaryDTO summary = ProductSummaryDTO.from(product);
+        mockSummaries(summary, summary);
+
+        String result = write(productExportService.export(null, null, ProductFileFormat.NDJSON));
+
+        String line = objectMapper.writeValueAsString(summary);
+        assertEquals(line + "\n" + line + "\n", result);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void givenProducts_whenExportAsCsv_thenWriteHeaderAndQuotedRows() throws Exception {
+        product.setName("Quoted \"name\", with comma");
+        mockSummaries(ProductSummaryDTO.from(product));
+
+        String[] lines = write(productExportService.export(null, null, ProductFileFormat.CSV)).split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals("id,name,description,price,category,sellerId,sellerName,averageRating,ratingCount", lines[0]);
+        assertTrue(lines[1].startsWith(product.getId() + ",\"Quoted \"\"name\"\", with comma\","));
+        assertTrue(lines[1].contains("," + product.getCategory() + "," + seller.getId() + ","));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenNonExistingSeller_whenExport_thenThrowResourceNotFoundException() {
+        // the catalog snapshot reads through the same repository when the context starts
+        clearInvocations(productBulkRepository);
+        UUID sellerId = UUID.randomUUID();
+        when(userService.findByIdAndEnsureType(sellerId, Seller.class))
+                .thenThrow(ResourceNotFoundException.class);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> productExportService.export(null, sellerId, ProductFileFormat.NDJSON));
+
+        verify(productBulkRepository, never()).forEachSummary(any(Specification.class), any(Consumer.class));
+    }
+}
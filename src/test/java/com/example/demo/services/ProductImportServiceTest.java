@@ -0,0 +1,228 @@
+package com.example.demo.services;
+
+import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.ProductImportErrorDTO;
+import com.example.demo.dtos.ProductImportReportDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductChangeType;
+import com.example.demo.enums.ProductFileFormat;
+import com.example.demo.repositories.ProductBulkRepository;
+import com.example.demo.services.exceptions.InvalidImportFileException;
+import com.example.demo.utils.TestDataBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceTest extends ApplicationConfigTest {
+
+    private static final String DESCRIPTION = "A description that is long enough";
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductBulkRepository productBulkRepository;
+
+    @MockBean
+    private ProductChangeService productChangeService;
+
+    @MockBean
+    private ProductCatalogService productCatalogService;
+
+    private Seller seller = (Seller) TestDataBuilder.buildUserWithId();
+
+    @BeforeEach
+    void setupSecurityContext() {
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getPrincipal()).thenReturn(seller);
+
+        SecurityContext securityContext = mock(SecurityContext.class);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+
+        SecurityContextHolder.setContext(securityContext);
+    }
+
+    private ProductImportReportDTO importNdjson(String body) throws Exception {
+        return productImportService.importProducts(new StringReader(body), ProductFileFormat.NDJSON);
+    }
+
+    private ProductImportReportDTO importCsv(String body) throws Exception {
+        return productImportService.importProducts(new StringReader(body), ProductFileFormat.CSV);
+    }
+
+    private String ndjsonRow(String name, String price, String category) {
+        return "{\"name\":\"" + name + "\",\"description\":\"" + DESCRIPTION + "\",\"price\":" + price
+                + ",\"category\":\"" + category + "\"}\n";
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Product> capturedProducts() {
+        ArgumentCaptor<List<Product>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productBulkRepository, atLeastOnce()).insertAll(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    @Test
+    void givenValidNdjson_whenImportProducts_thenInsertProductsForCurrentSeller() throws Exception {
+        ProductImportReportDTO result = importNdjson(ndjsonRow("First", "10.50", "BOOKS")
+                + "\n" + ndjsonRow("Second", "3", "TOYS"));
+
+        assertEquals(2, result.getProcessedRows());
+        assertEquals(2, result.getImportedRows());
+        assertEquals(0, result.getRejectedRows());
+        assertTrue(result.getErrors().isEmpty());
+
+        List<Product> products = capturedProducts();
+        assertEquals(List.of("First", "Second"), products.stream().map(Product::getName).toList());
+        assertEquals(new BigDecimal("10.50"), products.get(0).getPrice());
+        assertEquals(ProductCategory.TOYS, products.get(1).getCategory());
+        assertTrue(products.stream().allMatch(product -> product.getId() != null && product.getSeller() == seller));
+        List<ProductSummaryDTO> summaries = products.stream().map(ProductSummaryDTO::from).toList();
+        verify(productCatalogService, times(1)).putAll(summaries);
+        verify(productChangeService, times(1)).record(ProductChangeType.CREATED,
+                products.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void givenInvalidNdjsonRows_whenImportProducts_thenReportThemByLine() throws Exception {
+        ProductImportReportDTO result = importNdjson(ndjsonRow("First", "10", "BOOKS")
+                + "{not json}\n"
+                + ndjsonRow("X", "-1", "BOOKS")
+                + ndjsonRow("Fourth", "1", "NOT_A_CATEGORY"));
+
+        assertEquals(4, result.getProcessedRows());
+        assertEquals(1, result.getImportedRows());
+        assertEquals(3, result.getRejectedRows());
+        assertEquals(List.of(2L, 3L, 4L), result.getErrors().stream().map(ProductImportErrorDTO::getRow).toList());
+        assertTrue(result.getErrors().get(0).getMessages().get(0).startsWith("Malformed JSON"));
+        assertEquals(2, result.getErrors().get(1).getMessages().size());
+    }
+
+    @Test
+    void givenCsvWithQuotedFields_whenImportProducts_thenParseThem() throws Exception {
+        String csv = "category,name,price,description\r\n"
+                + "BOOKS,\"Book, \"\"Deluxe\"\"\",12.00,\"" + DESCRIPTION + "\nwith a second line\"\r\n"
+                + "\r\n"
+                + "TOYS,Toy,abc,\"" + DESCRIPTION + "\"\r\n"
+                + "UNKNOWN,Other,1,short\r\n";
+
+        ProductImportReportDTO result = importCsv(csv);
+
+        assertEquals(3, result.getProcessedRows());
+        assertEquals(1, result.getImportedRows());
+        Product product = capturedProducts().get(0);
+        assertEquals("Book, \"Deluxe\"", product.getName());
+        assertEquals(DESCRIPTION + "\nwith a second line", product.getDescription());
+        assertEquals(List.of(4L, 5L), result.getErrors().stream().map(ProductImportErrorDTO::getRow).toList());
+        assertEquals(List.of("price: must be a number"), result.getErrors().get(0).getMessages());
+        assertEquals(2, result.getErrors().get(1).getMessages().size());
+    }
+
+    @Test
+    void givenCsvWithUnterminatedQuote_whenImportProducts_thenRejectLastRow() throws Exception {
+        ProductImportReportDTO result = importCsv("name,description,price,category\n\"Broken," + DESCRIPTION);
+
+        assertEquals(1, result.getRejectedRows());
+        assertEquals(List.of("Unterminated quoted field"), result.getErrors().get(0).getMessages());
+        verify(productBulkRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void givenCsvWithOverlongField_whenImportProducts_thenRejectRowAndContinue() throws Exception {
+        String overlong = "x".repeat(ProductImportService.MAX_CSV_FIELD_LENGTH + 1);
+        String csv = "name,description,price,category\n"
+                + "Long,\"" + overlong + "\nstill, \"\"quoted\"\"\",1,BOOKS\n"
+                + "Book," + DESCRIPTION + ",1,BOOKS\n";
+
+        ProductImportReportDTO result = importCsv(csv);
+
+        assertEquals(2, result.getProcessedRows());
+        assertEquals(1, result.getImportedRows());
+        assertEquals(List.of(2L), result.getErrors().stream().map(ProductImportErrorDTO::getRow).toList());
+        assertEquals(List.of("Field longer than " + ProductImportService.MAX_CSV_FIELD_LENGTH + " characters"),
+                result.getErrors().get(0).getMessages());
+        assertEquals("Book", capturedProducts().get(0).getName());
+    }
+
+    @Test
+    void givenCsvWithOverlongRecord_whenImportProducts_thenRejectRowAndContinue() throws Exception {
+        String field = "x".repeat(ProductImportService.MAX_CSV_FIELD_LENGTH);
+        String csv = "name,description,price,category\n"
+                + (field + ",").repeat(ProductImportService.MAX_CSV_RECORD_LENGTH / field.length() + 1) + "\n"
+                + "Book," + DESCRIPTION + ",1,BOOKS\n";
+
+        ProductImportReportDTO result = importCsv(csv);
+
+        assertEquals(1, result.getImportedRows());
+        assertEquals(List.of("Record longer than " + ProductImportService.MAX_CSV_RECORD_LENGTH + " characters"),
+                result.getErrors().get(0).getMessages());
+    }
+
+    @Test
+    void givenCsvWithoutRequiredColumn_whenImportProducts_thenThrowInvalidImportFileException() {
+        assertThrows(InvalidImportFileException.class,
+                () -> importCsv("name,description,price\nBook," + DESCRIPTION + ",1\n"));
+
+        verify(productBulkRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void givenMoreRowsThanChunkSize_whenImportProducts_thenInsertInBoundedChunks() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i <= ProductImportService.CHUNK_SIZE; i++) {
+            body.append(ndjsonRow("Product " + i, "1", "BOOKS"));
+        }
+        List<Integer> chunkSizes = new ArrayList<>();
+        doAnswer(invocation -> chunkSizes.add(invocation.<List<Product>>getArgument(0).size()))
+                .when(productBulkRepository).insertAll(anyList());
+
+        ProductImportReportDTO result = importNdjson(body.toString());
+
+        assertEquals(ProductImportService.CHUNK_SIZE + 1, result.getImportedRows());
+        assertEquals(List.of(ProductImportService.CHUNK_SIZE, 1), chunkSizes);
+    }
+
+    @Test
+    void givenChunkRejectedByDatabase_whenImportProducts_thenReportEveryRowOfTheChunk() throws Exception {
+        doThrow(new DataIntegrityViolationException("constraint violated"))
+                .when(productBulkRepository).insertAll(anyList());
+
+        ProductImportReportDTO result = importNdjson(ndjsonRow("First", "1", "BOOKS")
+                + ndjsonRow("Second", "1", "BOOKS"));
+
+        assertEquals(2, result.getProcessedRows());
+        assertEquals(0, result.getImportedRows());
+        assertEquals(2, result.getRejectedRows());
+        assertEquals(List.of(1L, 2L), result.getErrors().stream().map(ProductImportErrorDTO::getRow).toList());
+        verify(productCatalogService, never()).putAll(anyList());
+    }
+
+    @Test
+    void givenMoreErrorsThanReportLimit_whenImportProducts_thenTruncateErrorList() throws Exception {
+        String body = "{}\n".repeat(ProductImportService.MAX_REPORTED_ERRORS + 5);
+
+        ProductImportReportDTO result = importNdjson(body);
+
+        assertEquals(ProductImportService.MAX_REPORTED_ERRORS + 5, result.getRejectedRows());
+        assertEquals(ProductImportService.MAX_REPORTED_ERRORS, result.getErrors().size());
+        assertTrue(result.isErrorsTruncated());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.services;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.utils.TestDataBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductService.findById served from the products cache against the same call with spring.cache.type=none,
+ * where every call reads PostgreSQL. Boots the application against the datasource in application.properties.
+ * Sample time mode reports the p99 next to the mean. Not run by the test suite; build the test classpath and
+ * start the JMH runner:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     org.openjdk.jmh.Main ProductServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private Seller seller;
+    private UUID productId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // arguments, unlike builder properties, override application.properties
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .run("--spring.cache.type=" + cacheType,
+                        "--spring.jpa.show-sql=false",
+                        "--server.port=0",
+                        "--catalog.snapshot.refresh-interval=P1D",
+                        "--logging.level.root=WARN");
+        productService = context.getBean(ProductService.class);
+
+        seller = (Seller) TestDataBuilder.buildUserNoId();
+        seller.setEmail(UUID.randomUUID() + "@benchmark.com");
+        context.getBean(UserRepository.class).save(seller);
+        Product product = context.getBean(ProductRepository.class).save(TestDataBuilder.buildProductNoId(seller));
+        productId = product.getId();
+        productService.findById(productId);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.getBean(ProductRepository.class).deleteById(productId);
+        context.getBean(UserRepository.class).delete(seller);
+        context.close();
+    }
+
+    @Benchmark
+    public Product findById() {
+        return productService.findById(productId);
+    }
+}
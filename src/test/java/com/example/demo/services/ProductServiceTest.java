@@ -1,42 +1,73 @@
 package com.example.demo.services;
 
 import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.CategoryRepriceDTO;
+import com.example.demo.dtos.CursorPageDTO;
+import com.example.demo.dtos.EntityVersionDTO;
+import com.example.demo.dtos.ProductBatchDTO;
 import com.example.demo.dtos.ProductDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductPriceDTO;
+import com.example.demo.dtos.ProductRepriceReportDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
 import com.example.demo.entities.Product;
 import com.example.demo.entities.user.Seller;
 import com.example.demo.entities.user.User;
+import com.example.demo.enums.ProductCategory;
+import com.example.demo.enums.ProductChangeType;
 import com.example.demo.enums.Role;
+import com.example.demo.events.ProductChangedEvent;
+import com.example.demo.repositories.ProductBulkRepository;
 import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.projections.ProductSearchResult;
+import com.example.demo.services.catalog.ProductCatalogSnapshot;
+import com.example.demo.services.exceptions.BatchSizeExceededException;
 import com.example.demo.services.exceptions.DatabaseException;
+import com.example.demo.services.exceptions.InvalidCursorException;
 import com.example.demo.services.exceptions.ResourceNotFoundException;
 import com.example.demo.services.exceptions.UnauthorizedAccessException;
+import com.example.demo.services.utils.ScrollCursor;
+import com.example.demo.services.utils.SingleFlight;
 import com.example.demo.utils.TestDataBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static com.example.demo.config.CacheConfig.PRODUCTS_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+@RecordApplicationEvents
 class ProductServiceTest extends ApplicationConfigTest {
     @Autowired
     private ProductService productService;
@@ -47,14 +78,38 @@ class ProductServiceTest extends ApplicationConfigTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private ProductCatalogService productCatalogService;
+
+    @MockBean
+    private ProductChangeService productChangeService;
+
+    @MockBean
+    private ProductBulkRepository productBulkRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private Authentication authentication;
     private SecurityContext securityContext;
 
     private Seller seller = (Seller) TestDataBuilder.buildUserWithId();
     private Product product = TestDataBuilder.buildProductWithId(seller);
     private ProductDTO productDTO = TestDataBuilder.buildProductDTO();
-    private Page<Product> productPage =
-            TestDataBuilder.buildPage(product, 0, 5, Sort.Direction.ASC, "name");
+    private ProductSummaryDTO productSummary = ProductSummaryDTO.from(product);
+    private Page<ProductSummaryDTO> productPage =
+            TestDataBuilder.buildPage(productSummary, 0, 5, Sort.Direction.ASC, "name");
+    private Slice<ProductSummaryDTO> productSlice =
+            new SliceImpl<>(List.of(productSummary), productPage.getPageable(), true);
 
     @BeforeEach
     void setupSecurityContext() {
@@ -67,6 +122,11 @@ class ProductServiceTest extends ApplicationConfigTest {
         SecurityContextHolder.setContext(securityContext);
     }
 
+    @BeforeEach
+    void clearProductCache() {
+        cacheManager.getCache(PRODUCTS_CACHE).clear();
+    }
+
     private void verifyNoAuthentication() {
         verify(authentication, never()).getPrincipal();
         verify(securityContext, never()).getAuthentication();
@@ -91,9 +151,9 @@ class ProductServiceTest extends ApplicationConfigTest {
 
     @Test
     void givenProducts_whenFindAll_ThenReturnProductPage() {
-        when(productRepository.findAll(any(Pageable.class))).thenReturn(productPage);
+        when(productRepository.findAllSummaries(any(Pageable.class))).thenReturn(productPage);
 
-        Page<Product> result = productService
+        Page<ProductSummaryDTO> result = productService
                 .findAll(productPage.getPageable().getPageNumber(),
                         productPage.getPageable().getPageSize(),
                         productPage.getPageable().getSort().stream().toList().get(0).getDirection(),
@@ -102,7 +162,23 @@ class ProductServiceTest extends ApplicationConfigTest {
         assertEquals(productPage, result);
 
         verifyNoAuthentication();
-        verify(productRepository, times(1)).findAll(productPage.getPageable());
+        verify(productRepository, times(1)).findAllSummaries(productPage.getPageable());
+    }
+
+    @Test
+    void givenProducts_whenFindSliceAll_ThenReturnProductSlice() {
+        when(productRepository.findSliceBy(productPage.getPageable())).thenReturn(productSlice);
+
+        Slice<ProductSummaryDTO> result = productService
+                .findSliceAll(productPage.getPageable().getPageNumber(),
+                        productPage.getPageable().getPageSize(),
+                        Sort.Direction.ASC, "name");
+
+        assertEquals(productSlice, result);
+
+        verifyNoAuthentication();
+        verify(productRepository, times(1)).findSliceBy(productPage.getPageable());
+        verify(productRepository, never()).findAllSummaries(any(Pageable.class));
     }
 
     @Test
@@ -110,7 +186,7 @@ class ProductServiceTest extends ApplicationConfigTest {
         when(productRepository.findByCategory(eq(product.getCategory()),any(Pageable.class)))
                 .thenReturn(productPage);
 
-        Page<Product> result = productService.findByCategory(product.getCategory(),
+        Page<ProductSummaryDTO> result = productService.findByCategory(product.getCategory(),
                 productPage.getPageable().getPageNumber(),
                 productPage.getPageable().getPageSize(),
                 productPage.getPageable().getSort().stream().toList().get(0).getDirection(),
@@ -123,6 +199,234 @@ class ProductServiceTest extends ApplicationConfigTest {
                 .findByCategory(product.getCategory(),productPage.getPageable());
     }
 
+    @Test
+    void givenProducts_whenFindSliceByCategory_ThenReturnProductSlice() {
+        when(productRepository.findSliceByCategory(product.getCategory(), productPage.getPageable()))
+                .thenReturn(productSlice);
+
+        Slice<ProductSummaryDTO> result = productService.findSliceByCategory(product.getCategory(),
+                productPage.getPageable().getPageNumber(),
+                productPage.getPageable().getPageSize(),
+                Sort.Direction.ASC, "name");
+
+        assertEquals(productSlice, result);
+
+        verifyNoAuthentication();
+        verify(productRepository, times(1))
+                .findSliceByCategory(product.getCategory(), productPage.getPageable());
+    }
+
+    private ProductCatalogSnapshot buildSnapshot(ProductSummaryDTO... summaries) {
+        ProductCatalogSnapshot.Builder builder = new ProductCatalogSnapshot.Builder(summaries.length);
+        for (ProductSummaryDTO summary : summaries) {
+            builder.add(summary);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void givenLoadedSnapshotAndPriceSort_whenFindByCategory_thenServeFromSnapshot() {
+        // prices are stored with two decimals, which is also how the snapshot returns them
+        product.setPrice(new BigDecimal("1.00"));
+        productSummary = ProductSummaryDTO.from(product);
+        when(productCatalogService.current()).thenReturn(buildSnapshot(productSummary));
+
+        Page<ProductSummaryDTO> result = productService.findByCategory(product.getCategory(), 0, 5,
+                Sort.Direction.ASC, "price");
+
+        assertEquals(List.of(productSummary), result.getContent());
+        assertEquals(1, result.getTotalElements());
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void givenLoadedSnapshotAndPriceSort_whenScrollByCategory_thenReturnCursorPageFromSnapshot() {
+        product.setPrice(new BigDecimal("1.00"));
+        productSummary = ProductSummaryDTO.from(product);
+        Product other = TestDataBuilder.buildProductWithId(seller);
+        other.setPrice(new BigDecimal("2.00"));
+        when(productCatalogService.current()).thenReturn(buildSnapshot(productSummary, ProductSummaryDTO.from(other)));
+
+        CursorPageDTO<ProductSummaryDTO> result = productService.scrollByCategory(product.getCategory(),
+                null, 1, Sort.Direction.ASC, "price");
+
+        assertEquals(List.of(productSummary), result.getContent());
+        assertTrue(result.isHasNext());
+        assertEquals(ScrollPosition.forward(Map.of("price", product.getPrice(), "id", product.getId())),
+                ScrollCursor.decode(result.getNextCursor(), Product.class, Sort.by("price"), "id"));
+
+        CursorPageDTO<ProductSummaryDTO> nextPage = productService.scrollByCategory(product.getCategory(),
+                result.getNextCursor(), 1, Sort.Direction.ASC, "price");
+
+        assertEquals(List.of(other.getId()), nextPage.getContent().stream().map(ProductSummaryDTO::getId).toList());
+        assertFalse(nextPage.isHasNext());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void givenSnapshotStillLoading_whenScrollAllByPrice_thenQueryRepository() {
+        when(productCatalogService.current()).thenReturn(null);
+        when(productRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(buildWindow(false));
+
+        productService.scrollAll(null, 5, Sort.Direction.ASC, "price");
+
+        verify(productRepository, times(1)).findBy(any(Specification.class), any(Function.class));
+    }
+
+    private Window<Product> buildWindow(boolean hasNext) {
+        return Window.from(List.of(product), index -> ScrollPosition.forward(
+                Map.of("name", product.getName(), "id", product.getId())), hasNext);
+    }
+
+    @Test
+    void givenProducts_whenScrollAll_thenReturnCursorPageWithNextCursor() {
+        when(productRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(buildWindow(true));
+
+        CursorPageDTO<ProductSummaryDTO> result = productService.scrollAll(null, 1, Sort.Direction.ASC, "name");
+
+        assertEquals(List.of(productSummary), result.getContent());
+        assertTrue(result.isHasNext());
+        assertEquals(ScrollPosition.forward(Map.of("name", product.getName(), "id", product.getId())),
+                ScrollCursor.decode(result.getNextCursor(), Product.class, Sort.by("name"), "id"));
+
+        verifyNoAuthentication();
+        verify(productRepository, times(1)).findBy(any(Specification.class), any(Function.class));
+    }
+
+    @Test
+    void givenLastWindow_whenScrollByCategory_thenReturnCursorPageWithoutNextCursor() {
+        when(productRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(buildWindow(false));
+
+        CursorPageDTO<ProductSummaryDTO> result = productService.scrollByCategory(product.getCategory(),
+                null, 5, Sort.Direction.ASC, "name");
+
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+
+        verify(productRepository, times(1)).findBy(any(Specification.class), any(Function.class));
+    }
+
+    @Test
+    void givenSellerId_whenScrollBySeller_thenReturnCursorPage() {
+        when(userService.findByIdAndEnsureType(any(UUID.class), any(Class.class)))
+                .thenReturn(seller);
+        when(productRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(buildWindow(false));
+
+        CursorPageDTO<ProductSummaryDTO> result = productService.scrollBySeller(seller.getId(),
+                null, 5, Sort.Direction.ASC, "name");
+
+        assertEquals(List.of(productSummary), result.getContent());
+
+        verify(userService, times(1)).findByIdAndEnsureType(seller.getId(), Seller.class);
+    }
+
+    @Test
+    void givenFilter_whenScrollByFilter_thenReturnCursorPage() {
+        ProductFilterDTO filter = ProductFilterDTO.builder()
+                .categories(Set.of(product.getCategory()))
+                .maxPrice(product.getPrice())
+                .build();
+        when(productRepository.findBy(any(Specification.class), any(Function.class)))
+                .thenReturn(buildWindow(false));
+
+        CursorPageDTO<ProductSummaryDTO> result = productService.scrollByFilter(filter,
+                null, 5, Sort.Direction.ASC, "name");
+
+        assertEquals(List.of(productSummary), result.getContent());
+        assertFalse(result.isHasNext());
+
+        verifyNoInteractions(userService);
+        verify(productRepository, times(1)).findBy(any(Specification.class), any(Function.class));
+    }
+
+    @Test
+    void givenCursorIssuedForAnotherSort_whenScrollAll_thenThrowInvalidCursorException() {
+        String cursor = ScrollCursor.encode(ScrollPosition.forward(
+                Map.of("price", product.getPrice(), "id", product.getId())));
+
+        assertThrows(InvalidCursorException.class,
+                () -> productService.scrollAll(cursor, 5, Sort.Direction.ASC, "name"));
+
+        verify(productRepository, never()).findBy(any(Specification.class), any(Function.class));
+    }
+
+    private ProductSearchResult buildSearchResult(float rank) {
+        ProductSearchResult result = mock(ProductSearchResult.class);
+        when(result.getId()).thenReturn(UUID.randomUUID());
+        when(result.getName()).thenReturn(product.getName());
+        when(result.getDescription()).thenReturn(product.getDescription());
+        when(result.getPrice()).thenReturn(product.getPrice());
+        when(result.getCategory()).thenReturn(product.getCategory().getCode());
+        when(result.getSellerId()).thenReturn(seller.getId());
+        when(result.getSellerName()).thenReturn(seller.getName());
+        when(result.getAverageRating()).thenReturn(4.5);
+        when(result.getRatingCount()).thenReturn(2L);
+        when(result.getRank()).thenReturn(rank);
+        return result;
+    }
+
+    @Test
+    void givenMoreMatchesThanPageSize_whenSearch_thenReturnFirstPageWithNextCursor() {
+        ProductSearchResult first = buildSearchResult(0.9f);
+        ProductSearchResult second = buildSearchResult(0.5f);
+        when(productRepository.search(eq("sample"), eq((short) 0), eq(Float.POSITIVE_INFINITY), any(UUID.class), eq(2)))
+                .thenReturn(List.of(first, second));
+
+        CursorPageDTO<ProductSummaryDTO> result = productService.search("sample", null, null, 1);
+
+        assertEquals(1, result.getSize());
+        assertEquals(first.getId(), result.getContent().get(0).getId());
+        assertEquals(product.getCategory(), result.getContent().get(0).getCategory());
+        assertTrue(result.isHasNext());
+        assertEquals(ScrollPosition.forward(Map.of("rank", 0.9f, "id", first.getId())),
+                ScrollCursor.decode(result.getNextCursor(), Map.of("rank", Float.class, "id", UUID.class)));
+
+        verifyNoAuthentication();
+    }
+
+    @Test
+    void givenCursorAndCategory_whenSearch_thenResumeAfterCursor() {
+        UUID lastId = UUID.randomUUID();
+        String cursor = ScrollCursor.encode(ScrollPosition.forward(Map.of("rank", 0.5f, "id", lastId)));
+        ProductSearchResult next = buildSearchResult(0.5f);
+        when(productRepository.search("sample", product.getCategory().getCode(), 0.5f, lastId, 6))
+                .thenReturn(List.of(next));
+
+        CursorPageDTO<ProductSummaryDTO> result =
+                productService.search("sample", product.getCategory(), cursor, 5);
+
+        assertEquals(1, result.getSize());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+
+        verify(productRepository, times(1))
+                .search("sample", product.getCategory().getCode(), 0.5f, lastId, 6);
+    }
+
+    @Test
+    void givenCursorIssuedForScroll_whenSearch_thenThrowInvalidCursorException() {
+        String cursor = ScrollCursor.encode(ScrollPosition.forward(
+                Map.of("name", product.getName(), "id", product.getId())));
+
+        assertThrows(InvalidCursorException.class,
+                () -> productService.search("sample", null, cursor, 5));
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void givenMalformedCursor_whenScrollAll_thenThrowInvalidCursorException() {
+        assertThrows(InvalidCursorException.class,
+                () -> productService.scrollAll("not a cursor", 5, Sort.Direction.ASC, "name"));
+
+        verify(productRepository, never()).findBy(any(Specification.class), any(Function.class));
+    }
+
     @Test
     void givenProduct_whenFindById_thenReturnProduct() {
         when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
@@ -145,12 +449,202 @@ class ProductServiceTest extends ApplicationConfigTest {
         verify(productRepository, times(1)).findById(product.getId());
     }
 
+    @Test
+    void givenCachedProduct_whenFindById_thenReturnProductWithoutQueryingRepository() {
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+
+        productService.findById(product.getId());
+        Product result = productService.findById(product.getId());
+
+        assertEquals(product, result);
+
+        verify(productRepository, times(1)).findById(product.getId());
+    }
+
+    @Test
+    void givenCachedProduct_whenFindVersionById_thenReturnVersionWithoutQueryingRepository() {
+        product.setVersion(4);
+        cacheManager.getCache(PRODUCTS_CACHE).put(product.getId(), product);
+
+        EntityVersionDTO result = productService.findVersionById(product.getId());
+
+        assertEquals(new EntityVersionDTO(4, product.getUpdatedAt()), result);
+
+        verify(productRepository, never()).findVersionById(product.getId());
+    }
+
+    @Test
+    void givenUncachedProduct_whenFindVersionById_thenReadVersionColumns() {
+        EntityVersionDTO version = new EntityVersionDTO(1, Instant.now());
+        when(productRepository.findVersionById(product.getId())).thenReturn(Optional.of(version));
+
+        EntityVersionDTO result = productService.findVersionById(product.getId());
+
+        assertEquals(version, result);
+
+        verify(productRepository, times(1)).findVersionById(product.getId());
+        verify(productRepository, never()).findById(product.getId());
+    }
+
+    @Test
+    void givenNoProduct_whenFindVersionById_thenThrowResourceNotFoundException() {
+        when(productRepository.findVersionById(product.getId())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> productService.findVersionById(product.getId()));
+    }
+
+    @Test
+    void givenCachedAndUncachedIds_whenFindAllByIds_thenQueryOnlyUncachedIdsAndKeepRequestOrder() {
+        Product other = TestDataBuilder.buildProductWithId(seller);
+        UUID missingId = UUID.randomUUID();
+        cacheManager.getCache(PRODUCTS_CACHE).put(product.getId(), product);
+        when(productRepository.findAllWithSellerByIdIn(List.of(other.getId(), missingId)))
+                .thenReturn(List.of(other));
+
+        ProductBatchDTO result = productService.findAllByIds(
+                List.of(other.getId(), missingId, product.getId(), other.getId()));
+
+        assertEquals(List.of(other, product), result.getProducts());
+        assertEquals(List.of(missingId), result.getMissingIds());
+        assertEquals(other, cacheManager.getCache(PRODUCTS_CACHE).get(other.getId(), Product.class));
+
+        verifyNoAuthentication();
+        verify(productRepository, times(1)).findAllWithSellerByIdIn(List.of(other.getId(), missingId));
+    }
+
+    @Test
+    void givenAllIdsCached_whenFindAllByIds_thenSkipRepository() {
+        cacheManager.getCache(PRODUCTS_CACHE).put(product.getId(), product);
+
+        ProductBatchDTO result = productService.findAllByIds(List.of(product.getId()));
+
+        assertEquals(List.of(product), result.getProducts());
+        assertTrue(result.getMissingIds().isEmpty());
+
+        verify(productRepository, never()).findAllWithSellerByIdIn(anyCollection());
+    }
+
+    @Test
+    void givenTooManyIds_whenFindAllByIds_thenThrowBatchSizeExceededException() {
+        List<UUID> ids = IntStream.rangeClosed(0, ProductService.MAX_BATCH_SIZE)
+                .mapToObj(i -> UUID.randomUUID())
+                .toList();
+
+        assertThrows(BatchSizeExceededException.class, () -> productService.findAllByIds(ids));
+
+        verify(productRepository, never()).findAllWithSellerByIdIn(anyCollection());
+    }
+
+    @Test
+    void givenCachedProduct_whenUpdate_thenEvictProductFromCache() {
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        when(productRepository.getReferenceById(product.getId())).thenReturn(product);
+        when(productRepository.save(product)).thenReturn(product);
+
+        productService.findById(product.getId());
+        productService.update(product.getId(), productDTO);
+        productService.findById(product.getId());
+
+        verify(productRepository, times(2)).findById(product.getId());
+    }
+
+    @Test
+    void givenCachedProduct_whenDelete_thenEvictProductFromCache() {
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        when(productRepository.getReferenceById(product.getId())).thenReturn(product);
+
+        productService.findById(product.getId());
+        productService.delete(product.getId());
+
+        assertNull(cacheManager.getCache(PRODUCTS_CACHE).get(product.getId()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenPrices_whenReprice_thenReportUpdatedAndRejectedProducts() {
+        UUID foreignId = UUID.randomUUID();
+        ProductPriceDTO ownPrice = new ProductPriceDTO(product.getId(), new BigDecimal("9.99"));
+        ProductPriceDTO foreignPrice = new ProductPriceDTO(foreignId, new BigDecimal("5.00"));
+        when(productBulkRepository.updatePrices(seller.getId(), List.of(ownPrice, foreignPrice)))
+                .thenReturn(new int[]{1, 0});
+        ProductSummaryDTO repriced = ProductSummaryDTO.from(product);
+        repriced.setPrice(new BigDecimal("9.99"));
+        doAnswer(invocation -> {
+            Consumer<ProductSummaryDTO> action = invocation.getArgument(1);
+            action.accept(repriced);
+            return null;
+        }).when(productBulkRepository).forEachSummary(any(Specification.class), any(Consumer.class));
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        productService.findById(product.getId());
+
+        ProductRepriceReportDTO result = productService.reprice(List.of(
+                new ProductPriceDTO(product.getId(), new BigDecimal("1.00")), foreignPrice, ownPrice));
+
+        assertEquals(List.of(ownPrice), result.getUpdated());
+        assertEquals(List.of(foreignId), result.getRejectedIds());
+        assertNull(cacheManager.getCache(PRODUCTS_CACHE).get(product.getId()));
+        verify(productChangeService, times(1)).lockFeed();
+        verify(productChangeService, times(1)).record(ProductChangeType.UPDATED, List.of(product.getId()));
+        verify(productCatalogService, times(1)).putAll(List.of(repriced));
+    }
+
+    @Test
+    void givenCategoryRule_whenRepriceCategory_thenApplyFactorAndReportNewPrices() {
+        when(productBulkRepository.updateCategoryPrices(seller.getId(), ProductCategory.BOOKS,
+                new BigDecimal("0.9000"))).thenReturn(0);
+
+        ProductRepriceReportDTO result = productService.repriceCategory(
+                new CategoryRepriceDTO(ProductCategory.BOOKS, new BigDecimal("-10.00")));
+
+        assertTrue(result.getUpdated().isEmpty());
+        assertTrue(result.getRejectedIds().isEmpty());
+        verify(productBulkRepository, times(1)).updateCategoryPrices(seller.getId(), ProductCategory.BOOKS,
+                new BigDecimal("0.9000"));
+        verify(productChangeService, times(1)).record(ProductChangeType.UPDATED, List.of());
+    }
+
+    @Test
+    void givenCacheMiss_whenFindById_thenLoadThroughProductSingleFlight() {
+        Counter executed = meterRegistry.counter(SingleFlight.LOADS_COUNTER, "name", "product", "outcome", "executed");
+        double executedBefore = executed.count();
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+
+        Product result = productService.findById(product.getId());
+
+        assertEquals(product, result);
+        assertEquals(1, executed.count() - executedBefore);
+        verify(productRepository, times(1)).findById(product.getId());
+    }
+
+    @Test
+    void givenCachedProduct_whenApplyRatingDelta_thenEvictProductFromCache() {
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        when(productRepository.applyRatingDelta(product.getId(), 1, 5)).thenReturn(1);
+
+        productService.findById(product.getId());
+        productService.applyRatingDelta(product.getId(), 1, 5);
+
+        assertNull(cacheManager.getCache(PRODUCTS_CACHE).get(product.getId()));
+        verify(productRepository, times(1)).applyRatingDelta(product.getId(), 1, 5);
+        verify(productCatalogService, times(1)).applyRatingDelta(product.getId(), 1, 5);
+    }
+
+    @Test
+    void givenNoProduct_whenApplyRatingDelta_thenThrowResourceNotFoundException() {
+        when(productRepository.applyRatingDelta(product.getId(), 1, 5)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> productService.applyRatingDelta(product.getId(), 1, 5));
+
+        verify(productRepository, times(1)).applyRatingDelta(product.getId(), 1, 5);
+    }
+
     @Test
     void givenPaging_whenFindByCurrentUser_ThenReturnProductPage() {
         when(productRepository.findAllBySeller(seller, productPage.getPageable()))
                 .thenReturn(productPage);
 
-        Page<Product> result = productService
+        Page<ProductSummaryDTO> result = productService
                 .findByCurrentUser(productPage.getPageable().getPageNumber(),
                         productPage.getPageable().getPageSize(),
                         productPage.getPageable().getSort().stream().toList().get(0).getDirection(),
@@ -162,6 +656,40 @@ class ProductServiceTest extends ApplicationConfigTest {
                 .findAllBySeller(seller, productPage.getPageable());
     }
 
+    @Test
+    void givenPaging_whenFindSliceByCurrentUser_ThenReturnProductSlice() {
+        when(productRepository.findSliceBySeller(seller, productPage.getPageable()))
+                .thenReturn(productSlice);
+
+        Slice<ProductSummaryDTO> result = productService
+                .findSliceByCurrentUser(productPage.getPageable().getPageNumber(),
+                        productPage.getPageable().getPageSize(),
+                        Sort.Direction.ASC, "name");
+
+        assertEquals(productSlice, result);
+
+        verify(productRepository, times(1))
+                .findSliceBySeller(seller, productPage.getPageable());
+    }
+
+    @Test
+    void givenPaging_whenFindSliceBySeller_ThenReturnProductSlice() {
+        when(userService.findByIdAndEnsureType(any(UUID.class), any(Class.class)))
+                .thenReturn(seller);
+        when(productRepository.findSliceBySeller(seller, productPage.getPageable()))
+                .thenReturn(productSlice);
+
+        Slice<ProductSummaryDTO> result = productService
+                .findSliceBySeller(seller.getId(), productPage.getPageable().getPageNumber(),
+                        productPage.getPageable().getPageSize(),
+                        Sort.Direction.ASC, "name");
+
+        assertEquals(productSlice, result);
+
+        verify(productRepository, times(1))
+                .findSliceBySeller(seller, productPage.getPageable());
+    }
+
     @Test
     void givenPaging_whenFindAllBySeller_ThenReturnProductPage() {
         when(userService.findByIdAndEnsureType(any(UUID.class), any(Class.class)))
@@ -169,7 +697,7 @@ class ProductServiceTest extends ApplicationConfigTest {
         when(productRepository.findAllBySeller(seller, productPage.getPageable()))
                 .thenReturn(productPage);
 
-        Page<Product> result = productService
+        Page<ProductSummaryDTO> result = productService
                 .findAllBySeller(seller.getId(), productPage.getPageable().getPageNumber(),
                         productPage.getPageable().getPageSize(),
                         productPage.getPageable().getSort().stream().toList().get(0).getDirection(),
@@ -239,6 +767,89 @@ class ProductServiceTest extends ApplicationConfigTest {
         verify(productRepository, times(1)).deleteById(any(UUID.class));
     }
 
+    @Test
+    void givenValidProductDTO_whenCreate_thenPublishCreatedEvent() {
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+
+        productService.create(productDTO);
+
+        List<ProductChangedEvent> events = applicationEvents.stream(ProductChangedEvent.class).toList();
+        assertEquals(1, events.size());
+        assertEquals(ProductChangeType.CREATED, events.get(0).getType());
+        assertEquals(ProductSummaryDTO.from(product), events.get(0).getProduct());
+        verify(productChangeService, times(1)).record(ProductChangeType.CREATED, List.of(product.getId()));
+    }
+
+    @Test
+    void givenValidIdAndProductDTO_whenUpdate_thenPublishUpdatedEvent() {
+        when(productRepository.getReferenceById(product.getId())).thenReturn(product);
+        when(productRepository.save(product)).thenReturn(product);
+
+        productService.update(product.getId(), productDTO);
+
+        List<ProductChangedEvent> events = applicationEvents.stream(ProductChangedEvent.class).toList();
+        assertEquals(1, events.size());
+        assertEquals(ProductChangeType.UPDATED, events.get(0).getType());
+        assertEquals(productDTO.getName(), events.get(0).getProduct().getName());
+        verify(productChangeService, times(1)).record(ProductChangeType.UPDATED, List.of(product.getId()));
+    }
+
+    @Test
+    void givenProduct_whenDelete_thenPublishDeletedEvent() {
+        when(productRepository.getReferenceById(product.getId())).thenReturn(product);
+
+        productService.delete(product.getId());
+
+        List<ProductChangedEvent> events = applicationEvents.stream(ProductChangedEvent.class).toList();
+        assertEquals(1, events.size());
+        assertEquals(ProductChangeType.DELETED, events.get(0).getType());
+        assertEquals(product.getId(), events.get(0).getProductId());
+        assertNull(events.get(0).getProduct());
+        verify(productChangeService, times(1)).record(ProductChangeType.DELETED, List.of(product.getId()));
+    }
+
+    @Test
+    void givenRolledBackTransaction_whenUpdate_thenKeepCacheAndDoNotPublishEvent() {
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        when(productRepository.getReferenceById(product.getId())).thenReturn(product);
+        when(productRepository.save(product)).thenReturn(product);
+        productService.findById(product.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.update(product.getId(), productDTO);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, applicationEvents.stream(ProductChangedEvent.class).count());
+        assertEquals(product, cacheManager.getCache(PRODUCTS_CACHE).get(product.getId(), Product.class));
+    }
+
+    @Test
+    void givenRolledBackTransaction_whenDelete_thenKeepCacheAndDoNotPublishEvent() {
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        when(productRepository.getReferenceById(product.getId())).thenReturn(product);
+        productService.findById(product.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.delete(product.getId());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, applicationEvents.stream(ProductChangedEvent.class).count());
+        assertEquals(product, cacheManager.getCache(PRODUCTS_CACHE).get(product.getId(), Product.class));
+    }
+
+    @Test
+    void givenNoProduct_whenUpdate_thenDoNotPublishEvent() {
+        when(productRepository.getReferenceById(product.getId())).thenReturn(product);
+        when(productRepository.save(product)).thenThrow(EntityNotFoundException.class);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> productService.update(product.getId(), productDTO));
+
+        assertEquals(0, applicationEvents.stream(ProductChangedEvent.class).count());
+    }
+
     @Test
     void givenNoProduct_whenDelete_thenThrowResourceNotFoundException() {
         when(productRepository.getReferenceById(product.getId())).thenReturn(product);
@@ -0,0 +1,148 @@
+package com.example.demo.services;
+
+import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.ProductSuggestionDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.entities.Product;
+import com.example.demo.entities.user.Seller;
+import com.example.demo.services.catalog.ProductCatalogSnapshot;
+import com.example.demo.utils.TestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestionServiceTest extends ApplicationConfigTest {
+    @Autowired
+    private ProductSuggestionService productSuggestionService;
+
+    private Seller seller = (Seller) TestDataBuilder.buildUserWithId();
+    private List<ProductSummaryDTO> products = new ArrayList<>();
+
+    private ProductSummaryDTO add(String name, long ratingCount) {
+        Product product = TestDataBuilder.buildProductWithId(seller);
+        product.setName(name);
+        product.setRatingCount(ratingCount);
+        ProductSummaryDTO summary = ProductSummaryDTO.from(product);
+        products.add(summary);
+        return summary;
+    }
+
+    private ProductCatalogSnapshot rebuild() {
+        ProductCatalogSnapshot.Builder builder = new ProductCatalogSnapshot.Builder(products.size());
+        products.forEach(builder::add);
+        ProductCatalogSnapshot snapshot = builder.build();
+        productSuggestionService.rebuild(snapshot);
+        return snapshot;
+    }
+
+    private List<UUID> suggest(String prefix, int limit) {
+        return productSuggestionService.suggest(prefix, limit).stream().map(ProductSuggestionDTO::getId).toList();
+    }
+
+    @Test
+    void givenIndexedProducts_whenSuggest_thenReturnPrefixMatchesMostRatedFirst() {
+        ProductSummaryDTO mouse = add("Gaming Mouse", 3);
+        ProductSummaryDTO headset = add("Gaming Headset", 40);
+        ProductSummaryDTO chair = add("Gaming Chair", 3);
+        add("Mouse Pad", 100);
+        rebuild();
+
+        assertEquals(List.of(headset.getId(), chair.getId(), mouse.getId()), suggest("gaming", 10));
+    }
+
+    @Test
+    void givenMoreMatchesThanLimit_whenSuggest_thenReturnTheMostRated() {
+        UUID[] idsByRatingCount = new UUID[50];
+        for (int i = 0; i < 50; i++) {
+            int ratingCount = (i * 37) % 50;
+            idsByRatingCount[ratingCount] = add("Lamp " + i, ratingCount).getId();
+        }
+        rebuild();
+
+        assertEquals(List.of(idsByRatingCount[49], idsByRatingCount[48], idsByRatingCount[47]), suggest("lamp", 3));
+        assertEquals(ProductSuggestionService.MAX_SUGGESTIONS, suggest("lamp", 100).size());
+    }
+
+    @Test
+    void givenMixedCaseAndAccents_whenSuggest_thenMatchNormalizedName() {
+        ProductSummaryDTO cafe = add("Café  Grinder", 0);
+        add("Cafeteria Tray", 0);
+        rebuild();
+
+        List<ProductSuggestionDTO> result = productSuggestionService.suggest("  CAFE g", 10);
+
+        assertEquals(1, result.size());
+        assertEquals(cafe.getId(), result.get(0).getId());
+        assertEquals("Café  Grinder", result.get(0).getName());
+    }
+
+    @Test
+    void givenBlankPrefix_whenSuggest_thenReturnEmptyList() {
+        add("Desk", 0);
+        rebuild();
+
+        assertTrue(productSuggestionService.suggest("   ", 10).isEmpty());
+    }
+
+    @Test
+    void givenNoMatch_whenSuggest_thenReturnEmptyList() {
+        add("Desk", 0);
+        rebuild();
+
+        assertTrue(productSuggestionService.suggest("zebra", 10).isEmpty());
+        assertTrue(productSuggestionService.suggest("desks", 10).isEmpty());
+    }
+
+    @Test
+    void givenRenamedAndDeletedProducts_whenRebuild_thenSuggestOnlyNewSnapshot() {
+        ProductSummaryDTO chair = add("Old Chair", 0);
+        ProductSummaryDTO table = add("Table", 0);
+        ProductCatalogSnapshot snapshot = rebuild();
+
+        ProductCatalogSnapshot.Mutation mutation = snapshot.mutate();
+        chair.setName("New Chair");
+        mutation.put(chair);
+        mutation.remove(table.getId());
+        productSuggestionService.rebuild(mutation.publish());
+
+        assertTrue(suggest("old", 10).isEmpty());
+        assertTrue(suggest("table", 10).isEmpty());
+        assertEquals(List.of(chair.getId()), suggest("new", 10));
+    }
+
+    @Test
+    void givenNewProducts_whenRebuild_thenMergeThemIntoNameOrder() {
+        ProductSummaryDTO b = add("Lamp B", 0);
+        ProductSummaryDTO d = add("Lamp D", 0);
+        ProductCatalogSnapshot snapshot = rebuild();
+
+        ProductCatalogSnapshot.Mutation mutation = snapshot.mutate();
+        ProductSummaryDTO e = add("Lamp E", 0);
+        ProductSummaryDTO a = add("Lamp A", 0);
+        ProductSummaryDTO c = add("Lamp C", 0);
+        List.of(e, a, c).forEach(mutation::put);
+        productSuggestionService.rebuild(mutation.publish());
+
+        assertEquals(List.of(a.getId(), b.getId(), c.getId(), d.getId(), e.getId()), suggest("lamp", 10));
+    }
+
+    @Test
+    void givenRatingDelta_whenRebuild_thenReorderSuggestions() {
+        ProductSummaryDTO first = add("Pen A", 5);
+        ProductSummaryDTO second = add("Pen B", 1);
+        ProductCatalogSnapshot snapshot = rebuild();
+
+        ProductCatalogSnapshot.Mutation mutation = snapshot.mutate();
+        mutation.addRating(second.getId(), 10, 50);
+        productSuggestionService.rebuild(mutation.publish());
+
+        assertEquals(List.of(second.getId(), first.getId()), suggest("pen", 10));
+    }
+
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.demo.services;
 
 import com.example.demo.ApplicationConfigTest;
+import com.example.demo.dtos.EntityVersionDTO;
 import com.example.demo.dtos.ReviewDTO;
 import com.example.demo.dtos.UpdateReviewDTO;
 import com.example.demo.entities.Product;
@@ -11,16 +12,19 @@ import com.example.demo.entities.user.User;
 import com.example.demo.enums.Role;
 import com.example.demo.repositories.ReviewRepository;
 import com.example.demo.services.exceptions.*;
+import com.example.demo.services.utils.SingleFlight;
 import com.example.demo.utils.TestDataBuilder;
-import jakarta.persistence.EntityNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -49,6 +53,9 @@ class ReviewServiceTest extends ApplicationConfigTest {
     @MockBean
     private OrderHistoryService orderHistoryService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Authentication authentication;
     private SecurityContext securityContext;
 
@@ -59,6 +66,8 @@ class ReviewServiceTest extends ApplicationConfigTest {
     private ReviewDTO reviewDTO = TestDataBuilder.buildReviewDTO();
     private Page<Review> reviewPage =
             TestDataBuilder.buildPage(review, 0, 5, Sort.Direction.ASC, "rating");
+    private Slice<Review> reviewSlice =
+            new SliceImpl<>(List.of(review), reviewPage.getPageable(), true);
     private UpdateReviewDTO updateReviewDTO = TestDataBuilder.buildUpdateReviewDTO();
 
     @BeforeEach
@@ -86,7 +95,7 @@ class ReviewServiceTest extends ApplicationConfigTest {
     void givenReviewDTOAndUserProductPurchasedByUser_whenCreate_thenReturnReview() {
         when(productService.findById(reviewDTO.getProductId())).thenReturn(product);
         when(orderHistoryService.isProductPurchasedByUser(product)).thenReturn(true);
-        when(reviewRepository.save(any(Review.class))).thenReturn(review);
+        when(reviewRepository.saveAndFlush(any(Review.class))).thenReturn(review);
 
         Review result = reviewService.create(reviewDTO);
 
@@ -95,7 +104,8 @@ class ReviewServiceTest extends ApplicationConfigTest {
         verifyAuthentication();
         verify(productService, times(1)).findById(reviewDTO.getProductId());
         verify(orderHistoryService, times(1)).isProductPurchasedByUser(product);
-        verify(reviewRepository, times(1)).save(any(Review.class));
+        verify(reviewRepository, times(1)).saveAndFlush(any(Review.class));
+        verify(productService, times(1)).applyRatingDelta(product.getId(), 1, review.getRating());
     }
 
     @Test
@@ -116,7 +126,7 @@ class ReviewServiceTest extends ApplicationConfigTest {
     void givenReviewForProductAlreadyExists_whenCreate_thenHandleDataIntegrityViolationException() {
         when(productService.findById(reviewDTO.getProductId())).thenReturn(product);
         when(orderHistoryService.isProductPurchasedByUser(product)).thenReturn(true);
-        when(reviewRepository.save(any(Review.class))).thenThrow(DataIntegrityViolationException.class);
+        when(reviewRepository.saveAndFlush(any(Review.class))).thenThrow(DataIntegrityViolationException.class);
 
         assertThrows(UniqueConstraintViolationError.class,
                 () -> reviewService.create(reviewDTO));
@@ -124,7 +134,8 @@ class ReviewServiceTest extends ApplicationConfigTest {
         verifyAuthentication();
         verify(productService, times(1)).findById(reviewDTO.getProductId());
         verify(orderHistoryService, times(1)).isProductPurchasedByUser(product);
-        verify(reviewRepository, times(1)).save(any(Review.class));
+        verify(reviewRepository, times(1)).saveAndFlush(any(Review.class));
+        verify(productService, never()).applyRatingDelta(any(UUID.class), anyLong(), anyLong());
     }
 
     @Test
@@ -146,6 +157,40 @@ class ReviewServiceTest extends ApplicationConfigTest {
                 .findAllByProduct(product, reviewPage.getPageable());
     }
 
+    @Test
+    void givenProductIdAndPaging_whenFindSliceByProduct_ThenReturnReviewSlice() {
+        when(productService.findById(product.getId())).thenReturn(product);
+        when(reviewRepository.findSliceByProduct(product, reviewPage.getPageable()))
+                .thenReturn(reviewSlice);
+
+        Slice<Review> result = reviewService
+                .findSliceByProduct(product.getId(),
+                        reviewPage.getPageable().getPageNumber(),
+                        reviewPage.getPageable().getPageSize(),
+                        Sort.Direction.ASC, "rating");
+
+        assertEquals(reviewSlice, result);
+
+        verify(reviewRepository, times(1))
+                .findSliceByProduct(product, reviewPage.getPageable());
+        verify(reviewRepository, never()).findAllByProduct(any(Product.class), any(Pageable.class));
+    }
+
+    @Test
+    void givenProductIdAndPaging_whenFindAllByProduct_thenLoadThroughReviewPageSingleFlight() {
+        Counter executed = meterRegistry.counter(SingleFlight.LOADS_COUNTER, "name", "reviewPage", "outcome",
+                "executed");
+        double executedBefore = executed.count();
+        when(productService.findById(product.getId())).thenReturn(product);
+        when(reviewRepository.findAllByProduct(product, reviewPage.getPageable())).thenReturn(reviewPage);
+
+        reviewService.findAllByProduct(product.getId(), reviewPage.getPageable().getPageNumber(),
+                reviewPage.getPageable().getPageSize(), Sort.Direction.ASC, "rating");
+
+        assertEquals(1, executed.count() - executedBefore);
+        verify(reviewRepository, times(1)).findAllByProduct(product, reviewPage.getPageable());
+    }
+
     @Test
     void givenPaging_whenFindByCurrentUser_ThenReturnReviewPage() {
         when(reviewRepository.findAllByCustomer(customer, reviewPage.getPageable()))
@@ -163,6 +208,22 @@ class ReviewServiceTest extends ApplicationConfigTest {
                 .findAllByCustomer(customer, reviewPage.getPageable());
     }
 
+    @Test
+    void givenPaging_whenFindSliceByCurrentUser_ThenReturnReviewSlice() {
+        when(reviewRepository.findSliceByCustomer(customer, reviewPage.getPageable()))
+                .thenReturn(reviewSlice);
+
+        Slice<Review> result = reviewService
+                .findSliceByCurrentUser(reviewPage.getPageable().getPageNumber(),
+                        reviewPage.getPageable().getPageSize(),
+                        Sort.Direction.ASC, "rating");
+
+        assertEquals(reviewSlice, result);
+
+        verify(reviewRepository, times(1))
+                .findSliceByCustomer(customer, reviewPage.getPageable());
+    }
+
     @Test
     void givenReviews_whenFindAll_ThenReturnReviewPage() {
         when(reviewRepository.findAll(any(Pageable.class))).thenReturn(reviewPage);
@@ -201,9 +262,45 @@ class ReviewServiceTest extends ApplicationConfigTest {
         verify(reviewRepository, times(1)).findById(review.getId());
     }
 
+    @Test
+    void givenReview_whenFindVersionById_thenReturnVersion() {
+        EntityVersionDTO version = new EntityVersionDTO(2, review.getCreatedDate());
+        when(reviewRepository.findVersionById(review.getId())).thenReturn(Optional.of(version));
+
+        EntityVersionDTO result = reviewService.findVersionById(review.getId());
+
+        assertEquals(version, result);
+
+        verifyNoAuthentication();
+        verify(reviewRepository, never()).findById(review.getId());
+    }
+
+    @Test
+    void givenNoReview_whenFindVersionById_thenThrowResourceNotFoundException() {
+        when(reviewRepository.findVersionById(review.getId())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> reviewService.findVersionById(review.getId()));
+
+        verify(reviewRepository, times(1)).findVersionById(review.getId());
+    }
+
+    @Test
+    void givenProduct_whenFindVersionByProduct_thenReturnProductVersion() {
+        EntityVersionDTO version = new EntityVersionDTO(5, review.getCreatedDate());
+        when(productService.findVersionById(product.getId())).thenReturn(version);
+
+        EntityVersionDTO result = reviewService.findVersionByProduct(product.getId());
+
+        assertEquals(version, result);
+
+        verify(productService, times(1)).findVersionById(product.getId());
+        verify(reviewRepository, never()).findAllByProduct(any(), any());
+    }
+
     @Test
     void givenValidIdAndReviewDTO_whenUpdate_thenReturnUpdatedReview() {
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
+        int previousRating = review.getRating();
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.of(review));
         when(reviewRepository.save(review)).thenReturn(review);
 
         Review result = reviewService.update(review.getId(), updateReviewDTO);
@@ -211,22 +308,23 @@ class ReviewServiceTest extends ApplicationConfigTest {
         assertEquals(updateReviewDTO.getRating(), result.getRating());
 
         verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
         verify(reviewRepository, times(1)).save(review);
+        verify(productService, times(1)).applyRatingDelta(product.getId(), 0,
+                updateReviewDTO.getRating() - previousRating);
     }
 
     @Test
     void givenNoReview_whenUpdate_thenThrowResourceNotFoundException() {
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
-        when(reviewRepository.save(review))
-                .thenThrow(EntityNotFoundException.class);
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> reviewService.update(review.getId(), updateReviewDTO));
 
-        verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
-        verify(reviewRepository, times(1)).save(review);
+        verifyNoAuthentication();
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
+        verify(reviewRepository, never()).save(review);
+        verifyNoInteractions(productService);
     }
 
     @Test
@@ -235,45 +333,46 @@ class ReviewServiceTest extends ApplicationConfigTest {
         when(user2.getId()).thenReturn(UUID.randomUUID());
 
         when(authentication.getPrincipal()).thenReturn(user2);
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.of(review));
         when(reviewRepository.save(review)).thenReturn(review);
 
         assertThrows(UnauthorizedAccessException.class,
                 () -> reviewService.update(review.getId(), updateReviewDTO));
 
         verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
         verify(reviewRepository, never()).save(review);
+        verifyNoInteractions(productService);
     }
 
     @Test
     void givenReview_whenDelete_thenDeleteReview() {
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.of(review));
 
         reviewService.delete(review.getId());
 
         verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
         verify(reviewRepository, times(1)).deleteById(review.getId());
+        verify(productService, times(1)).applyRatingDelta(product.getId(), -1, -review.getRating());
     }
 
     @Test
     void givenNoReview_whenDelete_thenThrowResourceNotFoundException() {
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
-        doThrow(EmptyResultDataAccessException.class)
-                .when(reviewRepository).deleteById(review.getId());
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> reviewService.delete(review.getId()));
 
-        verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
-        verify(reviewRepository, times(1)).deleteById(review.getId());
+        verifyNoAuthentication();
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
+        verify(reviewRepository, never()).deleteById(review.getId());
+        verifyNoInteractions(productService);
     }
 
     @Test
     void givenReviewAndDeleteCausesDataIntegrityViolationException_whenDelete_thenThrowDatabaseException() {
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.of(review));
         doThrow(DataIntegrityViolationException.class)
                 .when(reviewRepository).deleteById(review.getId());
 
@@ -281,8 +380,9 @@ class ReviewServiceTest extends ApplicationConfigTest {
                 () -> reviewService.delete(review.getId()));
 
         verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
         verify(reviewRepository, times(1)).deleteById(review.getId());
+        verifyNoInteractions(productService);
     }
 
     @Test
@@ -293,14 +393,15 @@ class ReviewServiceTest extends ApplicationConfigTest {
         doReturn(authorities).when(user2).getAuthorities();
 
         when(authentication.getPrincipal()).thenReturn(user2);
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.of(review));
 
         assertThrows(UnauthorizedAccessException.class,
                 () -> reviewService.delete(review.getId()));
 
         verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
         verify(reviewRepository, never()).deleteById(review.getId());
+        verifyNoInteractions(productService);
     }
 
     @Test
@@ -311,13 +412,14 @@ class ReviewServiceTest extends ApplicationConfigTest {
         doReturn(authorities).when(user2).getAuthorities();
         when(authentication.getPrincipal()).thenReturn(user2);
 
-        when(reviewRepository.getReferenceById(review.getId())).thenReturn(review);
+        when(reviewRepository.findByIdForUpdate(review.getId())).thenReturn(Optional.of(review));
 
         reviewService.delete(review.getId());
 
         verifyAuthentication();
-        verify(reviewRepository, times(1)).getReferenceById(review.getId());
+        verify(reviewRepository, times(1)).findByIdForUpdate(review.getId());
         verify(reviewRepository, times(1)).deleteById(review.getId());
+        verify(productService, times(1)).applyRatingDelta(product.getId(), -1, -review.getRating());
     }
 
 }
\ No newline at end of file
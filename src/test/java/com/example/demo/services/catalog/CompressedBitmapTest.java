@@ -0,0 +1,110 @@
+package com.example.demo.services.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTest {
+
+    private final Random random = new Random(42);
+
+    // mixes a sparse chunk, a dense chunk past the array limit and a chunk far away
+    private BitSet randomSet(double sparseDensity, double denseDensity) {
+        BitSet set = new BitSet();
+        for (int value = 0; value < 1 << 16; value++) {
+            if (random.nextDouble() < sparseDensity) {
+                set.set(value);
+            }
+        }
+        for (int value = 1 << 16; value < 2 << 16; value++) {
+            if (random.nextDouble() < denseDensity) {
+                set.set(value);
+            }
+        }
+        set.set(5 << 16 | random.nextInt(1 << 16));
+        return set;
+    }
+
+    private CompressedBitmap toBitmap(BitSet set) {
+        return CompressedBitmap.of(set.stream().toArray());
+    }
+
+    private BitSet toBitSet(CompressedBitmap bitmap) {
+        BitSet set = new BitSet();
+        bitmap.forEach(set::set);
+        return set;
+    }
+
+    @Test
+    void givenSparseAndDenseChunks_whenBuild_thenKeepEveryValue() {
+        BitSet set = randomSet(0.01, 0.5);
+
+        CompressedBitmap bitmap = toBitmap(set);
+
+        assertEquals(set.cardinality(), bitmap.cardinality());
+        assertEquals(set, toBitSet(bitmap));
+        assertTrue(bitmap.contains(set.nextSetBit(1 << 16)));
+        assertFalse(bitmap.contains(set.nextClearBit(1 << 16)));
+    }
+
+    @Test
+    void givenTwoBitmaps_whenAndOrAndCardinality_thenMatchBitSetOperations() {
+        BitSet a = randomSet(0.05, 0.3);
+        BitSet b = randomSet(0.2, 0.02);
+        BitSet expectedAnd = (BitSet) a.clone();
+        expectedAnd.and(b);
+        BitSet expectedOr = (BitSet) a.clone();
+        expectedOr.or(b);
+
+        CompressedBitmap bitmapA = toBitmap(a);
+        CompressedBitmap bitmapB = toBitmap(b);
+
+        assertEquals(expectedAnd, toBitSet(bitmapA.and(bitmapB)));
+        assertEquals(expectedAnd.cardinality(), bitmapA.and(bitmapB).cardinality());
+        assertEquals(expectedAnd.cardinality(), bitmapA.andCardinality(bitmapB));
+        assertEquals(expectedOr, toBitSet(bitmapA.or(bitmapB)));
+        assertEquals(expectedOr.cardinality(), bitmapA.or(bitmapB).cardinality());
+    }
+
+    @Test
+    void givenTwoBitmaps_whenAndNot_thenMatchBitSetAndNot() {
+        BitSet a = randomSet(0.05, 0.3);
+        BitSet b = randomSet(0.2, 0.25);
+        BitSet expected = (BitSet) a.clone();
+        expected.andNot(b);
+
+        CompressedBitmap result = toBitmap(a).andNot(toBitmap(b));
+
+        assertEquals(expected, toBitSet(result));
+        assertEquals(expected.cardinality(), result.cardinality());
+        assertEquals(a.cardinality() - 1, toBitmap(a).andNot(CompressedBitmap.of(a.nextSetBit(1 << 16)))
+                .cardinality());
+    }
+
+    @Test
+    void givenSparseArraysWhoseUnionIsDense_whenOr_thenKeepEveryValue() {
+        List<Integer> even = new ArrayList<>();
+        List<Integer> odd = new ArrayList<>();
+        for (int value = 0; value < 2 * CompressedBitmap.ARRAY_LIMIT; value++) {
+            (value % 2 == 0 ? even : odd).add(value);
+        }
+
+        CompressedBitmap union = CompressedBitmap.of(even.stream().mapToInt(Integer::intValue).toArray())
+                .or(CompressedBitmap.of(odd.stream().mapToInt(Integer::intValue).toArray()));
+
+        assertEquals(2 * CompressedBitmap.ARRAY_LIMIT, union.cardinality());
+        assertTrue(union.contains(2 * CompressedBitmap.ARRAY_LIMIT - 1));
+    }
+
+    @Test
+    void givenValuesOutOfOrder_whenBuild_thenThrowIllegalArgumentException() {
+        CompressedBitmap.Builder builder = new CompressedBitmap.Builder().add(3);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(3));
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.demo.services.catalog;
+
+import com.example.demo.dtos.ProductFacetsDTO;
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductSuggestionDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.enums.PriceBucket;
+import com.example.demo.enums.ProductCategory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans of the catalog snapshot at 100k and 1M products, plus the cost of publishing a single change.
+ * The SQL side of the same queries is measured by ProductCatalogIntegrationTest. Not run by the test
+ * suite; build the test classpath and start the JMH runner:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt
+ * java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) \
+ *     org.openjdk.jmh.Main ProductCatalogSnapshotBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProductCatalogSnapshotBenchmark {
+
+    private static final ProductCategory[] CATEGORIES = ProductCategory.values();
+    private static final int SELLERS = 1000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    private ProductCatalogSnapshot snapshot;
+    private ProductSuggestionIndex suggestionIndex;
+    private ProductCatalogSnapshot refreshedSnapshot;
+    private UUID[] sellerIds;
+    private ProductFilterDTO categoryAndPriceFilter;
+    private ProductFilterDTO sellerFilter;
+
+    @Setup(Level.Trial)
+    public void load() {
+        Random random = new Random(42);
+        sellerIds = new UUID[SELLERS];
+        for (int seller = 0; seller < SELLERS; seller++) {
+            sellerIds[seller] = new UUID(random.nextLong(), random.nextLong());
+        }
+        ProductCatalogSnapshot.Builder builder = new ProductCatalogSnapshot.Builder(rows);
+        for (int row = 0; row < rows; row++) {
+            builder.add(randomProduct(random, new UUID(random.nextLong(), random.nextLong())));
+        }
+        snapshot = builder.build();
+
+        categoryAndPriceFilter = ProductFilterDTO.builder()
+                .categories(Set.of(ProductCategory.BOOKS, ProductCategory.TOYS))
+                .minPrice(new BigDecimal("10.00"))
+                .maxPrice(new BigDecimal("100.00"))
+                .build();
+        sellerFilter = ProductFilterDTO.builder().sellerId(sellerIds[7]).build();
+
+        // the first query of each order sorts the rows; the benchmarks measure the scans behind it
+        snapshot.scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC, ScrollPosition.keyset(), 1);
+        snapshot.scroll(new ProductFilterDTO(), "averageRating", Sort.Direction.DESC, ScrollPosition.keyset(), 1);
+        snapshot.facets(null, null, null);
+        suggestionIndex = ProductSuggestionIndex.of(snapshot);
+        ProductCatalogSnapshot.Mutation mutation = snapshot.mutate();
+        for (int product = 0; product < 100; product++) {
+            mutation.put(randomProduct(random, new UUID(random.nextLong(), random.nextLong())));
+        }
+        refreshedSnapshot = mutation.publish();
+    }
+
+    private ProductSummaryDTO randomProduct(Random random, UUID id) {
+        long ratingCount = random.nextInt(50);
+        return ProductSummaryDTO.builder()
+                .id(id)
+                .name("Product " + id)
+                .description("Description of product " + id)
+                .price(BigDecimal.valueOf(1 + random.nextInt(200_000), 2))
+                .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                .sellerId(sellerIds[random.nextInt(SELLERS)])
+                .sellerName("Seller")
+                .ratingCount(ratingCount)
+                .averageRating(ratingCount == 0 ? 0.0 : 1 + random.nextInt(5))
+                .build();
+    }
+
+    @Benchmark
+    public List<ProductSummaryDTO> scrollByCategoryAndPrice() {
+        return snapshot.scroll(categoryAndPriceFilter, "price", Sort.Direction.ASC, ScrollPosition.keyset(),
+                PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public List<ProductSummaryDTO> scrollSellerByRating() {
+        return snapshot.scroll(sellerFilter, "averageRating", Sort.Direction.DESC, ScrollPosition.keyset(),
+                PAGE_SIZE + 1);
+    }
+
+    @Benchmark
+    public Page<ProductSummaryDTO> findPageCountingEveryMatch() {
+        return snapshot.findPage(categoryAndPriceFilter, PageRequest.of(0, PAGE_SIZE, Sort.by("price")));
+    }
+
+    @Benchmark
+    public ProductFacetsDTO facets() {
+        return snapshot.facets(Set.of(ProductCategory.BOOKS), null, Set.of(PriceBucket.FROM_10_TO_25));
+    }
+
+    // every name starts with "product ", so this ranks the whole catalog
+    @Benchmark
+    public List<ProductSuggestionDTO> suggestFromWholeCatalog() {
+        return suggestionIndex.suggest("product", 10);
+    }
+
+    @Benchmark
+    public List<ProductSuggestionDTO> suggestFromNarrowPrefix() {
+        return suggestionIndex.suggest("product ab", 10);
+    }
+
+    @Benchmark
+    public ProductSuggestionIndex buildSuggestionIndex() {
+        return ProductSuggestionIndex.of(snapshot);
+    }
+
+    // what a catalog refresh hands over after a hundred products were created
+    @Benchmark
+    public ProductSuggestionIndex updateSuggestionIndex() {
+        return suggestionIndex.update(refreshedSnapshot);
+    }
+
+    /**
+     * Publishes one change at a time on top of the previous one, the way change events are folded in.
+     */
+    @State(Scope.Thread)
+    public static class Changes {
+
+        private final Random random = new Random(7);
+        private ProductCatalogSnapshot current;
+
+        @Setup(Level.Trial)
+        public void reset(ProductCatalogSnapshotBenchmark benchmark) {
+            current = benchmark.snapshot;
+        }
+    }
+
+    @Benchmark
+    public ProductCatalogSnapshot publishNewProduct(Changes changes) {
+        ProductCatalogSnapshot.Mutation mutation = changes.current.mutate();
+        mutation.put(randomProduct(changes.random, UUID.randomUUID()));
+        changes.current = mutation.publish();
+        return changes.current;
+    }
+
+    @Benchmark
+    public ProductCatalogSnapshot publishPriceChange(Changes changes) {
+        ProductSummaryDTO product = changes.current.scroll(new ProductFilterDTO(), "price", Sort.Direction.ASC,
+                ScrollPosition.keyset(), 1).get(0);
+        product.setPrice(BigDecimal.valueOf(1 + changes.random.nextInt(200_000), 2));
+        ProductCatalogSnapshot.Mutation mutation = changes.current.mutate();
+        mutation.put(product);
+        changes.current = mutation.publish();
+        return changes.current;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.services.catalog;
+
+import com.example.demo.dtos.ProductFilterDTO;
+import com.example.demo.dtos.ProductSummaryDTO;
+import com.example.demo.enums.ProductCategory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogSnapshotFileTest {
+
+    @TempDir
+    private Path directory;
+
+    private ProductSummaryDTO buildSummary(String price, ProductCategory category, String name) {
+        return ProductSummaryDTO.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .description("Description of " + name)
+                .price(new BigDecimal(price))
+                .category(category)
+                .sellerId(UUID.randomUUID())
+                .sellerName("seller")
+                .ratingCount(3)
+                .averageRating(4.0)
+                .build();
+    }
+
+    @Test
+    void givenSnapshot_whenWriteAndRead_thenReturnSameProductsAndHighWaterMark() throws Exception {
+        List<ProductSummaryDTO> products = List.of(
+                buildSummary("10.00", ProductCategory.BOOKS, "Bücher \"quoted\""),
+                buildSummary("5.50", ProductCategory.TOYS, "toy"));
+        ProductCatalogSnapshot.Builder builder = new ProductCatalogSnapshot.Builder(2);
+        products.forEach(builder::add);
+        Instant highWaterMark = Instant.ofEpochMilli(1_700_000_000_000L);
+        ProductCatalogSnapshotFile file = new ProductCatalogSnapshotFile(directory.resolve("catalog.bin"));
+
+        file.write(builder.build(), highWaterMark);
+        ProductCatalogSnapshotFile.Contents result = file.read();
+
+        assertEquals(highWaterMark, result.highWaterMark());
+        assertEquals(List.of(products.get(1), products.get(0)), result.snapshot().findPage(new ProductFilterDTO(),
+                PageRequest.of(0, 10, Sort.Direction.ASC, "price")).getContent());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void givenCorruptedFile_whenRead_thenReturnNull() throws Exception {
+        Path path = directory.resolve("catalog.bin");
+        ProductCatalogSnapshot.Builder builder = new ProductCatalogSnapshot.Builder(1);
+        builder.add(buildSummary("10.00", ProductCategory.BOOKS, "book"));
+        ProductCatalogSnapshotFile file = new ProductCatalogSnapshotFile(path);
+        file.write(builder.build(), Instant.now());
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+
+        assertNull(file.read());
+    }
+
+    @Test
+    void givenMissingFile_whenRead_thenReturnNull() throws Exception {
+        assertNull(new ProductCatalogSnapshotFile(directory.resolve("missing.bin")).read());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.services.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.counter(SingleFlight.LOADS_COUNTER, "name", "test", "outcome", outcome).count();
+    }
+
+    // releases the loader once every other caller is waiting on it
+    private void awaitCoalesced(CountDownLatch release) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("coalesced") < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+    }
+
+    @Test
+    void givenConcurrentCallers_whenLoad_thenRunLoaderOnceAndShareResult() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load("key", () -> {
+                loads.incrementAndGet();
+                awaitUninterruptibly(release);
+                return 42;
+            })));
+        }
+        awaitCoalesced(release);
+
+        for (Future<Integer> result : results) {
+            assertEquals(42, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, count("executed"));
+        assertEquals(CALLERS - 1, count("coalesced"));
+    }
+
+    @Test
+    void givenFailingLoader_whenLoad_thenEveryWaiterGetsTheExceptionAndNextLoadRunsAgain() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load("key", () -> {
+                awaitUninterruptibly(release);
+                throw new IllegalStateException("load failed");
+            })));
+        }
+        awaitCoalesced(release);
+
+        for (Future<Integer> result : results) {
+            Exception exception = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+        }
+        assertEquals(7, singleFlight.load("key", () -> 7));
+        assertEquals(2, count("executed"));
+    }
+
+    @Test
+    void givenDifferentKeys_whenLoad_thenRunLoaderForEach() {
+        assertEquals(1, singleFlight.load("first", () -> 1));
+        assertEquals(2, singleFlight.load("second", () -> 2));
+
+        assertEquals(2, count("executed"));
+        assertEquals(0, count("coalesced"));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -180,6 +180,7 @@ public class TestDataBuilder {
                 .order(order)
                 .product(product)
                 .quantity(defaultOrderItemQuantity)
+                .unitPrice(product.getPrice())
                 .build();
     }
 
@@ -189,6 +190,7 @@ public class TestDataBuilder {
                 .order(buildOrderWithId())
                 .product(buildProductWithId((Seller) buildUserWithId()))
                 .quantity(defaultOrderItemQuantity)
+                .unitPrice(defaultProductPrice)
                 .build();
     }
 
@@ -198,6 +200,7 @@ public class TestDataBuilder {
                 .order(order)
                 .product(product)
                 .quantity(defaultOrderItemQuantity)
+                .unitPrice(product.getPrice())
                 .build();
     }
 